@@ -48,6 +48,7 @@ public class CloudStoreClient {
 				DropRepoAliasSubCommand.class,
 				DropRepoConnectionSubCommand.class,
 				HelpSubCommand.class,
+				LocalServerStatusSubCommand.class,
 				RepairDatabaseSubCommand.class,
 				RepoInfoSubCommand.class,
 				RepoListSubCommand.class,
@@ -0,0 +1,30 @@
+package co.codewizards.cloudstore.client;
+
+import co.codewizards.cloudstore.ls.core.dto.InvocationMetricsDto;
+import co.codewizards.cloudstore.ls.rest.client.request.GetInvocationMetrics;
+
+/**
+ * {@link SubCommand} implementation for showing the load of the local-server shared by all clients.
+ */
+public class LocalServerStatusSubCommand extends SubCommand
+{
+	@Override
+	public String getSubCommandDescription() {
+		return "Show the method-invocation metrics of the local-server.";
+	}
+
+	@Override
+	public void run() throws Exception {
+		final InvocationMetricsDto invocationMetricsDto = getLocalServerRestClient().execute(new GetInvocationMetrics());
+
+		System.out.println("Local-server:");
+		System.out.println("  activeClientCount = " + invocationMetricsDto.getActiveClientCount());
+		System.out.println("  invocationCount = " + invocationMetricsDto.getInvocationCount());
+		System.out.println("  failedInvocationCount = " + invocationMetricsDto.getFailedInvocationCount());
+		System.out.println("  queuedInvocationCount = " + invocationMetricsDto.getQueuedInvocationCount());
+		System.out.println("  runningInvocationCount = " + invocationMetricsDto.getRunningInvocationCount());
+		System.out.println(String.format("  averageLatencyMillis = %.3f", invocationMetricsDto.getAverageLatencyMillis()));
+		System.out.println(String.format("  maxLatencyMillis = %.3f", invocationMetricsDto.getMaxLatencyMillis()));
+		System.out.println();
+	}
+}
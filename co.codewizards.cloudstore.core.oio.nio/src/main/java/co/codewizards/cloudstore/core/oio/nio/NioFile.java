@@ -18,6 +18,7 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -202,6 +203,41 @@ public class NioFile extends IoFile implements File {
 		Files.copy(ioFile.toPath(), toFile.getIoFile().toPath(), StandardCopyOption.COPY_ATTRIBUTES);
 	}
 
+	@Override
+	public boolean cloneToCopyAttributes(final File toFile) throws IOException {
+		requireNonNull(toFile, "toFile");
+		if (toFile.existsNoFollow())
+			throw new IOException("toFile file did already exists!");
+
+		if (isSymbolicLink() || !isFile())
+			return false;
+
+		// There is no API for cloning in Java (ioctl FICLONE, clonefile(2)), hence we use the cp command.
+		final String[] command;
+		final String osName = System.getProperty("os.name", "").toLowerCase(Locale.UK);
+		if (osName.startsWith("linux")) // GNU cp fails (instead of copying), if the file system cannot clone (e.g. ext4).
+			command = new String[] { "cp", "--reflink=always", "--preserve=mode,timestamps", "--",
+					ioFile.getAbsolutePath(), toFile.getAbsolutePath() };
+		else if (osName.startsWith("mac")) // -c uses clonefile(2), supported by APFS.
+			command = new String[] { "cp", "-c", "-p", ioFile.getAbsolutePath(), toFile.getAbsolutePath() };
+		else
+			return false;
+
+		try {
+			executeCommand(command);
+			return true;
+		} catch (final IOException | InterruptedException e) {
+			if (e instanceof InterruptedException)
+				Thread.currentThread().interrupt();
+
+			logger.debug("cloneToCopyAttributes: Cloning '{}' failed: {}", ioFile, e.toString());
+			if (toFile.existsNoFollow())
+				toFile.delete();
+
+			return false;
+		}
+	}
+
 	@Override
 	public boolean setLastModified(long lastModified) {
 		final FileTime lastModifiedTime = FileTime.fromMillis(lastModified);
@@ -234,28 +270,8 @@ public class NioFile extends IoFile implements File {
 		// Therefore, we fall back to the touch command, if the above code failed.
 
 		final String timestamp = new SimpleDateFormat("yyyyMMddHHmm.ss").format(new Date(lastModified));
-		final ProcessBuilder processBuilder = new ProcessBuilder("touch", "-c", "-h", "-m", "-t", timestamp, path.toString());
-		processBuilder.redirectErrorStream(true);
 		try {
-			final Process process = processBuilder.start();
-			final ByteArrayOutputStream stdOut = new ByteArrayOutputStream();
-			final int processExitCode;
-			final DumpStreamThread dumpInputStreamThread = new DumpStreamThread(process.getInputStream(), stdOut, logger);
-			try {
-				dumpInputStreamThread.start();
-				processExitCode = process.waitFor();
-			} finally {
-				dumpInputStreamThread.flushBuffer();
-				dumpInputStreamThread.interrupt();
-			}
-
-			if (processExitCode != 0) {
-				final String stdOutString = new String(stdOut.toByteArray());
-				throw new IOException(String.format(
-						"Command 'touch' failed with exitCode=%s and the following message: %s",
-						processExitCode, stdOutString));
-			}
-
+			executeCommand("touch", "-c", "-h", "-m", "-t", timestamp, path.toString());
 			return true;
 		} catch (IOException | InterruptedException e) {
 			errors.add(e);
@@ -270,6 +286,29 @@ public class NioFile extends IoFile implements File {
 		return false;
 	}
 
+	private static void executeCommand(final String ... command) throws IOException, InterruptedException {
+		final ProcessBuilder processBuilder = new ProcessBuilder(command);
+		processBuilder.redirectErrorStream(true);
+		final Process process = processBuilder.start();
+		final ByteArrayOutputStream stdOut = new ByteArrayOutputStream();
+		final int processExitCode;
+		final DumpStreamThread dumpInputStreamThread = new DumpStreamThread(process.getInputStream(), stdOut, logger);
+		try {
+			dumpInputStreamThread.start();
+			processExitCode = process.waitFor();
+		} finally {
+			dumpInputStreamThread.flushBuffer();
+			dumpInputStreamThread.interrupt();
+		}
+
+		if (processExitCode != 0) {
+			final String stdOutString = new String(stdOut.toByteArray());
+			throw new IOException(String.format(
+					"Command '%s' failed with exitCode=%s and the following message: %s",
+					command[0], processExitCode, stdOutString));
+		}
+	}
+
 	@Override
 	public String relativize(final File target) {
 		return ioFile.getAbsoluteFile().toPath().relativize(target.getIoFile().getAbsoluteFile().toPath()).toString();
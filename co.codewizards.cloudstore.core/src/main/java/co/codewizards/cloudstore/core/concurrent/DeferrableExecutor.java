@@ -4,6 +4,7 @@ import static co.codewizards.cloudstore.core.chronos.ChronosUtil.*;
 import static java.util.Objects.*;
 
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -14,11 +15,14 @@ import java.util.Timer;
 import java.util.TimerTask;
 import java.util.WeakHashMap;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,15 +51,69 @@ public class DeferrableExecutor {
 
 	private static final int DEFAULT_EXPIRY_PERIOD = 60 * 60 * 1000;
 
+	/**
+	 * The {@code key} for the timeout used with {@link #callAsync(String, int, CallableProvider, DeferredCallback) callAsync(...)}.
+	 * <p>
+	 * If the {@code Callable} did not complete within this time, the caller is notified with a
+	 * {@link DeferredCompletionException} and has to ask again - just like after the {@link #CONFIG_KEY_TIMEOUT timeout}
+	 * of the synchronous {@link #call(String, CallableProvider) call(...)}. It must be shorter than the client's
+	 * socket-read-timeout.
+	 * <p>
+	 * The configuration can be overridden by a system property - see {@link Config#SYSTEM_PROPERTY_PREFIX}.
+	 */
+	public static final String CONFIG_KEY_ASYNC_TIMEOUT = "deferrableExecutor.asyncTimeout"; //$NON-NLS-1$
+
+	public static final int DEFAULT_ASYNC_TIMEOUT = 4 * 60 * 1000;
+
+	/**
+	 * The {@code key} for the maximum number of threads executing deferred {@code Callable}s concurrently.
+	 * <p>
+	 * Additional {@code Callable}s are queued - ordered by their priority. This setting is read only once,
+	 * when the {@code DeferrableExecutor} is initialised.
+	 * <p>
+	 * The threads are virtual threads, if {@link ThreadMode#VIRTUAL} is configured (and supported). The limit still
+	 * applies then, because it protects the underlying repositories rather than the OS.
+	 * <p>
+	 * The configuration can be overridden by a system property - see {@link Config#SYSTEM_PROPERTY_PREFIX}.
+	 */
+	public static final String CONFIG_KEY_MAX_THREADS = "deferrableExecutor.maxThreads"; //$NON-NLS-1$
+
+	private static final int DEFAULT_MAX_THREADS = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+	/**
+	 * Priority for short {@code Callable}s which are usually invoked very often (e.g. once per file).
+	 */
+	public static final int PRIORITY_HIGH = 10;
+
+	public static final int PRIORITY_DEFAULT = 0;
+
+	/**
+	 * Priority for long-running {@code Callable}s which are invoked rarely (e.g. once per sync).
+	 */
+	public static final int PRIORITY_LOW = -10;
+
 	private final Map<String, WeakReference<String>> canonicalCallIdentifierMap = new WeakHashMap<String, WeakReference<String>>();
-	private final Map<String, Future<?>> callIdentifier2Future = Collections.synchronizedMap(new HashMap<String, Future<?>>());
+	private final Map<String, DeferredFutureTask<?>> callIdentifier2Future = Collections.synchronizedMap(new HashMap<String, DeferredFutureTask<?>>());
 	private final Map<String, Date> callIdentifier2DoneDate = Collections.synchronizedMap(new WeakHashMap<String, Date>());
-	private final ExecutorService executorService = Executors.newCachedThreadPool();
+	private final AtomicLong nextSequenceNumber = new AtomicLong();
+	private final ThreadPoolExecutor executorService;
 	private final Timer cleanUpExpiredEntriesTimer = new Timer("cleanUpExpiredEntriesTimer", true);
 	private TimerTask cleanUpExpiredEntriesTimerTask;
 	private int lastExpiryPeriod;
 
-	private DeferrableExecutor() { }
+	private DeferrableExecutor() {
+		int maxThreads = ConfigImpl.getInstance().getPropertyAsPositiveOrZeroInt(CONFIG_KEY_MAX_THREADS, DEFAULT_MAX_THREADS);
+		if (maxThreads < 1) {
+			logger.warn("Config key '{}' is set to the value '{}' which is out of range. Falling back to default value {}.",
+					CONFIG_KEY_MAX_THREADS, maxThreads, DEFAULT_MAX_THREADS);
+			maxThreads = DEFAULT_MAX_THREADS;
+		}
+		// The queue is unbounded, hence the pool never grows beyond its core size => core size == max size.
+		executorService = new ThreadPoolExecutor(maxThreads, maxThreads,
+				60L, TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>(),
+				VirtualThreadUtil.createThreadFactory(null, "DeferrableExecutor_", true));
+		executorService.allowCoreThreadTimeOut(true);
+	}
 
 	private static final class RunnableWithProgressExecutorHolder {
 		private static final DeferrableExecutor instance = new DeferrableExecutor();
@@ -67,8 +125,12 @@ public class DeferrableExecutor {
 
 	// TODO maybe we should make it possible to pass the timeout from the client, because
 	// the client knows its socket's read-timeout.
-	@SuppressWarnings("unchecked")
 	public <V> V call(String callIdentifier, final CallableProvider<V> callableProvider) throws DeferredCompletionException, ExecutionException {
+		return call(callIdentifier, PRIORITY_DEFAULT, callableProvider);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <V> V call(String callIdentifier, final int priority, final CallableProvider<V> callableProvider) throws DeferredCompletionException, ExecutionException {
 		requireNonNull(callIdentifier, "callIdentifier");
 		requireNonNull(callableProvider, "callableProvider");
 
@@ -77,12 +139,7 @@ public class DeferrableExecutor {
 		cleanUpExpiredEntries();
 		callIdentifier = canonicalizeCallIdentifier(callIdentifier);
 		synchronized (callIdentifier) {
-			Future<?> future = callIdentifier2Future.get(callIdentifier);
-			if (future == null) {
-				Callable<V> callable = callableProvider.getCallable();
-				future = executorService.submit(new CallableWrapper<V>(callIdentifier, callable));
-				callIdentifier2Future.put(callIdentifier, future);
-			}
+			final Future<?> future = getOrSubmit(callIdentifier, priority, callableProvider);
 
 			Object result;
 			try {
@@ -101,6 +158,130 @@ public class DeferrableExecutor {
 		}
 	}
 
+	/**
+	 * Executes the {@code Callable} provided by the given {@code callableProvider} - or joins an already running
+	 * execution with the same {@code callIdentifier} - without blocking the current thread.
+	 * <p>
+	 * The given {@code callback} is notified on the thread completing the {@code Callable} (or immediately, if it
+	 * already completed). If the callback returns <code>false</code>, the result was not delivered (e.g. because the
+	 * client gave up waiting) and is kept for a subsequent call with the same {@code callIdentifier}.
+	 * <p>
+	 * This method does not handle any timeout. The caller is responsible for notifying its client after
+	 * {@link #getAsyncTimeout()} with a {@link DeferredCompletionException} - the client then asks again.
+	 * @param callIdentifier the identifier of the call. Must not be <code>null</code>.
+	 * @param priority the priority - see {@link #PRIORITY_HIGH}, {@link #PRIORITY_DEFAULT} and {@link #PRIORITY_LOW}.
+	 * Queued {@code Callable}s with a higher priority are executed first.
+	 * @param callableProvider the provider of the {@code Callable}. Must not be <code>null</code>. Invoked synchronously
+	 * during this method - if at all.
+	 * @param callback the callback to be notified about the result. Must not be <code>null</code>.
+	 */
+	public <V> void callAsync(String callIdentifier, final int priority, final CallableProvider<V> callableProvider, final DeferredCallback<V> callback) {
+		requireNonNull(callIdentifier, "callIdentifier");
+		requireNonNull(callableProvider, "callableProvider");
+		requireNonNull(callback, "callback");
+
+		cleanUpExpiredEntries();
+		final String ci = canonicalizeCallIdentifier(callIdentifier);
+		final DeferredFutureTask<?> future;
+		synchronized (ci) {
+			future = getOrSubmit(ci, priority, callableProvider);
+		}
+		future.addListener(new Runnable() {
+			@Override
+			public void run() {
+				// The callback is notified *outside* of the lock: It usually resumes an AsyncResponse, i.e. writes
+				// the response, and must not block other requests with the same callIdentifier meanwhile. The
+				// future is already done, hence get() does not block.
+				boolean delivered;
+				try {
+					@SuppressWarnings("unchecked")
+					final V result = (V) future.get();
+					delivered = callback.completed(result);
+				} catch (java.util.concurrent.ExecutionException e) {
+					delivered = callback.failed(new ExecutionException(e));
+				} catch (InterruptedException | CancellationException e) {
+					delivered = callback.failed(new DeferredCompletionException(e));
+				}
+				if (delivered) {
+					synchronized (ci) {
+						if (callIdentifier2Future.get(ci) == future)
+							callIdentifier2Future.remove(ci);
+					}
+				}
+			}
+		});
+	}
+
+	public int getAsyncTimeout() {
+		return ConfigImpl.getInstance().getPropertyAsPositiveOrZeroInt(CONFIG_KEY_ASYNC_TIMEOUT, DEFAULT_ASYNC_TIMEOUT);
+	}
+
+	private <V> DeferredFutureTask<?> getOrSubmit(final String callIdentifier, final int priority, final CallableProvider<V> callableProvider) {
+		DeferredFutureTask<?> future = callIdentifier2Future.get(callIdentifier);
+		if (future == null) {
+			final Callable<V> callable = callableProvider.getCallable();
+			final DeferredFutureTask<V> futureTask = new DeferredFutureTask<V>(
+					new CallableWrapper<V>(callIdentifier, callable), priority, nextSequenceNumber.getAndIncrement());
+			executorService.execute(futureTask);
+			callIdentifier2Future.put(callIdentifier, futureTask);
+			future = futureTask;
+		}
+		return future;
+	}
+
+	/**
+	 * {@code FutureTask} being ordered by priority (and FIFO within the same priority) in the executor's queue
+	 * and notifying listeners when done.
+	 */
+	private static class DeferredFutureTask<V> extends FutureTask<V> implements Comparable<DeferredFutureTask<?>> {
+		private final int priority;
+		private final long sequenceNumber;
+		private List<Runnable> listeners = new ArrayList<Runnable>(1);
+
+		public DeferredFutureTask(final Callable<V> callable, final int priority, final long sequenceNumber) {
+			super(callable);
+			this.priority = priority;
+			this.sequenceNumber = sequenceNumber;
+		}
+
+		public void addListener(final Runnable listener) {
+			synchronized (this) {
+				if (listeners != null) {
+					listeners.add(listener);
+					return;
+				}
+			}
+			notifyListener(listener);
+		}
+
+		@Override
+		protected void done() {
+			final List<Runnable> ls;
+			synchronized (this) {
+				ls = listeners;
+				listeners = null;
+			}
+			for (final Runnable listener : ls)
+				notifyListener(listener);
+		}
+
+		private static void notifyListener(final Runnable listener) {
+			try {
+				listener.run();
+			} catch (Throwable x) {
+				logger.error("notifyListener: " + x, x);
+			}
+		}
+
+		@Override
+		public int compareTo(final DeferredFutureTask<?> other) {
+			if (this.priority != other.priority)
+				return this.priority > other.priority ? -1 : 1; // higher priority first
+
+			return Long.compare(this.sequenceNumber, other.sequenceNumber);
+		}
+	}
+
 	private class CallableWrapper<V> implements Callable<V> {
 		private final String identifier;
 		private final Callable<V> delegate;
@@ -0,0 +1,14 @@
+package co.codewizards.cloudstore.core.concurrent;
+
+/**
+ * Callback notified by {@link DeferrableExecutor#callAsync(String, int, CallableProvider, DeferredCallback)}.
+ * <p>
+ * Both methods return whether the result was actually delivered. If <code>false</code> is returned (e.g. because
+ * the client already gave up waiting), the {@code DeferrableExecutor} keeps the result for the next call with the
+ * same call-identifier.
+ */
+public interface DeferredCallback<V> {
+	boolean completed(V result);
+
+	boolean failed(Throwable throwable);
+}
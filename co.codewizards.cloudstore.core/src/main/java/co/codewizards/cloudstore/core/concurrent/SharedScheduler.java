@@ -0,0 +1,94 @@
+package co.codewizards.cloudstore.core.concurrent;
+
+import static java.util.Objects.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs periodic background tasks of this JVM.
+ * <p>
+ * In contrast to one {@link java.util.Timer} per component, there is only one single scheduling thread - no matter
+ * how many tasks are scheduled. This matters, if there are many instances each needing a periodic task, e.g.
+ * one per client of the local-server.
+ * <p>
+ * The scheduling thread only triggers the tasks - they are run on worker threads. Hence, a task may block
+ * (e.g. for a remote call) without delaying the other tasks. A task is never run concurrently with itself: if it
+ * is still running when it is due again, this run is skipped.
+ */
+public class SharedScheduler {
+
+	private static final Logger logger = LoggerFactory.getLogger(SharedScheduler.class);
+
+	private final ScheduledThreadPoolExecutor scheduledExecutor;
+	private final ExecutorService workerExecutor;
+
+	private static final class Holder {
+		public static final SharedScheduler instance = new SharedScheduler();
+	}
+
+	public static SharedScheduler getInstance() {
+		return Holder.instance;
+	}
+
+	protected SharedScheduler() {
+		scheduledExecutor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+			@Override
+			public Thread newThread(final Runnable r) {
+				final Thread thread = new Thread(r, "SharedScheduler");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		scheduledExecutor.setRemoveOnCancelPolicy(true);
+		workerExecutor = VirtualThreadUtil.createUnboundedExecutorService(null, "SharedScheduler.worker-", true);
+	}
+
+	/**
+	 * Schedules the given task to be run periodically.
+	 * <p>
+	 * Exceptions thrown by the task are logged - they do not cancel the task.
+	 * @param task the task to be run. Must not be <code>null</code>.
+	 * @param initialDelayMs the delay in milliseconds before the first run.
+	 * @param periodMs the period in milliseconds.
+	 * @return the future allowing to {@linkplain ScheduledFuture#cancel(boolean) cancel} the task. Never <code>null</code>.
+	 */
+	public ScheduledFuture<?> schedulePeriodically(final Runnable task, final long initialDelayMs, final long periodMs) {
+		requireNonNull(task, "task");
+		final AtomicBoolean running = new AtomicBoolean();
+		final Runnable workerRunnable = new Runnable() {
+			@Override
+			public void run() {
+				try {
+					task.run();
+				} catch (final Throwable x) {
+					logger.error("schedulePeriodically: " + task + ": " + x, x);
+				} finally {
+					running.set(false);
+				}
+			}
+		};
+		return scheduledExecutor.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				if (! running.compareAndSet(false, true)) {
+					logger.debug("schedulePeriodically: Skipping {}, because it is still running.", task);
+					return;
+				}
+				try {
+					workerExecutor.execute(workerRunnable);
+				} catch (final Throwable x) {
+					running.set(false);
+					logger.error("schedulePeriodically: " + task + ": " + x, x);
+				}
+			}
+		}, initialDelayMs, periodMs, TimeUnit.MILLISECONDS);
+	}
+}
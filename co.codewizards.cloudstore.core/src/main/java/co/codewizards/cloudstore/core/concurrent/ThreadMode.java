@@ -0,0 +1,38 @@
+package co.codewizards.cloudstore.core.concurrent;
+
+import co.codewizards.cloudstore.core.config.Config;
+
+/**
+ * Kind of threads used by the long-living executors of CloudStore (e.g. the server's request handling,
+ * the {@link DeferrableExecutor} or the {@code RepoSyncDaemon}).
+ * <p>
+ * The mode is configured via the {@link #CONFIG_KEY} and can be overridden by a system property - see
+ * {@link Config#SYSTEM_PROPERTY_PREFIX}. Use {@link VirtualThreadUtil#getThreadMode()} to obtain the mode
+ * actually in effect.
+ */
+public enum ThreadMode {
+
+	/**
+	 * Ordinary (platform) threads - each of them backed by an OS thread. This works on every JRE.
+	 */
+	PLATFORM,
+
+	/**
+	 * Virtual threads, which do not block an OS thread while waiting for locks or I/O. Thus, thousands
+	 * of concurrent (mostly waiting) requests do not require thousands of OS threads.
+	 * <p>
+	 * Virtual threads are available since Java 21. If the current JRE does not support them,
+	 * {@link #PLATFORM} is used instead.
+	 */
+	VIRTUAL
+	;
+
+	/**
+	 * The {@code key} used with {@link Config#getPropertyAsEnum(String, Enum)}.
+	 */
+	public static final String CONFIG_KEY = "threadMode"; //$NON-NLS-1$
+	/**
+	 * The {@code defaultValue} used with {@link Config#getPropertyAsEnum(String, Enum)}.
+	 */
+	public static final ThreadMode CONFIG_DEFAULT_VALUE = PLATFORM;
+}
@@ -0,0 +1,150 @@
+package co.codewizards.cloudstore.core.concurrent;
+
+import static co.codewizards.cloudstore.core.util.Util.*;
+import static java.util.Objects.*;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import co.codewizards.cloudstore.core.config.ConfigImpl;
+
+/**
+ * Creates {@link ThreadFactory}s and {@link ExecutorService}s according to the configured {@link ThreadMode}.
+ * <p>
+ * Since CloudStore is still compiled for older Java versions, the virtual-thread-API (Java 21+) is accessed
+ * via reflection. If it is not available, platform threads are used.
+ */
+public final class VirtualThreadUtil {
+	private static final Logger logger = LoggerFactory.getLogger(VirtualThreadUtil.class);
+
+	private static final Method threadOfVirtualMethod;
+	private static final Method newThreadPerTaskExecutorMethod;
+
+	static {
+		Method ofVirtual = null;
+		Method newThreadPerTaskExecutor = null;
+		try {
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+		} catch (final NoSuchMethodException x) {
+			logger.debug("Virtual threads are not supported by this JRE: " + x);
+			ofVirtual = null;
+			newThreadPerTaskExecutor = null;
+		}
+		threadOfVirtualMethod = ofVirtual;
+		newThreadPerTaskExecutorMethod = newThreadPerTaskExecutor;
+	}
+
+	private static volatile boolean unsupportedWarningLogged;
+
+	private VirtualThreadUtil() {
+	}
+
+	/**
+	 * Is the current JRE able to create virtual threads?
+	 * @return <code>true</code>, if virtual threads are supported; <code>false</code> otherwise.
+	 */
+	public static boolean isVirtualThreadSupported() {
+		return threadOfVirtualMethod != null && newThreadPerTaskExecutorMethod != null;
+	}
+
+	/**
+	 * Gets the {@link ThreadMode} actually in effect.
+	 * <p>
+	 * This is the configured mode - unless {@link ThreadMode#VIRTUAL VIRTUAL} is configured, but not supported
+	 * by the current JRE. In this case, a warning is logged and {@link ThreadMode#PLATFORM PLATFORM} is returned.
+	 * @return the effective thread-mode. Never <code>null</code>.
+	 */
+	public static ThreadMode getThreadMode() {
+		final ThreadMode threadMode = ConfigImpl.getInstance().getPropertyAsEnum(ThreadMode.CONFIG_KEY, ThreadMode.CONFIG_DEFAULT_VALUE);
+		if (threadMode == ThreadMode.VIRTUAL && ! isVirtualThreadSupported()) {
+			if (! unsupportedWarningLogged) {
+				unsupportedWarningLogged = true;
+				logger.warn("Config key '{}' is set to '{}', but this JRE ({}) does not support virtual threads. Falling back to '{}'.",
+						ThreadMode.CONFIG_KEY, threadMode, System.getProperty("java.version"), ThreadMode.PLATFORM);
+			}
+			return ThreadMode.PLATFORM;
+		}
+		return threadMode;
+	}
+
+	/**
+	 * Creates a {@link ThreadFactory} according to the effective {@link #getThreadMode() thread-mode}.
+	 * <p>
+	 * The threads are named <code><i>namePrefix</i><i>index</i></code>. Virtual threads are always daemon
+	 * threads and have no {@code ThreadGroup} of their own, hence {@code threadGroup} and {@code daemon} are
+	 * only used for platform threads.
+	 * @param threadGroup the group of new platform threads. May be <code>null</code>.
+	 * @param namePrefix the prefix of the threads' names. Must not be <code>null</code>.
+	 * @param daemon whether new platform threads are daemon threads.
+	 * @return the new {@code ThreadFactory}. Never <code>null</code>.
+	 */
+	public static ThreadFactory createThreadFactory(final ThreadGroup threadGroup, final String namePrefix, final boolean daemon) {
+		requireNonNull(namePrefix, "namePrefix");
+		if (getThreadMode() == ThreadMode.VIRTUAL)
+			return createVirtualThreadFactory(namePrefix);
+
+		final AtomicInteger threadIndex = new AtomicInteger();
+		return new ThreadFactory() {
+			@Override
+			public Thread newThread(final Runnable r) {
+				final Thread thread = new Thread(threadGroup, r, namePrefix + threadIndex.getAndIncrement());
+				thread.setDaemon(daemon);
+				return thread;
+			}
+		};
+	}
+
+	/**
+	 * Creates an unbounded {@link ExecutorService} according to the effective {@link #getThreadMode() thread-mode}.
+	 * <p>
+	 * In {@link ThreadMode#VIRTUAL VIRTUAL} mode, every task is run on a new virtual thread. In
+	 * {@link ThreadMode#PLATFORM PLATFORM} mode, this is a {@linkplain Executors#newCachedThreadPool(ThreadFactory)
+	 * cached thread-pool}.
+	 * @param threadGroup the group of new platform threads. May be <code>null</code>.
+	 * @param namePrefix the prefix of the threads' names. Must not be <code>null</code>.
+	 * @param daemon whether new platform threads are daemon threads.
+	 * @return the new {@code ExecutorService}. Never <code>null</code>.
+	 */
+	public static ExecutorService createUnboundedExecutorService(final ThreadGroup threadGroup, final String namePrefix, final boolean daemon) {
+		requireNonNull(namePrefix, "namePrefix");
+		if (getThreadMode() == ThreadMode.VIRTUAL)
+			return invoke(newThreadPerTaskExecutorMethod, null, createVirtualThreadFactory(namePrefix));
+
+		return Executors.newCachedThreadPool(createThreadFactory(threadGroup, namePrefix, daemon));
+	}
+
+	private static ThreadFactory createVirtualThreadFactory(final String namePrefix) {
+		// Thread.ofVirtual().name(namePrefix, 0).factory()
+		final Object builder = invoke(threadOfVirtualMethod, null);
+		final Object namedBuilder = invoke(getMethod(builder.getClass(), "name", String.class, long.class), builder, namePrefix, 0L);
+		return invoke(getMethod(namedBuilder.getClass(), "factory"), namedBuilder);
+	}
+
+	private static Method getMethod(final Class<?> clazz, final String name, final Class<?>... parameterTypes) {
+		// The builder's implementation class is not public => we must look up the method in the public interface.
+		for (final Class<?> iface : clazz.getInterfaces()) {
+			try {
+				return iface.getMethod(name, parameterTypes);
+			} catch (final NoSuchMethodException x) {
+				doNothing();
+			}
+		}
+		throw new IllegalStateException(String.format("Method %s not found in interfaces of %s!", name, clazz.getName()));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T invoke(final Method method, final Object target, final Object... args) {
+		try {
+			return (T) method.invoke(target, args);
+		} catch (final Exception x) {
+			throw new IllegalStateException(String.format("Invoking %s failed: %s", method, x), x);
+		}
+	}
+}
@@ -24,6 +24,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -37,6 +39,7 @@ import co.codewizards.cloudstore.core.oio.File;
 import co.codewizards.cloudstore.core.repo.local.LocalRepoHelper;
 import co.codewizards.cloudstore.core.repo.local.LocalRepoManager;
 import co.codewizards.cloudstore.core.util.ISO8601;
+import co.codewizards.cloudstore.core.util.PropertiesUtil;
 
 /**
  * Configuration of CloudStore supporting inheritance of settings.
@@ -48,6 +51,34 @@ import co.codewizards.cloudstore.core.util.ISO8601;
 public class ConfigImpl implements Config {
 	private static final Logger logger = LoggerFactory.getLogger(ConfigImpl.class);
 
+	/**
+	 * System property (or environment variable, see {@link PropertiesUtil#systemPropertyToEnvironmentVariable(String)}) controlling
+	 * the period in milliseconds during which the properties files are considered up-to-date after they were checked
+	 * for modifications.
+	 * <p>
+	 * Within this period, a property is read from memory without accessing the file system at all. A modification
+	 * made via this API (or {@linkplain #notifyPropertiesFilesModified() notified} by the code writing a properties
+	 * file) is detected immediately; only a modification made by another process might go unnoticed for this period.
+	 * 0 causes the files to be checked on every access.
+	 * <p>
+	 * This cannot be configured in a properties file, because the config cannot read its own config (recursion).
+	 */
+	public static final String SYSTEM_PROPERTY_REVALIDATION_PERIOD_MILLIS = SYSTEM_PROPERTY_PREFIX + "config.revalidationPeriodMillis";
+	public static final long DEFAULT_REVALIDATION_PERIOD_MILLIS = 1000L;
+
+	/**
+	 * Incremented whenever a properties file is modified inside this JVM. Every {@code ConfigImpl} remembers the
+	 * value it saw when checking its files and checks them again, if it changed.
+	 */
+	private static final AtomicLong propertiesFilesModificationCount = new AtomicLong();
+
+	/**
+	 * Environment variables cannot change while the JVM is running. Hence, they are looked up only once per key.
+	 * The values are the environment variables' values - or {@link #NULL_VALUE}, if not set.
+	 */
+	private static final Map<String, String> key2EnvVarVal = new ConcurrentHashMap<>();
+	private static final String NULL_VALUE = new String();
+
 	private static final long fileRefsCleanPeriod = 60000L;
 	private static long fileRefsCleanLastTimestamp;
 
@@ -105,6 +136,9 @@ public class ConfigImpl implements Config {
 
 	private long version = 0;
 
+	private long revalidatedTimestamp = Long.MIN_VALUE;
+	private long revalidatedModificationCount = -1;
+
 	protected ConfigImpl(final ConfigImpl parentConfig, final File file, final File [] propertiesFiles) {
 		this.parentConfig = parentConfig;
 
@@ -234,13 +268,18 @@ public class ConfigImpl implements Config {
 
 	protected void readIfNeeded() {
 		synchronized (instanceMutex) {
-			for (int i = 0; i < propertiesFiles.length; i++) {
-				final File propertiesFile = propertiesFiles[i];
-				final long lastModified = propertiesFilesLastModified[i];
-				if (propertiesFile.lastModified() != lastModified) {
-					read();
-					break;
+			final long modificationCount = propertiesFilesModificationCount.get();
+			if (isRevalidationNeeded(modificationCount)) {
+				for (int i = 0; i < propertiesFiles.length; i++) {
+					final File propertiesFile = propertiesFiles[i];
+					final long lastModified = propertiesFilesLastModified[i];
+					if (propertiesFile.lastModified() != lastModified) {
+						read();
+						break;
+					}
 				}
+				revalidatedModificationCount = modificationCount;
+				revalidatedTimestamp = nowAsMillis();
 			}
 		}
 
@@ -248,6 +287,64 @@ public class ConfigImpl implements Config {
 			parentConfig.readIfNeeded();
 	}
 
+	private boolean isRevalidationNeeded(final long modificationCount) {
+		if (modificationCount != revalidatedModificationCount)
+			return true;
+
+		final long now = nowAsMillis();
+		if (now < revalidatedTimestamp) // clock was set back
+			return true;
+
+		return now - revalidatedTimestamp >= getRevalidationPeriodMillis();
+	}
+
+	private static long getRevalidationPeriodMillis() {
+		String value = System.getProperty(SYSTEM_PROPERTY_REVALIDATION_PERIOD_MILLIS);
+		if (value == null)
+			value = getEnvVarVal(SYSTEM_PROPERTY_REVALIDATION_PERIOD_MILLIS);
+
+		value = trim(value);
+		if (isEmpty(value))
+			return DEFAULT_REVALIDATION_PERIOD_MILLIS;
+
+		try {
+			return Long.parseLong(value);
+		} catch (final NumberFormatException x) {
+			logger.warn("getRevalidationPeriodMillis: System property or environment variable '{}' has the illegal value '{}'. Falling back to default value '{}'!",
+					SYSTEM_PROPERTY_REVALIDATION_PERIOD_MILLIS, value, DEFAULT_REVALIDATION_PERIOD_MILLIS);
+			return DEFAULT_REVALIDATION_PERIOD_MILLIS;
+		}
+	}
+
+	/**
+	 * Notifies all {@code Config} instances that a properties file was modified (or created or deleted) in this JVM.
+	 * <p>
+	 * Every {@code Config} checks its properties files on its next access then - even if the
+	 * {@linkplain #SYSTEM_PROPERTY_REVALIDATION_PERIOD_MILLIS revalidation period} did not yet elapse. Code writing
+	 * properties files directly (i.e. not via {@link #setDirectProperty(String, String)}) should invoke this method
+	 * after writing.
+	 */
+	public static void notifyPropertiesFilesModified() {
+		propertiesFilesModificationCount.incrementAndGet();
+	}
+
+	/**
+	 * Gets the value of the environment variable overriding the config property with the given system property key.
+	 * @param sysPropKey the system property key, i.e. the config key prefixed with {@link #SYSTEM_PROPERTY_PREFIX}.
+	 * @return the environment variable's value or <code>null</code>, if not set.
+	 */
+	private static String getEnvVarVal(final String sysPropKey) {
+		String envVarVal = key2EnvVarVal.get(sysPropKey);
+		if (envVarVal == null) {
+			envVarVal = System.getenv(systemPropertyToEnvironmentVariable(sysPropKey));
+			if (envVarVal == null)
+				envVarVal = NULL_VALUE;
+
+			key2EnvVarVal.put(sysPropKey, envVarVal);
+		}
+		return envVarVal == NULL_VALUE ? null : envVarVal;
+	}
+
 	protected void read() {
 		synchronized (instanceMutex) {
 			logger.trace("read: Entered instanceMutex.");
@@ -302,6 +399,7 @@ public class ConfigImpl implements Config {
 				}
 
 				// TODO should we set propertiesFilesLastModified[...] to prevent re-reading?! would be more efficient - but then, we rarely ever write anyway.
+				notifyPropertiesFilesModified();
 			} catch (final IOException e) {
 				properties.clear();
 				throw new RuntimeException(e);
@@ -399,10 +497,9 @@ public class ConfigImpl implements Config {
 			return sysPropVal;
 		}
 
-		final String envVarKey = systemPropertyToEnvironmentVariable(sysPropKey);
-		final String envVarVal = System.getenv(envVarKey);
+		final String envVarVal = getEnvVarVal(sysPropKey);
 		if (envVarVal != null) {
-			logger.debug("getProperty: Environment variable with key='{}' and value='{}' overrides config (config is not queried).", envVarKey, envVarVal);
+			logger.debug("getProperty: Environment variable with key='{}' and value='{}' overrides config (config is not queried).", systemPropertyToEnvironmentVariable(sysPropKey), envVarVal);
 			return envVarVal;
 		}
 
@@ -427,10 +524,9 @@ public class ConfigImpl implements Config {
 			return sysPropVal;
 		}
 
-		final String envVarKey = systemPropertyToEnvironmentVariable(sysPropKey);
-		final String envVarVal = System.getenv(envVarKey);
+		final String envVarVal = getEnvVarVal(sysPropKey);
 		if (envVarVal != null) {
-			logger.debug("getProperty: Environment variable with key='{}' and value='{}' overrides config (config is not queried).", envVarKey, envVarVal);
+			logger.debug("getProperty: Environment variable with key='{}' and value='{}' overrides config (config is not queried).", systemPropertyToEnvironmentVariable(sysPropKey), envVarVal);
 			return envVarVal;
 		}
 
@@ -453,10 +549,9 @@ public class ConfigImpl implements Config {
 					"System property with key='%s' overrides config. The property '%s' can therefore not be modified.", sysPropKey, key));
 		}
 
-		final String envVarKey = systemPropertyToEnvironmentVariable(sysPropKey);
-		if (System.getenv(envVarKey) != null) {
+		if (getEnvVarVal(sysPropKey) != null) {
 			throw new IllegalStateException(String.format(
-					"Environment variable with key='%s' overrides config. The property '%s' can therefore not be modified.", envVarKey, key));
+					"Environment variable with key='%s' overrides config. The property '%s' can therefore not be modified.", systemPropertyToEnvironmentVariable(sysPropKey), key));
 		}
 
 		refreshFileHardRefAndCleanOldHardRefs();
@@ -483,10 +578,9 @@ public class ConfigImpl implements Config {
 			return sysPropVal;
 		}
 
-		final String envVarKey = systemPropertyToEnvironmentVariable(sysPropKey);
-		final String envVarVal = trim(System.getenv(envVarKey));
+		final String envVarVal = trim(getEnvVarVal(sysPropKey));
 		if (! isEmpty(envVarVal)) {
-			logger.debug("getPropertyAsNonEmptyTrimmedString: Environment variable with key='{}' and value='{}' overrides config (config is not queried).", envVarKey, envVarVal);
+			logger.debug("getPropertyAsNonEmptyTrimmedString: Environment variable with key='{}' and value='{}' overrides config (config is not queried).", systemPropertyToEnvironmentVariable(sysPropKey), envVarVal);
 			return envVarVal;
 		}
 
@@ -0,0 +1,121 @@
+package co.codewizards.cloudstore.core.dto;
+
+import static co.codewizards.cloudstore.core.objectfactory.ObjectFactoryUtil.*;
+import static java.util.Objects.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Merges an incremental (delta) {@link ChangeSetDto} into a previously obtained one.
+ * <p>
+ * The base {@code ChangeSetDto} covers all changes up to (and including) the revision
+ * {@link ChangeSetDto#getRepositoryDto() base.repositoryDto.revision}. The delta covers only the changes
+ * in greater revisions. The result is the same as if the whole change-set had been obtained at once
+ * at the delta's revision (except for some duplicate modifications/files that might be synced twice,
+ * which the sync copes with anyway).
+ * <p>
+ * The given {@code base} is not modified, but the DTOs of the {@code delta} become part of the result
+ * and might be modified.
+ */
+public class ChangeSetDtoMerger {
+
+	protected ChangeSetDtoMerger() {
+	}
+
+	public static ChangeSetDtoMerger create() {
+		return createObject(ChangeSetDtoMerger.class);
+	}
+
+	public ChangeSetDto merge(final ChangeSetDto base, final ChangeSetDto delta) {
+		requireNonNull(base, "base");
+		requireNonNull(delta, "delta");
+
+		final ChangeSetDto result = createObject(ChangeSetDto.class);
+		result.setRepositoryDto(delta.getRepositoryDto() != null ? delta.getRepositoryDto() : base.getRepositoryDto());
+		result.setParentConfigPropSetDto(delta.getParentConfigPropSetDto() != null ? delta.getParentConfigPropSetDto() : base.getParentConfigPropSetDto());
+		result.setModificationDtos(mergeModificationDtos(base.getModificationDtos(), delta.getModificationDtos()));
+		result.setRepoFileDtos(mergeRepoFileDtos(base.getRepoFileDtos(), delta.getRepoFileDtos(), delta.getModificationDtos()));
+		return result;
+	}
+
+	protected List<ModificationDto> mergeModificationDtos(final List<ModificationDto> baseModificationDtos, final List<ModificationDto> deltaModificationDtos) {
+		final List<ModificationDto> result = new ArrayList<>(baseModificationDtos.size() + deltaModificationDtos.size());
+		final Set<Long> ids = new HashSet<>(baseModificationDtos.size());
+		for (final ModificationDto modificationDto : baseModificationDtos) {
+			ids.add(modificationDto.getId());
+			result.add(modificationDto);
+		}
+		for (final ModificationDto modificationDto : deltaModificationDtos) {
+			if (ids.add(modificationDto.getId()))
+				result.add(modificationDto);
+		}
+		return result;
+	}
+
+	protected List<RepoFileDto> mergeRepoFileDtos(final List<RepoFileDto> baseRepoFileDtos, final List<RepoFileDto> deltaRepoFileDtos,
+			final List<ModificationDto> deltaModificationDtos) {
+		final Map<Long, RepoFileDto> id2RepoFileDto = new LinkedHashMap<>(baseRepoFileDtos.size() + deltaRepoFileDtos.size());
+		for (final RepoFileDto repoFileDto : baseRepoFileDtos)
+			id2RepoFileDto.put(repoFileDto.getId(), repoFileDto);
+
+		final Set<Long> deltaIds = new HashSet<>(deltaRepoFileDtos.size());
+		for (final RepoFileDto deltaRepoFileDto : deltaRepoFileDtos) {
+			deltaIds.add(deltaRepoFileDto.getId());
+			final RepoFileDto baseRepoFileDto = id2RepoFileDto.get(deltaRepoFileDto.getId());
+			if (baseRepoFileDto != null && ! baseRepoFileDto.isNeededAsParent() && deltaRepoFileDto.isNeededAsParent()) {
+				// The file was modified before the base revision and not yet synced => it is still needed for real,
+				// even though the delta only contains it to complete the tree.
+				deltaRepoFileDto.setNeededAsParent(false);
+			}
+			id2RepoFileDto.put(deltaRepoFileDto.getId(), deltaRepoFileDto);
+		}
+
+		final Set<String> deletedPaths = getDeletedPaths(deltaModificationDtos);
+		if (! deletedPaths.isEmpty()) {
+			// Files from the base, which were deleted afterwards, are not contained in the delta (their entities do
+			// not exist anymore) => we must drop them, otherwise they would be re-created (at least directories and symlinks).
+			final RepoFileDtoTreeNode tree = RepoFileDtoTreeNode.createTree(new ArrayList<>(id2RepoFileDto.values()));
+			if (tree != null) {
+				for (final RepoFileDtoTreeNode node : tree) {
+					final long id = node.getRepoFileDto().getId();
+					if (node.getParent() != null && ! deltaIds.contains(id) && isDeleted(node.getPath(), deletedPaths))
+						id2RepoFileDto.remove(id);
+				}
+			}
+		}
+		return new ArrayList<>(id2RepoFileDto.values());
+	}
+
+	private static Set<String> getDeletedPaths(final List<ModificationDto> modificationDtos) {
+		final Set<String> result = new HashSet<>();
+		for (final ModificationDto modificationDto : modificationDtos) {
+			if (modificationDto instanceof DeleteModificationDto) {
+				final String path = ((DeleteModificationDto) modificationDto).getPath();
+				if (path != null)
+					result.add(path);
+			}
+		}
+		return result;
+	}
+
+	private static boolean isDeleted(final String path, final Set<String> deletedPaths) {
+		// The RepoFileDtoTreeNode's paths are relative to the root, which has an empty name => path starts with '/'
+		// (except for the root itself). DeleteModificationDto's paths start with '/', too (except for the virtual root: "").
+		String p = path;
+		while (true) {
+			if (deletedPaths.contains(p))
+				return true;
+
+			final int lastSlashIndex = p.lastIndexOf('/');
+			if (lastSlashIndex < 0)
+				return false;
+
+			p = p.substring(0, lastSlashIndex);
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package co.codewizards.cloudstore.core.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Data of one file-chunk expressed as delta: the chunk is rebuilt by the destination from its current file
+ * and the literal data contained in the {@linkplain #getInstructionDtos() instructions}.
+ * @see co.codewizards.cloudstore.core.repo.transport.RepoTransport#putFileDelta(String, FileChunkDeltaDto)
+ */
+@XmlRootElement
+public class FileChunkDeltaDto {
+
+	private FileChunkDto fileChunkDto;
+
+	private List<FileDeltaInstructionDto> instructionDtos;
+
+	/**
+	 * Gets the chunk to be written. Its {@link FileChunkDto#getSha1() sha1} is used to verify the rebuilt data.
+	 * @return the chunk to be written.
+	 */
+	public FileChunkDto getFileChunkDto() {
+		return fileChunkDto;
+	}
+	public void setFileChunkDto(FileChunkDto fileChunkDto) {
+		this.fileChunkDto = fileChunkDto;
+	}
+
+	public List<FileDeltaInstructionDto> getInstructionDtos() {
+		if (instructionDtos == null)
+			instructionDtos = new ArrayList<>();
+
+		return instructionDtos;
+	}
+	public void setInstructionDtos(List<FileDeltaInstructionDto> instructionDtos) {
+		this.instructionDtos = instructionDtos;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + '[' + toString_getProperties() + ']';
+	}
+
+	protected String toString_getProperties() {
+		return "fileChunkDto=" + fileChunkDto
+				+ ", instructionDtos=" + instructionDtos;
+	}
+}
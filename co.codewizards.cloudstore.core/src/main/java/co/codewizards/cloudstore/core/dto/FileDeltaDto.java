@@ -0,0 +1,52 @@
+package co.codewizards.cloudstore.core.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Delta between the destination's current file (described by a {@link FileSignatureDto}) and the source's file.
+ * <p>
+ * The {@linkplain #getInstructionDtos() instructions} are sorted by their offset and cover the entire new file
+ * without gaps. The data of literal-instructions is not contained - it is read separately from the source.
+ * @see co.codewizards.cloudstore.core.repo.transport.RepoTransport#getFileDeltaDto(String, FileSignatureDto)
+ */
+@XmlRootElement
+public class FileDeltaDto {
+
+	private long length;
+
+	private List<FileDeltaInstructionDto> instructionDtos;
+
+	/**
+	 * Gets the length of the new (source) file in bytes.
+	 * @return the length of the new file in bytes.
+	 */
+	public long getLength() {
+		return length;
+	}
+	public void setLength(long length) {
+		this.length = length;
+	}
+
+	public List<FileDeltaInstructionDto> getInstructionDtos() {
+		if (instructionDtos == null)
+			instructionDtos = new ArrayList<>();
+
+		return instructionDtos;
+	}
+	public void setInstructionDtos(List<FileDeltaInstructionDto> instructionDtos) {
+		this.instructionDtos = instructionDtos;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + '[' + toString_getProperties() + ']';
+	}
+
+	protected String toString_getProperties() {
+		return "length=" + length
+				+ ", instructionDtos.size=" + (instructionDtos == null ? 0 : instructionDtos.size());
+	}
+}
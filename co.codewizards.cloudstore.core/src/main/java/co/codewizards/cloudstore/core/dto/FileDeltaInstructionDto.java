@@ -0,0 +1,75 @@
+package co.codewizards.cloudstore.core.dto;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Instruction of a {@link FileDeltaDto}: either copy a range of the destination's current file or take
+ * literal data from the source.
+ * <p>
+ * An instruction is a <i>copy</i>-instruction, if {@link #getCopyOffset() copyOffset} is not <code>null</code>.
+ * Otherwise, it is a <i>literal</i>-instruction whose {@link #getData() data} must be obtained from the source
+ * (it is <code>null</code> inside a {@link FileDeltaDto}, but populated inside a {@link FileChunkDeltaDto}).
+ */
+@XmlRootElement
+public class FileDeltaInstructionDto {
+
+	private long offset;
+
+	private long length;
+
+	private Long copyOffset;
+
+	private byte[] data;
+
+	/**
+	 * Gets the offset in the new (source) file, i.e. where the bytes of this instruction are located after the transfer.
+	 * @return the offset in the new file.
+	 */
+	public long getOffset() {
+		return offset;
+	}
+	public void setOffset(long offset) {
+		this.offset = offset;
+	}
+
+	public long getLength() {
+		return length;
+	}
+	public void setLength(long length) {
+		this.length = length;
+	}
+
+	/**
+	 * Gets the offset in the old (destination) file, from which the bytes are copied.
+	 * @return the offset in the old file or <code>null</code>, if this is a literal-instruction.
+	 */
+	public Long getCopyOffset() {
+		return copyOffset;
+	}
+	public void setCopyOffset(Long copyOffset) {
+		this.copyOffset = copyOffset;
+	}
+
+	public byte[] getData() {
+		return data;
+	}
+	public void setData(byte[] data) {
+		this.data = data;
+	}
+
+	public boolean isLiteral() {
+		return copyOffset == null;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + '[' + toString_getProperties() + ']';
+	}
+
+	protected String toString_getProperties() {
+		return "offset=" + offset
+				+ ", length=" + length
+				+ ", copyOffset=" + copyOffset
+				+ ", data.length=" + (data == null ? null : data.length);
+	}
+}
@@ -0,0 +1,62 @@
+package co.codewizards.cloudstore.core.dto;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Signature of a file's current content used for a delta-transfer: a weak (rolling) and a strong checksum
+ * for every block of {@link #getBlockSize() blockSize} bytes.
+ * <p>
+ * The checksums are packed into one single byte-array (instead of one DTO per block) to keep the signature of a
+ * large file compact. See {@link co.codewizards.cloudstore.core.repo.transport.FileDeltaUtil FileDeltaUtil} for
+ * the format.
+ * @see co.codewizards.cloudstore.core.repo.transport.RepoTransport#getFileSignatureDto(String)
+ */
+@XmlRootElement
+public class FileSignatureDto {
+
+	private long length;
+
+	private int blockSize;
+
+	private byte[] blockChecksums;
+
+	/**
+	 * Gets the length of the file in bytes.
+	 * @return the length of the file in bytes.
+	 */
+	public long getLength() {
+		return length;
+	}
+	public void setLength(long length) {
+		this.length = length;
+	}
+
+	/**
+	 * Gets the size of all blocks. The last block might be shorter.
+	 * @return the size of all blocks.
+	 */
+	public int getBlockSize() {
+		return blockSize;
+	}
+	public void setBlockSize(int blockSize) {
+		this.blockSize = blockSize;
+	}
+
+	public byte[] getBlockChecksums() {
+		return blockChecksums;
+	}
+	public void setBlockChecksums(byte[] blockChecksums) {
+		this.blockChecksums = blockChecksums;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + '[' + toString_getProperties() + ']';
+	}
+
+	protected String toString_getProperties() {
+		return "length=" + length
+				+ ", blockSize=" + blockSize
+				+ ", blockChecksums.length=" + (blockChecksums == null ? null : blockChecksums.length);
+	}
+}
@@ -0,0 +1,39 @@
+package co.codewizards.cloudstore.core.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * List of paths, each relative to the repository's root - e.g. the files whose
+ * {@link co.codewizards.cloudstore.core.repo.transport.RepoTransport#getRepoFileDtos(List, boolean) RepoFileDtos}
+ * are requested at once.
+ */
+@XmlRootElement
+public class PathListDto {
+
+	private List<String> paths;
+
+	public PathListDto() {
+	}
+
+	public PathListDto(final List<String> paths) {
+		this.paths = paths == null ? null : new ArrayList<>(paths);
+	}
+
+	public List<String> getPaths() {
+		if (paths == null)
+			paths = new ArrayList<>();
+
+		return paths;
+	}
+	public void setPaths(List<String> paths) {
+		this.paths = paths;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[paths=" + paths + ']';
+	}
+}
@@ -0,0 +1,35 @@
+package co.codewizards.cloudstore.core.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Result of {@link co.codewizards.cloudstore.core.repo.transport.RepoTransport#getRepoFileDtos(List, boolean)
+ * RepoTransport.getRepoFileDtos(...)}: the {@link RepoFileDto}s in the same order as the requested paths.
+ * <p>
+ * An element is <code>null</code>, if there is no file at the corresponding path.
+ */
+@XmlRootElement
+public class RepoFileDtoListDto {
+
+	private List<RepoFileDto> repoFileDtos;
+
+	@XmlElement(nillable = true)
+	public List<RepoFileDto> getRepoFileDtos() {
+		if (repoFileDtos == null)
+			repoFileDtos = new ArrayList<RepoFileDto>();
+
+		return repoFileDtos;
+	}
+	public void setRepoFileDtos(List<RepoFileDto> repoFileDtos) {
+		this.repoFileDtos = repoFileDtos;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[repoFileDtos=" + repoFileDtos + ']';
+	}
+}
@@ -0,0 +1,48 @@
+package co.codewizards.cloudstore.core.dto;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Snapshot of the metrics of the server's pool of {@link co.codewizards.cloudstore.core.repo.transport.RepoTransport
+ * RepoTransport}s.
+ */
+@XmlRootElement
+public class RepoTransportPoolMetricsDto {
+
+	private int idleCount;
+	private int borrowedCount;
+	private long borrowCount;
+	private long reuseCount;
+	private long closeCount;
+
+	public int getIdleCount() {
+		return idleCount;
+	}
+	public void setIdleCount(final int idleCount) {
+		this.idleCount = idleCount;
+	}
+	public int getBorrowedCount() {
+		return borrowedCount;
+	}
+	public void setBorrowedCount(final int borrowedCount) {
+		this.borrowedCount = borrowedCount;
+	}
+	public long getBorrowCount() {
+		return borrowCount;
+	}
+	public void setBorrowCount(final long borrowCount) {
+		this.borrowCount = borrowCount;
+	}
+	public long getReuseCount() {
+		return reuseCount;
+	}
+	public void setReuseCount(final long reuseCount) {
+		this.reuseCount = reuseCount;
+	}
+	public long getCloseCount() {
+		return closeCount;
+	}
+	public void setCloseCount(final long closeCount) {
+		this.closeCount = closeCount;
+	}
+}
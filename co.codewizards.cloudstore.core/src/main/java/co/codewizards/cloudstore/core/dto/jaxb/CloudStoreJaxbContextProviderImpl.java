@@ -8,11 +8,18 @@ import co.codewizards.cloudstore.core.dto.DeleteModificationDto;
 import co.codewizards.cloudstore.core.dto.DirectoryDto;
 import co.codewizards.cloudstore.core.dto.Error;
 import co.codewizards.cloudstore.core.dto.ErrorStackTraceElement;
+import co.codewizards.cloudstore.core.dto.FileChunkDeltaDto;
 import co.codewizards.cloudstore.core.dto.FileChunkDto;
+import co.codewizards.cloudstore.core.dto.FileDeltaDto;
+import co.codewizards.cloudstore.core.dto.FileDeltaInstructionDto;
+import co.codewizards.cloudstore.core.dto.FileSignatureDto;
 import co.codewizards.cloudstore.core.dto.ListDto;
 import co.codewizards.cloudstore.core.dto.ModificationDto;
 import co.codewizards.cloudstore.core.dto.NormalFileDto;
+import co.codewizards.cloudstore.core.dto.PathListDto;
 import co.codewizards.cloudstore.core.dto.RepoFileDto;
+import co.codewizards.cloudstore.core.dto.RepoFileDtoListDto;
+import co.codewizards.cloudstore.core.dto.RepoTransportPoolMetricsDto;
 import co.codewizards.cloudstore.core.dto.RepositoryDto;
 import co.codewizards.cloudstore.core.dto.SymlinkDto;
 import co.codewizards.cloudstore.core.dto.TempChunkFileDto;
@@ -32,11 +39,18 @@ public class CloudStoreJaxbContextProviderImpl extends AbstractCloudStoreJaxbCon
 				EncryptedSignedAuthToken.class,
 				Error.class,
 				ErrorStackTraceElement.class,
+				FileChunkDeltaDto.class,
 				FileChunkDto.class,
+				FileDeltaDto.class,
+				FileDeltaInstructionDto.class,
+				FileSignatureDto.class,
 				ListDto.class,
 				ModificationDto.class,
 				NormalFileDto.class,
+				PathListDto.class,
 				RepoFileDto.class,
+				RepoFileDtoListDto.class,
+				RepoTransportPoolMetricsDto.class,
 				RepositoryDto.class,
 				SymlinkDto.class,
 				TempChunkFileDto.class,
@@ -32,6 +32,7 @@ public class IgnoreRuleManagerImpl implements IgnoreRuleManager {
 	private final File directory;
 	private Config config;
 	private List<IgnoreRule> ignoreRules;
+	private IgnoreRuleMatcher ignoreRuleMatcher;
 	private Long configVersion;
 
 	private static final Object classMutex = IgnoreRuleManagerImpl.class;
@@ -109,8 +110,10 @@ public class IgnoreRuleManagerImpl implements IgnoreRuleManager {
 		refreshFileHardRefAndCleanOldHardRefs();
 		synchronized (instanceMutex) {
 			final Long newConfigVersion = config.getVersion();
-			if (! equal(configVersion, newConfigVersion))
+			if (! equal(configVersion, newConfigVersion)) {
 				ignoreRules = null;
+				ignoreRuleMatcher = null;
+			}
 
 			if (ignoreRules == null) {
 				final Set<String> ignoreRuleIds = getIgnoreRuleIds();
@@ -128,6 +131,22 @@ public class IgnoreRuleManagerImpl implements IgnoreRuleManager {
 		}
 	}
 
+	/**
+	 * Gets the matcher compiled from all {@linkplain #getIgnoreRules() ignore-rules} (including the inherited ones).
+	 * <p>
+	 * Like the rules, it is cached until the {@linkplain Config#getVersion() config's version} changes.
+	 * @return the matcher. Never <code>null</code>.
+	 */
+	private IgnoreRuleMatcher getIgnoreRuleMatcher() {
+		synchronized (instanceMutex) {
+			final List<IgnoreRule> ignoreRules = getIgnoreRules(); // clears ignoreRuleMatcher, if outdated
+			if (ignoreRuleMatcher == null)
+				ignoreRuleMatcher = new IgnoreRuleMatcher(ignoreRules);
+
+			return ignoreRuleMatcher;
+		}
+	}
+
 	private Set<String> getIgnoreRuleIds() {
 		final Set<String> result = new HashSet<>();
 		final Map<String, List<String>> key2Groups = config.getKey2GroupsMatching(Pattern.compile("ignore\\[([^]]*)\\].*"));
@@ -152,15 +171,7 @@ public class IgnoreRuleManagerImpl implements IgnoreRuleManager {
 		if (fileName.equalsIgnoreCase(Config.PROPERTIES_FILE_NAME_FOR_DIRECTORY))
 			return false; // https://github.com/cloudstore/cloudstore/issues/60
 
-		for (final IgnoreRule ignoreRule : getIgnoreRules()) {
-			if (! ignoreRule.isEnabled())
-				continue;
-
-			boolean matches = ignoreRule.getNameRegexPattern().matcher(fileName).matches();
-			if (matches)
-				return true;
-		}
-		return false;
+		return getIgnoreRuleMatcher().matches(fileName);
 	}
 
 	private IgnoreRule loadIgnoreRule(final String ignoreRuleId) {
@@ -0,0 +1,224 @@
+package co.codewizards.cloudstore.core.ignore;
+
+import static java.util.Objects.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Matches file names against all enabled {@link IgnoreRule}s of a directory at once.
+ * <p>
+ * Most rules are simple shell-patterns like "*.bak", "~*" or "Thumbs.db". For ASCII file names, these are
+ * checked using a hash-lookup and prefix-/suffix-comparisons - without any regular expression. All other rules
+ * are combined into one single regular expression (one for the case-sensitive and one for the case-insensitive
+ * rules), so that the name is scanned only once.
+ * <p>
+ * Names containing non-ASCII characters are matched against all rules combined into regular expressions, because
+ * the case-insensitive comparison of Unicode characters must behave exactly like {@link Pattern#UNICODE_CASE}.
+ * <p>
+ * Instances are immutable and thread-safe.
+ */
+class IgnoreRuleMatcher {
+
+	/**
+	 * Characters having a special meaning in a regular expression, which are not escaped when a shell-pattern is
+	 * converted. A shell-pattern containing any of them is not handled by the fast path.
+	 */
+	private static final String REGEX_CHARS_IN_PATTERN = "[](){}|^$?";
+
+	private static final int CASE_INSENSITIVE_FLAGS = Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+
+	private final boolean matchAll;
+
+	private final Set<String> caseSensitiveNames = new HashSet<>();
+	private final List<String> caseSensitivePrefixes = new ArrayList<>();
+	private final List<String> caseSensitiveSuffixes = new ArrayList<>();
+
+	/**
+	 * The case-insensitive names, prefixes and suffixes are stored in (ASCII-)lower-case.
+	 */
+	private final Set<String> caseInsensitiveNames = new HashSet<>();
+	private final List<String> caseInsensitivePrefixes = new ArrayList<>();
+	private final List<String> caseInsensitiveSuffixes = new ArrayList<>();
+
+	/**
+	 * The rules not covered by the fast path - used for ASCII names.
+	 */
+	private final List<Pattern> remainingPatterns;
+
+	/**
+	 * All rules - used for non-ASCII names.
+	 */
+	private final List<Pattern> allPatterns;
+
+	public IgnoreRuleMatcher(final List<IgnoreRule> ignoreRules) {
+		requireNonNull(ignoreRules, "ignoreRules");
+		boolean matchAll = false;
+		final List<IgnoreRule> remainingRules = new ArrayList<>();
+		final List<IgnoreRule> allRules = new ArrayList<>();
+		for (final IgnoreRule ignoreRule : ignoreRules) {
+			if (! ignoreRule.isEnabled() || ignoreRule.getNameRegexPattern() == null)
+				continue;
+
+			allRules.add(ignoreRule);
+			if (ignoreRule.getNameRegex() != null || ! isSimplePattern(ignoreRule.getNamePattern())) {
+				remainingRules.add(ignoreRule);
+				continue;
+			}
+
+			final String pattern = ignoreRule.isCaseSensitive() ? ignoreRule.getNamePattern() : toLowerCaseAscii(ignoreRule.getNamePattern());
+			final int firstStarIndex = pattern.indexOf('*');
+			if (firstStarIndex < 0)
+				(ignoreRule.isCaseSensitive() ? caseSensitiveNames : caseInsensitiveNames).add(pattern);
+			else if (pattern.length() == 1)
+				matchAll = true;
+			else if (firstStarIndex == 0 && pattern.indexOf('*', 1) < 0)
+				(ignoreRule.isCaseSensitive() ? caseSensitiveSuffixes : caseInsensitiveSuffixes).add(pattern.substring(1));
+			else if (firstStarIndex == pattern.length() - 1)
+				(ignoreRule.isCaseSensitive() ? caseSensitivePrefixes : caseInsensitivePrefixes).add(pattern.substring(0, firstStarIndex));
+			else
+				remainingRules.add(ignoreRule);
+		}
+		this.matchAll = matchAll;
+		this.remainingPatterns = combine(remainingRules);
+		this.allPatterns = combine(allRules);
+	}
+
+	public boolean matches(final String fileName) {
+		requireNonNull(fileName, "fileName");
+		if (matchAll)
+			return true;
+
+		if (! isAscii(fileName))
+			return matches(allPatterns, fileName);
+
+		if (caseSensitiveNames.contains(fileName)
+				|| startsWithAny(fileName, caseSensitivePrefixes)
+				|| endsWithAny(fileName, caseSensitiveSuffixes))
+			return true;
+
+		if (! caseInsensitiveNames.isEmpty() || ! caseInsensitivePrefixes.isEmpty() || ! caseInsensitiveSuffixes.isEmpty()) {
+			final String lowerCaseFileName = toLowerCaseAscii(fileName);
+			if (caseInsensitiveNames.contains(lowerCaseFileName)
+					|| startsWithAny(lowerCaseFileName, caseInsensitivePrefixes)
+					|| endsWithAny(lowerCaseFileName, caseInsensitiveSuffixes))
+				return true;
+		}
+		return matches(remainingPatterns, fileName);
+	}
+
+	private static boolean matches(final List<Pattern> patterns, final String fileName) {
+		for (final Pattern pattern : patterns) {
+			if (pattern.matcher(fileName).matches())
+				return true;
+		}
+		return false;
+	}
+
+	private static boolean startsWithAny(final String fileName, final List<String> prefixes) {
+		for (final String prefix : prefixes) {
+			if (fileName.startsWith(prefix))
+				return true;
+		}
+		return false;
+	}
+
+	private static boolean endsWithAny(final String fileName, final List<String> suffixes) {
+		for (final String suffix : suffixes) {
+			if (fileName.endsWith(suffix))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Combines the given rules into as few {@link Pattern}s as possible: one for the case-sensitive and one for the
+	 * case-insensitive rules. If a combination cannot be compiled (e.g. because of duplicate named groups), the
+	 * rules' individual patterns are used.
+	 */
+	private static List<Pattern> combine(final List<IgnoreRule> ignoreRules) {
+		final List<Pattern> result = new ArrayList<>(2);
+		final List<Pattern> caseSensitivePatterns = new ArrayList<>();
+		final List<Pattern> caseInsensitivePatterns = new ArrayList<>();
+		for (final IgnoreRule ignoreRule : ignoreRules)
+			(ignoreRule.isCaseSensitive() ? caseSensitivePatterns : caseInsensitivePatterns).add(ignoreRule.getNameRegexPattern());
+
+		combine(result, caseSensitivePatterns, 0);
+		combine(result, caseInsensitivePatterns, CASE_INSENSITIVE_FLAGS);
+		return result;
+	}
+
+	private static void combine(final List<Pattern> result, final List<Pattern> patterns, final int flags) {
+		if (patterns.size() <= 1) {
+			result.addAll(patterns);
+			return;
+		}
+		final StringBuilder regex = new StringBuilder();
+		for (final Pattern pattern : patterns) {
+			if (hasBackReference(pattern.pattern())) { // group numbers change when combined => cannot combine
+				result.addAll(patterns);
+				return;
+			}
+			if (regex.length() > 0)
+				regex.append('|');
+
+			regex.append("(?:").append(pattern.pattern()).append(')');
+		}
+		try {
+			result.add(Pattern.compile(regex.toString(), flags));
+		} catch (final PatternSyntaxException x) {
+			result.addAll(patterns);
+		}
+	}
+
+	private static boolean hasBackReference(final String regex) {
+		for (int i = 0; i < regex.length() - 1; ++i) {
+			if (regex.charAt(i) == '\\') {
+				final char next = regex.charAt(i + 1);
+				if (Character.isDigit(next) || next == 'k')
+					return true;
+
+				++i; // skip escaped character
+			}
+		}
+		return false;
+	}
+
+	private static boolean isSimplePattern(final String pattern) {
+		if (pattern == null)
+			return false;
+
+		for (int i = 0; i < pattern.length(); ++i) {
+			final char c = pattern.charAt(i);
+			if (c > 127 || REGEX_CHARS_IN_PATTERN.indexOf(c) >= 0)
+				return false;
+		}
+		return true;
+	}
+
+	private static boolean isAscii(final String s) {
+		for (int i = 0; i < s.length(); ++i) {
+			if (s.charAt(i) > 127)
+				return false;
+		}
+		return true;
+	}
+
+	private static String toLowerCaseAscii(final String s) {
+		char[] chars = null;
+		for (int i = 0; i < s.length(); ++i) {
+			final char c = s.charAt(i);
+			if (c >= 'A' && c <= 'Z') {
+				if (chars == null)
+					chars = s.toCharArray();
+
+				chars[i] = (char) (c + ('a' - 'A'));
+			}
+		}
+		return chars == null ? s : new String(chars);
+	}
+}
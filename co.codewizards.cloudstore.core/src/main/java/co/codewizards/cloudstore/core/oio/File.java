@@ -92,6 +92,8 @@ public interface File extends Serializable {
 	boolean mkdirs();
 	/** Copies a file, a symlink (depends on environment/implementation) or a directory (non-recursive). */
 	void copyToCopyAttributes(File toFile) throws IOException;
+	/** Clones a normal file copy-on-write (reflink), if supported by the file system, i.e. {@code toFile} shares the data with this file and the operation is instant. Returns <code>false</code> without creating {@code toFile}, if not supported - the caller must then {@linkplain #copyToCopyAttributes(File) copy}. */
+	boolean cloneToCopyAttributes(File toFile) throws IOException;
 	/** This is platform independent, in contrast to {@link #renameTo(File)} respectively {@link java.io.File#renameTo(java.io.File)}. */
 	void move(File toFile) throws IOException;
 	URI toURI();
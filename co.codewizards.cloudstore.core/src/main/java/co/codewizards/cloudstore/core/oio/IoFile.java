@@ -377,6 +377,11 @@ public class IoFile implements File {
 		}
 	}
 
+	@Override
+	public boolean cloneToCopyAttributes(final File toFile) throws IOException {
+		return false; // not possible with java.io
+	}
+
 	@Override
 	public RandomAccessFile createRandomAccessFile(final String mode) throws FileNotFoundException {
 		return new RandomAccessFile(ioFile, mode);
@@ -24,6 +24,22 @@ public interface LocalRepoManager extends AutoCloseable {
 	String CONFIG_KEY_CLOSE_DEFERRED_MILLIS = "localRepoManager.closeDeferredMillis";
 	long DEFAULT_CLOSE_DEFERRED_MILLIS = 20L * 1000L;
 
+	/**
+	 * How many {@code LocalRepoManager}s may be kept open at most, while they are not used (i.e. during their
+	 * {@linkplain #CONFIG_KEY_CLOSE_DEFERRED_MILLIS deferred close}). If there are more, the ones having been unused
+	 * for the longest time are closed immediately. 0 means unlimited.
+	 */
+	String CONFIG_KEY_MAX_IDLE_COUNT = "localRepoManager.maxIdleCount";
+	int DEFAULT_MAX_IDLE_COUNT = 32;
+
+	/**
+	 * Whether the DB schema's validation is skipped, if the schema is known to be unchanged since the last successful
+	 * validation. The schema is considered unchanged, if the {@linkplain #PROP_SCHEMA_FINGERPRINT fingerprint}
+	 * stored in the repository is still the same.
+	 */
+	String CONFIG_KEY_SKIP_UNCHANGED_SCHEMA_VALIDATION = "localRepoManager.skipUnchangedSchemaValidation";
+	boolean DEFAULT_SKIP_UNCHANGED_SCHEMA_VALIDATION = true;
+
 	String META_DIR_NAME = "." + APP_ID_SIMPLE_ID + "-repo";
 	/**
 	 * Temporary directory potentially inside every directory.
@@ -51,6 +67,11 @@ public interface LocalRepoManager extends AutoCloseable {
 	 * '/'. For example: "/alias1/alias2/alias3/"
 	 */
 	String PROP_REPOSITORY_ALIASES = "repository.aliases";
+	/**
+	 * Fingerprint of the DB schema, which was successfully validated when the repository was opened before.
+	 * @see #CONFIG_KEY_SKIP_UNCHANGED_SCHEMA_VALIDATION
+	 */
+	String PROP_SCHEMA_FINGERPRINT = "repository.schemaFingerprint";
 
 	String PERSISTENCE_PROPERTIES_FILE_NAME = APP_ID_SIMPLE_ID + "-persistence.properties";
 
@@ -13,6 +13,16 @@ public interface LocalRepoRegistry {
 	String CONFIG_KEY_EVICT_DEAD_ENTRIES_PERIOD = "repoRegistry.evictDeadEntriesPeriod";
 	long DEFAULT_EVICT_DEAD_ENTRIES_PERIOD = 24 * 60 * 60 * 1000L;
 
+	/**
+	 * Configuration property key controlling how often (in milliseconds) the registry-file is checked for
+	 * modifications made by other processes. 0 disables the periodic check - a modification is then only
+	 * detected, if a repository is not found.
+	 * <p>
+	 * The configuration can be overridden by a system property - see {@link co.codewizards.cloudstore.core.config.Config#SYSTEM_PROPERTY_PREFIX}.
+	 */
+	String CONFIG_KEY_REVALIDATION_PERIOD = "repoRegistry.revalidationPeriod";
+	long DEFAULT_REVALIDATION_PERIOD = 1000L;
+
 	public static interface Property extends PropertyBase {
 	}
 
@@ -17,17 +17,21 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import co.codewizards.cloudstore.core.collection.LazyUnmodifiableList;
+import co.codewizards.cloudstore.core.concurrent.SharedScheduler;
 import co.codewizards.cloudstore.core.config.ConfigDir;
 import co.codewizards.cloudstore.core.config.ConfigImpl;
 import co.codewizards.cloudstore.core.dto.DateTime;
@@ -36,6 +40,19 @@ import co.codewizards.cloudstore.core.io.LockFileFactory;
 import co.codewizards.cloudstore.core.oio.File;
 import co.codewizards.cloudstore.core.util.PropertiesUtil;
 
+/**
+ * Registry of all local repositories, persisted in the file {@link #LOCAL_REPO_REGISTRY_FILE}.
+ * <p>
+ * All read-only lookups are answered from an immutable {@link Snapshot} without any lock and without accessing the
+ * file system. The snapshot is replaced atomically, whenever the registry is modified by this JVM. Modifications
+ * made by other processes are detected by a background task checking the file every
+ * {@link #CONFIG_KEY_REVALIDATION_PERIOD} milliseconds - and immediately, if a lookup does not find a repository.
+ * <p>
+ * Checking the file means comparing its {@code lastModified} timestamp - without any lock. The registry is only
+ * locked and re-read, if the timestamp changed (or dead entries are to be evicted). A repository-name not being
+ * found is remembered for the revalidation period, so that repeated lookups of the same unknown name do not
+ * check the file again and again.
+ */
 public class LocalRepoRegistryImpl implements LocalRepoRegistry
 {
 	private static final Logger logger = LoggerFactory.getLogger(LocalRepoRegistry.class);
@@ -51,12 +68,17 @@ public class LocalRepoRegistryImpl implements LocalRepoRegistry
 	@Deprecated
 	private static final String PROP_EVICT_DEAD_ENTRIES_PERIOD = "evictDeadEntriesPeriod";
 	private static final long LOCK_TIMEOUT_MS = 10000L; // 10 s
+	private static final int MAX_MISSING_REPOSITORY_NAME_COUNT = 1000;
 
-	private File registryFile;
-	private long repoRegistryFileLastModified;
+	private volatile File registryFile;
+	private final long revalidationPeriod;
+	private volatile long repoRegistryFileLastModified;
+	private volatile long evictDeadEntriesLastTimestamp;
 	private Properties repoRegistryProperties;
 	private boolean repoRegistryPropertiesDirty;
 
+	private volatile Snapshot snapshot;
+
 	private static class LocalRepoRegistryHolder {
 		public static final LocalRepoRegistry INSTANCE = new LocalRepoRegistryImpl();
 	}
@@ -65,53 +87,60 @@ public class LocalRepoRegistryImpl implements LocalRepoRegistry
 		return LocalRepoRegistryHolder.INSTANCE;
 	}
 
-	private LocalRepoRegistryImpl() { }
+	private LocalRepoRegistryImpl() {
+		this(null, ConfigImpl.getInstance().getPropertyAsPositiveOrZeroLong(
+				CONFIG_KEY_REVALIDATION_PERIOD, DEFAULT_REVALIDATION_PERIOD));
+	}
+
+	/**
+	 * Creates a registry backed by the given file.
+	 * @param registryFile the registry-file or <code>null</code> to use {@link #LOCAL_REPO_REGISTRY_FILE} in the
+	 * {@link ConfigDir}.
+	 * @param revalidationPeriod the period in milliseconds, in which the registry-file is checked for modifications
+	 * made by other processes. 0 disables the periodic check.
+	 */
+	LocalRepoRegistryImpl(final File registryFile, final long revalidationPeriod) {
+		this.registryFile = registryFile;
+		this.revalidationPeriod = revalidationPeriod;
+		if (revalidationPeriod > 0) {
+			SharedScheduler.getInstance().schedulePeriodically(new Runnable() {
+				@Override
+				public void run() {
+					revalidate();
+				}
+
+				@Override
+				public String toString() {
+					return LocalRepoRegistryImpl.class.getSimpleName() + ".revalidate";
+				}
+			}, revalidationPeriod, revalidationPeriod);
+		}
+	}
 
 	private File getRegistryFile() {
+		File registryFile = this.registryFile;
 		if (registryFile == null) {
 			final File old = createFile(ConfigDir.getInstance().getFile(), "repositoryList.properties"); // old name until 0.9.0
 			registryFile = createFile(ConfigDir.getInstance().getFile(), LOCAL_REPO_REGISTRY_FILE);
 			if (old.exists() && !registryFile.exists())
 				old.renameTo(registryFile);
+
+			this.registryFile = registryFile;
 		}
 		return registryFile;
 	}
 
 	@Override
-	public synchronized Collection<UUID> getRepositoryIds() {
-		loadRepoRegistryIfNeeded();
-		final List<UUID> result = new ArrayList<UUID>();
-		for (final Entry<Object, Object> me : repoRegistryProperties.entrySet()) {
-			final String key = String.valueOf(me.getKey());
-			if (key.startsWith(PROP_KEY_PREFIX_REPOSITORY_ID)) {
-				final UUID repositoryId = UUID.fromString(key.substring(PROP_KEY_PREFIX_REPOSITORY_ID.length()));
-				result.add(repositoryId);
-			}
-		}
-		Collections.sort(result); // guarantee a stable order to prevent Heisenbugs
-		return Collections.unmodifiableList(result);
+	public Collection<UUID> getRepositoryIds() {
+		return getSnapshot().repositoryIds;
 	}
 
 	@Override
-	public synchronized UUID getRepositoryId(final String repositoryName) {
+	public UUID getRepositoryId(final String repositoryName) {
 		requireNonNull(repositoryName, "repositoryName");
-		loadRepoRegistryIfNeeded();
-		final String repositoryIdString = repoRegistryProperties.getProperty(getPropertyKeyForAlias(repositoryName));
-		if (repositoryIdString != null) {
-			final UUID repositoryId = UUID.fromString(repositoryIdString);
-			return repositoryId;
-		}
-
-		UUID repositoryId;
-		try {
-			repositoryId = UUID.fromString(repositoryName);
-		} catch (final IllegalArgumentException x) {
-			return null;
-		}
-
-		final String localRootString = repoRegistryProperties.getProperty(getPropertyKeyForID(repositoryId));
-		if (localRootString == null)
-			return null;
+		UUID repositoryId = getSnapshot().getRepositoryId(repositoryName);
+		if (repositoryId == null && revalidateAfterMiss(repositoryName))
+			repositoryId = getSnapshot().getRepositoryId(repositoryName);
 
 		return repositoryId;
 	}
@@ -135,16 +164,31 @@ public class LocalRepoRegistryImpl implements LocalRepoRegistry
 	}
 
 	@Override
-	public synchronized URL getLocalRootURLForRepositoryName(final String repositoryName) {
-		final File localRoot = getLocalRootForRepositoryName(repositoryName);
+	public URL getLocalRootURLForRepositoryName(final String repositoryName) {
+		final UUID repositoryId = getRepositoryId(repositoryName);
+		if (repositoryId == null)
+			return null;
+
+		final Snapshot snapshot = getSnapshot();
+		final URL localRootURL = snapshot.repositoryId2LocalRootURL.get(repositoryId);
+		if (localRootURL != null)
+			return localRootURL;
+
+		final File localRoot = getLocalRoot(repositoryId);
 		if (localRoot == null)
 			return null;
 
+		final URL result;
 		try {
-			return localRoot.toURI().toURL();
+			result = localRoot.toURI().toURL();
 		} catch (final MalformedURLException e) {
 			throw new RuntimeException(e);
 		}
+		// File.toURI() appends a '/' only, if the directory exists => do not cache the URL of a missing directory.
+		if (result.getPath().endsWith("/") && localRoot.equals(snapshot.repositoryId2LocalRoot.get(repositoryId)))
+			snapshot.repositoryId2LocalRootURL.put(repositoryId, result);
+
+		return result;
 	}
 
 	@Override
@@ -157,7 +201,7 @@ public class LocalRepoRegistryImpl implements LocalRepoRegistry
 	}
 
 	@Override
-	public synchronized File getLocalRootForRepositoryName(final String repositoryName) {
+	public File getLocalRootForRepositoryName(final String repositoryName) {
 		requireNonNull(repositoryName, "repositoryName");
 
 		// If the repositoryName is an alias, this should find the corresponding repositoryId.
@@ -169,14 +213,12 @@ public class LocalRepoRegistryImpl implements LocalRepoRegistry
 	}
 
 	@Override
-	public synchronized File getLocalRoot(final UUID repositoryId) {
+	public File getLocalRoot(final UUID repositoryId) {
 		requireNonNull(repositoryId, "repositoryId");
-		loadRepoRegistryIfNeeded();
-		final String localRootString = repoRegistryProperties.getProperty(getPropertyKeyForID(repositoryId));
-		if (localRootString == null)
-			return null;
+		File localRoot = getSnapshot().repositoryId2LocalRoot.get(repositoryId);
+		if (localRoot == null && revalidateAfterMiss(repositoryId.toString()))
+			localRoot = getSnapshot().repositoryId2LocalRoot.get(repositoryId);
 
-		final File localRoot = createFile(localRootString);
 		return localRoot;
 	}
 
@@ -218,19 +260,20 @@ public class LocalRepoRegistryImpl implements LocalRepoRegistry
 				setProperty(propertyKey, repositoryIdString);
 			}
 			storeRepoRegistryIfDirty();
+			if (modified)
+				updateSnapshot();
 		}
 		if (modified)
 			fireRepositoryAliasesChanged();
 	}
 
 	@Override
-	public synchronized Collection<String> getRepositoryAliases() {
+	public Collection<String> getRepositoryAliases() {
+		final Snapshot snapshot = getSnapshot();
 		final Set<String> result= new LinkedHashSet<>();
-		final Collection<UUID> repositoryIds = getRepositoryIds();
-		for (final UUID repositoryId : repositoryIds) {
-			final Collection<String> repositoryAliases = getRepositoryAliasesOrFail(repositoryId.toString());
-			result.addAll(repositoryAliases);
-		}
+		for (final UUID repositoryId : snapshot.repositoryIds)
+			result.addAll(snapshot.getRepositoryAliases(repositoryId));
+
 		return result;
 	}
 
@@ -247,6 +290,8 @@ public class LocalRepoRegistryImpl implements LocalRepoRegistry
 				removeProperty(propertyKey);
 			}
 			storeRepoRegistryIfDirty();
+			if (modified)
+				updateSnapshot();
 		}
 		if (modified)
 			fireRepositoryAliasesChanged();
@@ -271,6 +316,8 @@ public class LocalRepoRegistryImpl implements LocalRepoRegistry
 				setProperty(propertyKey, localRootPath);
 			}
 			storeRepoRegistryIfDirty();
+			if (modified)
+				updateSnapshot();
 		}
 		if (modified)
 			fireRepositoryIdsChanged();
@@ -304,34 +351,21 @@ public class LocalRepoRegistryImpl implements LocalRepoRegistry
 	}
 
 	@Override
-	public synchronized Collection<String> getRepositoryAliasesOrFail(final String repositoryName) throws IllegalArgumentException {
+	public Collection<String> getRepositoryAliasesOrFail(final String repositoryName) throws IllegalArgumentException {
 		return getRepositoryAliases(repositoryName, true);
 	}
 
 	@Override
-	public synchronized Collection<String> getRepositoryAliases(final String repositoryName) {
+	public Collection<String> getRepositoryAliases(final String repositoryName) {
 		return getRepositoryAliases(repositoryName, false);
 	}
 
 	private Collection<String> getRepositoryAliases(final String repositoryName, final boolean fail) throws IllegalArgumentException {
-		try ( final LockFile lockFile = acquireLockFile(); ) {
-			final UUID repositoryId = fail ? getRepositoryIdOrFail(repositoryName) : getRepositoryId(repositoryName);
-			if (repositoryId == null)
-				return null;
+		final UUID repositoryId = fail ? getRepositoryIdOrFail(repositoryName) : getRepositoryId(repositoryName);
+		if (repositoryId == null)
+			return null;
 
-			final List<String> result = new ArrayList<String>();
-			for (final Entry<Object, Object> me : repoRegistryProperties.entrySet()) {
-				final String key = String.valueOf(me.getKey());
-				if (key.startsWith(PROP_KEY_PREFIX_REPOSITORY_ALIAS)) {
-					final String value = String.valueOf(me.getValue());
-					final UUID mappedRepositoryId = UUID.fromString(value);
-					if (mappedRepositoryId.equals(repositoryId))
-						result.add(key.substring(PROP_KEY_PREFIX_REPOSITORY_ALIAS.length()));
-				}
-			}
-			Collections.sort(result);
-			return Collections.unmodifiableList(result);
-		}
+		return getSnapshot().getRepositoryAliases(repositoryId);
 	}
 
 	private String getPropertyKeyForAlias(final String repositoryAlias) {
@@ -342,7 +376,68 @@ public class LocalRepoRegistryImpl implements LocalRepoRegistry
 		return PROP_KEY_PREFIX_REPOSITORY_ID + requireNonNull(repositoryId, "repositoryId").toString();
 	}
 
-	private void loadRepoRegistryIfNeeded() {
+	/**
+	 * Gets the current snapshot - loading the registry, if this was not yet done.
+	 * <p>
+	 * This method is lock-free and does not access the file system, after the registry was loaded once.
+	 * @return the current snapshot. Never <code>null</code>.
+	 */
+	private Snapshot getSnapshot() {
+		final Snapshot snapshot = this.snapshot;
+		if (snapshot != null)
+			return snapshot;
+
+		revalidate();
+		return this.snapshot;
+	}
+
+	/**
+	 * Re-reads the registry-file, if it was modified by another process (or not yet read at all), and evicts
+	 * dead entries, if this is due.
+	 * <p>
+	 * Only if one of these is the case, the registry is locked. Otherwise, this method merely checks the
+	 * registry-file's {@code lastModified} timestamp.
+	 * @return <code>true</code>, if the registry was modified; <code>false</code>, if it is unchanged.
+	 */
+	boolean revalidate() {
+		if (!isRevalidationNeeded())
+			return false;
+
+		synchronized (this) {
+			return loadRepoRegistryIfNeeded();
+		}
+	}
+
+	private boolean isRevalidationNeeded() {
+		return snapshot == null
+				|| repoRegistryFileLastModified != getRegistryFile().lastModified()
+				|| isEvictDeadEntriesDue(evictDeadEntriesLastTimestamp);
+	}
+
+	/**
+	 * Revalidates after a lookup did not find the given repository-name - unless the same name was not found
+	 * in the current snapshot less than {@link #revalidationPeriod} ago, already.
+	 * @param repositoryName the repository-ID or -alias not found. Must not be <code>null</code>.
+	 * @return <code>true</code>, if the registry was modified; <code>false</code>, if it is unchanged or was not
+	 * checked.
+	 */
+	private boolean revalidateAfterMiss(final String repositoryName) {
+		if (revalidationPeriod > 0) {
+			final Map<String, Long> missingRepositoryName2Timestamp = getSnapshot().missingRepositoryName2Timestamp;
+			final long now = nowAsMillis();
+			final Long missTimestamp = missingRepositoryName2Timestamp.get(repositoryName);
+			if (missTimestamp != null && now >= missTimestamp && now - missTimestamp < revalidationPeriod)
+				return false;
+
+			if (missingRepositoryName2Timestamp.size() >= MAX_MISSING_REPOSITORY_NAME_COUNT)
+				missingRepositoryName2Timestamp.clear(); // prevent unknown names requested by clients from filling up the memory
+
+			missingRepositoryName2Timestamp.put(repositoryName, now);
+		}
+		return revalidate();
+	}
+
+	private boolean loadRepoRegistryIfNeeded() {
 		boolean modified = false;
 		try ( final LockFile lockFile = acquireLockFile(); ) {
 			if (repoRegistryProperties == null || repoRegistryFileLastModified != getRegistryFile().lastModified()) {
@@ -352,6 +447,11 @@ public class LocalRepoRegistryImpl implements LocalRepoRegistry
 
 			if (evictDeadEntriesPeriodically())
 				modified = true;
+
+			evictDeadEntriesLastTimestamp = getPropertyAsDate(PROP_EVICT_DEAD_ENTRIES_LAST_TIMESTAMP).getTime();
+
+			if (modified || snapshot == null)
+				updateSnapshot();
 		}
 
 		if (modified) {
@@ -359,6 +459,15 @@ public class LocalRepoRegistryImpl implements LocalRepoRegistry
 			fireRepositoryIdsChanged();
 			fireRepositoryAliasesChanged();
 		}
+		return modified;
+	}
+
+	/**
+	 * Replaces the {@link #snapshot} by a new one reflecting the current {@link #repoRegistryProperties}.
+	 * Must be invoked after every modification of the properties.
+	 */
+	private void updateSnapshot() {
+		snapshot = new Snapshot(repoRegistryProperties);
 	}
 
 	private void fireRepositoryIdsChanged() {
@@ -379,7 +488,7 @@ public class LocalRepoRegistryImpl implements LocalRepoRegistry
 		});
 	}
 
-	private LockFile acquireLockFile() {
+	protected LockFile acquireLockFile() {
 		return LockFileFactory.getInstance().acquire(getRegistryFile(), LOCK_TIMEOUT_MS);
 	}
 
@@ -434,19 +543,22 @@ public class LocalRepoRegistryImpl implements LocalRepoRegistry
 	 * and removes them.
 	 */
 	private boolean evictDeadEntriesPeriodically() {
-		final Long period = ConfigImpl.getInstance().getPropertyAsLong(CONFIG_KEY_EVICT_DEAD_ENTRIES_PERIOD, DEFAULT_EVICT_DEAD_ENTRIES_PERIOD);
 		removeProperty(PROP_EVICT_DEAD_ENTRIES_PERIOD);
 		final Date last = getPropertyAsDate(PROP_EVICT_DEAD_ENTRIES_LAST_TIMESTAMP);
-		if (last != null) {
-			final long millisAfterLast = nowAsMillis() - last.getTime();
-			if (millisAfterLast >= 0 && millisAfterLast <= period) // < 0 : travelled back in time
-				return false;
-		}
+		if (last != null && !isEvictDeadEntriesDue(last.getTime()))
+			return false;
+
 		final boolean modified = evictDeadEntries();
 		setProperty(PROP_EVICT_DEAD_ENTRIES_LAST_TIMESTAMP, nowAsDate());
 		return modified;
 	}
 
+	private static boolean isEvictDeadEntriesDue(final long lastTimestamp) {
+		final long period = ConfigImpl.getInstance().getPropertyAsLong(CONFIG_KEY_EVICT_DEAD_ENTRIES_PERIOD, DEFAULT_EVICT_DEAD_ENTRIES_PERIOD);
+		final long millisAfterLast = nowAsMillis() - lastTimestamp;
+		return millisAfterLast < 0 || millisAfterLast > period; // < 0 : travelled back in time
+	}
+
 
 	private boolean evictDeadEntries() {
 		boolean modified = false;
@@ -521,6 +633,82 @@ public class LocalRepoRegistryImpl implements LocalRepoRegistry
 		logger.info("evictDeadEntry: key='{}' value='{}'", key, value);
 	}
 
+	/**
+	 * Immutable view on the registry's entries, indexed for all lookups.
+	 */
+	private static class Snapshot {
+		public final List<UUID> repositoryIds;
+		public final Map<UUID, File> repositoryId2LocalRoot;
+		public final Map<String, UUID> repositoryAlias2RepositoryId;
+		public final Map<UUID, List<String>> repositoryId2RepositoryAliases;
+
+		/**
+		 * Cache for {@link File#toURI()}, which accesses the file system. In contrast to the other maps, this one
+		 * is populated lazily - it is discarded together with this snapshot.
+		 */
+		public final Map<UUID, URL> repositoryId2LocalRootURL = new ConcurrentHashMap<>();
+
+		/**
+		 * The repository-names (IDs or aliases) not found in this snapshot, together with the timestamp of the
+		 * {@linkplain LocalRepoRegistryImpl#revalidateAfterMiss(String) revalidation} caused by them.
+		 */
+		public final Map<String, Long> missingRepositoryName2Timestamp = new ConcurrentHashMap<>();
+
+		public Snapshot(final Properties repoRegistryProperties) {
+			final List<UUID> repositoryIds = new ArrayList<UUID>();
+			final Map<UUID, File> repositoryId2LocalRoot = new HashMap<>();
+			final Map<String, UUID> repositoryAlias2RepositoryId = new HashMap<>();
+			final Map<UUID, List<String>> repositoryId2RepositoryAliases = new HashMap<>();
+			for (final Entry<Object, Object> me : repoRegistryProperties.entrySet()) {
+				final String key = String.valueOf(me.getKey());
+				final String value = String.valueOf(me.getValue());
+				if (key.startsWith(PROP_KEY_PREFIX_REPOSITORY_ID)) {
+					final UUID repositoryId = UUID.fromString(key.substring(PROP_KEY_PREFIX_REPOSITORY_ID.length()));
+					repositoryIds.add(repositoryId);
+					repositoryId2LocalRoot.put(repositoryId, createFile(value));
+				}
+				else if (key.startsWith(PROP_KEY_PREFIX_REPOSITORY_ALIAS)) {
+					final String repositoryAlias = key.substring(PROP_KEY_PREFIX_REPOSITORY_ALIAS.length());
+					final UUID repositoryId = UUID.fromString(value);
+					repositoryAlias2RepositoryId.put(repositoryAlias, repositoryId);
+					List<String> repositoryAliases = repositoryId2RepositoryAliases.get(repositoryId);
+					if (repositoryAliases == null) {
+						repositoryAliases = new ArrayList<String>();
+						repositoryId2RepositoryAliases.put(repositoryId, repositoryAliases);
+					}
+					repositoryAliases.add(repositoryAlias);
+				}
+			}
+			Collections.sort(repositoryIds); // guarantee a stable order to prevent Heisenbugs
+			for (final Entry<UUID, List<String>> me : repositoryId2RepositoryAliases.entrySet()) {
+				Collections.sort(me.getValue());
+				me.setValue(Collections.unmodifiableList(me.getValue()));
+			}
+			this.repositoryIds = Collections.unmodifiableList(repositoryIds);
+			this.repositoryId2LocalRoot = Collections.unmodifiableMap(repositoryId2LocalRoot);
+			this.repositoryAlias2RepositoryId = Collections.unmodifiableMap(repositoryAlias2RepositoryId);
+			this.repositoryId2RepositoryAliases = Collections.unmodifiableMap(repositoryId2RepositoryAliases);
+		}
+
+		public UUID getRepositoryId(final String repositoryName) {
+			final UUID repositoryId = repositoryAlias2RepositoryId.get(repositoryName);
+			if (repositoryId != null)
+				return repositoryId;
+
+			final UUID result;
+			try {
+				result = UUID.fromString(repositoryName);
+			} catch (final IllegalArgumentException x) {
+				return null;
+			}
+			return repositoryId2LocalRoot.containsKey(result) ? result : null;
+		}
+
+		public List<String> getRepositoryAliases(final UUID repositoryId) {
+			final List<String> repositoryAliases = repositoryId2RepositoryAliases.get(repositoryId);
+			return repositoryAliases == null ? Collections.<String>emptyList() : repositoryAliases;
+		}
+	}
 
 	@Override
 	public void addPropertyChangeListener(PropertyChangeListener listener) {
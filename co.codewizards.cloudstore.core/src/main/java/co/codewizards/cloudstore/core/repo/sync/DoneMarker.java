@@ -1,13 +1,16 @@
 package co.codewizards.cloudstore.core.repo.sync;
 
+import static co.codewizards.cloudstore.core.chronos.ChronosUtil.*;
 import static java.util.Objects.*;
 
 import java.io.Closeable;
 import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,14 +18,54 @@ import org.slf4j.LoggerFactory;
 import co.codewizards.cloudstore.core.oio.File;
 import co.codewizards.cloudstore.core.util.LongUtil;
 
+/**
+ * Remembers which entities (files or modifications) were already transferred, so that an interrupted sync does not
+ * transfer them again, when it is resumed.
+ * <p>
+ * All markers are appended to one single log-file inside the {@link #getDoneDir() doneDir} and indexed in memory.
+ * Hence, {@link #isDone(long, long)} never accesses the file system and deleting the {@code doneDir} at the end of
+ * a sync is instant - no matter how many entities were marked.
+ * <p>
+ * Every record carries a checksum. A record being incomplete or corrupt (because the process crashed while writing
+ * it) is discarded together with everything following it, when the log is read again.
+ * <p>
+ * The log is written in batches and forced to disk at most every {@link #FLUSH_PERIOD_MS} milliseconds (and when
+ * {@linkplain #close() closed}). Thus, a crash loses at most the markers of this period - which only causes these
+ * entities to be transferred again.
+ */
 public class DoneMarker implements Closeable {
 
 	private static final String LOCAL_REVISION_FILE_NAME = "localRevision.bin";
 
+	private static final String LOG_FILE_NAME = "doneMarker.log";
+
+	/**
+	 * Size of a record: entityId, localRevision and checksum.
+	 */
+	private static final int RECORD_SIZE = 3 * 8;
+
+	private static final int BUFFER_RECORD_COUNT = 1024;
+
+	private static final long FLUSH_PERIOD_MS = 1000L;
+
+	private static final long CHECKSUM_MAGIC = 0x446f6e654d61726bL; // "DoneMark"
+
 	private static final Logger logger = LoggerFactory.getLogger(DoneMarker.class);
 
 	private final File doneDir;
 
+	private final EntityId2LocalRevisionMap entityId2LocalRevision = new EntityId2LocalRevisionMap();
+
+	/**
+	 * Whether the {@code doneDir} contains markers written by an older version (one directory per entity).
+	 */
+	private final boolean legacyDoneDirs;
+
+	private RandomAccessFile logRaf;
+	private FileChannel logChannel;
+	private final ByteBuffer writeBuffer = ByteBuffer.allocate(RECORD_SIZE * BUFFER_RECORD_COUNT);
+	private long lastFlushTimestamp;
+
 	public DoneMarker(File doneDir) {
 		this.doneDir = requireNonNull(doneDir, "doneDir");
 
@@ -39,6 +82,12 @@ public class DoneMarker implements Closeable {
 						new IOException(
 								String.format("Directory '%s' could not be created! Check permissions and available space/inodes.", doneDir.getAbsolutePath())));
 		}
+
+		final String[] childNames = doneDir.list();
+		legacyDoneDirs = childNames != null && (childNames.length > 1
+				|| (childNames.length == 1 && ! LOG_FILE_NAME.equals(childNames[0])));
+
+		openLog();
 	}
 
 	public File getDoneDir() {
@@ -46,67 +95,208 @@ public class DoneMarker implements Closeable {
 	}
 
 	@Override
-	public void close() {
+	public synchronized void close() {
+		if (logChannel == null)
+			return;
+
+		try {
+			flush();
+			logRaf.close();
+		} catch (IOException x) {
+			logger.error("close: Failed closing file '" + getLogFile().getAbsolutePath() + "': " + x, x);
+		} finally {
+			logRaf = null;
+			logChannel = null;
+		}
 	}
 
-	public void markDone(final long entityId, final long localRevision) {
-		final String[] entityIdHexSegments = LongUtil.toBytesHex(entityId, true);
+	public synchronized void markDone(final long entityId, final long localRevision) {
+		if (logChannel == null)
+			throw new IllegalStateException("DoneMarker already closed: " + doneDir.getAbsolutePath());
 
-		File entityIdDir = doneDir;
-		for (String segment : entityIdHexSegments) {
-			entityIdDir = entityIdDir.createFile(segment);
+		entityId2LocalRevision.put(entityId, localRevision);
 
-			if (! entityIdDir.isDirectory()) {
-				entityIdDir.mkdir();
+		writeBuffer.putLong(entityId);
+		writeBuffer.putLong(localRevision);
+		writeBuffer.putLong(getChecksum(entityId, localRevision));
+		try {
+			if (! writeBuffer.hasRemaining() || nowAsMillis() - lastFlushTimestamp >= FLUSH_PERIOD_MS)
+				flush();
+		} catch (IOException x) {
+			throw new RuntimeException(String.format("Failed writing file '%s'!", getLogFile().getAbsolutePath()), x);
+		}
+	}
+
+	public synchronized boolean isDone(final long entityId, final long localRevision) {
+		final Long oldLocalRevision = entityId2LocalRevision.get(entityId);
+		if (oldLocalRevision == null)
+			return legacyDoneDirs && isLegacyDone(entityId, localRevision);
+
+		if (oldLocalRevision == localRevision)
+			return true;
+
+		logger.warn("isDone: Entity with id={} is already marked as done for localRevision={}, but not for localRevision={}, thus returning false.",
+				entityId, oldLocalRevision, localRevision);
+		return false;
+	}
+
+	private File getLogFile() {
+		return doneDir.createFile(LOG_FILE_NAME);
+	}
+
+	private void openLog() {
+		final File logFile = getLogFile();
+		try {
+			logRaf = new RandomAccessFile(logFile.getIoFile(), "rw");
+			logChannel = logRaf.getChannel();
+			readLog();
+		} catch (IOException x) {
+			close();
+			throw new RuntimeException(String.format("Failed reading file '%s'!", logFile.getAbsolutePath()), x);
+		}
+		lastFlushTimestamp = nowAsMillis();
+	}
+
+	private void readLog() throws IOException {
+		final long logSize = logChannel.size();
+		final ByteBuffer readBuffer = ByteBuffer.allocate(RECORD_SIZE * BUFFER_RECORD_COUNT);
+		long validSize = 0;
+		readLoop: while (true) {
+			readBuffer.clear();
+			while (readBuffer.hasRemaining() && logChannel.read(readBuffer) >= 0);
+			readBuffer.flip();
 
-				if (! entityIdDir.isDirectory())
-					throw new RuntimeException(
-							new IOException(
-									String.format("Directory '%s' could not be created! Check permissions and available space/inodes.", entityIdDir.getAbsolutePath())));
+			while (readBuffer.remaining() >= RECORD_SIZE) {
+				final long entityId = readBuffer.getLong();
+				final long localRevision = readBuffer.getLong();
+				final long checksum = readBuffer.getLong();
+				if (checksum != getChecksum(entityId, localRevision))
+					break readLoop;
+
+				entityId2LocalRevision.put(entityId, localRevision);
+				validSize += RECORD_SIZE;
 			}
+			if (readBuffer.hasRemaining() || validSize >= logSize)
+				break;
 		}
 
-		final File localRevisionFile = entityIdDir.createFile(LOCAL_REVISION_FILE_NAME);
+		if (validSize < logSize) {
+			logger.warn("readLog: File '{}' has {} bytes, but only the first {} bytes are valid. Discarding the rest (the previous sync was probably interrupted while writing).",
+					getLogFile().getAbsolutePath(), logSize, validSize);
+			logChannel.truncate(validSize);
+		}
+		logChannel.position(validSize);
+	}
 
-		try (final DataOutputStream out = new DataOutputStream(new FileOutputStream(localRevisionFile.getIoFile()))) {
-			out.writeLong(localRevision);
-		} catch (IOException x) {
-			throw new RuntimeException(String.format("Failed writing file '%s'!", localRevisionFile.getAbsolutePath()), x);
+	private void flush() throws IOException {
+		writeBuffer.flip();
+		if (writeBuffer.hasRemaining()) {
+			while (writeBuffer.hasRemaining())
+				logChannel.write(writeBuffer);
+
+			logChannel.force(false);
 		}
+		writeBuffer.clear();
+		lastFlushTimestamp = nowAsMillis();
 	}
 
-	public boolean isDone(final long entityId, final long localRevision) {
+	private static long getChecksum(final long entityId, final long localRevision) {
+		return entityId ^ Long.rotateLeft(localRevision, 29) ^ CHECKSUM_MAGIC;
+	}
+
+	/**
+	 * Checks the marker written by an older version: a directory per byte of the entityId containing the file
+	 * {@value #LOCAL_REVISION_FILE_NAME}. Only used, if a sync interrupted before an update is resumed.
+	 */
+	private boolean isLegacyDone(final long entityId, final long localRevision) {
 		final String[] entityIdHexSegments = LongUtil.toBytesHex(entityId, true);
 
 		File entityIdDir = doneDir;
 		for (String segment : entityIdHexSegments)
 			entityIdDir = entityIdDir.createFile(segment);
 
-		if (! entityIdDir.isDirectory())
-			return false;
-
 		final File localRevisionFile = entityIdDir.createFile(LOCAL_REVISION_FILE_NAME);
-		if (! localRevisionFile.isFile())
+		if (! localRevisionFile.isFile() || localRevisionFile.length() < 8)
 			return false;
 
-		if (localRevisionFile.length() < 8) {
-			logger.warn("isDone: File '{}' exists, but contains less than 8 bytes!",
-					localRevisionFile.getAbsolutePath());
-
-			return false;
-		}
-
 		try (final DataInputStream in = new DataInputStream(new FileInputStream(localRevisionFile.getIoFile()))) {
-			final long oldLocalRevision = in.readLong();
-			if (oldLocalRevision == localRevision)
-				return true;
-
-			logger.warn("isDone: Entity with id={} is already marked as done for localRevision={}, but not for localRevision={}, thus returning false.",
-					entityId, oldLocalRevision, localRevision);
+			return in.readLong() == localRevision;
 		} catch (IOException x) {
 			throw new RuntimeException(String.format("Failed reading file '%s'!", localRevisionFile.getAbsolutePath()), x);
 		}
-		return false;
 	}
 
+	/**
+	 * Hash-map from entityId to localRevision using open addressing with primitive arrays - a marker costs
+	 * 16 bytes (plus free slots) instead of two boxed {@code Long}s and an entry-object.
+	 */
+	private static class EntityId2LocalRevisionMap {
+		private static final long FREE_KEY = Long.MIN_VALUE;
+
+		private long[] keys = newKeys(1024);
+		private long[] values = new long[1024];
+		private int size;
+
+		private boolean hasFreeKeyEntry;
+		private long freeKeyValue;
+
+		public Long get(final long key) {
+			if (key == FREE_KEY)
+				return hasFreeKeyEntry ? freeKeyValue : null;
+
+			final int index = indexOf(keys, key);
+			return keys[index] == key ? values[index] : null;
+		}
+
+		public void put(final long key, final long value) {
+			if (key == FREE_KEY) {
+				hasFreeKeyEntry = true;
+				freeKeyValue = value;
+				return;
+			}
+
+			int index = indexOf(keys, key);
+			if (keys[index] != key) {
+				if ((size + 1) * 4 > keys.length * 3) { // load factor 0.75
+					grow();
+					index = indexOf(keys, key);
+				}
+				keys[index] = key;
+				++size;
+			}
+			values[index] = value;
+		}
+
+		private void grow() {
+			final long[] oldKeys = keys;
+			final long[] oldValues = values;
+			keys = newKeys(oldKeys.length * 2);
+			values = new long[oldKeys.length * 2];
+			for (int i = 0; i < oldKeys.length; ++i) {
+				if (oldKeys[i] != FREE_KEY) {
+					final int index = indexOf(keys, oldKeys[i]);
+					keys[index] = oldKeys[i];
+					values[index] = oldValues[i];
+				}
+			}
+		}
+
+		/**
+		 * Gets the index of the slot containing the given key - or of the free slot where it belongs.
+		 */
+		private static int indexOf(final long[] keys, final long key) {
+			final int mask = keys.length - 1;
+			int index = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+			while (keys[index] != key && keys[index] != FREE_KEY)
+				index = (index + 1) & mask;
+
+			return index;
+		}
+
+		private static long[] newKeys(final int length) {
+			final long[] keys = new long[length];
+			Arrays.fill(keys, FREE_KEY);
+			return keys;
+		}
+	}
 }
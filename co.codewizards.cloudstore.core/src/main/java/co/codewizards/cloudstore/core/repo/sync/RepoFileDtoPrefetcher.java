@@ -0,0 +1,164 @@
+package co.codewizards.cloudstore.core.repo.sync;
+
+import static java.util.Objects.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import co.codewizards.cloudstore.core.concurrent.VirtualThreadUtil;
+import co.codewizards.cloudstore.core.config.ConfigImpl;
+import co.codewizards.cloudstore.core.dto.RepoFileDto;
+import co.codewizards.cloudstore.core.repo.transport.RepoTransport;
+
+/**
+ * Fetches the {@link RepoFileDto}s of the files to be synced in batches ahead of time.
+ * <p>
+ * Instead of one {@link RepoTransport#getRepoFileDto(String)} invocation (i.e. one round-trip, if the
+ * {@code RepoTransport} is remote) per file, the DTOs are fetched using
+ * {@link RepoTransport#getRepoFileDtos(java.util.List, boolean)} for {@link #CONFIG_KEY_PREFETCH_COUNT} files at
+ * once. When the DTO of a file of a batch is requested, the next batch is fetched in the background - while the
+ * current file is transferred.
+ * <p>
+ * The paths must be passed in the same order in which their DTOs are requested later. Requesting a path not passed
+ * to the constructor is legal - its DTO is then fetched directly.
+ * <p>
+ * The batches are fetched on a background thread, while the sync's thread uses the same {@code RepoTransport}.
+ * Hence, the {@code RepoTransport} must support concurrent invocations. {@link #close()} waits for a batch being
+ * fetched, thus the {@code RepoTransport} is not used anymore after this prefetcher was closed.
+ */
+public class RepoFileDtoPrefetcher implements AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(RepoFileDtoPrefetcher.class);
+
+	/**
+	 * Configuration property key controlling how many {@link RepoFileDto}s are fetched at once.
+	 * 0 disables prefetching, i.e. every DTO is fetched separately when needed.
+	 * <p>
+	 * The configuration can be overridden by a system property - see {@link co.codewizards.cloudstore.core.config.Config#SYSTEM_PROPERTY_PREFIX}.
+	 */
+	public static final String CONFIG_KEY_PREFETCH_COUNT = "repoToRepoSync.prefetchCount";
+	public static final int DEFAULT_PREFETCH_COUNT = 50;
+
+	private final RepoTransport repoTransport;
+	private final List<String> paths;
+	private final Map<String, Integer> path2Index;
+	private final int batchSize;
+
+	private final Map<Integer, Future<List<RepoFileDto>>> batchIndex2Future = new HashMap<>();
+	private ExecutorService executorService;
+
+	/**
+	 * Creates a prefetcher.
+	 * @param repoTransport the {@code RepoTransport} to fetch the DTOs from. Must not be <code>null</code>.
+	 * @param paths the paths of the files, whose DTOs are requested later - in the order they are requested.
+	 * Must not be <code>null</code>.
+	 */
+	public RepoFileDtoPrefetcher(final RepoTransport repoTransport, final List<String> paths) {
+		this.repoTransport = requireNonNull(repoTransport, "repoTransport");
+		this.paths = new ArrayList<>(requireNonNull(paths, "paths"));
+		this.path2Index = new HashMap<>(this.paths.size());
+		for (int i = 0; i < this.paths.size(); ++i)
+			path2Index.put(this.paths.get(i), i);
+
+		this.batchSize = ConfigImpl.getInstance().getPropertyAsPositiveOrZeroInt(CONFIG_KEY_PREFETCH_COUNT, DEFAULT_PREFETCH_COUNT);
+	}
+
+	/**
+	 * Gets the DTO of the file at the given path.
+	 * @param path the path of the file. Must not be <code>null</code>.
+	 * @return the DTO - as returned by {@link RepoTransport#getRepoFileDto(String)}. <code>null</code>, if there
+	 * is no file at this path.
+	 */
+	public synchronized RepoFileDto getRepoFileDto(final String path) {
+		requireNonNull(path, "path");
+		final Integer index = path2Index.get(path);
+		if (index == null || batchSize <= 0)
+			return repoTransport.getRepoFileDto(path);
+
+		final int batchIndex = index / batchSize;
+		discardBatchesBefore(batchIndex);
+		final Future<List<RepoFileDto>> future = getOrSubmitBatch(batchIndex);
+		getOrSubmitBatch(batchIndex + 1);
+		try {
+			return future.get().get(index % batchSize);
+		} catch (final ExecutionException x) {
+			logger.warn("getRepoFileDto: Fetching batch " + batchIndex + " failed! Falling back to fetching '" + path + "' separately: " + x.getCause(), x.getCause());
+			return repoTransport.getRepoFileDto(path);
+		} catch (final InterruptedException x) {
+			throw new RuntimeException(x);
+		}
+	}
+
+	/**
+	 * Discards all batches not yet being fetched and waits for the batch currently being fetched (if any).
+	 */
+	@Override
+	public synchronized void close() {
+		for (final Future<List<RepoFileDto>> future : batchIndex2Future.values())
+			future.cancel(false);
+
+		batchIndex2Future.clear();
+		if (executorService != null) {
+			executorService.shutdown();
+			try {
+				while (! executorService.awaitTermination(10, TimeUnit.SECONDS))
+					logger.info("close: Waiting for the batch being fetched.");
+			} catch (final InterruptedException x) {
+				throw new RuntimeException(x);
+			}
+			executorService = null;
+		}
+	}
+
+	private Future<List<RepoFileDto>> getOrSubmitBatch(final int batchIndex) {
+		final int fromIndex = batchIndex * batchSize;
+		if (fromIndex >= paths.size())
+			return null;
+
+		Future<List<RepoFileDto>> future = batchIndex2Future.get(batchIndex);
+		if (future == null) {
+			final List<String> batchPaths = paths.subList(fromIndex, Math.min(fromIndex + batchSize, paths.size()));
+			future = getExecutorService().submit(new Callable<List<RepoFileDto>>() {
+				@Override
+				public List<RepoFileDto> call() throws Exception {
+					logger.debug("getOrSubmitBatch.call: Fetching {} RepoFileDtos of batch {}.", batchPaths.size(), batchIndex);
+					final List<RepoFileDto> repoFileDtos = repoTransport.getRepoFileDtos(batchPaths, true);
+					if (repoFileDtos.size() != batchPaths.size())
+						throw new IllegalStateException(String.format("Requested %s RepoFileDtos, but got %s!", batchPaths.size(), repoFileDtos.size()));
+
+					return repoFileDtos;
+				}
+			});
+			batchIndex2Future.put(batchIndex, future);
+		}
+		return future;
+	}
+
+	private void discardBatchesBefore(final int batchIndex) {
+		for (final Iterator<Integer> it = batchIndex2Future.keySet().iterator(); it.hasNext(); ) {
+			if (it.next() < batchIndex)
+				it.remove();
+		}
+	}
+
+	private ExecutorService getExecutorService() {
+		if (executorService == null) {
+			// single thread: the batches are fetched one after the other - in the order they are needed.
+			executorService = Executors.newSingleThreadExecutor(
+					VirtualThreadUtil.createThreadFactory(null, "RepoFileDtoPrefetcher-", true));
+		}
+		return executorService;
+	}
+}
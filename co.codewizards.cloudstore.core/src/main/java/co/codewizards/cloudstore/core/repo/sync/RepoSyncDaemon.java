@@ -38,6 +38,18 @@ public interface RepoSyncDaemon extends Bean<RepoSyncDaemon.Property> {
 	String CONFIG_KEY_SYNC_STATES_MAX_SIZE = "repoSyncDaemon.syncStates.maxSize";
 	int DEFAULT_SYNC_STATES_MAX_SIZE = 1;
 
+	/**
+	 * The maximum number of remote repositories synced concurrently with the same local repository.
+	 * <p>
+	 * The default value is {@link #DEFAULT_REMOTE_SYNC_PARALLELISM}.
+	 * <p>
+	 * If a local repository is connected to multiple remote repositories, it is synced with the file system
+	 * (i.e. scanned for changes) only once and afterwards synced with up to this number of remote repositories
+	 * at the same time. A value of 0 or 1 syncs the remote repositories one after the other.
+	 */
+	String CONFIG_KEY_REMOTE_SYNC_PARALLELISM = "repoSyncDaemon.remoteSync.parallelism";
+	int DEFAULT_REMOTE_SYNC_PARALLELISM = 4;
+
 	UUID startSync(File file);
 
 	void shutdown();
@@ -17,14 +17,13 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import co.codewizards.cloudstore.core.Severity;
+import co.codewizards.cloudstore.core.concurrent.VirtualThreadUtil;
 import co.codewizards.cloudstore.core.config.Config;
 import co.codewizards.cloudstore.core.config.ConfigImpl;
 import co.codewizards.cloudstore.core.dto.Error;
@@ -42,7 +41,13 @@ public class RepoSyncDaemonImpl implements RepoSyncDaemon {
 	private Map<UUID, Set<RepoSyncActivity>> repositoryId2SyncActivities = new HashMap<>();
 	private Map<UUID, List<RepoSyncState>> repositoryId2SyncStates = new HashMap<>();
 	private static final AtomicInteger threadGroupIndex = new AtomicInteger();
-	private final AtomicInteger threadIndex = new AtomicInteger();
+
+	private final RepoSyncRunner.RemoteSyncListener remoteSyncListener = new RepoSyncRunner.RemoteSyncListener() {
+		@Override
+		public void remoteSyncFinished(final RepoSyncRunner repoSyncRunner, final RepoSyncState repoSyncState) {
+			registerSyncStates(repoSyncRunner, Collections.singletonList(repoSyncState));
+		}
+	};
 
 	private static final class Holder {
 		public static final RepoSyncDaemonImpl instance = new RepoSyncDaemonImpl();
@@ -51,12 +56,7 @@ public class RepoSyncDaemonImpl implements RepoSyncDaemon {
 	protected RepoSyncDaemonImpl() {
 		final int tgi = threadGroupIndex.getAndIncrement();
 		final ThreadGroup threadGroup = new ThreadGroup("RepoSyncDaemonThreadGroup_" + tgi);
-		executorService = Executors.newCachedThreadPool(new ThreadFactory() {
-			@Override
-			public Thread newThread(Runnable r) {
-				return new Thread(threadGroup, r, "RepoSyncDaemonThread_" + tgi + "_" + threadIndex.getAndIncrement());
-			}
-		});
+		executorService = VirtualThreadUtil.createUnboundedExecutorService(threadGroup, "RepoSyncDaemonThread_" + tgi + "_", false);
 	}
 
 	public static RepoSyncDaemon getInstance() {
@@ -90,16 +90,13 @@ public class RepoSyncDaemonImpl implements RepoSyncDaemon {
 		requireNonNull(repositoryId, "repositoryId");
 		if (!repositoryId2SyncRunner.containsKey(repositoryId)) {
 			final RepoSyncQueueItem nextSyncQueueItem = pollSyncQueueItem(repositoryId);
-			if (nextSyncQueueItem != null) {
-				final RepoSyncRunner repoSyncRunner = new RepoSyncRunner(nextSyncQueueItem);
-				repositoryId2SyncRunner.put(nextSyncQueueItem.repositoryId, repoSyncRunner);
+			if (nextSyncQueueItem != null)
 				submitToExecutorService(nextSyncQueueItem);
-			}
 		}
 	}
 
 	private void submitToExecutorService(final RepoSyncQueueItem repoSyncQueueItem) {
-		final RepoSyncRunner repoSyncRunner = new RepoSyncRunner(repoSyncQueueItem);
+		final RepoSyncRunner repoSyncRunner = new RepoSyncRunner(repoSyncQueueItem, remoteSyncListener);
 		synchronized (this) {
 			repositoryId2SyncRunner.put(repoSyncQueueItem.repositoryId, repoSyncRunner);
 		}
@@ -120,8 +117,7 @@ public class RepoSyncDaemonImpl implements RepoSyncDaemon {
 		@Override
 		public void run() {
 			try {
-				repoSyncRunner.run();
-				registerSyncSuccess(repoSyncRunner);
+				repoSyncRunner.run(); // registers the state of each remote repository itself
 			} catch (final Throwable x) {
 				logger.error("run: " + x, x);
 				registerSyncError(repoSyncRunner, x);
@@ -137,66 +133,43 @@ public class RepoSyncDaemonImpl implements RepoSyncDaemon {
 		}
 	}
 
-	private void registerSyncSuccess(final RepoSyncRunner repoSyncRunner) {
+	private void registerSyncError(final RepoSyncRunner repoSyncRunner, final Throwable exception) {
 		requireNonNull(repoSyncRunner, "repoSyncRunner");
+		requireNonNull(exception, "exception");
+
+		// The remote repositories already synced registered their states themselves. All others failed.
+		final Set<UUID> remoteRepositoryIdsSynced = new HashSet<UUID>();
+		for (final RepoSyncState repoSyncState : repoSyncRunner.getRepoSyncStates())
+			remoteRepositoryIdsSynced.add(repoSyncState.getServerRepositoryId());
 
-		final List<RepoSyncState> statesAdded = new ArrayList<RepoSyncState>();
-		final List<RepoSyncState> statesRemoved;
 		final UUID localRepositoryId = repoSyncRunner.getSyncQueueItem().repositoryId;
 		final File localRoot = repoSyncRunner.getSyncQueueItem().localRoot;
-		synchronized (this) {
-			final List<RepoSyncState> list = _getRepoSyncStates(localRepositoryId);
-			for (final Map.Entry<UUID, URL> me : repoSyncRunner.getRemoteRepositoryId2RemoteRootMap().entrySet()) {
-				final UUID remoteRepositoryId = me.getKey();
-				final URL remoteRoot = me.getValue();
-				final RepoSyncState state = new RepoSyncState(localRepositoryId, remoteRepositoryId, localRoot, remoteRoot,
-						Severity.INFO, "Sync OK.", null,
-						repoSyncRunner.getSyncStarted(), repoSyncRunner.getSyncFinished());
-				list.add(state);
-				statesAdded.add(state);
-			}
-			statesRemoved = evictOldStates(localRepositoryId, localRoot);
-		}
-
-		firePropertyChange(PropertyEnum.states_added, null, Collections.unmodifiableList(statesAdded));
+		final List<RepoSyncState> states = new ArrayList<RepoSyncState>();
+		for (final Map.Entry<UUID, URL> me : repoSyncRunner.getRemoteRepositoryId2RemoteRootMap().entrySet()) {
+			if (remoteRepositoryIdsSynced.contains(me.getKey()))
+				continue;
 
-		if (! statesRemoved.isEmpty())
-			firePropertyChange(PropertyEnum.states_removed, null, Collections.unmodifiableList(statesRemoved));
-
-		firePropertyChange(PropertyEnum.states, null, getStates(localRepositoryId));
+			states.add(new RepoSyncState(localRepositoryId, me.getKey(), localRoot, me.getValue(),
+					Severity.ERROR, exception.getMessage(), new Error(exception),
+					repoSyncRunner.getSyncStarted(), repoSyncRunner.getSyncFinished()));
+		}
+		if (! states.isEmpty())
+			registerSyncStates(repoSyncRunner, states);
 	}
 
-	private void registerSyncError(final RepoSyncRunner repoSyncRunner, final Throwable exception) {
+	private void registerSyncStates(final RepoSyncRunner repoSyncRunner, final List<RepoSyncState> states) {
 		requireNonNull(repoSyncRunner, "repoSyncRunner");
-		requireNonNull(exception, "exception");
+		requireNonNull(states, "states");
 
-		final List<RepoSyncState> statesAdded = new ArrayList<RepoSyncState>();
 		final List<RepoSyncState> statesRemoved;
 		final UUID localRepositoryId = repoSyncRunner.getSyncQueueItem().repositoryId;
 		final File localRoot = repoSyncRunner.getSyncQueueItem().localRoot;
 		synchronized (this) {
-			final List<RepoSyncState> list = _getRepoSyncStates(localRepositoryId);
-			UUID remoteRepositoryId = repoSyncRunner.getRemoteRepositoryId();
-			URL remoteRoot = repoSyncRunner.getRemoteRoot();
-			final RepoSyncState state = new RepoSyncState(localRepositoryId, remoteRepositoryId, localRoot, remoteRoot,
-					Severity.ERROR, exception.getMessage(), new Error(exception),
-					repoSyncRunner.getSyncStarted(), repoSyncRunner.getSyncFinished());
-			if (remoteRepositoryId != null && remoteRoot != null) {
-				list.add(state);
-				statesAdded.add(state);
-			}
-			else {
-				for (Map.Entry<UUID, URL> me : repoSyncRunner.getRemoteRepositoryId2RemoteRootMap().entrySet()) {
-					remoteRepositoryId = me.getKey();
-					remoteRoot = me.getValue();
-					list.add(state);
-					statesAdded.add(state);
-				}
-			}
+			_getRepoSyncStates(localRepositoryId).addAll(states);
 			statesRemoved = evictOldStates(localRepositoryId, localRoot);
 		}
 
-		firePropertyChange(PropertyEnum.states_added, null, Collections.unmodifiableList(statesAdded));
+		firePropertyChange(PropertyEnum.states_added, null, Collections.unmodifiableList(new ArrayList<>(states)));
 
 		if (! statesRemoved.isEmpty())
 			firePropertyChange(PropertyEnum.states_removed, null, Collections.unmodifiableList(statesRemoved));
@@ -4,31 +4,63 @@ import static co.codewizards.cloudstore.core.chronos.ChronosUtil.*;
 import static java.util.Objects.*;
 
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import co.codewizards.cloudstore.core.Severity;
+import co.codewizards.cloudstore.core.concurrent.VirtualThreadUtil;
+import co.codewizards.cloudstore.core.config.ConfigImpl;
+import co.codewizards.cloudstore.core.dto.Error;
 import co.codewizards.cloudstore.core.progress.LoggerProgressMonitor;
 import co.codewizards.cloudstore.core.repo.local.LocalRepoManager;
 import co.codewizards.cloudstore.core.repo.local.LocalRepoManagerFactory;
 
+/**
+ * Syncs one local repository with all its remote repositories.
+ * <p>
+ * If there are multiple remote repositories, the local repository is synced with the file system only once and
+ * then synced with up to {@link RepoSyncDaemon#CONFIG_KEY_REMOTE_SYNC_PARALLELISM} remote repositories concurrently.
+ * Writing into the local repository (syncing down), though, is serialised - only obtaining the change-sets and
+ * syncing up really run in parallel.
+ * The remote repositories are isolated from each other: If the sync with one of them fails, the others are synced
+ * nevertheless. The outcome of each remote repository is reported via the {@link RemoteSyncListener} as soon as
+ * it is known.
+ */
 class RepoSyncRunner implements Runnable {
 
 	private static final Logger logger = LoggerFactory.getLogger(RepoSyncRunner.class);
 
+	/**
+	 * Notified whenever the sync with one remote repository is finished - successfully or not.
+	 */
+	interface RemoteSyncListener {
+		void remoteSyncFinished(RepoSyncRunner repoSyncRunner, RepoSyncState repoSyncState);
+	}
+
 	private final RepoSyncQueueItem repoSyncQueueItem;
+	private final RemoteSyncListener remoteSyncListener;
 	private Map<UUID, URL> remoteRepositoryId2RemoteRootMap = new HashMap<>(0);
-	private UUID remoteRepositoryId;
-	private URL remoteRoot;
+	private final List<RepoSyncState> repoSyncStates = Collections.synchronizedList(new ArrayList<RepoSyncState>());
 	private Date syncStarted;
 	private Date syncFinished;
 
-	public RepoSyncRunner(final RepoSyncQueueItem repoSyncQueueItem) {
+	public RepoSyncRunner(final RepoSyncQueueItem repoSyncQueueItem, final RemoteSyncListener remoteSyncListener) {
 		this.repoSyncQueueItem = requireNonNull(repoSyncQueueItem, "repoSyncQueueItem");
+		this.remoteSyncListener = requireNonNull(remoteSyncListener, "remoteSyncListener");
 	}
 
 	public RepoSyncQueueItem getSyncQueueItem() {
@@ -39,39 +71,85 @@ class RepoSyncRunner implements Runnable {
 	public void run() {
 		syncStarted = nowAsDate();
 		try {
-			remoteRepositoryId = null;
-			remoteRoot = null;
+			repoSyncStates.clear();
+			final boolean fanOut;
 			try (final LocalRepoManager localRepoManager = LocalRepoManagerFactory.Helper.getInstance().createLocalRepoManagerForExistingRepository(repoSyncQueueItem.localRoot);) {
 				remoteRepositoryId2RemoteRootMap = new HashMap<>(localRepoManager.getRemoteRepositoryId2RemoteRootMap());
-			}
 
-			for (Map.Entry<UUID, URL> me : remoteRepositoryId2RemoteRootMap.entrySet()) {
-				remoteRepositoryId = me.getKey();
-				remoteRoot = me.getValue();
-				try (RepoToRepoSync repoToRepoSync = RepoToRepoSync.create(repoSyncQueueItem.localRoot, remoteRoot);) {
-					repoToRepoSync.sync(new LoggerProgressMonitor(logger));
+				// With a single remote repository, RepoToRepoSync does the local sync itself (concurrently to
+				// the remote side's preparation). With multiple ones, we must not scan the file system multiple times.
+				fanOut = remoteRepositoryId2RemoteRootMap.size() > 1;
+				if (fanOut) {
+					logger.info("run: locally syncing {} ('{}') once for {} remote repositories.",
+							repoSyncQueueItem.repositoryId, repoSyncQueueItem.localRoot, remoteRepositoryId2RemoteRootMap.size());
+					localRepoManager.localSync(new LoggerProgressMonitor(logger));
 				}
 			}
-			remoteRepositoryId = null;
-			remoteRoot = null;
+
+			final int parallelism = Math.min(getRemoteSyncParallelism(), remoteRepositoryId2RemoteRootMap.size());
+			if (parallelism <= 1) {
+				for (final Map.Entry<UUID, URL> me : remoteRepositoryId2RemoteRootMap.entrySet())
+					syncRemote(me.getKey(), me.getValue(), ! fanOut, null);
+			}
+			else
+				syncRemotesConcurrently(parallelism);
 		} finally {
 			syncFinished = nowAsDate();
 		}
 	}
 
-	public UUID getRemoteRepositoryId() {
-		return remoteRepositoryId;
+	private void syncRemotesConcurrently(final int parallelism) {
+		final ExecutorService executorService = Executors.newFixedThreadPool(parallelism,
+				VirtualThreadUtil.createThreadFactory(null, "RepoSyncRunner_" + repoSyncQueueItem.repositoryId + "_", true));
+		try {
+			// Only one remote may write into the local repository at the same time - see RepoToRepoSync.setLocalRepoWriteLock(...).
+			final Lock localRepoWriteLock = new ReentrantLock();
+			final List<Future<?>> futures = new ArrayList<>(remoteRepositoryId2RemoteRootMap.size());
+			for (final Map.Entry<UUID, URL> me : remoteRepositoryId2RemoteRootMap.entrySet()) {
+				futures.add(executorService.submit(new Runnable() {
+					@Override
+					public void run() {
+						syncRemote(me.getKey(), me.getValue(), false, localRepoWriteLock);
+					}
+				}));
+			}
+			for (final Future<?> future : futures)
+				future.get(); // syncRemote(...) does not throw any exception => only to wait
+		} catch (final InterruptedException | ExecutionException x) {
+			throw new RuntimeException(x);
+		} finally {
+			executorService.shutdown();
+		}
 	}
 
-	/**
-	 * Gets the current remote root URL or the last one having synced.
-	 * <p>
-	 * If the sync was aborted due to a failure, this reflects the URL that failed to sync. If all
-	 * syncs succeeded, this is <code>null</code>.
-	 * @return the current/last remote root URL or <code>null</code>.
-	 */
-	public URL getRemoteRoot() {
-		return remoteRoot;
+	private void syncRemote(final UUID remoteRepositoryId, final URL remoteRoot, final boolean localSyncEnabled, final Lock localRepoWriteLock) {
+		final Date remoteSyncStarted = nowAsDate();
+		Throwable error = null;
+		try (RepoToRepoSync repoToRepoSync = RepoToRepoSync.create(repoSyncQueueItem.localRoot, remoteRoot);) {
+			repoToRepoSync.setLocalSyncEnabled(localSyncEnabled);
+			repoToRepoSync.setLocalRepoWriteLock(localRepoWriteLock);
+			repoToRepoSync.sync(new LoggerProgressMonitor(logger));
+		} catch (final Throwable x) {
+			logger.error("syncRemote: Syncing {} ('{}') with {} ('{}') failed: {}",
+					repoSyncQueueItem.repositoryId, repoSyncQueueItem.localRoot, remoteRepositoryId, remoteRoot, x.toString(), x);
+			error = x;
+		}
+
+		final RepoSyncState repoSyncState;
+		if (error == null)
+			repoSyncState = new RepoSyncState(repoSyncQueueItem.repositoryId, remoteRepositoryId, repoSyncQueueItem.localRoot, remoteRoot,
+					Severity.INFO, "Sync OK.", null, remoteSyncStarted, nowAsDate());
+		else
+			repoSyncState = new RepoSyncState(repoSyncQueueItem.repositoryId, remoteRepositoryId, repoSyncQueueItem.localRoot, remoteRoot,
+					Severity.ERROR, error.getMessage(), new Error(error), remoteSyncStarted, nowAsDate());
+
+		repoSyncStates.add(repoSyncState);
+		remoteSyncListener.remoteSyncFinished(this, repoSyncState);
+	}
+
+	private int getRemoteSyncParallelism() {
+		return ConfigImpl.getInstanceForDirectory(repoSyncQueueItem.localRoot).getPropertyAsPositiveOrZeroInt(
+				RepoSyncDaemon.CONFIG_KEY_REMOTE_SYNC_PARALLELISM, RepoSyncDaemon.DEFAULT_REMOTE_SYNC_PARALLELISM);
 	}
 
 	/**
@@ -82,6 +160,18 @@ class RepoSyncRunner implements Runnable {
 		return remoteRepositoryId2RemoteRootMap;
 	}
 
+	/**
+	 * Gets the states of the remote repositories having been synced (successfully or not) so far.
+	 * <p>
+	 * If the local sync failed, no remote repository was synced at all and this list is empty.
+	 * @return the states of the remote repositories already synced. Never <code>null</code>.
+	 */
+	public List<RepoSyncState> getRepoSyncStates() {
+		synchronized (repoSyncStates) {
+			return new ArrayList<>(repoSyncStates);
+		}
+	}
+
 	public Date getSyncStarted() {
 		return syncStarted;
 	}
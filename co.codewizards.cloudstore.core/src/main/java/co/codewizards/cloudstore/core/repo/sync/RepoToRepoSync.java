@@ -11,6 +11,7 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -25,16 +26,22 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import co.codewizards.cloudstore.core.config.ConfigImpl;
 import co.codewizards.cloudstore.core.dto.ChangeSetDto;
 import co.codewizards.cloudstore.core.dto.ConfigPropSetDto;
 import co.codewizards.cloudstore.core.dto.CopyModificationDto;
 import co.codewizards.cloudstore.core.dto.DeleteModificationDto;
 import co.codewizards.cloudstore.core.dto.DirectoryDto;
+import co.codewizards.cloudstore.core.dto.FileChunkDeltaDto;
 import co.codewizards.cloudstore.core.dto.FileChunkDto;
+import co.codewizards.cloudstore.core.dto.FileDeltaDto;
+import co.codewizards.cloudstore.core.dto.FileDeltaInstructionDto;
+import co.codewizards.cloudstore.core.dto.FileSignatureDto;
 import co.codewizards.cloudstore.core.dto.ModificationDto;
 import co.codewizards.cloudstore.core.dto.NormalFileDto;
 import co.codewizards.cloudstore.core.dto.RepoFileDto;
@@ -49,6 +56,7 @@ import co.codewizards.cloudstore.core.repo.local.LocalRepoHelper;
 import co.codewizards.cloudstore.core.repo.local.LocalRepoManager;
 import co.codewizards.cloudstore.core.repo.local.LocalRepoManagerFactory;
 import co.codewizards.cloudstore.core.repo.transport.CollisionException;
+import co.codewizards.cloudstore.core.repo.transport.FileDeltaUtil;
 import co.codewizards.cloudstore.core.repo.transport.LocalRepoTransport;
 import co.codewizards.cloudstore.core.repo.transport.RepoTransport;
 import co.codewizards.cloudstore.core.repo.transport.RepoTransportFactory;
@@ -69,6 +77,31 @@ public class RepoToRepoSync implements AutoCloseable {
 	 */
 	private static final boolean TEST_INVERSE = false;
 
+	/**
+	 * Maximum number of bytes between two literal-instructions of a delta-transfer, up to which they are read from
+	 * the source with one single request. Reading these bytes needlessly is cheaper than another round-trip.
+	 */
+	private static final int MAX_LITERAL_BATCH_GAP = 16 * 1024;
+
+	/**
+	 * Configuration property key controlling whether the dirty chunks of a modified file are transferred as delta
+	 * (similar to rsync): only the data the destination's old file does not contain is transferred.
+	 * <p>
+	 * The configuration can be overridden by a system property - see {@link co.codewizards.cloudstore.core.config.Config#SYSTEM_PROPERTY_PREFIX}.
+	 * @see FileDeltaUtil
+	 */
+	public static final String CONFIG_KEY_DELTA_TRANSFER_ENABLED = "repoToRepoSync.deltaTransferEnabled";
+	public static final boolean DEFAULT_DELTA_TRANSFER_ENABLED = true;
+
+	/**
+	 * Configuration property key controlling the minimum length (in bytes) of the destination's old file for
+	 * a delta-transfer. Smaller files are always transferred completely - calculating a delta is not worth it.
+	 * <p>
+	 * The configuration can be overridden by a system property - see {@link co.codewizards.cloudstore.core.config.Config#SYSTEM_PROPERTY_PREFIX}.
+	 */
+	public static final String CONFIG_KEY_DELTA_TRANSFER_MIN_LENGTH = "repoToRepoSync.deltaTransferMinLength";
+	public static final long DEFAULT_DELTA_TRANSFER_MIN_LENGTH = 64L * 1024L;
+
 	protected File localRoot;
 	protected URL remoteRoot;
 	protected final LocalRepoManager localRepoManager;
@@ -77,6 +110,8 @@ public class RepoToRepoSync implements AutoCloseable {
 	protected UUID localRepositoryId;
 	protected UUID remoteRepositoryId;
 
+	private boolean localSyncEnabled = true;
+	private Lock localRepoWriteLock;
 	private ExecutorService localSyncExecutor;
 	private Future<Void> localSyncFuture;
 	private final Set<UUID> lastSyncToRemoteRepoLocalRepositoryRevisionSyncedUpdatedInFromRepositoryIds = new HashSet<>();
@@ -88,6 +123,15 @@ public class RepoToRepoSync implements AutoCloseable {
 
 	private DoneMarker doneMarker;
 
+	private RepoFileDtoPrefetcher fromRepoFileDtoPrefetcher;
+	private RepoFileDtoPrefetcher toRepoFileDtoPrefetcher;
+
+	/**
+	 * Whether a delta-transfer failed (e.g. because the remote repository does not support it, yet). If so, all
+	 * further files of this sync are transferred without delta.
+	 */
+	private boolean deltaTransferFailed;
+
 	/**
 	 * Create an instance.
 	 * @param localRoot the root of the local repository or any file/directory inside it. This is
@@ -119,6 +163,49 @@ public class RepoToRepoSync implements AutoCloseable {
 		return createObject(RepoToRepoSync.class, localRoot, remoteRoot);
 	}
 
+	/**
+	 * Indicates whether {@link #sync(ProgressMonitor)} performs a {@linkplain LocalRepoManager#localSync(ProgressMonitor) local sync}.
+	 * @return <code>true</code>, if the local repository is synced with the file system before it is synced with the
+	 * remote repository; <code>false</code>, if the caller did this already. The default is <code>true</code>.
+	 */
+	public boolean isLocalSyncEnabled() {
+		return localSyncEnabled;
+	}
+
+	/**
+	 * Sets whether {@link #sync(ProgressMonitor)} performs a {@linkplain LocalRepoManager#localSync(ProgressMonitor) local sync}.
+	 * <p>
+	 * This should be switched off, if the caller syncs the same local repository with multiple remote repositories
+	 * and thus performs the local sync only once for all of them.
+	 * @param localSyncEnabled whether to perform a local sync.
+	 * @see #isLocalSyncEnabled()
+	 */
+	public void setLocalSyncEnabled(final boolean localSyncEnabled) {
+		this.localSyncEnabled = localSyncEnabled;
+	}
+
+	/**
+	 * Gets the lock held while changes are written into the local repository.
+	 * @return the lock or <code>null</code>. The default is <code>null</code>.
+	 * @see #setLocalRepoWriteLock(Lock)
+	 */
+	public Lock getLocalRepoWriteLock() {
+		return localRepoWriteLock;
+	}
+
+	/**
+	 * Sets the lock held while changes are written into the local repository - i.e. while syncing down.
+	 * <p>
+	 * If the same local repository is synced with multiple remote repositories concurrently, they must share one
+	 * lock: Otherwise, they might write the same local file at the same time, e.g. sharing the same temporary
+	 * chunk files. Obtaining the change-sets and syncing up are not affected and thus still run concurrently.
+	 * @param localRepoWriteLock the lock or <code>null</code>, if the caller makes sure no other sync writes into
+	 * the same local repository concurrently.
+	 */
+	public void setLocalRepoWriteLock(final Lock localRepoWriteLock) {
+		this.localRepoWriteLock = localRepoWriteLock;
+	}
+
 	public void sync(final ProgressMonitor monitor) {
 		requireNonNull(monitor, "monitor");
 		monitor.beginTask("Synchronising...", 201);
@@ -137,15 +224,19 @@ public class RepoToRepoSync implements AutoCloseable {
 			if (localSyncFuture != null)
 				throw new IllegalStateException("localSyncFuture != null");
 
-			localSyncExecutor = Executors.newFixedThreadPool(1);
-			localSyncFuture = localSyncExecutor.submit(new Callable<Void>() {
-				@Override
-				public Void call() throws Exception {
-					logger.info("sync: locally syncing {} ('{}')", localRepositoryId, localRoot);
-					localRepoManager.localSync(new SubProgressMonitor(monitor, 50));
-					return null;
-				}
-			});
+			if (localSyncEnabled) {
+				localSyncExecutor = Executors.newFixedThreadPool(1);
+				localSyncFuture = localSyncExecutor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						logger.info("sync: locally syncing {} ('{}')", localRepositoryId, localRoot);
+						localRepoManager.localSync(new SubProgressMonitor(monitor, 50));
+						return null;
+					}
+				});
+			}
+			else
+				monitor.worked(50);
 
 			if (!TEST_INVERSE) { // This is the normal sync (NOT test).
 				syncDown(true, new SubProgressMonitor(monitor, 50));
@@ -165,7 +256,7 @@ public class RepoToRepoSync implements AutoCloseable {
 				logger.info("sync: locally syncing on *remote* side {} ('{}')", localRepositoryId, localRoot);
 				remoteRepoTransport.getChangeSetDto(true, null); // trigger the local sync on the remote side (we don't need the change set)
 
-				waitForAndCheckLocalSyncFuture();
+				waitForAndCheckLocalSyncFutureIfExists();
 
 				syncUp(new SubProgressMonitor(monitor, 50));
 				syncDown(false, new SubProgressMonitor(monitor, 50));
@@ -245,12 +336,21 @@ public class RepoToRepoSync implements AutoCloseable {
 			monitor.worked(8);
 
 			waitForAndCheckLocalSyncFutureIfExists();
-			toRepoTransport.prepareForChangeSetDto(changeSetDto);
-			sync(fromRepoTransport, toRepoTransport, changeSetDto, new SubProgressMonitor(monitor, 90));
 
-			fromRepoTransport.endSyncFromRepository();
-			toRepoTransport.endSyncToRepository(changeSetDto.getRepositoryDto().getRevision());
-			deleteDoneDirs();
+			final Lock writeLock = toRepoTransport == localRepoTransport ? localRepoWriteLock : null;
+			if (writeLock != null)
+				writeLock.lock();
+			try {
+				toRepoTransport.prepareForChangeSetDto(changeSetDto);
+				sync(fromRepoTransport, toRepoTransport, changeSetDto, new SubProgressMonitor(monitor, 90));
+
+				fromRepoTransport.endSyncFromRepository();
+				toRepoTransport.endSyncToRepository(changeSetDto.getRepositoryDto().getRevision());
+				deleteDoneDirs(fromRepoTransport.getRepositoryId(), toRepoTransport.getRepositoryId());
+			} finally {
+				if (writeLock != null)
+					writeLock.unlock();
+			}
 			monitor.worked(2);
 		} finally {
 			monitor.done();
@@ -328,6 +428,11 @@ public class RepoToRepoSync implements AutoCloseable {
 
 		monitor.beginTask("Synchronising...", repoFileDtoTree.size());
 		try {
+			if (isAssignableToAnyIncludedAndNoExcluded(NormalFileDto.class, repoFileDtoClassesIncl, repoFileDtoClassesExcl)) {
+				final List<String> normalFilePaths = getNormalFilePathsToSync(fromRepoTransport, toRepoTransport, repoFileDtoTree, fileInProgressPaths);
+				fromRepoFileDtoPrefetcher = new RepoFileDtoPrefetcher(fromRepoTransport, normalFilePaths);
+				toRepoFileDtoPrefetcher = new RepoFileDtoPrefetcher(toRepoTransport, normalFilePaths);
+			}
 			for (final RepoFileDtoTreeNode repoFileDtoTreeNode : repoFileDtoTree) {
 				if (repoFileDtoTreeNode.getRepoFileDto().isNeededAsParent()) { // not actually modified - serves only to complete the tree structure.
 					monitor.worked(1);
@@ -389,13 +494,71 @@ public class RepoToRepoSync implements AutoCloseable {
 				markDone(fromRepoTransport, toRepoTransport, repoFileDto);
 			}
 		} finally {
+			closeRepoFileDtoPrefetchers();
 			monitor.done();
 		}
 	}
 
+	private static boolean isAssignableToAnyIncludedAndNoExcluded(final Class<?> repoFileDtoClass,
+			final Class<?>[] repoFileDtoClassesIncl, final Class<?>[] repoFileDtoClassesExcl) {
+		for (final Class<?> clazz : repoFileDtoClassesExcl) {
+			if (clazz.isAssignableFrom(repoFileDtoClass))
+				return false;
+		}
+		for (final Class<?> clazz : repoFileDtoClassesIncl) {
+			if (clazz.isAssignableFrom(repoFileDtoClass))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the paths of all normal files in the given tree, which are going to be synced by
+	 * {@link #syncFile(RepoTransport, RepoTransport, RepoFileDtoTreeNode, RepoFileDto, ProgressMonitor) syncFile(...)}
+	 * - in the order they are synced. They are passed to the {@link RepoFileDtoPrefetcher}s.
+	 */
+	private List<String> getNormalFilePathsToSync(final RepoTransport fromRepoTransport, final RepoTransport toRepoTransport,
+			final RepoFileDtoTreeNode repoFileDtoTree, final Set<String> fileInProgressPaths) {
+		final List<String> result = new ArrayList<>();
+		for (final RepoFileDtoTreeNode repoFileDtoTreeNode : repoFileDtoTree) {
+			final RepoFileDto repoFileDto = repoFileDtoTreeNode.getRepoFileDto();
+			if (! (repoFileDto instanceof NormalFileDto) || repoFileDto.isNeededAsParent())
+				continue;
+
+			final String path = repoFileDtoTreeNode.getPath();
+			if (fileInProgressPaths != null && ! fileInProgressPaths.contains(path))
+				continue;
+
+			if (isDone(fromRepoTransport, toRepoTransport, repoFileDto))
+				continue;
+
+			result.add(path);
+		}
+		return result;
+	}
+
+	private void closeRepoFileDtoPrefetchers() {
+		if (fromRepoFileDtoPrefetcher != null) {
+			fromRepoFileDtoPrefetcher.close();
+			fromRepoFileDtoPrefetcher = null;
+		}
+		if (toRepoFileDtoPrefetcher != null) {
+			toRepoFileDtoPrefetcher.close();
+			toRepoFileDtoPrefetcher = null;
+		}
+	}
+
+	private static RepoFileDto getRepoFileDto(final RepoFileDtoPrefetcher repoFileDtoPrefetcher,
+			final RepoTransport repoTransport, final String path) {
+		if (repoFileDtoPrefetcher != null)
+			return repoFileDtoPrefetcher.getRepoFileDto(path);
+
+		return repoTransport.getRepoFileDto(path);
+	}
+
 	protected DoneMarker getDoneMarker(final String doneDirNamePrefix, UUID fromRepositoryId, UUID toRepositoryId) {
 		requireNonNull(doneDirNamePrefix, "doneDirNamePrefix");
-		final String doneDirName = doneDirNamePrefix + fromRepositoryId + '.' + toRepositoryId + DONE_DIR_NAME_SUFFIX;
+		final String doneDirName = getDoneDirName(doneDirNamePrefix, fromRepositoryId, toRepositoryId);
 		if (doneMarker != null) {
 			if (doneDirName.equals(doneMarker.getDoneDir().getName()))
 				return doneMarker;
@@ -408,20 +571,32 @@ public class RepoToRepoSync implements AutoCloseable {
 		return doneMarker;
 	}
 
-	protected void deleteDoneDirs() {
+	protected static String getDoneDirName(final String doneDirNamePrefix, final UUID fromRepositoryId, final UUID toRepositoryId) {
+		return doneDirNamePrefix + fromRepositoryId + '.' + toRepositoryId + DONE_DIR_NAME_SUFFIX;
+	}
+
+	/**
+	 * Deletes the done-markers of the sync from the given repository to the given repository.
+	 * <p>
+	 * The done-markers of other pairs of repositories are kept - they might belong to a sync with another
+	 * remote repository running concurrently or having been interrupted.
+	 * @param fromRepositoryId the source repository's ID. Must not be <code>null</code>.
+	 * @param toRepositoryId the destination repository's ID. Must not be <code>null</code>.
+	 */
+	protected void deleteDoneDirs(final UUID fromRepositoryId, final UUID toRepositoryId) {
+		requireNonNull(fromRepositoryId, "fromRepositoryId");
+		requireNonNull(toRepositoryId, "toRepositoryId");
 		if (doneMarker != null) {
 			doneMarker.close();
 			doneMarker = null;
 		}
 		final File localRepoTmpDir = getLocalRepoTmpDir();
-		final File[] tmpFiles = localRepoTmpDir.listFiles();
-		if (tmpFiles != null) {
-			for (final File file : tmpFiles) {
-				if (file.getName().endsWith(DONE_DIR_NAME_SUFFIX)) {
-					file.deleteRecursively();;
-					if (file.exists()) {
-						logger.error("deleteDoneDirs: Cannot delete directory (permissions?): " + file.getAbsolutePath());
-					}
+		for (final String doneDirNamePrefix : new String[] { FILE_DONE_DIR_NAME_PREFIX, MODIFICATION_DONE_DIR_NAME_PREFIX }) {
+			final File doneDir = localRepoTmpDir.createFile(getDoneDirName(doneDirNamePrefix, fromRepositoryId, toRepositoryId));
+			if (doneDir.exists()) {
+				doneDir.deleteRecursively();
+				if (doneDir.exists()) {
+					logger.error("deleteDoneDirs: Cannot delete directory (permissions?): " + doneDir.getAbsolutePath());
 				}
 			}
 		}
@@ -649,7 +824,7 @@ public class RepoToRepoSync implements AutoCloseable {
 			final String path = repoFileDtoTreeNode.getPath();
 			logger.info("syncFile: path='{}'", path);
 
-			final RepoFileDto fromRepoFileDto = fromRepoTransport.getRepoFileDto(path);
+			final RepoFileDto fromRepoFileDto = getRepoFileDto(fromRepoFileDtoPrefetcher, fromRepoTransport, path);
 			if (fromRepoFileDto == null) {
 				logger.warn("File was deleted during sync on source side: {}", path);
 				return;
@@ -662,7 +837,7 @@ public class RepoToRepoSync implements AutoCloseable {
 
 			final NormalFileDto fromNormalFileDto = (NormalFileDto) fromRepoFileDto;
 
-			final RepoFileDto toRepoFileDto = toRepoTransport.getRepoFileDto(path);
+			final RepoFileDto toRepoFileDto = getRepoFileDto(toRepoFileDtoPrefetcher, toRepoTransport, path);
 			if (areFilesExistingAndEqual(fromRepoFileDto, toRepoFileDto)) {
 				logger.info("File is already equal on destination side (sha1='{}'): {}", fromNormalFileDto.getSha1(), path);
 				return;
@@ -740,6 +915,9 @@ public class RepoToRepoSync implements AutoCloseable {
 			logger.info("Need to copy {} dirty file-chunks (of {} total). path='{}'",
 					fromFileChunkDtosDirty.size(), fromNormalFileDto.getFileChunkDtos().size(), path);
 
+			final FileDeltaDto fileDeltaDto = fromFileChunkDtosDirty.isEmpty() ? null
+					: getFileDeltaDto(fromRepoTransport, toRepoTransport, path, toNormalFileDto);
+
 			final ProgressMonitor subMonitor = new SubProgressMonitor(monitor, 73);
 			subMonitor.beginTask("Synchronising...", fromFileChunkDtosDirty.size());
 			fileChunkIndex = -1;
@@ -747,6 +925,15 @@ public class RepoToRepoSync implements AutoCloseable {
 			final long copyChunksBeginTimestamp = nowAsMillis();
 			for (final FileChunkDto fileChunkDto : fromFileChunkDtosDirty) {
 				++fileChunkIndex;
+				if (fileDeltaDto != null) {
+					final long literalLength = putFileDelta(fromRepoTransport, toRepoTransport, path, fileChunkDto, fileDeltaDto);
+					if (literalLength >= 0) {
+						bytesCopied += literalLength;
+						subMonitor.worked(1);
+						continue;
+					}
+				}
+
 				if (logger.isTraceEnabled()) {
 					logger.trace("Reading data for dirty FileChunkDto (index {} of {}). path='{}' offset={}",
 							fileChunkIndex, fromFileChunkDtosDirty.size(), path, fileChunkDto.getOffset());
@@ -806,6 +993,132 @@ public class RepoToRepoSync implements AutoCloseable {
 		return fileData;
 	}
 
+	/**
+	 * Gets the delta between the destination's current file and the source's file - if a delta-transfer is
+	 * possible and worth it.
+	 * @return the delta or <code>null</code>, if the file should be transferred without delta.
+	 */
+	protected FileDeltaDto getFileDeltaDto(final RepoTransport fromRepoTransport, final RepoTransport toRepoTransport,
+			final String path, final NormalFileDto toNormalFileDto) {
+		if (deltaTransferFailed
+				|| ! ConfigImpl.getInstance().getPropertyAsBoolean(CONFIG_KEY_DELTA_TRANSFER_ENABLED, DEFAULT_DELTA_TRANSFER_ENABLED)
+				|| toNormalFileDto.getLength() < ConfigImpl.getInstance().getPropertyAsPositiveOrZeroLong(CONFIG_KEY_DELTA_TRANSFER_MIN_LENGTH, DEFAULT_DELTA_TRANSFER_MIN_LENGTH))
+			return null;
+
+		// Without a network in between, reading the old file is not cheaper than reading the new one.
+		if (fromRepoTransport instanceof LocalRepoTransport && toRepoTransport instanceof LocalRepoTransport)
+			return null;
+
+		try {
+			final FileSignatureDto fileSignatureDto = toRepoTransport.getFileSignatureDto(path);
+			if (fileSignatureDto == null)
+				return null;
+
+			final FileDeltaDto fileDeltaDto = fromRepoTransport.getFileDeltaDto(path, fileSignatureDto);
+			logger.debug("getFileDeltaDto: path='{}' fileSignatureDto={} fileDeltaDto={}", path, fileSignatureDto, fileDeltaDto);
+			return fileDeltaDto;
+		} catch (final RuntimeException x) {
+			logger.warn("getFileDeltaDto: Delta-transfer failed! Disabling it for this sync. path='" + path + "': " + x, x);
+			deltaTransferFailed = true;
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the given chunk into the destination using a delta-transfer: only the literal data is read from the
+	 * source - the rest is copied by the destination from its current file.
+	 * @return the number of bytes transferred or -1, if the chunk must be transferred without delta.
+	 */
+	protected long putFileDelta(final RepoTransport fromRepoTransport, final RepoTransport toRepoTransport,
+			final String path, final FileChunkDto fileChunkDto, final FileDeltaDto fileDeltaDto) {
+		try {
+			final List<FileDeltaInstructionDto> instructionDtos = FileDeltaUtil.getInstructionDtos(
+					fileDeltaDto, fileChunkDto.getOffset(), fileChunkDto.getLength());
+
+			long literalLength = 0;
+			for (final FileDeltaInstructionDto instructionDto : instructionDtos) {
+				if (instructionDto.isLiteral())
+					literalLength += instructionDto.getLength();
+			}
+			if (literalLength >= fileChunkDto.getLength())
+				return -1; // nothing to gain
+
+			long transferredLength = 0;
+			final List<FileDeltaInstructionDto> literalInstructionDtoBatch = new ArrayList<>();
+			for (final FileDeltaInstructionDto instructionDto : instructionDtos) {
+				if (! instructionDto.isLiteral())
+					continue;
+
+				if (! literalInstructionDtoBatch.isEmpty()) {
+					final FileDeltaInstructionDto lastInstructionDto = literalInstructionDtoBatch.get(literalInstructionDtoBatch.size() - 1);
+					if (instructionDto.getOffset() - (lastInstructionDto.getOffset() + lastInstructionDto.getLength()) > MAX_LITERAL_BATCH_GAP) {
+						final long length = populateLiteralData(fromRepoTransport, path, literalInstructionDtoBatch);
+						if (length < 0)
+							return -1; // file was modified => the transfer without delta handles this
+
+						transferredLength += length;
+						literalInstructionDtoBatch.clear();
+					}
+				}
+				literalInstructionDtoBatch.add(instructionDto);
+			}
+			if (! literalInstructionDtoBatch.isEmpty()) {
+				final long length = populateLiteralData(fromRepoTransport, path, literalInstructionDtoBatch);
+				if (length < 0)
+					return -1;
+
+				transferredLength += length;
+			}
+
+			final FileChunkDeltaDto fileChunkDeltaDto = new FileChunkDeltaDto();
+			fileChunkDeltaDto.setFileChunkDto(fileChunkDto);
+			fileChunkDeltaDto.setInstructionDtos(instructionDtos);
+			if (! toRepoTransport.putFileDelta(path, fileChunkDeltaDto)) {
+				logger.info("putFileDelta: Destination could not rebuild chunk; transferring it completely. path='{}' offset={}",
+						path, fileChunkDto.getOffset());
+				return -1;
+			}
+
+			if (logger.isTraceEnabled()) {
+				logger.trace("putFileDelta: Transferred {} of {} bytes. path='{}' offset={}",
+						transferredLength, fileChunkDto.getLength(), path, fileChunkDto.getOffset());
+			}
+			return transferredLength;
+		} catch (final CollisionException x) {
+			throw x;
+		} catch (final RuntimeException x) {
+			logger.warn("putFileDelta: Delta-transfer failed! Disabling it for this sync. path='" + path + "': " + x, x);
+			deltaTransferFailed = true;
+			return -1;
+		}
+	}
+
+	/**
+	 * Reads the data of the given literal-instructions from the source with one single request - including the
+	 * bytes between them - and assigns each instruction its part.
+	 * @return the number of bytes read or -1, if the source file was modified.
+	 */
+	private long populateLiteralData(final RepoTransport fromRepoTransport, final String path,
+			final List<FileDeltaInstructionDto> literalInstructionDtos) {
+		final FileDeltaInstructionDto firstInstructionDto = literalInstructionDtos.get(0);
+		final FileDeltaInstructionDto lastInstructionDto = literalInstructionDtos.get(literalInstructionDtos.size() - 1);
+		final long offset = firstInstructionDto.getOffset();
+		final int length = (int) (lastInstructionDto.getOffset() + lastInstructionDto.getLength() - offset);
+		final byte[] data = fromRepoTransport.getFileData(path, offset, length);
+		if (data == null || data.length != length)
+			return -1;
+
+		if (literalInstructionDtos.size() == 1) {
+			firstInstructionDto.setData(data);
+			return length;
+		}
+		for (final FileDeltaInstructionDto instructionDto : literalInstructionDtos) {
+			final int from = (int) (instructionDto.getOffset() - offset);
+			instructionDto.setData(Arrays.copyOfRange(data, from, from + (int) instructionDto.getLength()));
+		}
+		return length;
+	}
+
 	protected void putFileData(final RepoTransport fromRepoTransport, final RepoTransport toRepoTransport,
 			final RepoFileDtoTreeNode repoFileDtoTreeNode,
 			final String path, final FileChunkDto fileChunkDto,
@@ -3,11 +3,18 @@ package co.codewizards.cloudstore.core.repo.transport;
 import static java.util.Objects.*;
 
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import co.codewizards.cloudstore.core.dto.ChangeSetDto;
+import co.codewizards.cloudstore.core.dto.FileChunkDeltaDto;
+import co.codewizards.cloudstore.core.dto.FileDeltaDto;
+import co.codewizards.cloudstore.core.dto.FileSignatureDto;
+import co.codewizards.cloudstore.core.dto.RepoFileDto;
 import co.codewizards.cloudstore.core.util.UrlDecoder;
 import co.codewizards.cloudstore.core.util.UrlUtil;
 
@@ -154,6 +161,73 @@ public abstract class AbstractRepoTransport implements RepoTransport {
 		return path.startsWith(pathPrefix);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This default implementation does not support incremental change-sets and simply invokes
+	 * {@link #getChangeSetDto(boolean, Long)} - thus always returning the complete change-set, which is a valid
+	 * (though larger) result. Implementations should override it, if they can do better.
+	 */
+	@Override
+	public ChangeSetDto getChangeSetDto(final boolean localSync, final Long lastSyncToRemoteRepoLocalRepositoryRevisionSynced, final Long changedAfterRevision) {
+		return getChangeSetDto(localSync, lastSyncToRemoteRepoLocalRepositoryRevisionSynced);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This default implementation simply invokes {@link #getRepoFileDto(String)} for each path - thus always
+	 * including the {@code FileChunkDto}s. Implementations should override it, if they can do better.
+	 */
+	@Override
+	public List<RepoFileDto> getRepoFileDtos(final List<String> paths, final boolean withFileChunkDtos) {
+		requireNonNull(paths, "paths");
+		final List<RepoFileDto> result = new ArrayList<>(paths.size());
+		for (final String path : paths)
+			result.add(getRepoFileDto(path));
+
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This default implementation does not support delta-transfer and always returns <code>null</code>.
+	 */
+	@Override
+	public FileSignatureDto getFileSignatureDto(final String path) {
+		return null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This default implementation does not support delta-transfer and always returns <code>null</code>.
+	 */
+	@Override
+	public FileDeltaDto getFileDeltaDto(final String path, final FileSignatureDto fileSignatureDto) {
+		return null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This default implementation does not support delta-transfer and always returns <code>false</code>.
+	 */
+	@Override
+	public boolean putFileDelta(final String path, final FileChunkDeltaDto fileChunkDeltaDto) {
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This default implementation does nothing.
+	 */
+	@Override
+	public void clearCaches() {
+	}
+
 	@Override
 	protected void finalize() throws Throwable {
 		if (repoTransportCreatedStackTraceException != null) {
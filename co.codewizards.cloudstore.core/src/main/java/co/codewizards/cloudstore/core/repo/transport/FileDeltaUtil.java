@@ -0,0 +1,435 @@
+package co.codewizards.cloudstore.core.repo.transport;
+
+import static co.codewizards.cloudstore.core.util.HashUtil.*;
+import static java.util.Objects.*;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import co.codewizards.cloudstore.core.dto.FileChunkDeltaDto;
+import co.codewizards.cloudstore.core.dto.FileChunkDto;
+import co.codewizards.cloudstore.core.dto.FileDeltaDto;
+import co.codewizards.cloudstore.core.dto.FileDeltaInstructionDto;
+import co.codewizards.cloudstore.core.dto.FileSignatureDto;
+import co.codewizards.cloudstore.core.oio.File;
+
+/**
+ * Rsync-like delta-transfer of a modified file.
+ * <p>
+ * The destination describes its current file by a {@link FileSignatureDto}: it is divided into blocks of equal
+ * size and for each block, a weak rolling checksum (similar to Adler-32) and a strong checksum (the first
+ * {@value #STRONG_CHECKSUM_SIZE} bytes of its MD5) are calculated. The source then scans its file byte by byte
+ * looking for blocks with the same checksums - at any offset, hence insertions and deletions are detected, too.
+ * The resulting {@link FileDeltaDto} consists of copy-instructions (referencing the destination's blocks) and
+ * literal-instructions (data the destination does not have).
+ * <p>
+ * The checksums of all blocks are packed into {@link FileSignatureDto#getBlockChecksums()}:
+ * {@value #BLOCK_CHECKSUMS_SIZE} bytes per block, i.e. 4 bytes weak checksum (big endian) followed by
+ * {@value #STRONG_CHECKSUM_SIZE} bytes strong checksum.
+ */
+public final class FileDeltaUtil {
+
+	/**
+	 * Minimum size of a block.
+	 */
+	public static final int MIN_BLOCK_SIZE = 1024;
+
+	/**
+	 * Maximum size of a block. A file with more than {@link #MAX_BLOCK_COUNT} blocks of this size has a larger
+	 * signature.
+	 */
+	public static final int MAX_BLOCK_SIZE = FileChunkDto.MAX_LENGTH;
+
+	/**
+	 * Maximum number of blocks, unless the file is larger than {@link #MAX_BLOCK_SIZE} * {@code MAX_BLOCK_COUNT}.
+	 * It limits the size of a {@link FileSignatureDto}.
+	 */
+	public static final int MAX_BLOCK_COUNT = 64 * 1024;
+
+	/**
+	 * Number of bytes of the strong checksum of a block.
+	 */
+	public static final int STRONG_CHECKSUM_SIZE = 8;
+
+	/**
+	 * Number of bytes per block in {@link FileSignatureDto#getBlockChecksums()}.
+	 */
+	public static final int BLOCK_CHECKSUMS_SIZE = 4 + STRONG_CHECKSUM_SIZE;
+
+	private static final int BUFFER_SIZE = 1024 * 1024;
+
+	private FileDeltaUtil() {
+	}
+
+	/**
+	 * Gets the size of the blocks for a file with the given length.
+	 * <p>
+	 * The block size is approximately the square root of the file's length - this balances the size of the
+	 * signature against the granularity of the matches.
+	 * @param length the length of the file.
+	 * @return the block size. Always between {@link #MIN_BLOCK_SIZE} and {@link #MAX_BLOCK_SIZE} (both inclusive).
+	 */
+	public static int getBlockSize(final long length) {
+		long blockSize = (long) Math.sqrt(length) & ~63L; // multiple of 64
+		blockSize = Math.max(blockSize, (length + MAX_BLOCK_COUNT - 1) / MAX_BLOCK_COUNT);
+		return (int) Math.min(MAX_BLOCK_SIZE, Math.max(MIN_BLOCK_SIZE, blockSize));
+	}
+
+	/**
+	 * Creates the signature of the given file.
+	 * @param file the file. Must not be <code>null</code>.
+	 * @return the signature. Never <code>null</code>.
+	 * @throws IOException if reading the file failed.
+	 */
+	public static FileSignatureDto createFileSignatureDto(final File file) throws IOException {
+		requireNonNull(file, "file");
+		try (final RandomAccessFile raf = file.createRandomAccessFile("r")) {
+			final long length = raf.length();
+			final int blockSize = getBlockSize(length);
+			final long blockCount = (length + blockSize - 1) / blockSize;
+			final byte[] blockChecksums = new byte[Math.toIntExact(blockCount * BLOCK_CHECKSUMS_SIZE)];
+			final ByteBuffer blockChecksumsBuffer = ByteBuffer.wrap(blockChecksums);
+			final byte[] block = new byte[blockSize];
+			final RollingChecksum rollingChecksum = new RollingChecksum();
+			final MessageDigest md = createStrongMessageDigest();
+			for (long blockIndex = 0; blockIndex < blockCount; ++blockIndex) {
+				final int blockLength = (int) Math.min(blockSize, length - blockIndex * blockSize);
+				raf.readFully(block, 0, blockLength);
+				rollingChecksum.reset(block, 0, blockLength);
+				blockChecksumsBuffer.putInt(rollingChecksum.getValue());
+				blockChecksumsBuffer.put(getStrongChecksum(md, block, 0, blockLength));
+			}
+
+			final FileSignatureDto fileSignatureDto = new FileSignatureDto();
+			fileSignatureDto.setLength(length);
+			fileSignatureDto.setBlockSize(blockSize);
+			fileSignatureDto.setBlockChecksums(blockChecksums);
+			return fileSignatureDto;
+		}
+	}
+
+	/**
+	 * Creates the delta transforming the file described by the given signature into the given file.
+	 * @param file the new file (on the source side). Must not be <code>null</code>.
+	 * @param fileSignatureDto the signature of the old file (on the destination side). Must not be <code>null</code>.
+	 * @return the delta. Never <code>null</code>. The data of its literal-instructions is not populated.
+	 * @throws IOException if reading the file failed.
+	 * @throws IllegalArgumentException if the signature is inconsistent - e.g. its block size is not between
+	 * {@link #MIN_BLOCK_SIZE} and {@link #MAX_BLOCK_SIZE}. The signature comes from the remote side and is thus
+	 * checked before any memory is allocated according to it.
+	 */
+	public static FileDeltaDto createFileDeltaDto(final File file, final FileSignatureDto fileSignatureDto) throws IOException {
+		requireNonNull(file, "file");
+		requireNonNull(fileSignatureDto, "fileSignatureDto");
+		final long signatureLength = fileSignatureDto.getLength();
+		if (signatureLength < 0)
+			throw new IllegalArgumentException("fileSignatureDto.length < 0");
+
+		final int blockSize = fileSignatureDto.getBlockSize();
+		if (blockSize < MIN_BLOCK_SIZE || blockSize > MAX_BLOCK_SIZE)
+			throw new IllegalArgumentException(String.format("fileSignatureDto.blockSize=%s is not between %s and %s!",
+					blockSize, MIN_BLOCK_SIZE, MAX_BLOCK_SIZE));
+
+		final byte[] blockChecksums = requireNonNull(fileSignatureDto.getBlockChecksums(), "fileSignatureDto.blockChecksums");
+		final long blockCount = signatureLength / blockSize + (signatureLength % blockSize > 0 ? 1 : 0);
+		if (blockChecksums.length != blockCount * BLOCK_CHECKSUMS_SIZE)
+			throw new IllegalArgumentException("fileSignatureDto.blockChecksums.length does not match fileSignatureDto.length and fileSignatureDto.blockSize!");
+
+		final int fullBlockCount = (int) (signatureLength / blockSize); // blockCount is limited by blockChecksums.length
+		final int lastBlockLength = (int) (signatureLength % blockSize);
+
+		final Map<Integer, List<Integer>> weakChecksum2BlockIndexes = new HashMap<>();
+		final ByteBuffer blockChecksumsBuffer = ByteBuffer.wrap(blockChecksums);
+		for (int blockIndex = 0; blockIndex < fullBlockCount; ++blockIndex) {
+			final int weakChecksum = blockChecksumsBuffer.getInt(blockIndex * BLOCK_CHECKSUMS_SIZE);
+			List<Integer> blockIndexes = weakChecksum2BlockIndexes.get(weakChecksum);
+			if (blockIndexes == null) {
+				blockIndexes = new ArrayList<>(1);
+				weakChecksum2BlockIndexes.put(weakChecksum, blockIndexes);
+			}
+			blockIndexes.add(blockIndex);
+		}
+
+		final FileDeltaDto fileDeltaDto = new FileDeltaDto();
+		final List<FileDeltaInstructionDto> instructionDtos = fileDeltaDto.getInstructionDtos();
+		final RollingChecksum rollingChecksum = new RollingChecksum();
+		final MessageDigest md = createStrongMessageDigest();
+		try (final RandomAccessFile raf = file.createRandomAccessFile("r")) {
+			final byte[] buf = new byte[Math.max(4 * blockSize, BUFFER_SIZE)];
+			long bufOffset = 0; // offset of buf[0] in the file
+			int pos = 0; // beginning of the current window in buf
+			int end = 0; // end of the valid data in buf
+			boolean eof = false;
+			boolean rollingChecksumValid = false;
+			long literalOffset = 0;
+			int expectedBlockIndex = -1;
+			while (true) {
+				if (! eof && end - pos <= blockSize) { // rolling requires the byte following the window, too
+					System.arraycopy(buf, pos, buf, 0, end - pos);
+					bufOffset += pos;
+					end -= pos;
+					pos = 0;
+					while (end < buf.length) {
+						final int bytesRead = raf.read(buf, end, buf.length - end);
+						if (bytesRead < 0) {
+							eof = true;
+							break;
+						}
+						end += bytesRead;
+					}
+				}
+				if (end - pos < blockSize)
+					break;
+
+				if (! rollingChecksumValid) {
+					rollingChecksum.reset(buf, pos, blockSize);
+					rollingChecksumValid = true;
+				}
+
+				final int blockIndex = findBlockIndex(weakChecksum2BlockIndexes.get(rollingChecksum.getValue()),
+						blockChecksums, md, buf, pos, blockSize, expectedBlockIndex);
+				if (blockIndex >= 0) {
+					final long offset = bufOffset + pos;
+					addLiteralInstructionDto(instructionDtos, literalOffset, offset);
+					addCopyInstructionDto(instructionDtos, offset, blockSize, (long) blockIndex * blockSize);
+					pos += blockSize;
+					literalOffset = offset + blockSize;
+					expectedBlockIndex = blockIndex + 1;
+					rollingChecksumValid = false;
+				}
+				else {
+					if (end - pos > blockSize)
+						rollingChecksum.roll(buf[pos], buf[pos + blockSize]);
+					else
+						rollingChecksumValid = false;
+
+					++pos;
+				}
+			}
+
+			// The last block of the old file is shorter than blockSize - it can only match the end of the new file.
+			final long offset = bufOffset + pos;
+			final int remaining = end - pos;
+			if (remaining > 0 && remaining == lastBlockLength) {
+				rollingChecksum.reset(buf, pos, remaining);
+				if (blockChecksumsBuffer.getInt(fullBlockCount * BLOCK_CHECKSUMS_SIZE) == rollingChecksum.getValue()
+						&& isStrongChecksumEqual(blockChecksums, fullBlockCount, getStrongChecksum(md, buf, pos, remaining))) {
+					addLiteralInstructionDto(instructionDtos, literalOffset, offset);
+					addCopyInstructionDto(instructionDtos, offset, remaining, (long) fullBlockCount * blockSize);
+					literalOffset = offset + remaining;
+				}
+			}
+			final long length = offset + remaining;
+			addLiteralInstructionDto(instructionDtos, literalOffset, length);
+			fileDeltaDto.setLength(length);
+		}
+		return fileDeltaDto;
+	}
+
+	/**
+	 * Gets the instructions of the given delta restricted to the given range of the new file.
+	 * <p>
+	 * Instructions overlapping the range's boundaries are cut accordingly.
+	 * @param fileDeltaDto the delta. Must not be <code>null</code>.
+	 * @param offset the beginning of the range in the new file.
+	 * @param length the length of the range.
+	 * @return the instructions covering exactly the given range. Never <code>null</code>.
+	 * @throws IllegalArgumentException if the delta does not cover the given range.
+	 */
+	public static List<FileDeltaInstructionDto> getInstructionDtos(final FileDeltaDto fileDeltaDto, final long offset, final int length) {
+		requireNonNull(fileDeltaDto, "fileDeltaDto");
+		final List<FileDeltaInstructionDto> instructionDtos = fileDeltaDto.getInstructionDtos();
+		final long endOffset = offset + length;
+
+		// binary search for the first instruction ending after offset
+		int low = 0;
+		int high = instructionDtos.size();
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			final FileDeltaInstructionDto instructionDto = instructionDtos.get(mid);
+			if (instructionDto.getOffset() + instructionDto.getLength() <= offset)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+
+		final List<FileDeltaInstructionDto> result = new ArrayList<>();
+		long nextOffset = offset;
+		for (int i = low; i < instructionDtos.size() && nextOffset < endOffset; ++i) {
+			final FileDeltaInstructionDto instructionDto = instructionDtos.get(i);
+			if (instructionDto.getOffset() > nextOffset)
+				break;
+
+			final long instructionEndOffset = Math.min(endOffset, instructionDto.getOffset() + instructionDto.getLength());
+			final FileDeltaInstructionDto resultInstructionDto = new FileDeltaInstructionDto();
+			resultInstructionDto.setOffset(nextOffset);
+			resultInstructionDto.setLength(instructionEndOffset - nextOffset);
+			if (! instructionDto.isLiteral())
+				resultInstructionDto.setCopyOffset(instructionDto.getCopyOffset() + (nextOffset - instructionDto.getOffset()));
+
+			result.add(resultInstructionDto);
+			nextOffset = instructionEndOffset;
+		}
+
+		if (nextOffset != endOffset)
+			throw new IllegalArgumentException(String.format("fileDeltaDto does not cover the range: offset=%s length=%s", offset, length));
+
+		return result;
+	}
+
+	/**
+	 * Rebuilds the data of a file-chunk from the given old file and the given delta.
+	 * @param oldFile the old file (on the destination side). Must not be <code>null</code>.
+	 * @param fileChunkDeltaDto the delta of the chunk with all literal data. Must not be <code>null</code>.
+	 * @return the chunk's data or <code>null</code>, if the chunk could not be rebuilt - e.g. because the old file
+	 * was modified after its signature was created. The data's SHA1 is verified against the
+	 * {@link FileChunkDeltaDto#getFileChunkDto() fileChunkDto}.
+	 * @throws IOException if reading the old file failed.
+	 * @throws IllegalArgumentException if the chunk's length is negative or greater than {@link FileChunkDto#MAX_LENGTH}.
+	 */
+	public static byte[] createFileChunkData(final File oldFile, final FileChunkDeltaDto fileChunkDeltaDto) throws IOException {
+		requireNonNull(oldFile, "oldFile");
+		requireNonNull(fileChunkDeltaDto, "fileChunkDeltaDto");
+		final FileChunkDto fileChunkDto = requireNonNull(fileChunkDeltaDto.getFileChunkDto(), "fileChunkDeltaDto.fileChunkDto");
+		if (fileChunkDto.getLength() < 0 || fileChunkDto.getLength() > FileChunkDto.MAX_LENGTH)
+			throw new IllegalArgumentException(String.format("fileChunkDto.length=%s is not between 0 and %s!",
+					fileChunkDto.getLength(), FileChunkDto.MAX_LENGTH));
+		if (! oldFile.isFile())
+			return null;
+
+		final byte[] data = new byte[fileChunkDto.getLength()];
+		int dataOffset = 0;
+		try (final RandomAccessFile raf = oldFile.createRandomAccessFile("r")) {
+			final long oldFileLength = raf.length();
+			for (final FileDeltaInstructionDto instructionDto : fileChunkDeltaDto.getInstructionDtos()) {
+				if (instructionDto.getOffset() != fileChunkDto.getOffset() + dataOffset
+						|| instructionDto.getLength() <= 0 || instructionDto.getLength() > data.length - dataOffset)
+					return null;
+
+				final int length = (int) instructionDto.getLength();
+				if (instructionDto.isLiteral()) {
+					if (instructionDto.getData() == null || instructionDto.getData().length != length)
+						return null;
+
+					System.arraycopy(instructionDto.getData(), 0, data, dataOffset, length);
+				}
+				else {
+					final long copyOffset = instructionDto.getCopyOffset();
+					if (copyOffset < 0 || copyOffset + length > oldFileLength)
+						return null;
+
+					raf.seek(copyOffset);
+					raf.readFully(data, dataOffset, length);
+				}
+				dataOffset += length;
+			}
+		}
+
+		if (dataOffset != data.length || ! sha1(data).equals(fileChunkDto.getSha1()))
+			return null;
+
+		return data;
+	}
+
+	private static int findBlockIndex(final List<Integer> blockIndexes, final byte[] blockChecksums, final MessageDigest md,
+			final byte[] buf, final int pos, final int length, final int expectedBlockIndex) {
+		if (blockIndexes == null)
+			return -1;
+
+		final byte[] strongChecksum = getStrongChecksum(md, buf, pos, length);
+
+		// prefer the block following the previous match => adjacent copy-instructions are merged
+		if (blockIndexes.contains(expectedBlockIndex) && isStrongChecksumEqual(blockChecksums, expectedBlockIndex, strongChecksum))
+			return expectedBlockIndex;
+
+		for (final int blockIndex : blockIndexes) {
+			if (isStrongChecksumEqual(blockChecksums, blockIndex, strongChecksum))
+				return blockIndex;
+		}
+		return -1;
+	}
+
+	private static boolean isStrongChecksumEqual(final byte[] blockChecksums, final int blockIndex, final byte[] strongChecksum) {
+		final int fromIndex = blockIndex * BLOCK_CHECKSUMS_SIZE + 4;
+		return Arrays.equals(blockChecksums, fromIndex, fromIndex + STRONG_CHECKSUM_SIZE, strongChecksum, 0, STRONG_CHECKSUM_SIZE);
+	}
+
+	private static void addLiteralInstructionDto(final List<FileDeltaInstructionDto> instructionDtos, final long offset, final long endOffset) {
+		if (endOffset <= offset)
+			return;
+
+		final FileDeltaInstructionDto instructionDto = new FileDeltaInstructionDto();
+		instructionDto.setOffset(offset);
+		instructionDto.setLength(endOffset - offset);
+		instructionDtos.add(instructionDto);
+	}
+
+	private static void addCopyInstructionDto(final List<FileDeltaInstructionDto> instructionDtos, final long offset, final int length, final long copyOffset) {
+		final FileDeltaInstructionDto lastInstructionDto = instructionDtos.isEmpty() ? null : instructionDtos.get(instructionDtos.size() - 1);
+		if (lastInstructionDto != null && ! lastInstructionDto.isLiteral()
+				&& lastInstructionDto.getOffset() + lastInstructionDto.getLength() == offset
+				&& lastInstructionDto.getCopyOffset() + lastInstructionDto.getLength() == copyOffset) {
+			lastInstructionDto.setLength(lastInstructionDto.getLength() + length);
+			return;
+		}
+
+		final FileDeltaInstructionDto instructionDto = new FileDeltaInstructionDto();
+		instructionDto.setOffset(offset);
+		instructionDto.setLength(length);
+		instructionDto.setCopyOffset(copyOffset);
+		instructionDtos.add(instructionDto);
+	}
+
+	private static MessageDigest createStrongMessageDigest() {
+		try {
+			return MessageDigest.getInstance(HASH_ALGORITHM_MD5);
+		} catch (final NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static byte[] getStrongChecksum(final MessageDigest md, final byte[] buf, final int pos, final int length) {
+		md.reset();
+		md.update(buf, pos, length);
+		return Arrays.copyOf(md.digest(), STRONG_CHECKSUM_SIZE);
+	}
+
+	/**
+	 * Weak checksum similar to Adler-32 (but without the modulo-prime), which can be rolled over the data: moving the
+	 * window by one byte costs only a few additions.
+	 */
+	private static final class RollingChecksum {
+		private int a;
+		private int b;
+		private int length;
+
+		public void reset(final byte[] buf, final int pos, final int length) {
+			a = 0;
+			b = 0;
+			for (int i = 0; i < length; ++i) {
+				final int value = buf[pos + i] & 0xFF;
+				a += value;
+				b += (length - i) * value;
+			}
+			this.length = length;
+		}
+
+		public void roll(final byte outByte, final byte inByte) {
+			final int outValue = outByte & 0xFF;
+			a += (inByte & 0xFF) - outValue;
+			b += a - length * outValue;
+		}
+
+		public int getValue() {
+			return (b << 16) | (a & 0xFFFF);
+		}
+	}
+}
@@ -45,7 +45,21 @@ public enum FileWriteStrategy {
 	 * the required space is <i>not</i> 3 times the size, but - as said - only a bit more than twice
 	 * the size.
 	 */
-	replaceAfterTransfer
+	replaceAfterTransfer,
+
+	/**
+	 * Similar to {@link #replaceAfterTransfer}, but write all blocks into one single (sparse) staging file
+	 * at their final offsets - instead of one temporary file per block. The completed blocks are recorded
+	 * in a compact binary journal, which allows for continuing the transfer after an interruption or crash.
+	 * <p>
+	 * After all blocks have been transferred, the regions not transferred are copied from the old file into
+	 * the staging file and the staging file is then renamed to replace the old file. The transferred blocks
+	 * are thus neither copied nor hashed again.
+	 * <p>
+	 * Like {@link #replaceAfterTransfer}, this strategy requires about twice the file size in the destination
+	 * file system (old file + staging file).
+	 */
+	replaceAfterStagedTransfer
 	;
 
 	/**
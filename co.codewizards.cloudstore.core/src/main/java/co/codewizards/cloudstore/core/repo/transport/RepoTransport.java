@@ -2,11 +2,16 @@ package co.codewizards.cloudstore.core.repo.transport;
 
 import java.net.URL;
 import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 
 import co.codewizards.cloudstore.core.dto.ChangeSetDto;
 import co.codewizards.cloudstore.core.dto.ConfigPropSetDto;
 import co.codewizards.cloudstore.core.dto.DirectoryDto;
+import co.codewizards.cloudstore.core.dto.FileChunkDeltaDto;
+import co.codewizards.cloudstore.core.dto.FileChunkDto;
+import co.codewizards.cloudstore.core.dto.FileDeltaDto;
+import co.codewizards.cloudstore.core.dto.FileSignatureDto;
 import co.codewizards.cloudstore.core.dto.NormalFileDto;
 import co.codewizards.cloudstore.core.dto.RepoFileDto;
 import co.codewizards.cloudstore.core.dto.RepositoryDto;
@@ -230,6 +235,25 @@ public interface RepoTransport extends AutoCloseable {
 	 */
 	ChangeSetDto getChangeSetDto(boolean localSync, Long lastSyncToRemoteRepoLocalRepositoryRevisionSynced);
 
+	/**
+	 * Gets the change-set from the remote repository, optionally restricted to the changes the client
+	 * does not yet know.
+	 * <p>
+	 * This method works exactly like {@link #getChangeSetDto(boolean, Long)}, but if
+	 * {@code changedAfterRevision} is not <code>null</code>, the result contains only the changes in
+	 * revisions greater than this value. It is used by clients which already hold a (cached) change-set
+	 * up to this revision - e.g. from a previous, interrupted sync - and merge the result into it.
+	 * <p>
+	 * The synchronisation is still begun and ended in the same way, i.e. {@link #endSyncFromRepository()}
+	 * marks all changes up to the returned {@link ChangeSetDto#getRepositoryDto() revision} as synced.
+	 * @param localSync see {@link #getChangeSetDto(boolean, Long)}.
+	 * @param lastSyncToRemoteRepoLocalRepositoryRevisionSynced see {@link #getChangeSetDto(boolean, Long)}.
+	 * @param changedAfterRevision the revision up to which (including) the client already knows all changes.
+	 * May be <code>null</code>, in which case the complete change-set is returned.
+	 * @return the (possibly incremental) change-set from the remote repository. Never <code>null</code>.
+	 */
+	ChangeSetDto getChangeSetDto(boolean localSync, Long lastSyncToRemoteRepoLocalRepositoryRevisionSynced, Long changedAfterRevision);
+
 	/**
 	 * Notifies the destination repository that this change-set is about to be synced into it.
 	 * @param changeSetDto the change-set from the other RepoTransport (the source of the sync). Never <code>null</code>.
@@ -279,6 +303,21 @@ public interface RepoTransport extends AutoCloseable {
 	 */
 	RepoFileDto getRepoFileDto(String path);
 
+	/**
+	 * Gets the data of multiple files (or directories or symlinks) at once.
+	 * <p>
+	 * This is equivalent to invoking {@link #getRepoFileDto(String)} for every path, but a remote implementation
+	 * transfers all of them in one single round-trip.
+	 * @param paths the paths of the files. Must not be <code>null</code>. Each path is interpreted in the same way
+	 * as the argument of {@link #getRepoFileDto(String)}.
+	 * @param withFileChunkDtos <code>true</code> to populate {@link NormalFileDto#getFileChunkDtos() fileChunkDtos}
+	 * and {@link NormalFileDto#getTempFileChunkDtos() tempFileChunkDtos} (like {@link #getRepoFileDto(String)}
+	 * does); <code>false</code> to omit them, if they are not needed (e.g. to only compare the files' SHA1).
+	 * @return the data of the files in the same order as the given {@code paths}. Never <code>null</code>. An element
+	 * is <code>null</code>, if there is no file at the corresponding path.
+	 */
+	List<RepoFileDto> getRepoFileDtos(List<String> paths, boolean withFileChunkDtos);
+
 	/**
 	 * Get the binary file data at the given {@code offset} and with the given {@code length}.
 	 * <p>
@@ -323,6 +362,51 @@ public interface RepoTransport extends AutoCloseable {
 	 */
 	void putFileData(String path, long offset, byte[] fileData);
 
+	/**
+	 * Gets the signature of the current content of a file - the first step of a delta-transfer.
+	 * <p>
+	 * This method is invoked on the destination of a file transfer. The signature is passed to the source's
+	 * {@link #getFileDeltaDto(String, FileSignatureDto)}.
+	 * @param path the path of the file. Must not be <code>null</code>. No matter which operating system is used,
+	 * the separation-character is always '/'. This path may start with a "/", but there is no difference, if it does:
+	 * It is always relative to the repository's root directory.
+	 * @return the signature or <code>null</code>, if there is no normal file at this path or delta-transfer is not
+	 * supported by this {@code RepoTransport}.
+	 * @see FileDeltaUtil
+	 */
+	FileSignatureDto getFileSignatureDto(String path);
+
+	/**
+	 * Gets the delta between the file described by the given signature and the file at the given path.
+	 * <p>
+	 * This method is invoked on the source of a file transfer. The data of the delta's literal-instructions is not
+	 * contained - it is read via {@link #getFileData(String, long, int)}.
+	 * @param path the path of the file. Must not be <code>null</code>. No matter which operating system is used,
+	 * the separation-character is always '/'. This path may start with a "/", but there is no difference, if it does:
+	 * It is always relative to the repository's root directory.
+	 * @param fileSignatureDto the signature of the destination's file as returned by {@link #getFileSignatureDto(String)}.
+	 * Must not be <code>null</code>.
+	 * @return the delta or <code>null</code>, if there is no normal file at this path or delta-transfer is not
+	 * supported by this {@code RepoTransport}.
+	 */
+	FileDeltaDto getFileDeltaDto(String path, FileSignatureDto fileSignatureDto);
+
+	/**
+	 * Write a block of binary data into the file - like {@link #putFileData(String, long, byte[])}, but the data is
+	 * rebuilt from the file's current content and the literal data contained in the given delta.
+	 * <p>
+	 * The rebuilt data is verified against the {@link FileChunkDto#getSha1() sha1} of the
+	 * {@link FileChunkDeltaDto#getFileChunkDto() fileChunkDto}. If it does not match (e.g. because the file was
+	 * modified after {@link #getFileSignatureDto(String)} was invoked), nothing is written and <code>false</code>
+	 * is returned. The caller then transfers the entire data via {@code putFileData(...)}.
+	 * <p>
+	 * This method may only be called after {@link #beginPutFile(String)} and before {@link #endPutFile(String, Date, long, String)}.
+	 * @param path the path of the file. Must not be <code>null</code>.
+	 * @param fileChunkDeltaDto the delta of the block to be written with all literal data. Must not be <code>null</code>.
+	 * @return <code>true</code>, if the data was written; <code>false</code>, if it could not be rebuilt.
+	 */
+	boolean putFileDelta(String path, FileChunkDeltaDto fileChunkDeltaDto);
+
 	/**
 	 * Ends a file transfer to this {@code RepoTransport} (more precisely the remote repository behind it).
 	 * @param path the path of the file. Must not be <code>null</code>. No matter which operating system is used,
@@ -368,6 +452,14 @@ public interface RepoTransport extends AutoCloseable {
 	@Override
 	public void close();
 
+	/**
+	 * Discards all data cached by this {@code RepoTransport} in the course of its usage.
+	 * <p>
+	 * This is invoked, before a pooled {@code RepoTransport} is handed out again - possibly to serve
+	 * a completely different synchronisation. Afterwards, this instance must behave like a newly created one.
+	 */
+	void clearCaches();
+
 	void putParentConfigPropSetDto(ConfigPropSetDto parentConfigPropSetDto);
 
 	VersionInfoDto getVersionInfoDto();
@@ -36,6 +36,21 @@ public class ReflectionUtil {
 		requireNonNull(clazz, "clazz");
 
 		final Class<?>[] argTypes = getArgumentTypes(args);
+		final Constructor<?> constructor = getCompatibleConstructorOrFail(clazz, argTypes);
+		return cast(invoke(constructor, args));
+	}
+
+	/**
+	 * Gets the constructor which is invoked by {@link #invokeConstructor(Class, Object...)} for arguments of the given types.
+	 * @param clazz the class declaring the constructor. Must not be <code>null</code>.
+	 * @param argTypes the types of the arguments. Must not be <code>null</code>, but may contain <code>null</code>
+	 * elements (for <code>null</code> arguments, which are compatible with every non-primitive parameter-type).
+	 * @return the first compatible constructor. Never <code>null</code>.
+	 * @throws IllegalArgumentException if there is no compatible constructor.
+	 */
+	public static Constructor<?> getCompatibleConstructorOrFail(final Class<?> clazz, final Class<?>[] argTypes) {
+		requireNonNull(clazz, "clazz");
+		requireNonNull(argTypes, "argTypes");
 
 		final List<Constructor<?>> compatibleConstructors = new ArrayList<>();
 		for (Constructor<?> constructor : clazz.getDeclaredConstructors()) {
@@ -56,7 +71,7 @@ public class ReflectionUtil {
 			logger.warn("invokeConstructor: {}", msg);
 		}
 
-		return cast(invoke(compatibleConstructors.get(0), args));
+		return compatibleConstructors.get(0);
 	}
 
 	public static <T> T invokeConstructor(final Class<T> clazz, Class<?>[] parameterTypes, final Object ... args) {
@@ -88,8 +103,27 @@ public class ReflectionUtil {
 		// args may be null
 
 		final Class<?>[] argTypes = getArgumentTypes(args);
+		final Method method = getCompatibleMethodOrFail(clazz, methodName, argTypes);
+		return invoke(object, method, args);
+	}
+
+	/**
+	 * Gets the method which is invoked by {@link #invoke(Object, String, Object...)} (or
+	 * {@link #invokeStatic(Class, String, Object...)}) for arguments of the given types.
+	 * <p>
+	 * This search is expensive. Callers invoking the same method frequently should cache the result.
+	 * @param clazz the class declaring or inheriting the method. Must not be <code>null</code>.
+	 * @param methodName the name of the method. Must not be <code>null</code>.
+	 * @param argTypes the types of the arguments. Must not be <code>null</code>, but may contain <code>null</code>
+	 * elements (for <code>null</code> arguments, which are compatible with every non-primitive parameter-type).
+	 * @return the first compatible method. Never <code>null</code>.
+	 * @throws IllegalArgumentException if there is no compatible method.
+	 */
+	public static Method getCompatibleMethodOrFail(final Class<?> clazz, final String methodName, final Class<?>[] argTypes) {
+		requireNonNull(clazz, "clazz");
+		requireNonNull(methodName, "methodName");
+		requireNonNull(argTypes, "argTypes");
 
-		// TODO cache methods - don't search for them again and again
 		final List<Method> methods = getDeclaredMethods(clazz, methodName);
 		final List<Method> compatibleMethods = new ArrayList<>(Math.min(5, methods.size()));
 		for (final Method method : methods) {
@@ -110,10 +144,10 @@ public class ReflectionUtil {
 			logger.warn("invoke: {}", msg);
 		}
 
-		return invoke(object, compatibleMethods.get(0), args);
+		return compatibleMethods.get(0);
 	}
 
-	private static Class<?>[] getArgumentTypes(final Object... args) {
+	public static Class<?>[] getArgumentTypes(final Object... args) {
 		final Class<?>[] argTypes = args == null ? new Class<?>[0] : new Class<?>[args.length];
 		for (int i = 0; i < argTypes.length; i++)
 			argTypes[i] = args[i] == null ? null : args[i].getClass();
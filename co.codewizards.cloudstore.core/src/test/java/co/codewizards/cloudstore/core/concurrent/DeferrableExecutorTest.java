@@ -0,0 +1,140 @@
+package co.codewizards.cloudstore.core.concurrent;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import co.codewizards.cloudstore.core.config.Config;
+
+public class DeferrableExecutorTest {
+
+	private final AtomicInteger invocationCount = new AtomicInteger();
+
+	@BeforeClass
+	public static void beforeClass() {
+		System.setProperty(Config.SYSTEM_PROPERTY_PREFIX + DeferrableExecutor.CONFIG_KEY_TIMEOUT, "200");
+	}
+
+	@AfterClass
+	public static void afterClass() {
+		System.getProperties().remove(Config.SYSTEM_PROPERTY_PREFIX + DeferrableExecutor.CONFIG_KEY_TIMEOUT);
+	}
+
+	@Test
+	public void callTimesOutAndResultIsPickedUpLater() throws Exception {
+		final String callIdentifier = createCallIdentifier();
+		final CountDownLatch proceed = new CountDownLatch(1);
+		final CallableProvider<String> callableProvider = createCallableProvider(proceed, "result");
+
+		try {
+			DeferrableExecutor.getInstance().call(callIdentifier, callableProvider);
+			fail("DeferredCompletionException expected!");
+		} catch (final DeferredCompletionException x) {
+			// expected: the callable still waits for 'proceed'
+		}
+
+		proceed.countDown();
+		String result = null;
+		for (int i = 0; i < 20 && result == null; ++i) {
+			try {
+				result = DeferrableExecutor.getInstance().call(callIdentifier, callableProvider);
+			} catch (final DeferredCompletionException x) {
+				// the callable did not yet complete => ask again
+			}
+		}
+		assertThat(result).isEqualTo("result");
+		assertThat(invocationCount.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void callAsyncNotifiesCallbackOutsideOfLock() throws Exception {
+		final String callIdentifier = createCallIdentifier(); // first use => it is the canonical instance
+		final CountDownLatch proceed = new CountDownLatch(1);
+		final CountDownLatch notified = new CountDownLatch(1);
+		final AtomicReference<String> result = new AtomicReference<>();
+		final AtomicBoolean holdsLock = new AtomicBoolean(true);
+
+		DeferrableExecutor.getInstance().callAsync(callIdentifier, DeferrableExecutor.PRIORITY_HIGH,
+				createCallableProvider(proceed, "asyncResult"), new DeferredCallback<String>() {
+			@Override
+			public boolean completed(final String r) {
+				holdsLock.set(Thread.holdsLock(callIdentifier));
+				result.set(r);
+				notified.countDown();
+				return true;
+			}
+
+			@Override
+			public boolean failed(final Throwable throwable) {
+				notified.countDown();
+				return true;
+			}
+		});
+
+		assertThat(notified.getCount()).isEqualTo(1); // callAsync(...) must not block
+		proceed.countDown();
+		assertThat(notified.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(result.get()).isEqualTo("asyncResult");
+		assertThat(holdsLock.get()).isFalse();
+	}
+
+	@Test
+	public void callAsyncKeepsUndeliveredResultForNextCall() throws Exception {
+		final String callIdentifier = createCallIdentifier();
+		final CountDownLatch proceed = new CountDownLatch(1);
+		final CountDownLatch notified = new CountDownLatch(1);
+		final CallableProvider<String> callableProvider = createCallableProvider(proceed, "deferredResult");
+
+		DeferrableExecutor.getInstance().callAsync(callIdentifier, DeferrableExecutor.PRIORITY_DEFAULT,
+				callableProvider, new DeferredCallback<String>() {
+			@Override
+			public boolean completed(final String r) {
+				notified.countDown();
+				return false; // e.g. the client already gave up waiting
+			}
+
+			@Override
+			public boolean failed(final Throwable throwable) {
+				notified.countDown();
+				return false;
+			}
+		});
+		proceed.countDown();
+		assertThat(notified.await(10, TimeUnit.SECONDS)).isTrue();
+
+		// The client asks again and picks up the kept result - without executing the callable again.
+		final String result = DeferrableExecutor.getInstance().call(callIdentifier, callableProvider);
+		assertThat(result).isEqualTo("deferredResult");
+		assertThat(invocationCount.get()).isEqualTo(1);
+	}
+
+	private static String createCallIdentifier() {
+		return DeferrableExecutorTest.class.getName() + '|' + UUID.randomUUID();
+	}
+
+	private CallableProvider<String> createCallableProvider(final CountDownLatch proceed, final String result) {
+		return new CallableProvider<String>() {
+			@Override
+			public Callable<String> getCallable() {
+				return new Callable<String>() {
+					@Override
+					public String call() throws Exception {
+						invocationCount.incrementAndGet();
+						proceed.await();
+						return result;
+					}
+				};
+			}
+		};
+	}
+}
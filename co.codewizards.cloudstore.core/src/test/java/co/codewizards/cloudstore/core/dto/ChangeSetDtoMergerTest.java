@@ -0,0 +1,93 @@
+package co.codewizards.cloudstore.core.dto;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class ChangeSetDtoMergerTest {
+
+	@Test
+	public void mergeDeltaIntoBase() {
+		final ChangeSetDto base = new ChangeSetDto();
+		base.setRepositoryDto(createRepositoryDto(10));
+		base.getRepoFileDtos().add(createDirectoryDto(1, null, "", true));
+		base.getRepoFileDtos().add(createDirectoryDto(2, 1L, "a", false));
+		base.getRepoFileDtos().add(createNormalFileDto(3, 2L, "a1.txt", false));
+		base.getRepoFileDtos().add(createDirectoryDto(4, 1L, "b", false));
+		base.getRepoFileDtos().add(createNormalFileDto(5, 4L, "b1.txt", false));
+		base.getModificationDtos().add(createDeleteModificationDto(100, "/old.txt"));
+
+		final ChangeSetDto delta = new ChangeSetDto();
+		delta.setRepositoryDto(createRepositoryDto(20));
+		delta.getRepoFileDtos().add(createDirectoryDto(1, null, "", true));
+		delta.getRepoFileDtos().add(createDirectoryDto(2, 1L, "a", true)); // only needed as parent in delta, but still modified in base!
+		delta.getRepoFileDtos().add(createNormalFileDto(6, 2L, "a2.txt", false));
+		delta.getModificationDtos().add(createDeleteModificationDto(100, "/old.txt")); // duplicate
+		delta.getModificationDtos().add(createDeleteModificationDto(101, "/b"));
+
+		final ChangeSetDto result = ChangeSetDtoMerger.create().merge(base, delta);
+
+		assertThat(result.getRepositoryDto().getRevision()).isEqualTo(20);
+		assertThat(result.getModificationDtos()).hasSize(2);
+
+		final Map<Long, RepoFileDto> id2RepoFileDto = new HashMap<>();
+		for (final RepoFileDto repoFileDto : result.getRepoFileDtos())
+			id2RepoFileDto.put(repoFileDto.getId(), repoFileDto);
+
+		assertThat(id2RepoFileDto.keySet()).containsOnly(1L, 2L, 3L, 6L);
+		assertThat(id2RepoFileDto.get(1L).isNeededAsParent()).isTrue();
+		assertThat(id2RepoFileDto.get(2L).isNeededAsParent()).isFalse();
+	}
+
+	@Test
+	public void mergeDoesNotModifyBase() {
+		final ChangeSetDto base = new ChangeSetDto();
+		base.setRepositoryDto(createRepositoryDto(10));
+		base.getRepoFileDtos().add(createDirectoryDto(1, null, "", true));
+		base.getRepoFileDtos().add(createNormalFileDto(2, 1L, "x.txt", false));
+
+		final ChangeSetDto delta = new ChangeSetDto();
+		delta.setRepositoryDto(createRepositoryDto(11));
+		delta.getModificationDtos().add(createDeleteModificationDto(1, "/x.txt"));
+
+		final ChangeSetDto result = ChangeSetDtoMerger.create().merge(base, delta);
+		assertThat(result.getRepoFileDtos()).hasSize(1);
+		assertThat(base.getRepoFileDtos()).hasSize(2);
+		assertThat(base.getModificationDtos()).isEmpty();
+	}
+
+	private static RepositoryDto createRepositoryDto(final long revision) {
+		final RepositoryDto repositoryDto = new RepositoryDto();
+		repositoryDto.setRevision(revision);
+		return repositoryDto;
+	}
+
+	private static DirectoryDto createDirectoryDto(final long id, final Long parentId, final String name, final boolean neededAsParent) {
+		final DirectoryDto directoryDto = new DirectoryDto();
+		initRepoFileDto(directoryDto, id, parentId, name, neededAsParent);
+		return directoryDto;
+	}
+
+	private static NormalFileDto createNormalFileDto(final long id, final Long parentId, final String name, final boolean neededAsParent) {
+		final NormalFileDto normalFileDto = new NormalFileDto();
+		initRepoFileDto(normalFileDto, id, parentId, name, neededAsParent);
+		return normalFileDto;
+	}
+
+	private static void initRepoFileDto(final RepoFileDto repoFileDto, final long id, final Long parentId, final String name, final boolean neededAsParent) {
+		repoFileDto.setId(id);
+		repoFileDto.setParentId(parentId);
+		repoFileDto.setName(name);
+		repoFileDto.setNeededAsParent(neededAsParent);
+	}
+
+	private static DeleteModificationDto createDeleteModificationDto(final long id, final String path) {
+		final DeleteModificationDto deleteModificationDto = new DeleteModificationDto();
+		deleteModificationDto.setId(id);
+		deleteModificationDto.setPath(path);
+		return deleteModificationDto;
+	}
+}
@@ -0,0 +1,90 @@
+package co.codewizards.cloudstore.core.ignore;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class IgnoreRuleMatcherTest {
+
+	@Test
+	public void fastPathPatterns() {
+		final List<IgnoreRule> ignoreRules = new ArrayList<>();
+		ignoreRules.add(createPatternRule("*.bak", false));
+		ignoreRules.add(createPatternRule("~*", false));
+		ignoreRules.add(createPatternRule("Thumbs.db", false));
+		ignoreRules.add(createPatternRule("*.PNG", true));
+		final IgnoreRuleMatcher matcher = new IgnoreRuleMatcher(ignoreRules);
+
+		assertThat(matcher.matches("a.bak")).isTrue();
+		assertThat(matcher.matches("A.BAK")).isTrue();
+		assertThat(matcher.matches("a.bakx")).isFalse();
+		assertThat(matcher.matches("abak")).isFalse();
+		assertThat(matcher.matches("~lock")).isTrue();
+		assertThat(matcher.matches("thumbs.DB")).isTrue();
+		assertThat(matcher.matches("Thumbs.db.txt")).isFalse();
+		assertThat(matcher.matches("x.PNG")).isTrue();
+		assertThat(matcher.matches("x.png")).isFalse();
+	}
+
+	@Test
+	public void remainingPatternsAndRegexes() {
+		final List<IgnoreRule> ignoreRules = new ArrayList<>();
+		ignoreRules.add(createPatternRule("[acg].jpg", false));
+		ignoreRules.add(createPatternRule("a*b?c", false));
+		ignoreRules.add(createRegexRule("[a-z]{2}[0-9]\\.txt", true));
+		ignoreRules.add(createRegexRule("(x+)-\\1", true));
+		final IgnoreRuleMatcher matcher = new IgnoreRuleMatcher(ignoreRules);
+
+		assertThat(matcher.matches("a.jpg")).isTrue();
+		assertThat(matcher.matches("C.JPG")).isTrue();
+		assertThat(matcher.matches("b.jpg")).isFalse();
+		assertThat(matcher.matches("a123bxc")).isTrue();
+		assertThat(matcher.matches("a123bc")).isFalse();
+		assertThat(matcher.matches("ab1.txt")).isTrue();
+		assertThat(matcher.matches("AB1.txt")).isFalse();
+		assertThat(matcher.matches("xx-xx")).isTrue();
+		assertThat(matcher.matches("xx-x")).isFalse();
+	}
+
+	@Test
+	public void disabledRuleIsSkipped() {
+		final List<IgnoreRule> ignoreRules = new ArrayList<>();
+		final IgnoreRule ignoreRule = createPatternRule("*", false);
+		ignoreRule.setEnabled(false);
+		ignoreRules.add(ignoreRule);
+		final IgnoreRuleMatcher matcher = new IgnoreRuleMatcher(ignoreRules);
+
+		assertThat(matcher.matches("a.txt")).isFalse();
+	}
+
+	@Test
+	public void nonAsciiNameBehavesLikeRegex() {
+		final List<IgnoreRule> ignoreRules = new ArrayList<>();
+		ignoreRules.add(createPatternRule("*.äpfel", false));
+		ignoreRules.add(createPatternRule("*.k", false));
+		final IgnoreRuleMatcher matcher = new IgnoreRuleMatcher(ignoreRules);
+
+		assertThat(matcher.matches("grün.ÄPFEL")).isTrue();
+		assertThat(matcher.matches("x.\u212A")).isTrue(); // KELVIN SIGN matches 'k' with UNICODE_CASE
+		assertThat(matcher.matches("grün.x")).isFalse();
+	}
+
+	private static IgnoreRule createPatternRule(final String namePattern, final boolean caseSensitive) {
+		final IgnoreRule ignoreRule = new IgnoreRuleImpl();
+		ignoreRule.setNamePattern(namePattern);
+		ignoreRule.setEnabled(true);
+		ignoreRule.setCaseSensitive(caseSensitive);
+		return ignoreRule;
+	}
+
+	private static IgnoreRule createRegexRule(final String nameRegex, final boolean caseSensitive) {
+		final IgnoreRule ignoreRule = new IgnoreRuleImpl();
+		ignoreRule.setNameRegex(nameRegex);
+		ignoreRule.setEnabled(true);
+		ignoreRule.setCaseSensitive(caseSensitive);
+		return ignoreRule;
+	}
+}
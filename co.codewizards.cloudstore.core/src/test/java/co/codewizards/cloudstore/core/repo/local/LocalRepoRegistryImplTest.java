@@ -0,0 +1,135 @@
+package co.codewizards.cloudstore.core.repo.local;
+
+import static co.codewizards.cloudstore.core.oio.OioFileFactory.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import co.codewizards.cloudstore.core.io.LockFile;
+import co.codewizards.cloudstore.core.oio.File;
+import co.codewizards.cloudstore.core.util.IOUtil;
+import co.codewizards.cloudstore.core.util.PropertiesUtil;
+
+public class LocalRepoRegistryImplTest {
+
+	private static final long REVALIDATION_PERIOD = 60L * 60L * 1000L; // no periodic revalidation during the test
+
+	private final AtomicInteger lockCount = new AtomicInteger();
+
+	private File dir;
+	private File registryFile;
+	private LocalRepoRegistryImpl localRepoRegistry;
+
+	@Before
+	public void before() throws Exception {
+		dir = createTempDirectory("LocalRepoRegistryImplTest").getAbsoluteFile();
+		registryFile = createFile(dir, LocalRepoRegistry.LOCAL_REPO_REGISTRY_FILE);
+		localRepoRegistry = new LocalRepoRegistryImpl(registryFile, REVALIDATION_PERIOD) {
+			@Override
+			protected LockFile acquireLockFile() {
+				lockCount.incrementAndGet();
+				return super.acquireLockFile();
+			}
+		};
+	}
+
+	@After
+	public void after() throws Exception {
+		if (dir != null)
+			IOUtil.deleteDirectoryRecursively(dir);
+	}
+
+	@Test
+	public void hitIsAnsweredFromSnapshot() throws Exception {
+		final UUID repositoryId = UUID.randomUUID();
+		final File localRoot = createRepository(repositoryId, "repo1");
+		localRepoRegistry.putRepository(repositoryId, localRoot);
+		localRepoRegistry.putRepositoryAlias("alias1", repositoryId);
+
+		lockCount.set(0);
+		for (int i = 0; i < 100; ++i) {
+			assertThat(localRepoRegistry.getLocalRoot(repositoryId)).isEqualTo(localRoot);
+			assertThat(localRepoRegistry.getRepositoryId("alias1")).isEqualTo(repositoryId);
+		}
+		assertThat(localRepoRegistry.getRepositoryIds()).containsExactly(repositoryId);
+
+		// The scheduler's periodic check does not lock an unchanged registry.
+		assertThat(localRepoRegistry.revalidate()).isFalse();
+		assertThat(lockCount.get()).isEqualTo(0);
+	}
+
+	@Test
+	public void missIsRevalidatedOncePerRevalidationPeriod() throws Exception {
+		assertThat(localRepoRegistry.getRepositoryIds()).isEmpty();
+
+		final UUID repositoryId = UUID.randomUUID();
+		assertThat(localRepoRegistry.getLocalRoot(repositoryId)).isNull();
+
+		// Registered by another process => the same miss is answered from the snapshot without checking the file.
+		final File localRoot = createRepository(repositoryId, "repo1");
+		putRepositoryExternally(repositoryId, localRoot);
+		lockCount.set(0);
+		assertThat(localRepoRegistry.getLocalRoot(repositoryId)).isNull();
+		assertThat(lockCount.get()).isEqualTo(0);
+
+		// A different miss checks the file and thus reloads the registry.
+		assertThat(localRepoRegistry.getRepositoryId("unknownAlias")).isNull();
+		assertThat(lockCount.get()).isGreaterThan(0);
+		assertThat(localRepoRegistry.getLocalRoot(repositoryId)).isEqualTo(localRoot);
+
+		// The new snapshot does not know the previous misses.
+		final UUID repositoryId2 = UUID.randomUUID();
+		assertThat(localRepoRegistry.getLocalRoot(repositoryId2)).isNull();
+		final File localRoot2 = createRepository(repositoryId2, "repo2");
+		putRepositoryExternally(repositoryId2, localRoot2);
+		assertThat(localRepoRegistry.getRepositoryId("unknownAlias")).isNull();
+		assertThat(localRepoRegistry.getLocalRoot(repositoryId2)).isEqualTo(localRoot2);
+	}
+
+	@Test
+	public void externalModificationIsReloadedByRevalidation() throws Exception {
+		final UUID repositoryId = UUID.randomUUID();
+		final File localRoot1 = createRepository(repositoryId, "repo1");
+		localRepoRegistry.putRepository(repositoryId, localRoot1);
+
+		final File localRoot2 = createRepository(repositoryId, "repo2");
+		putRepositoryExternally(repositoryId, localRoot2);
+		assertThat(localRepoRegistry.getLocalRoot(repositoryId)).isEqualTo(localRoot1); // a hit does not check the file
+
+		lockCount.set(0);
+		assertThat(localRepoRegistry.revalidate()).isTrue();
+		assertThat(lockCount.get()).isGreaterThan(0);
+		assertThat(localRepoRegistry.getLocalRoot(repositoryId)).isEqualTo(localRoot2);
+
+		lockCount.set(0);
+		assertThat(localRepoRegistry.revalidate()).isFalse();
+		assertThat(lockCount.get()).isEqualTo(0);
+	}
+
+	/**
+	 * Creates the repository's meta-data needed to survive the eviction of dead entries.
+	 */
+	private File createRepository(final UUID repositoryId, final String name) throws Exception {
+		final File localRoot = createFile(dir, name);
+		final File metaDir = createFile(localRoot, LocalRepoManager.META_DIR_NAME);
+		metaDir.mkdirs();
+		final Properties properties = new Properties();
+		properties.setProperty(LocalRepoManager.PROP_REPOSITORY_ID, repositoryId.toString());
+		PropertiesUtil.store(createFile(metaDir, LocalRepoManager.REPOSITORY_PROPERTIES_FILE_NAME), properties, null);
+		return localRoot;
+	}
+
+	private void putRepositoryExternally(final UUID repositoryId, final File localRoot) throws Exception {
+		final long lastModified = registryFile.lastModified();
+		final Properties properties = PropertiesUtil.load(registryFile);
+		properties.setProperty("repositoryId:" + repositoryId, localRoot.getPath());
+		PropertiesUtil.store(registryFile, properties, null);
+		registryFile.setLastModified(lastModified + 2000); // the file system's timestamp might be too coarse
+	}
+}
@@ -0,0 +1,74 @@
+package co.codewizards.cloudstore.core.repo.sync;
+
+import static co.codewizards.cloudstore.core.oio.OioFileFactory.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.RandomAccessFile;
+import java.util.UUID;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import co.codewizards.cloudstore.core.oio.File;
+import co.codewizards.cloudstore.core.util.IOUtil;
+
+public class DoneMarkerTest {
+
+	private File doneDir;
+
+	@Before
+	public void before() {
+		doneDir = createFile(IOUtil.getTempDir(), "DoneMarkerTest." + UUID.randomUUID() + ".done");
+	}
+
+	@After
+	public void after() {
+		doneDir.deleteRecursively();
+	}
+
+	@Test
+	public void markDoneAndReopen() {
+		try (DoneMarker doneMarker = new DoneMarker(doneDir)) {
+			for (long entityId = 0; entityId < 5000; ++entityId)
+				doneMarker.markDone(entityId, entityId * 7);
+
+			doneMarker.markDone(3, 100);
+
+			assertThat(doneMarker.isDone(1, 7)).isTrue();
+			assertThat(doneMarker.isDone(1, 8)).isFalse();
+			assertThat(doneMarker.isDone(3, 100)).isTrue();
+			assertThat(doneMarker.isDone(5000, 35000)).isFalse();
+		}
+		assertThat(doneDir.list()).hasSize(1);
+
+		try (DoneMarker doneMarker = new DoneMarker(doneDir)) {
+			assertThat(doneMarker.isDone(4999, 4999 * 7)).isTrue();
+			assertThat(doneMarker.isDone(3, 21)).isFalse();
+			assertThat(doneMarker.isDone(3, 100)).isTrue();
+		}
+	}
+
+	@Test
+	public void incompleteRecordIsDiscarded() throws Exception {
+		try (DoneMarker doneMarker = new DoneMarker(doneDir)) {
+			doneMarker.markDone(1, 1);
+			doneMarker.markDone(2, 2);
+		}
+		final File logFile = doneDir.listFiles()[0];
+		try (RandomAccessFile raf = new RandomAccessFile(logFile.getIoFile(), "rw")) {
+			raf.setLength(raf.length() - 1);
+		}
+
+		try (DoneMarker doneMarker = new DoneMarker(doneDir)) {
+			assertThat(doneMarker.isDone(1, 1)).isTrue();
+			assertThat(doneMarker.isDone(2, 2)).isFalse();
+			doneMarker.markDone(3, 3);
+		}
+
+		try (DoneMarker doneMarker = new DoneMarker(doneDir)) {
+			assertThat(doneMarker.isDone(1, 1)).isTrue();
+			assertThat(doneMarker.isDone(3, 3)).isTrue();
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package co.codewizards.cloudstore.core.repo.sync;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import co.codewizards.cloudstore.core.config.Config;
+import co.codewizards.cloudstore.core.dto.NormalFileDto;
+import co.codewizards.cloudstore.core.dto.RepoFileDto;
+import co.codewizards.cloudstore.core.repo.transport.RepoTransport;
+
+public class RepoFileDtoPrefetcherTest {
+
+	private static final String MISSING_PATH = "p4";
+
+	private final List<String> invocations = Collections.synchronizedList(new ArrayList<String>());
+
+	@BeforeClass
+	public static void beforeClass() {
+		System.setProperty(Config.SYSTEM_PROPERTY_PREFIX + RepoFileDtoPrefetcher.CONFIG_KEY_PREFETCH_COUNT, "3");
+	}
+
+	@AfterClass
+	public static void afterClass() {
+		System.getProperties().remove(Config.SYSTEM_PROPERTY_PREFIX + RepoFileDtoPrefetcher.CONFIG_KEY_PREFETCH_COUNT);
+	}
+
+	@Test
+	public void fetchInBatches() {
+		final List<String> paths = Arrays.asList("p0", "p1", "p2", "p3", MISSING_PATH, "p5", "p6");
+		try (RepoFileDtoPrefetcher prefetcher = new RepoFileDtoPrefetcher(createRepoTransport(), paths)) {
+			for (final String path : paths) {
+				final RepoFileDto repoFileDto = prefetcher.getRepoFileDto(path);
+				if (MISSING_PATH.equals(path))
+					assertThat(repoFileDto).isNull();
+				else
+					assertThat(repoFileDto.getName()).isEqualTo(path);
+			}
+			assertThat(prefetcher.getRepoFileDto("other").getName()).isEqualTo("other");
+		}
+		assertThat(invocations).containsExactly(
+				"getRepoFileDtos[p0, p1, p2]", "getRepoFileDtos[p3, p4, p5]", "getRepoFileDtos[p6]", "getRepoFileDtoother");
+	}
+
+	@Test
+	public void closeWaitsForRunningBatch() throws Exception {
+		final CountDownLatch fetchStarted = new CountDownLatch(1);
+		final CountDownLatch fetchReleased = new CountDownLatch(1);
+		final AtomicBoolean fetchFinished = new AtomicBoolean();
+		final RepoTransport repoTransport = createRepoTransport();
+		final RepoTransport blockingRepoTransport = (RepoTransport) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { RepoTransport.class }, new InvocationHandler() {
+			@Override
+			public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+				final Object result = method.invoke(repoTransport, args);
+				if ("getRepoFileDtos".equals(method.getName()) && ((List<?>) args[0]).contains("p3")) {
+					fetchStarted.countDown();
+					fetchReleased.await();
+					fetchFinished.set(true);
+				}
+				return result;
+			}
+		});
+
+		final RepoFileDtoPrefetcher prefetcher = new RepoFileDtoPrefetcher(blockingRepoTransport, Arrays.asList("p0", "p1", "p2", "p3"));
+		assertThat(prefetcher.getRepoFileDto("p0").getName()).isEqualTo("p0"); // submits the 2nd batch
+		assertThat(fetchStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+		final Thread closeThread = new Thread() {
+			@Override
+			public void run() {
+				prefetcher.close();
+			}
+		};
+		closeThread.start();
+		closeThread.join(200);
+		assertThat(closeThread.isAlive()).isTrue(); // still waiting for the 2nd batch
+
+		fetchReleased.countDown();
+		closeThread.join(10000);
+		assertThat(closeThread.isAlive()).isFalse();
+		assertThat(fetchFinished.get()).isTrue();
+	}
+
+	private RepoTransport createRepoTransport() {
+		return (RepoTransport) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { RepoTransport.class }, new InvocationHandler() {
+			@Override
+			public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+				invocations.add(method.getName() + args[0]);
+				if ("getRepoFileDto".equals(method.getName()))
+					return createRepoFileDto((String) args[0]);
+
+				if ("getRepoFileDtos".equals(method.getName())) {
+					final List<RepoFileDto> result = new ArrayList<>();
+					for (final Object path : (List<?>) args[0])
+						result.add(MISSING_PATH.equals(path) ? null : createRepoFileDto((String) path));
+
+					return result;
+				}
+				throw new UnsupportedOperationException(method.toString());
+			}
+		});
+	}
+
+	private static RepoFileDto createRepoFileDto(final String name) {
+		final NormalFileDto normalFileDto = new NormalFileDto();
+		normalFileDto.setName(name);
+		return normalFileDto;
+	}
+}
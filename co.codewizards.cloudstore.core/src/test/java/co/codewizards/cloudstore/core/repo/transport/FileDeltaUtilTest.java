@@ -0,0 +1,184 @@
+package co.codewizards.cloudstore.core.repo.transport;
+
+import static co.codewizards.cloudstore.core.oio.OioFileFactory.*;
+import static co.codewizards.cloudstore.core.util.HashUtil.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import co.codewizards.cloudstore.core.dto.FileChunkDeltaDto;
+import co.codewizards.cloudstore.core.dto.FileChunkDto;
+import co.codewizards.cloudstore.core.dto.FileDeltaDto;
+import co.codewizards.cloudstore.core.dto.FileDeltaInstructionDto;
+import co.codewizards.cloudstore.core.dto.FileSignatureDto;
+import co.codewizards.cloudstore.core.oio.File;
+import co.codewizards.cloudstore.core.util.IOUtil;
+
+public class FileDeltaUtilTest {
+	private static final int CHUNK_LENGTH = 64 * 1024;
+
+	private final Random random = new Random(4711);
+	private File oldFile;
+	private File newFile;
+
+	@Before
+	public void before() {
+		oldFile = createFile(IOUtil.getTempDir(), "FileDeltaUtilTest." + UUID.randomUUID() + ".old");
+		newFile = createFile(IOUtil.getTempDir(), "FileDeltaUtilTest." + UUID.randomUUID() + ".new");
+	}
+
+	@After
+	public void after() {
+		oldFile.delete();
+		newFile.delete();
+	}
+
+	@Test
+	public void insertModifyAndAppend() throws Exception {
+		final byte[] oldData = randomBytes(300 * 1024 + 123);
+		final byte[] insertedData = randomBytes(1000);
+		final byte[] appendedData = randomBytes(5000);
+
+		final byte[] newData = concat(Arrays.copyOf(oldData, 100000), insertedData, Arrays.copyOfRange(oldData, 100000, oldData.length), appendedData);
+		newData[250000] ^= 0x55;
+		write(oldFile, oldData);
+		write(newFile, newData);
+
+		final FileSignatureDto fileSignatureDto = FileDeltaUtil.createFileSignatureDto(oldFile);
+		assertThat(fileSignatureDto.getLength()).isEqualTo(oldData.length);
+
+		final FileDeltaDto fileDeltaDto = FileDeltaUtil.createFileDeltaDto(newFile, fileSignatureDto);
+		assertThat(fileDeltaDto.getLength()).isEqualTo(newData.length);
+
+		long literalLength = 0;
+		long nextOffset = 0;
+		for (final FileDeltaInstructionDto instructionDto : fileDeltaDto.getInstructionDtos()) {
+			assertThat(instructionDto.getOffset()).isEqualTo(nextOffset);
+			nextOffset += instructionDto.getLength();
+			if (instructionDto.isLiteral())
+				literalLength += instructionDto.getLength();
+		}
+		assertThat(nextOffset).isEqualTo(newData.length);
+		// inserted + appended data plus at most 2 blocks around the insertion and the modification
+		assertThat(literalLength).isLessThanOrEqualTo(insertedData.length + appendedData.length + 4L * fileSignatureDto.getBlockSize());
+
+		for (int offset = 0; offset < newData.length; offset += CHUNK_LENGTH) {
+			final int length = Math.min(CHUNK_LENGTH, newData.length - offset);
+			final byte[] expected = Arrays.copyOfRange(newData, offset, offset + length);
+			final FileChunkDeltaDto fileChunkDeltaDto = createFileChunkDeltaDto(fileDeltaDto, newData, offset, length, sha1(expected));
+			assertThat(FileDeltaUtil.createFileChunkData(oldFile, fileChunkDeltaDto)).isEqualTo(expected);
+		}
+	}
+
+	@Test
+	public void mismatchIsDetected() throws Exception {
+		final byte[] data = randomBytes(200 * 1024);
+		write(oldFile, data);
+		write(newFile, data);
+
+		final FileDeltaDto fileDeltaDto = FileDeltaUtil.createFileDeltaDto(newFile, FileDeltaUtil.createFileSignatureDto(oldFile));
+		assertThat(fileDeltaDto.getInstructionDtos()).hasSize(1);
+		assertThat(fileDeltaDto.getInstructionDtos().get(0).isLiteral()).isFalse();
+
+		final byte[] expected = Arrays.copyOf(data, CHUNK_LENGTH);
+		final FileChunkDeltaDto fileChunkDeltaDto = createFileChunkDeltaDto(fileDeltaDto, data, 0, CHUNK_LENGTH, sha1(expected));
+
+		data[10] ^= 0x55; // old file modified after its signature was created
+		write(oldFile, data);
+		assertThat(FileDeltaUtil.createFileChunkData(oldFile, fileChunkDeltaDto)).isNull();
+	}
+
+	@Test
+	public void invalidSignatureIsRejected() throws Exception {
+		write(newFile, randomBytes(10 * 1024));
+		final byte[] noBlockChecksums = new byte[0];
+		final byte[] oneBlockChecksums = new byte[FileDeltaUtil.BLOCK_CHECKSUMS_SIZE];
+
+		assertInvalidSignatureIsRejected(-1, FileDeltaUtil.MIN_BLOCK_SIZE, noBlockChecksums);
+		assertInvalidSignatureIsRejected(100, 0, oneBlockChecksums);
+		assertInvalidSignatureIsRejected(100, FileDeltaUtil.MIN_BLOCK_SIZE - 1, oneBlockChecksums);
+		// A huge block size would allocate a huge buffer.
+		assertInvalidSignatureIsRejected(100, Integer.MAX_VALUE / 4 + 1, oneBlockChecksums);
+		// The block count must not overflow.
+		assertInvalidSignatureIsRejected(Long.MAX_VALUE, FileDeltaUtil.MIN_BLOCK_SIZE, noBlockChecksums);
+
+		final FileChunkDto fileChunkDto = new FileChunkDto();
+		fileChunkDto.setLength(-1);
+		final FileChunkDeltaDto fileChunkDeltaDto = new FileChunkDeltaDto();
+		fileChunkDeltaDto.setFileChunkDto(fileChunkDto);
+		try {
+			FileDeltaUtil.createFileChunkData(newFile, fileChunkDeltaDto);
+			fail("IllegalArgumentException expected!");
+		} catch (final IllegalArgumentException x) {
+			// expected
+		}
+	}
+
+	private void assertInvalidSignatureIsRejected(final long length, final int blockSize, final byte[] blockChecksums) throws Exception {
+		final FileSignatureDto fileSignatureDto = new FileSignatureDto();
+		fileSignatureDto.setLength(length);
+		fileSignatureDto.setBlockSize(blockSize);
+		fileSignatureDto.setBlockChecksums(blockChecksums);
+		try {
+			FileDeltaUtil.createFileDeltaDto(newFile, fileSignatureDto);
+			fail("IllegalArgumentException expected!");
+		} catch (final IllegalArgumentException x) {
+			// expected
+		}
+	}
+
+	private static FileChunkDeltaDto createFileChunkDeltaDto(final FileDeltaDto fileDeltaDto, final byte[] newData,
+			final int offset, final int length, final String sha1) {
+		final List<FileDeltaInstructionDto> instructionDtos = FileDeltaUtil.getInstructionDtos(fileDeltaDto, offset, length);
+		for (final FileDeltaInstructionDto instructionDto : instructionDtos) {
+			if (instructionDto.isLiteral()) {
+				final int from = (int) instructionDto.getOffset();
+				instructionDto.setData(Arrays.copyOfRange(newData, from, from + (int) instructionDto.getLength()));
+			}
+		}
+		final FileChunkDto fileChunkDto = new FileChunkDto();
+		fileChunkDto.setOffset(offset);
+		fileChunkDto.setLength(length);
+		fileChunkDto.setSha1(sha1);
+
+		final FileChunkDeltaDto fileChunkDeltaDto = new FileChunkDeltaDto();
+		fileChunkDeltaDto.setFileChunkDto(fileChunkDto);
+		fileChunkDeltaDto.setInstructionDtos(instructionDtos);
+		return fileChunkDeltaDto;
+	}
+
+	private byte[] randomBytes(final int length) {
+		final byte[] bytes = new byte[length];
+		random.nextBytes(bytes);
+		return bytes;
+	}
+
+	private static byte[] concat(final byte[] ... arrays) {
+		int length = 0;
+		for (final byte[] array : arrays)
+			length += array.length;
+
+		final byte[] result = new byte[length];
+		int offset = 0;
+		for (final byte[] array : arrays) {
+			System.arraycopy(array, 0, result, offset, array.length);
+			offset += array.length;
+		}
+		return result;
+	}
+
+	private static void write(final File file, final byte[] data) throws Exception {
+		try (RandomAccessFile raf = new RandomAccessFile(file.getIoFile(), "rw")) {
+			raf.setLength(0);
+			raf.write(data);
+		}
+	}
+}
@@ -0,0 +1,210 @@
+package co.codewizards.cloudstore.local;
+
+import static co.codewizards.cloudstore.core.objectfactory.ObjectFactoryUtil.*;
+import static java.util.Objects.*;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import co.codewizards.cloudstore.core.dto.FileChunkDto;
+import co.codewizards.cloudstore.core.util.HashUtil;
+import co.codewizards.cloudstore.local.persistence.FileChunk;
+import co.codewizards.cloudstore.local.persistence.NormalFile;
+
+/**
+ * Calculates the {@link FileChunk}s and the SHA1 of a {@link NormalFile} from the file's data, which is passed
+ * sequentially (from the beginning to the end of the file).
+ * <p>
+ * This allows for calculating the hashes while the file is written (e.g. when a file is synced), instead of reading
+ * the whole file again afterwards. The result is exactly the same as if the file was read by
+ * {@link LocalRepoSync#sha(NormalFile, co.codewizards.cloudstore.core.oio.File, co.codewizards.cloudstore.core.progress.ProgressMonitor) LocalRepoSync.sha(...)}.
+ * <p>
+ * If the writer cannot pass all data in the correct order, it must {@linkplain #invalidate(String) invalidate} this
+ * digester. The hashes are then calculated by reading the file.
+ * <p>
+ * Instances are created by {@link LocalRepoSync#createFileChunkDigester()}.
+ */
+public class FileChunkDigester {
+	private static final Logger logger = LoggerFactory.getLogger(FileChunkDigester.class);
+
+	static class ChunkInfo {
+		public final long offset;
+		public final int length;
+		public final String sha1;
+
+		public ChunkInfo(final long offset, final int length, final String sha1) {
+			this.offset = offset;
+			this.length = length;
+			this.sha1 = sha1;
+		}
+	}
+
+	private final LocalRepoSync localRepoSync;
+	private final MessageDigest mdAll;
+	private final MessageDigest mdChunk;
+	private final List<ChunkInfo> chunkInfos = new ArrayList<>();
+	private long length;
+	private long chunkOffset;
+	private int chunkLength;
+	private boolean valid = true;
+	private boolean finished;
+	private String sha1;
+
+	protected FileChunkDigester(final LocalRepoSync localRepoSync) {
+		this.localRepoSync = requireNonNull(localRepoSync, "localRepoSync");
+		this.mdAll = createMessageDigest();
+		this.mdChunk = createMessageDigest();
+	}
+
+	/**
+	 * Creates a digester only calculating the hashes - without being able to {@linkplain #finish(NormalFile) update}
+	 * a {@code NormalFile}.
+	 */
+	FileChunkDigester() {
+		this.localRepoSync = null;
+		this.mdAll = createMessageDigest();
+		this.mdChunk = createMessageDigest();
+	}
+
+	private static MessageDigest createMessageDigest() {
+		try {
+			return MessageDigest.getInstance(HashUtil.HASH_ALGORITHM_SHA);
+		} catch (final NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Gets the number of bytes passed so far. This is the offset of the next byte expected by {@code update(...)}.
+	 * @return the number of bytes passed so far.
+	 */
+	public long getLength() {
+		return length;
+	}
+
+	public boolean isValid() {
+		return valid;
+	}
+
+	/**
+	 * Marks this digester as unusable, because the data could not be passed completely or in the correct order.
+	 * @param reason the reason for logging. Should not be <code>null</code>.
+	 */
+	public void invalidate(final String reason) {
+		if (valid) {
+			logger.debug("invalidate: {}", reason);
+			valid = false;
+		}
+	}
+
+	public void update(final byte[] buf, final int off, final int len) {
+		update(buf, off, len, null);
+	}
+
+	/**
+	 * Passes the next data of the file.
+	 * @param buf the buffer containing the data. Must not be <code>null</code>.
+	 * @param off the offset in {@code buf}.
+	 * @param len the number of bytes to be read from {@code buf}.
+	 * @param sha1 the already known (and verified!) SHA1 of the data. May be <code>null</code>. If the data
+	 * forms a complete {@code FileChunk}, this SHA1 is used instead of calculating it again.
+	 */
+	public void update(final byte[] buf, int off, int len, final String sha1) {
+		requireNonNull(buf, "buf");
+		if (! valid)
+			return;
+
+		assertNotFinished();
+		mdAll.update(buf, off, len);
+
+		if (sha1 != null && chunkLength == 0 && len == FileChunkDto.MAX_LENGTH) {
+			chunkInfos.add(new ChunkInfo(chunkOffset, len, sha1));
+			length += len;
+			chunkOffset = length;
+			return;
+		}
+
+		while (len > 0) {
+			final int l = Math.min(len, FileChunkDto.MAX_LENGTH - chunkLength);
+			mdChunk.update(buf, off, l);
+			chunkLength += l;
+			length += l;
+			off += l;
+			len -= l;
+			if (chunkLength >= FileChunkDto.MAX_LENGTH)
+				finalizeChunk();
+		}
+	}
+
+	private void finalizeChunk() {
+		chunkInfos.add(new ChunkInfo(chunkOffset, chunkLength, HashUtil.encodeHexStr(mdChunk.digest())));
+		chunkOffset = length;
+		chunkLength = 0;
+	}
+
+	/**
+	 * Replaces the {@code FileChunk}s of the given {@code normalFile} and sets its SHA1 and length.
+	 * <p>
+	 * This method may be invoked only once and only if this digester is {@linkplain #isValid() valid}.
+	 * @param normalFile the {@code NormalFile} to be updated. Must not be <code>null</code>.
+	 */
+	public void finish(final NormalFile normalFile) {
+		requireNonNull(normalFile, "normalFile");
+		requireNonNull(localRepoSync, "localRepoSync");
+		finishDigest();
+
+		normalFile.getFileChunks().clear();
+		localRepoSync.transaction.flush();
+
+		for (final ChunkInfo chunkInfo : chunkInfos) {
+			final FileChunk fileChunk = createObject(FileChunk.class);
+			fileChunk.setNormalFile(normalFile);
+			fileChunk.setOffset(chunkInfo.offset);
+			fileChunk.setLength(chunkInfo.length);
+			fileChunk.setSha1(chunkInfo.sha1);
+			localRepoSync.onFinalizeFileChunk(fileChunk);
+			fileChunk.makeReadOnly();
+			normalFile.getFileChunks().add(fileChunk);
+		}
+		normalFile.setSha1(sha1);
+		normalFile.setLength(length);
+	}
+
+	/**
+	 * Completes the calculation after the last data was passed.
+	 */
+	void finishDigest() {
+		if (! valid)
+			throw new IllegalStateException("This FileChunkDigester is not valid!");
+
+		assertNotFinished();
+		finished = true;
+		finalizeChunk(); // LocalRepoSync.sha(...) always finishes with a chunk - even if it is empty.
+		sha1 = HashUtil.encodeHexStr(mdAll.digest());
+	}
+
+	/**
+	 * Gets the chunks calculated. Complete only after {@link #finishDigest()}.
+	 */
+	List<ChunkInfo> getChunkInfos() {
+		return Collections.unmodifiableList(chunkInfos);
+	}
+
+	/**
+	 * Gets the SHA1 of the whole file. Available only after {@link #finishDigest()}.
+	 */
+	String getSha1() {
+		return sha1;
+	}
+
+	private void assertNotFinished() {
+		if (finished)
+			throw new IllegalStateException("finish(...) was already invoked!");
+	}
+}
@@ -7,16 +7,19 @@ import java.io.IOException;
 import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import co.codewizards.cloudstore.core.config.ConfigImpl;
 import co.codewizards.cloudstore.core.oio.File;
 import co.codewizards.cloudstore.core.repo.local.FileAlreadyRepositoryException;
 import co.codewizards.cloudstore.core.repo.local.LocalRepoManager;
@@ -37,7 +40,11 @@ import co.codewizards.cloudstore.local.db.DatabaseMigraterThreadManager;
 public class LocalRepoManagerFactoryImpl implements LocalRepoManagerFactory {
 	private static final Logger logger = LoggerFactory.getLogger(LocalRepoManagerFactoryImpl.class);
 
-	private final Map<File, LocalRepoManagerImpl> localRoot2LocalRepoManagerImpl = new HashMap<File, LocalRepoManagerImpl>();
+	/**
+	 * The open {@link LocalRepoManagerImpl}s. Modifications happen only while synchronized on {@code this}, but
+	 * lookups are done without locking.
+	 */
+	private final Map<File, LocalRepoManagerImpl> localRoot2LocalRepoManagerImpl = new ConcurrentHashMap<File, LocalRepoManagerImpl>();
 	private final Set<LocalRepoManagerImpl> nonReOpenableLocalRepoManagerImpls = new HashSet<LocalRepoManagerImpl>();
 
 	private final List<LocalRepoManagerCloseListener> localRepoManagerCloseListeners = new CopyOnWriteArrayList<LocalRepoManagerCloseListener>();
@@ -60,15 +67,26 @@ public class LocalRepoManagerFactoryImpl implements LocalRepoManagerFactory {
 	};
 
 	@Override
-	public synchronized Set<File> getLocalRoots() {
+	public Set<File> getLocalRoots() {
 		return Collections.unmodifiableSet(new HashSet<File>(localRoot2LocalRepoManagerImpl.keySet()));
 	}
 
-	@SuppressWarnings("resource")
 	@Override
-	public synchronized LocalRepoManager createLocalRepoManagerForExistingRepository(File localRoot) throws LocalRepoManagerException {
+	public LocalRepoManager createLocalRepoManagerForExistingRepository(File localRoot) throws LocalRepoManagerException {
 		localRoot = canonicalize(localRoot);
 
+		// Fast path: Re-using an already open LocalRepoManagerImpl does not need to lock the entire factory. Its
+		// open() is thread-safe and fails, if it is closing (and cannot be re-opened) - this is handled below.
+		// There cannot be a database-migration in process, because it requires the repository to be closed.
+		final LocalRepoManagerImpl localRepoManagerImpl = localRoot2LocalRepoManagerImpl.get(localRoot);
+		if (localRepoManagerImpl != null && localRepoManagerImpl.open())
+			return createProxy(localRepoManagerImpl);
+
+		return _createLocalRepoManagerForExistingRepository(localRoot);
+	}
+
+	@SuppressWarnings("resource")
+	private synchronized LocalRepoManager _createLocalRepoManagerForExistingRepository(final File localRoot) throws LocalRepoManagerException {
 		DatabaseMigrater databaseMigrater = DatabaseMigrater.create(localRoot);
 		if (databaseMigrater.isMigrationInProcess()) {
 			DatabaseMigraterThreadManager.getInstance().launch(databaseMigrater);
@@ -92,6 +110,7 @@ public class LocalRepoManagerFactoryImpl implements LocalRepoManagerFactory {
 				throw new IllegalStateException("localRepoManagerImpl.open() of *new* instance returned false!");
 
 			enlist(localRepoManagerImpl);
+			closeSurplusIdleLocalRepoManagerImpls();
 		}
 		return createProxy(localRepoManagerImpl);
 	}
@@ -111,6 +130,7 @@ public class LocalRepoManagerFactoryImpl implements LocalRepoManagerFactory {
 			throw new IllegalStateException("localRepoManagerImpl.open() of *new* instance returned false!");
 
 		enlist(localRepoManagerImpl);
+		closeSurplusIdleLocalRepoManagerImpls();
 		return createProxy(localRepoManagerImpl);
 	}
 
@@ -143,6 +163,44 @@ public class LocalRepoManagerFactoryImpl implements LocalRepoManagerFactory {
 		localRepoManager.addLocalRepoManagerCloseListener(localRepoManagerCloseListener);
 	}
 
+	/**
+	 * Closes the {@link LocalRepoManagerImpl}s having been idle for the longest time, if there are more idle ones
+	 * than {@link LocalRepoManager#CONFIG_KEY_MAX_IDLE_COUNT} allows.
+	 * <p>
+	 * Keeping recently used repositories open avoids the expensive re-opening (DB-startup, schema-validation etc.),
+	 * but every open repository costs memory - and a server may host hundreds of them.
+	 */
+	private void closeSurplusIdleLocalRepoManagerImpls() {
+		final int maxIdleCount = ConfigImpl.getInstance().getPropertyAsPositiveOrZeroInt(
+				LocalRepoManager.CONFIG_KEY_MAX_IDLE_COUNT, LocalRepoManager.DEFAULT_MAX_IDLE_COUNT);
+		if (maxIdleCount == 0)
+			return;
+
+		final List<LocalRepoManagerImpl> idleLocalRepoManagerImpls = new ArrayList<LocalRepoManagerImpl>();
+		final Map<LocalRepoManagerImpl, Long> localRepoManagerImpl2IdleSinceMillis = new HashMap<LocalRepoManagerImpl, Long>();
+		for (final LocalRepoManagerImpl localRepoManagerImpl : localRoot2LocalRepoManagerImpl.values()) {
+			final long idleSinceMillis = localRepoManagerImpl.getIdleSinceMillis();
+			if (idleSinceMillis != 0) {
+				idleLocalRepoManagerImpls.add(localRepoManagerImpl);
+				localRepoManagerImpl2IdleSinceMillis.put(localRepoManagerImpl, idleSinceMillis);
+			}
+		}
+		if (idleLocalRepoManagerImpls.size() <= maxIdleCount)
+			return;
+
+		Collections.sort(idleLocalRepoManagerImpls, new Comparator<LocalRepoManagerImpl>() {
+			@Override
+			public int compare(final LocalRepoManagerImpl o1, final LocalRepoManagerImpl o2) {
+				return localRepoManagerImpl2IdleSinceMillis.get(o1).compareTo(localRepoManagerImpl2IdleSinceMillis.get(o2));
+			}
+		});
+		for (final LocalRepoManagerImpl localRepoManagerImpl : idleLocalRepoManagerImpls.subList(0, idleLocalRepoManagerImpls.size() - maxIdleCount)) {
+			logger.debug("closeSurplusIdleLocalRepoManagerImpls: Closing idle localRepoManager[{}] for '{}'.",
+					localRepoManagerImpl.id, localRepoManagerImpl.getLocalRoot());
+			localRepoManagerImpl.closeIdleNow();
+		}
+	}
+
 	private File canonicalize(File localRoot) {
 		requireNonNull(localRoot, "localRoot");
 		try {
@@ -27,6 +27,7 @@ import java.util.TimerTask;
 import java.util.TreeSet;
 import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -38,6 +39,7 @@ import javax.jdo.PersistenceManagerFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import co.codewizards.cloudstore.core.concurrent.SharedScheduler;
 import co.codewizards.cloudstore.core.config.ConfigImpl;
 import co.codewizards.cloudstore.core.io.LockFile;
 import co.codewizards.cloudstore.core.io.LockFileFactory;
@@ -115,24 +117,25 @@ class LocalRepoManagerImpl implements LocalRepoManager {
 	private int closeDeferredTimerSerial;
 	private Timer closeDeferredTimer;
 	private TimerTask closeDeferredTimerTask;
+	private long idleSinceMillis;
 	private final Lock lock = new ReentrantLock();
 	private final long created = nowAsMillis();
 
 	private LocalRepoMetaDataImpl localRepoMetaDataImpl;
 
-	private final Timer deleteExpiredRemoteRepositoryRequestsTimer = new Timer("deleteExpiredRemoteRepositoryRequestsTimer-" + id, true);
-	private final TimerTask deleteExpiredRemoteRepositoryRequestsTimeTask = new TimerTask() {
+	private final Runnable deleteExpiredRemoteRepositoryRequestsTask = new Runnable() {
 		@Override
 		public void run() {
-			if (isOpen())
-				deleteExpiredRemoteRepositoryRequests();
+			deleteExpiredRemoteRepositoryRequests();
 		}
 	};
-	{
-		deleteExpiredRemoteRepositoryRequestsTimer.schedule(
-				deleteExpiredRemoteRepositoryRequestsTimeTask,
-				60 * 60 * 1000L, 60 * 60 * 1000L); // TODO make times configurable
-	}
+	private volatile ScheduledFuture<?> deleteExpiredRemoteRepositoryRequestsFuture;
+
+	/**
+	 * The fingerprint of the schema expected by the running code. It is stored in the repository-properties
+	 * when the repository was opened successfully.
+	 */
+	private String schemaFingerprint;
 
 
 	private byte[] privateKey;
@@ -160,9 +163,13 @@ class LocalRepoManagerImpl implements LocalRepoManager {
 			DatabaseMigrater.create(localRoot).createTriggerFile();
 
 			initPersistenceManagerFactory(createRepository);
-			deleteExpiredRemoteRepositoryRequests();
 			syncWithLocalRepoRegistry();
 			updateRepositoryPropertiesFile();
+
+			// Not needed for opening => done in the background (first run immediately) to open faster.
+			deleteExpiredRemoteRepositoryRequestsFuture = SharedScheduler.getInstance().schedulePeriodically(
+					deleteExpiredRemoteRepositoryRequestsTask, 0L, 60 * 60 * 1000L); // TODO make times configurable
+
 			releaseLockFile = false;
 			deleteMetaDir = false; // if we come here, creation is successful => NO deletion
 		} finally {
@@ -413,6 +420,12 @@ class LocalRepoManagerImpl implements LocalRepoManager {
 					store = true;
 				}
 
+				// If we come here, the schema was successfully validated (or known to be valid).
+				if (schemaFingerprint != null && !schemaFingerprint.equals(repositoryProperties.getProperty(PROP_SCHEMA_FINGERPRINT))) {
+					repositoryProperties.setProperty(PROP_SCHEMA_FINGERPRINT, schemaFingerprint);
+					store = true;
+				}
+
 				transaction.commit();
 			} finally {
 				transaction.rollbackIfActive();
@@ -468,6 +481,9 @@ class LocalRepoManagerImpl implements LocalRepoManager {
 	private void deleteExpiredRemoteRepositoryRequests() {
 		lock.lock();
 		try {
+			if (persistenceManagerFactory == null) // closed in the meantime
+				return;
+
 			final PersistenceManager pm = persistenceManagerFactory.getPersistenceManager();
 			try {
 				pm.currentTransaction().begin();
@@ -565,6 +581,14 @@ class LocalRepoManagerImpl implements LocalRepoManager {
 		final Map<String, String> persistenceProperties = new PersistencePropertiesProvider(repositoryId, localRoot).getPersistenceProperties();
 //		connectionURL = persistenceProperties.get(PersistencePropertiesEnum.CONNECTION_URL_ORIGINAL.key);
 		connectionURL = persistenceProperties.get(PersistencePropertiesEnum.CONNECTION_URL.key);
+
+		schemaFingerprint = SchemaFingerprint.getSchemaFingerprint(persistenceProperties);
+		if (!createRepository && repositoryProperties != null
+				&& schemaFingerprint.equals(repositoryProperties.getProperty(PROP_SCHEMA_FINGERPRINT))
+				&& ConfigImpl.getInstance().getPropertyAsBoolean(CONFIG_KEY_SKIP_UNCHANGED_SCHEMA_VALIDATION, DEFAULT_SKIP_UNCHANGED_SCHEMA_VALIDATION)) {
+			logger.debug("[{}]getPersistenceProperties: Schema unchanged => skipping validation.", id);
+			SchemaFingerprint.disableSchemaValidation(persistenceProperties);
+		}
 		return persistenceProperties;
 	}
 
@@ -615,6 +639,7 @@ class LocalRepoManagerImpl implements LocalRepoManager {
 			if (result) {
 				closing = false;
 				closeAbortable = true;
+				idleSinceMillis = 0;
 
 				if (closeDeferredTimerTask != null) {
 					closeDeferredTimerTask.cancel();
@@ -691,6 +716,7 @@ class LocalRepoManagerImpl implements LocalRepoManager {
 				if (closeDeferredTimerTask == null) {
 					closeDeferredTimerTask = new CloseTimerTask();
 					closeDeferredTimer.schedule(closeDeferredTimerTask, closeDeferredMillis);
+					idleSinceMillis = nowAsMillis();
 				}
 			} finally {
 				lock.unlock();
@@ -702,6 +728,40 @@ class LocalRepoManagerImpl implements LocalRepoManager {
 		}
 	}
 
+	/**
+	 * Gets the timestamp since when this instance is not used anymore and only waits for its deferred close.
+	 * @return the timestamp or 0, if this instance is in use (or closing immediately or closed already).
+	 */
+	protected long getIdleSinceMillis() {
+		lock.lock();
+		try {
+			return idleSinceMillis;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Closes this instance without waiting for the remaining {@linkplain #getCloseDeferredMillis() deferral}, if it
+	 * is currently {@linkplain #getIdleSinceMillis() idle}. Closing happens asynchronously and is still aborted,
+	 * if this instance is {@linkplain #open() re-opened} before.
+	 */
+	protected void closeIdleNow() {
+		lock.lock();
+		try {
+			if (idleSinceMillis == 0 || closeDeferredTimer == null)
+				return;
+
+			if (closeDeferredTimerTask != null)
+				closeDeferredTimerTask.cancel();
+
+			closeDeferredTimerTask = new CloseTimerTask();
+			closeDeferredTimer.schedule(closeDeferredTimerTask, 0L);
+		} finally {
+			lock.unlock();
+		}
+	}
+
 	private void _close() {
 		lock.lock();
 		try {
@@ -710,6 +770,7 @@ class LocalRepoManagerImpl implements LocalRepoManager {
 				return;
 			}
 			closeAbortable = false;
+			idleSinceMillis = 0;
 
 			if (closeDeferredTimerTask != null) {
 				closeDeferredTimerTask.cancel();
@@ -727,7 +788,8 @@ class LocalRepoManagerImpl implements LocalRepoManager {
 			listener.preClose(event);
 		}
 
-		deleteExpiredRemoteRepositoryRequestsTimer.cancel();
+		if (deleteExpiredRemoteRepositoryRequestsFuture != null)
+			deleteExpiredRemoteRepositoryRequestsFuture.cancel(false);
 
 		lock.lock();
 		try {
@@ -6,8 +6,6 @@ import static java.util.Objects.*;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -23,13 +21,11 @@ import javax.jdo.PersistenceManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import co.codewizards.cloudstore.core.dto.FileChunkDto;
 import co.codewizards.cloudstore.core.ignore.IgnoreRuleManagerImpl;
 import co.codewizards.cloudstore.core.oio.File;
 import co.codewizards.cloudstore.core.progress.ProgressMonitor;
 import co.codewizards.cloudstore.core.progress.SubProgressMonitor;
 import co.codewizards.cloudstore.core.repo.local.LocalRepoTransaction;
-import co.codewizards.cloudstore.core.util.HashUtil;
 import co.codewizards.cloudstore.local.persistence.CopyModification;
 import co.codewizards.cloudstore.local.persistence.DeleteModification;
 import co.codewizards.cloudstore.local.persistence.DeleteModificationDao;
@@ -326,6 +322,20 @@ public class LocalRepoSync {
 	}
 
 	public void updateRepoFile(final RepoFile repoFile, final File file, final ProgressMonitor monitor) {
+		updateRepoFile(repoFile, file, null, monitor);
+	}
+
+	/**
+	 * Updates the given {@code repoFile} from the given {@code file}.
+	 * <p>
+	 * If a valid {@code digester} is passed, which covers the entire (current) file, the {@link FileChunk}s and SHA1
+	 * are taken from it. Otherwise, the file is read in order to calculate them.
+	 * @param repoFile the {@code RepoFile} to be updated. Must not be <code>null</code>.
+	 * @param file the file corresponding to the {@code repoFile}. Must not be <code>null</code>.
+	 * @param digester the digester which was fed with the file's data while writing it. May be <code>null</code>.
+	 * @param monitor the progress-monitor. Must not be <code>null</code>.
+	 */
+	public void updateRepoFile(final RepoFile repoFile, final File file, final FileChunkDigester digester, final ProgressMonitor monitor) {
 		logger.debug("updateRepoFile: id={} file={}", repoFile.getId(), file);
 		monitor.beginTask("Local sync...", 100);
 		try {
@@ -345,7 +355,12 @@ public class LocalRepoSync {
 					throw new IllegalArgumentException("repoFile is not an instance of NormalFile!");
 
 				final NormalFile normalFile = (NormalFile) repoFile;
-				sha(normalFile, file, new SubProgressMonitor(monitor, 100));
+				if (digester != null && digester.isValid() && digester.getLength() == file.length()) {
+					digester.finish(normalFile);
+					monitor.worked(100);
+				}
+				else
+					sha(normalFile, file, new SubProgressMonitor(monitor, 100));
 			}
 			repoFile.setLastSyncFromRepositoryId(null);
 			repoFile.setLastModified(new Date(file.getLastModifiedNoFollow()));
@@ -564,64 +579,30 @@ public class LocalRepoSync {
 	protected void sha(final NormalFile normalFile, final File file, final ProgressMonitor monitor) {
 		monitor.beginTask("Local sync...", (int)Math.min(file.length(), Integer.MAX_VALUE));
 		try {
-			normalFile.getFileChunks().clear();
-			transaction.flush();
-
-			final MessageDigest mdAll = MessageDigest.getInstance(HashUtil.HASH_ALGORITHM_SHA);
-			final MessageDigest mdChunk = MessageDigest.getInstance(HashUtil.HASH_ALGORITHM_SHA);
+			final FileChunkDigester digester = createFileChunkDigester();
 
 			final int bufLength = 32 * 1024;
 
-			long offset = 0;
-
 			try (final InputStream in = castStream(file.createInputStream())) {
-				FileChunk fileChunk = null;
-
 				final byte[] buf = new byte[bufLength];
 				while (true) {
-					if (fileChunk == null) {
-						fileChunk = createObject(FileChunk.class);
-						fileChunk.setNormalFile(normalFile);
-						fileChunk.setOffset(offset);
-						fileChunk.setLength(0);
-						mdChunk.reset();
-					}
-
 					final int bytesRead = in.read(buf, 0, buf.length);
+					if (bytesRead < 0)
+						break;
 
 					if (bytesRead > 0) {
-						mdAll.update(buf, 0, bytesRead);
-						mdChunk.update(buf, 0, bytesRead);
-						offset += bytesRead;
-						fileChunk.setLength(fileChunk.getLength() + bytesRead);
-					}
-
-					if (bytesRead < 0 || fileChunk.getLength() >= FileChunkDto.MAX_LENGTH) {
-						fileChunk.setSha1(HashUtil.encodeHexStr(mdChunk.digest()));
-						onFinalizeFileChunk(fileChunk);
-						fileChunk.makeReadOnly();
-						normalFile.getFileChunks().add(fileChunk);
-						fileChunk = null;
-
-						if (bytesRead < 0) {
-							break;
-						}
-					}
-
-					if (bytesRead > 0)
+						digester.update(buf, 0, bytesRead);
 						monitor.worked(bytesRead);
+					}
 				}
 			}
-			normalFile.setSha1(HashUtil.encodeHexStr(mdAll.digest()));
-			normalFile.setLength(offset);
+			digester.finish(normalFile);
 
 			final long fileLength = file.length(); // Important to check it now at the end.
-			if (fileLength != offset) {
+			if (fileLength != digester.getLength()) {
 				logger.warn("sha: file.length() != bytesReadTotal :: File seems to be written concurrently! file='{}' file.length={} bytesReadTotal={}",
-						file, fileLength, offset);
+						file, fileLength, digester.getLength());
 			}
-		} catch (final NoSuchAlgorithmException e) {
-			throw new RuntimeException(e);
 		} catch (final IOException e) {
 			throw new RuntimeException(e);
 		} finally {
@@ -629,6 +610,16 @@ public class LocalRepoSync {
 		}
 	}
 
+	/**
+	 * Creates a {@link FileChunkDigester}, which calculates the same {@link FileChunk}s and SHA1 as
+	 * {@link #sha(NormalFile, File, ProgressMonitor) sha(...)}, but from data passed while writing the file.
+	 * @return a new {@code FileChunkDigester}. Never <code>null</code>.
+	 * @see #updateRepoFile(RepoFile, File, FileChunkDigester, ProgressMonitor)
+	 */
+	public FileChunkDigester createFileChunkDigester() {
+		return new FileChunkDigester(this);
+	}
+
 	protected void onFinalizeFileChunk(FileChunk fileChunk) {
 		// can be extended by sub-classes to handle FileChunk-subclasses specifically.
 	}
@@ -0,0 +1,111 @@
+package co.codewizards.cloudstore.local;
+
+import static co.codewizards.cloudstore.core.util.HashUtil.*;
+import static java.util.Objects.*;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import co.codewizards.cloudstore.local.dbupdate.DbUpdateStepRegistry;
+import co.codewizards.cloudstore.local.persistence.CloudStorePersistenceCapableClassesProvider;
+
+/**
+ * Fingerprint of the database schema expected by the running code.
+ * <p>
+ * The fingerprint covers the current {@linkplain DbUpdateStepRegistry#getCurrentVersion() DB version}, the
+ * persistence properties and all persistence-capable classes with their persistent fields and annotations. Thus,
+ * it changes whenever the schema DataNucleus would create or validate might change.
+ * <p>
+ * After the schema of a repository was successfully validated, the fingerprint is stored in its
+ * {@link co.codewizards.cloudstore.core.repo.local.LocalRepoManager#REPOSITORY_PROPERTIES_FILE_NAME repository-properties-file}.
+ * If it is still the same when the repository is opened again, the expensive schema validation is skipped.
+ */
+public class SchemaFingerprint {
+
+	private static final String[] SCHEMA_VALIDATION_PERSISTENCE_PROPERTY_KEYS = {
+			"datanucleus.schema.autoCreateColumns",
+			"datanucleus.schema.autoCreateConstraints",
+			"datanucleus.schema.validateTables",
+			"datanucleus.schema.validateColumns",
+			"datanucleus.schema.validateConstraints"
+	};
+
+	private static volatile String classesFingerprint;
+
+	private SchemaFingerprint() {
+	}
+
+	/**
+	 * Calculates the fingerprint.
+	 * @param persistenceProperties the persistence properties used to open the repository. Must not be <code>null</code>.
+	 * @return the fingerprint. Never <code>null</code>.
+	 */
+	public static String getSchemaFingerprint(final Map<String, String> persistenceProperties) {
+		requireNonNull(persistenceProperties, "persistenceProperties");
+		final StringBuilder sb = new StringBuilder();
+		sb.append("version=").append(new DbUpdateStepRegistry().getCurrentVersion()).append('\n');
+		for (final Map.Entry<String, String> me : new TreeMap<>(persistenceProperties).entrySet())
+			sb.append(me.getKey()).append('=').append(me.getValue()).append('\n');
+
+		sb.append(getClassesFingerprint());
+		return sha1(sb.toString());
+	}
+
+	/**
+	 * Switches off the validation of the schema (and the automatic creation of columns and constraints, which
+	 * requires reading the DB's meta-data, too) in the given persistence properties.
+	 * <p>
+	 * This must only be done, if the {@linkplain #getSchemaFingerprint(Map) fingerprint} is unchanged.
+	 * @param persistenceProperties the persistence properties to be modified. Must not be <code>null</code>.
+	 */
+	public static void disableSchemaValidation(final Map<String, String> persistenceProperties) {
+		requireNonNull(persistenceProperties, "persistenceProperties");
+		for (final String key : SCHEMA_VALIDATION_PERSISTENCE_PROPERTY_KEYS)
+			persistenceProperties.put(key, Boolean.FALSE.toString());
+	}
+
+	private static String getClassesFingerprint() {
+		String result = classesFingerprint;
+		if (result == null) { // the classes cannot change while the JVM is running => calculate only once
+			final StringBuilder sb = new StringBuilder();
+			for (final Class<?> clazz : CloudStorePersistenceCapableClassesProvider.Helper.getPersistenceCapableClasses()) {
+				sb.append("class ").append(clazz.getName());
+				appendAnnotations(sb, clazz.getDeclaredAnnotations());
+				sb.append('\n');
+
+				final Field[] fields = clazz.getDeclaredFields();
+				Arrays.sort(fields, new Comparator<Field>() {
+					@Override
+					public int compare(final Field f1, final Field f2) {
+						return f1.getName().compareTo(f2.getName());
+					}
+				});
+				for (final Field field : fields) {
+					if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers()))
+						continue;
+
+					sb.append("  ").append(field.getGenericType().getTypeName()).append(' ').append(field.getName());
+					appendAnnotations(sb, field.getDeclaredAnnotations());
+					sb.append('\n');
+				}
+			}
+			classesFingerprint = result = sb.toString();
+		}
+		return result;
+	}
+
+	private static void appendAnnotations(final StringBuilder sb, final Annotation[] annotations) {
+		final String[] strings = new String[annotations.length];
+		for (int i = 0; i < annotations.length; ++i)
+			strings[i] = annotations[i].toString();
+
+		Arrays.sort(strings);
+		for (final String string : strings)
+			sb.append(' ').append(string);
+	}
+}
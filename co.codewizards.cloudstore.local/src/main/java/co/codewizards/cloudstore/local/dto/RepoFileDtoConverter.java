@@ -10,6 +10,7 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import co.codewizards.cloudstore.core.config.ConfigImpl;
 import co.codewizards.cloudstore.core.dto.DirectoryDto;
 import co.codewizards.cloudstore.core.dto.NormalFileDto;
 import co.codewizards.cloudstore.core.dto.RepoFileDto;
@@ -19,12 +20,14 @@ import co.codewizards.cloudstore.core.dto.jaxb.TempChunkFileDtoIo;
 import co.codewizards.cloudstore.core.oio.File;
 import co.codewizards.cloudstore.core.repo.local.LocalRepoManager;
 import co.codewizards.cloudstore.core.repo.local.LocalRepoTransaction;
+import co.codewizards.cloudstore.core.repo.transport.FileWriteStrategy;
 import co.codewizards.cloudstore.local.persistence.Directory;
 import co.codewizards.cloudstore.local.persistence.FileChunk;
 import co.codewizards.cloudstore.local.persistence.NormalFile;
 import co.codewizards.cloudstore.local.persistence.RepoFile;
 import co.codewizards.cloudstore.local.persistence.RepoFileDao;
 import co.codewizards.cloudstore.local.persistence.Symlink;
+import co.codewizards.cloudstore.local.transport.StagingFileManager;
 import co.codewizards.cloudstore.local.transport.TempChunkFileManager;
 import co.codewizards.cloudstore.local.transport.TempChunkFileWithDtoFile;
 
@@ -33,6 +36,7 @@ public class RepoFileDtoConverter {
 	private static final Logger logger = LoggerFactory.getLogger(RepoFileDtoConverter.class);
 
 	private final TempChunkFileManager tempChunkFileManager = TempChunkFileManager.getInstance();
+	private final StagingFileManager stagingFileManager = StagingFileManager.getInstance();
 	private final FileChunkDtoConverter fileChunkDtoConverter = FileChunkDtoConverter.create();
 	private final LocalRepoManager localRepoManager;
 	private final LocalRepoTransaction transaction;
@@ -74,22 +78,13 @@ public class RepoFileDtoConverter {
 				}
 			}
 			if (depth > 1) {
-				final TempChunkFileDtoIo tempChunkFileDtoIo = new TempChunkFileDtoIo();
 				final File file = repoFile.getFile(localRepoManager.getLocalRoot());
-				for (final TempChunkFileWithDtoFile tempChunkFileWithDtoFile : tempChunkFileManager.getOffset2TempChunkFileWithDtoFile(file).values()) {
-					final File tempChunkFileDtoFile = tempChunkFileWithDtoFile.getTempChunkFileDtoFile();
-					if (tempChunkFileDtoFile == null)
-						continue; // incomplete: meta-data not yet written => ignore
-
-					final TempChunkFileDto tempChunkFileDto;
-					try {
-						tempChunkFileDto = tempChunkFileDtoIo.deserialize(tempChunkFileDtoFile);
-					} catch (final Exception x) {
-						logger.warn("toRepoFileDto: Ignoring corrupt tempChunkFileDtoFile '" + tempChunkFileDtoFile.getAbsolutePath() + "': " + x, x);
-						continue;
-					}
-					normalFileDto.getTempFileChunkDtos().add(requireNonNull(tempChunkFileDto.getFileChunkDto(), "tempChunkFileDto.fileChunkDto"));
+				if (isStagedTransfer(file)) {
+					stagingFileManager.recover(file);
+					normalFileDto.getTempFileChunkDtos().addAll(stagingFileManager.getStagedFileChunkDtos(file));
 				}
+				else
+					addTempFileChunkDtos(normalFileDto, file);
 			}
 		}
 		else if (repoFile instanceof Directory) {
@@ -116,6 +111,29 @@ public class RepoFileDtoConverter {
 		return repoFileDto;
 	}
 
+	protected boolean isStagedTransfer(final File file) {
+		return ConfigImpl.getInstanceForFile(file).getPropertyAsEnum(FileWriteStrategy.CONFIG_KEY, FileWriteStrategy.CONFIG_DEFAULT_VALUE)
+				== FileWriteStrategy.replaceAfterStagedTransfer;
+	}
+
+	private void addTempFileChunkDtos(final NormalFileDto normalFileDto, final File file) {
+		final TempChunkFileDtoIo tempChunkFileDtoIo = new TempChunkFileDtoIo();
+		for (final TempChunkFileWithDtoFile tempChunkFileWithDtoFile : tempChunkFileManager.getOffset2TempChunkFileWithDtoFile(file).values()) {
+			final File tempChunkFileDtoFile = tempChunkFileWithDtoFile.getTempChunkFileDtoFile();
+			if (tempChunkFileDtoFile == null)
+				continue; // incomplete: meta-data not yet written => ignore
+
+			final TempChunkFileDto tempChunkFileDto;
+			try {
+				tempChunkFileDto = tempChunkFileDtoIo.deserialize(tempChunkFileDtoFile);
+			} catch (final Exception x) {
+				logger.warn("toRepoFileDto: Ignoring corrupt tempChunkFileDtoFile '" + tempChunkFileDtoFile.getAbsolutePath() + "': " + x, x);
+				continue;
+			}
+			normalFileDto.getTempFileChunkDtos().add(requireNonNull(tempChunkFileDto.getFileChunkDto(), "tempChunkFileDto.fileChunkDto"));
+		}
+	}
+
 	public boolean isExcludeLocalIds() {
 		return excludeLocalIds;
 	}
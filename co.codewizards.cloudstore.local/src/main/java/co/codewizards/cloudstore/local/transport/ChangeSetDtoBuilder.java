@@ -81,6 +81,7 @@ public class ChangeSetDtoBuilder {
 	private RemoteRepository remoteRepository;
 	private LastSyncToRemoteRepo lastSyncToRemoteRepo;
 	private Collection<Modification> modifications;
+	private long changedAfterRevision;
 
 	protected ChangeSetDtoBuilder(final LocalRepoTransaction transaction, final RepoTransport repoTransport) {
 		this.transaction = requireNonNull(transaction, "transaction");
@@ -114,6 +115,19 @@ public class ChangeSetDtoBuilder {
 	}
 
 	public ChangeSetDto buildChangeSetDto(RepositoryDto repositoryDto) {
+		return buildChangeSetDto(repositoryDto, null);
+	}
+
+	/**
+	 * Builds the {@code ChangeSetDto}.
+	 * @param repositoryDto the {@code RepositoryDto} returned by {@link #prepareBuildChangeSetDto(Long)}.
+	 * Must not be <code>null</code>.
+	 * @param changedAfterRevision if not <code>null</code>, only changes in revisions greater than this
+	 * value are included (incremental change-set for a client already knowing all changes up to this revision).
+	 * If it is less than {@code LastSyncToRemoteRepo.localRepositoryRevisionSynced}, it is ignored.
+	 * @return the {@code ChangeSetDto}. Never <code>null</code>.
+	 */
+	public ChangeSetDto buildChangeSetDto(RepositoryDto repositoryDto, Long changedAfterRevision) {
 		requireNonNull(repositoryDto, "repositoryDto");
 		logger.trace(">>> buildChangeSetDto >>>");
 
@@ -139,21 +153,26 @@ public class ChangeSetDtoBuilder {
 
 		changeSetDto.setRepositoryDto(repositoryDto);
 
+		this.changedAfterRevision = changedAfterRevision == null
+				? lastSyncToRemoteRepo.getLocalRepositoryRevisionSynced()
+						: Math.max(changedAfterRevision, lastSyncToRemoteRepo.getLocalRepositoryRevisionSynced());
+
 //		prepareLastSyncToRemoteRepo(lastSyncToRemoteRepoLocalRepositoryRevisionSynced);
-		logger.info("buildChangeSetDto: localRepositoryId={} remoteRepositoryId={} localRepositoryRevisionSynced={} localRepositoryRevisionInProgress={}",
+		logger.info("buildChangeSetDto: localRepositoryId={} remoteRepositoryId={} localRepositoryRevisionSynced={} localRepositoryRevisionInProgress={} changedAfterRevision={}",
 				localRepository.getRepositoryId(), remoteRepository.getRepositoryId(),
 				lastSyncToRemoteRepo.getLocalRepositoryRevisionSynced(),
-				lastSyncToRemoteRepo.getLocalRepositoryRevisionInProgress());
+				lastSyncToRemoteRepo.getLocalRepositoryRevisionInProgress(),
+				this.changedAfterRevision);
 
 		((ContextWithPersistenceManager)transaction).getPersistenceManager().getFetchPlan()
 		.setGroups(FetchPlan.DEFAULT, FetchGroupConst.CHANGE_SET_DTO);
 
-		modifications = modificationDao.getModificationsAfter(remoteRepository, lastSyncToRemoteRepo.getLocalRepositoryRevisionSynced());
+		modifications = modificationDao.getModificationsAfter(remoteRepository, this.changedAfterRevision);
 		changeSetDto.setModificationDtos(toModificationDtos(modifications));
 
 		if (!pathPrefix.isEmpty()) {
 			final Collection<DeleteModification> deleteModifications = transaction.getDao(DeleteModificationDao.class).getDeleteModificationsForPathOrParentOfPathAfter(
-					pathPrefix, lastSyncToRemoteRepo.getLocalRepositoryRevisionSynced(), remoteRepository);
+					pathPrefix, this.changedAfterRevision, remoteRepository);
 			if (!deleteModifications.isEmpty()) { // our virtual root was deleted => create synthetic DeleteModificationDto for virtual root
 				final DeleteModificationDto deleteModificationDto = new DeleteModificationDto();
 				deleteModificationDto.setId(0);
@@ -164,7 +183,7 @@ public class ChangeSetDtoBuilder {
 		}
 
 		final Collection<RepoFile> repoFiles = repoFileDao.getRepoFilesChangedAfterExclLastSyncFromRepositoryId(
-				lastSyncToRemoteRepo.getLocalRepositoryRevisionSynced(),
+				this.changedAfterRevision,
 				lastSyncToRemoteRepo.isResyncMode() ? NULL_UUID : clientRepositoryId);
 
 		RepoFile pathPrefixRepoFile = null; // the virtual root for the client
@@ -297,7 +316,7 @@ public class ChangeSetDtoBuilder {
 				logger.warn("isFileModifiedAfterLastSync: RepoFile not found for (assuming it is new): {}", file);
 				return true;
 			}
-			if (repoFile.getLocalRevision() > lastSyncToRemoteRepo.getLocalRepositoryRevisionSynced()) {
+			if (repoFile.getLocalRevision() > changedAfterRevision) {
 				logger.trace("isFileModifiedAfterLastSync: file modified: {}", file);
 				return true;
 			}
@@ -0,0 +1,155 @@
+package co.codewizards.cloudstore.local.transport;
+
+import static co.codewizards.cloudstore.core.io.StreamUtil.*;
+import static java.util.Objects.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import co.codewizards.cloudstore.core.config.ConfigImpl;
+import co.codewizards.cloudstore.core.oio.File;
+import co.codewizards.cloudstore.core.repo.local.LocalRepoManager;
+
+/**
+ * Copies files inside a repository by cloning them copy-on-write (reflink), if the file system supports it
+ * (e.g. Btrfs, XFS, APFS). A clone is instant and does not occupy additional space until either file is modified.
+ * <p>
+ * Cloning spawns a process (there is no Java API for it), which is much slower than copying a small file inside
+ * the JVM. Hence, only files of at least {@link #CONFIG_KEY_CLONE_MIN_LENGTH} bytes are cloned.
+ * <p>
+ * Whether cloning is supported is probed once per {@link FileStore} - by cloning a small file inside the
+ * meta-directory of the first repository located in it. If it is not supported, files are copied normally without
+ * trying to clone them again.
+ */
+public class FileCloneManager {
+
+	private static final Logger logger = LoggerFactory.getLogger(FileCloneManager.class);
+
+	/**
+	 * Configuration property key controlling whether files are cloned (if supported by the file system) instead of
+	 * copied.
+	 * <p>
+	 * The configuration can be overridden by a system property - see {@link co.codewizards.cloudstore.core.config.Config#SYSTEM_PROPERTY_PREFIX}.
+	 */
+	public static final String CONFIG_KEY_CLONE_ENABLED = "fileClone.enabled";
+	public static final boolean DEFAULT_CLONE_ENABLED = true;
+
+	/**
+	 * Configuration property key controlling the minimum length (in bytes) of a file to be cloned. Smaller files are
+	 * always copied, because spawning the clone process takes longer than copying them.
+	 * <p>
+	 * The configuration can be overridden by a system property - see {@link co.codewizards.cloudstore.core.config.Config#SYSTEM_PROPERTY_PREFIX}.
+	 */
+	public static final String CONFIG_KEY_CLONE_MIN_LENGTH = "fileClone.minLength";
+	public static final long DEFAULT_CLONE_MIN_LENGTH = 1024L * 1024L;
+
+	private static final String PROBE_FILE_NAME_PREFIX = "cloneProbe.";
+
+	private static final class FileCloneManagerHolder {
+		public static final FileCloneManager instance = new FileCloneManager();
+	}
+
+	private final Map<FileStore, Boolean> fileStore2CloneSupported = new HashMap<>();
+
+	protected FileCloneManager() { }
+
+	public static FileCloneManager getInstance() {
+		return FileCloneManagerHolder.instance;
+	}
+
+	/**
+	 * Copies the given file - cloning it, if possible.
+	 * @param localRoot the root of the repository containing both files. Must not be <code>null</code>.
+	 * @param fromFile the source. Must not be <code>null</code>.
+	 * @param toFile the destination. Must not be <code>null</code>. Must not yet exist.
+	 * @throws IOException if copying failed.
+	 * @see File#copyToCopyAttributes(File)
+	 * @see File#cloneToCopyAttributes(File)
+	 */
+	public void copyToCopyAttributes(final File localRoot, final File fromFile, final File toFile) throws IOException {
+		requireNonNull(localRoot, "localRoot");
+		requireNonNull(fromFile, "fromFile");
+		requireNonNull(toFile, "toFile");
+
+		if (fromFile.isFile() && !fromFile.isSymbolicLink()
+				&& fromFile.length() >= getCloneMinLength() && isCloneSupported(localRoot)) {
+			if (cloneToCopyAttributes(fromFile, toFile)) {
+				logger.debug("copyToCopyAttributes: Cloned '{}' to '{}'.", fromFile, toFile);
+				return;
+			}
+			logger.debug("copyToCopyAttributes: Cloning '{}' failed. Copying it instead.", fromFile);
+		}
+		fromFile.copyToCopyAttributes(toFile);
+	}
+
+	/**
+	 * Indicates whether files inside the given repository can be cloned.
+	 * @param localRoot the root of the repository. Must not be <code>null</code>.
+	 * @return <code>true</code>, if cloning is enabled and supported by the repository's file store;
+	 * <code>false</code> otherwise.
+	 */
+	public boolean isCloneSupported(final File localRoot) {
+		requireNonNull(localRoot, "localRoot");
+		if (!ConfigImpl.getInstance().getPropertyAsBoolean(CONFIG_KEY_CLONE_ENABLED, DEFAULT_CLONE_ENABLED))
+			return false;
+
+		final FileStore fileStore;
+		try {
+			fileStore = Files.getFileStore(localRoot.getIoFile().toPath());
+		} catch (final IOException x) {
+			logger.warn("isCloneSupported: localRoot='{}': Determining file store failed: {}", localRoot, x.toString());
+			return false;
+		}
+
+		Boolean cloneSupported;
+		synchronized (fileStore2CloneSupported) {
+			cloneSupported = fileStore2CloneSupported.get(fileStore);
+		}
+		if (cloneSupported == null) {
+			// Probing outside of the lock: It spawns a process and probing the same file store twice is harmless.
+			cloneSupported = probeCloneSupported(localRoot);
+			logger.info("isCloneSupported: fileStore='{}' localRoot='{}' cloneSupported={}", fileStore, localRoot, cloneSupported);
+			synchronized (fileStore2CloneSupported) {
+				fileStore2CloneSupported.put(fileStore, cloneSupported);
+			}
+		}
+		return cloneSupported;
+	}
+
+	private long getCloneMinLength() {
+		return ConfigImpl.getInstance().getPropertyAsLong(CONFIG_KEY_CLONE_MIN_LENGTH, DEFAULT_CLONE_MIN_LENGTH);
+	}
+
+	protected boolean cloneToCopyAttributes(final File fromFile, final File toFile) throws IOException {
+		return fromFile.cloneToCopyAttributes(toFile);
+	}
+
+	protected boolean probeCloneSupported(final File localRoot) {
+		final File tmpDir = localRoot.createFile(LocalRepoManager.META_DIR_NAME).createFile(LocalRepoManager.REPO_TEMP_DIR_NAME);
+		final String probeFileName = PROBE_FILE_NAME_PREFIX + UUID.randomUUID();
+		final File probeFile = tmpDir.createFile(probeFileName);
+		final File probeCloneFile = tmpDir.createFile(probeFileName + ".clone");
+		try {
+			tmpDir.mkdirs();
+			try (final OutputStream out = castStream(probeFile.createOutputStream())) {
+				out.write(probeFileName.getBytes(StandardCharsets.UTF_8));
+			}
+			return cloneToCopyAttributes(probeFile, probeCloneFile);
+		} catch (final IOException x) {
+			logger.warn("probeCloneSupported: localRoot='" + localRoot + "': " + x, x);
+			return false;
+		} finally {
+			probeCloneFile.delete();
+			probeFile.delete();
+		}
+	}
+}
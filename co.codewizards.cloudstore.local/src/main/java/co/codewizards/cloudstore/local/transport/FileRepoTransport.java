@@ -13,6 +13,8 @@ import java.io.RandomAccessFile;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -40,6 +42,10 @@ import co.codewizards.cloudstore.core.config.ConfigImpl;
 import co.codewizards.cloudstore.core.dto.ChangeSetDto;
 import co.codewizards.cloudstore.core.dto.ConfigPropSetDto;
 import co.codewizards.cloudstore.core.dto.DirectoryDto;
+import co.codewizards.cloudstore.core.dto.FileChunkDeltaDto;
+import co.codewizards.cloudstore.core.dto.FileChunkDto;
+import co.codewizards.cloudstore.core.dto.FileDeltaDto;
+import co.codewizards.cloudstore.core.dto.FileSignatureDto;
 import co.codewizards.cloudstore.core.dto.NormalFileDto;
 import co.codewizards.cloudstore.core.dto.RepoFileDto;
 import co.codewizards.cloudstore.core.dto.RepositoryDto;
@@ -58,6 +64,7 @@ import co.codewizards.cloudstore.core.repo.local.LocalRepoTransaction;
 import co.codewizards.cloudstore.core.repo.transport.AbstractRepoTransport;
 import co.codewizards.cloudstore.core.repo.transport.CollisionException;
 import co.codewizards.cloudstore.core.repo.transport.DeleteModificationCollisionException;
+import co.codewizards.cloudstore.core.repo.transport.FileDeltaUtil;
 import co.codewizards.cloudstore.core.repo.transport.FileWriteStrategy;
 import co.codewizards.cloudstore.core.repo.transport.LocalRepoTransport;
 import co.codewizards.cloudstore.core.util.HashUtil;
@@ -65,6 +72,7 @@ import co.codewizards.cloudstore.core.util.IOUtil;
 import co.codewizards.cloudstore.core.util.PropertiesUtil;
 import co.codewizards.cloudstore.core.util.UrlUtil;
 import co.codewizards.cloudstore.core.version.VersionInfoProvider;
+import co.codewizards.cloudstore.local.FileChunkDigester;
 import co.codewizards.cloudstore.local.FilenameFilterSkipMetaDir;
 import co.codewizards.cloudstore.local.LocalRepoSync;
 import co.codewizards.cloudstore.local.dto.RepoFileDtoConverter;
@@ -96,6 +104,8 @@ public class FileRepoTransport extends AbstractRepoTransport implements LocalRep
 
 	private LocalRepoManager localRepoManager;
 	private final TempChunkFileManager tempChunkFileManager = TempChunkFileManager.getInstance();
+	private final StagingFileManager stagingFileManager = StagingFileManager.getInstance();
+	private final FileCloneManager fileCloneManager = FileCloneManager.getInstance();
 
 	@Override
 	public void close() {
@@ -194,6 +204,11 @@ public class FileRepoTransport extends AbstractRepoTransport implements LocalRep
 
 	@Override
 	public ChangeSetDto getChangeSetDto(final boolean localSync, final Long lastSyncToRemoteRepoLocalRepositoryRevisionSynced) {
+		return getChangeSetDto(localSync, lastSyncToRemoteRepoLocalRepositoryRevisionSynced, null);
+	}
+
+	@Override
+	public ChangeSetDto getChangeSetDto(final boolean localSync, final Long lastSyncToRemoteRepoLocalRepositoryRevisionSynced, final Long changedAfterRevision) {
 		if (localSync)
 			getLocalRepoManager().localSync(new LoggerProgressMonitor(logger));
 
@@ -209,7 +224,7 @@ public class FileRepoTransport extends AbstractRepoTransport implements LocalRep
 		try ( final LocalRepoTransaction transaction = getLocalRepoManager().beginReadTransaction(); ) {
 			final ChangeSetDto changeSetDto = ChangeSetDtoBuilder
 					.create(transaction, this)
-					.buildChangeSetDto(repositoryDto);
+					.buildChangeSetDto(repositoryDto, changedAfterRevision);
 
 			transaction.commit();
 			return changeSetDto;
@@ -242,6 +257,7 @@ public class FileRepoTransport extends AbstractRepoTransport implements LocalRep
 		requireNonNull(target, "target");
 		final File file = getFile(path);
 		final UUID clientRepositoryId = getClientRepositoryIdOrFail();
+		boolean propertiesFilesModified = isPropertiesFile(file);
 		try ( final LocalRepoTransaction transaction = getLocalRepoManager().beginWriteTransaction(); ) {
 			final RepoFileDao repoFileDao = transaction.getDao(RepoFileDao.class);
 
@@ -250,8 +266,10 @@ public class FileRepoTransport extends AbstractRepoTransport implements LocalRep
 			try {
 				assertNoDeleteModificationCollision(transaction, clientRepositoryId, path);
 
-				if (file.existsNoFollow() && !file.isSymbolicLink())
+				if (file.existsNoFollow() && !file.isSymbolicLink()) {
+					propertiesFilesModified = true; // the file in the way might be a directory containing properties files
 					handleFileTypeCollision(transaction, clientRepositoryId, file, SymlinkDto.class);
+				}
 //					file.renameTo(IOUtil.createCollisionFile(file));
 
 				if (file.existsNoFollow() && !file.isSymbolicLink())
@@ -307,6 +325,7 @@ public class FileRepoTransport extends AbstractRepoTransport implements LocalRep
 					if (tempChunkFileWithDtoFile.getTempChunkFile() != null)
 						deleteOrFail(tempChunkFileWithDtoFile.getTempChunkFile());
 				}
+				stagingFileManager.deleteStagingFile(file);
 			} catch (IOException x) {
 				throw new RuntimeException(x);
 			} finally {
@@ -315,6 +334,8 @@ public class FileRepoTransport extends AbstractRepoTransport implements LocalRep
 
 			transaction.commit();
 		}
+		if (propertiesFilesModified)
+			ConfigImpl.notifyPropertiesFilesModified();
 	}
 
 	protected void assertNoDeleteModificationCollision(final LocalRepoTransaction transaction, final UUID fromRepositoryId, String path) throws CollisionException {
@@ -355,7 +376,7 @@ public class FileRepoTransport extends AbstractRepoTransport implements LocalRep
 					if (!toParentFile.isDirectory())
 						toParentFile.mkdirs();
 
-					fromFile.copyToCopyAttributes(toFile);
+					fileCloneManager.copyToCopyAttributes(getLocalRepoManager().getLocalRoot(), fromFile, toFile);
 				} catch (final IOException e) {
 					throw new RuntimeException(e);
 				}
@@ -369,6 +390,8 @@ public class FileRepoTransport extends AbstractRepoTransport implements LocalRep
 			}
 			transaction.commit();
 		}
+		if (isPropertiesFile(toFile))
+			ConfigImpl.notifyPropertiesFilesModified();
 	}
 
 	@Override
@@ -415,8 +438,12 @@ public class FileRepoTransport extends AbstractRepoTransport implements LocalRep
 			}
 			transaction.commit();
 		}
+		if (isPropertiesFile(fromFile) || isPropertiesFile(toFile))
+			ConfigImpl.notifyPropertiesFilesModified();
+
 		moveFileInProgressLocalRepo(getClientRepositoryId(), getRepositoryId(), fromPath, toPath);
 		tempChunkFileManager.moveChunks(fromFile, toFile);
+		stagingFileManager.moveStagingFile(fromFile, toFile);
 	}
 
 	private void moveFileInProgressLocalRepo(final UUID fromRepositoryId, final UUID toRepositoryId,
@@ -469,6 +496,7 @@ public class FileRepoTransport extends AbstractRepoTransport implements LocalRep
 			}
 			transaction.commit();
 		}
+		ConfigImpl.notifyPropertiesFilesModified(); // a directory might contain properties files
 	}
 
 	private void delete(final LocalRepoTransaction transaction, final LocalRepoSync localRepoSync, final UUID fromRepositoryId, final File file) {
@@ -511,6 +539,32 @@ public class FileRepoTransport extends AbstractRepoTransport implements LocalRep
 		return repoFileDto;
 	}
 
+	@Override
+	public List<RepoFileDto> getRepoFileDtos(final List<String> paths, final boolean withFileChunkDtos) {
+		requireNonNull(paths, "paths");
+		final List<RepoFileDto> result = new ArrayList<>(paths.size());
+		try ( final LocalRepoTransaction transaction = getLocalRepoManager().beginWriteTransaction(); ) {
+			// WRITE tx, because it performs a local sync!
+
+			final LocalRepoSync localRepoSync = LocalRepoSync.create(transaction);
+			final RepoFileDao repoFileDao = transaction.getDao(RepoFileDao.class);
+			final RepoFileDtoConverter converter = RepoFileDtoConverter.create(transaction);
+			for (final String path : paths) {
+				final File file = getFile(prefixPath(path));
+				localRepoSync.sync(file, new NullProgressMonitor(), false);
+
+				final RepoFile repoFile = repoFileDao.getRepoFile(getLocalRepoManager().getLocalRoot(), file);
+				result.add(repoFile == null ? null : converter.toRepoFileDto(repoFile, withFileChunkDtos ? Integer.MAX_VALUE : 0));
+			}
+			transaction.commit();
+		} catch (final RuntimeException x) {
+			throw x;
+		} catch (final Exception x) {
+			throw new RuntimeException(x);
+		}
+		return result;
+	}
+
 	@Override
 	public LocalRepoManager getLocalRepoManager() {
 		if (localRepoManager == null) {
@@ -740,7 +794,15 @@ public class FileRepoTransport extends AbstractRepoTransport implements LocalRep
 //				final RepoFileDao repoFileDao = transaction.getDao(RepoFileDao.class);
 //				LocalRepoSync.create(transaction).sync(file, new NullProgressMonitor(), false); // recursiveChildren has no effect on simple files, anyway (it's no directory).
 
-				tempChunkFileManager.deleteTempChunkFilesWithoutDtoFile(tempChunkFileManager.getOffset2TempChunkFileWithDtoFile(file).values());
+				if (getFileWriteStrategy(file) == FileWriteStrategy.replaceAfterStagedTransfer) {
+					// Left-overs of a transfer with another strategy cannot be used => delete them.
+					tempChunkFileManager.deleteTempChunkFiles(tempChunkFileManager.getOffset2TempChunkFileWithDtoFile(file).values());
+					stagingFileManager.recover(file);
+				}
+				else {
+					tempChunkFileManager.deleteTempChunkFilesWithoutDtoFile(tempChunkFileManager.getOffset2TempChunkFileWithDtoFile(file).values());
+					stagingFileManager.deleteStagingFile(file);
+				}
 
 				final RepoFile repoFile = syncRepoFile(transaction, file);
 				if (repoFile == null)
@@ -829,7 +891,7 @@ public class FileRepoTransport extends AbstractRepoTransport implements LocalRep
 			final File collisionFile = handleFileCollision(transaction, fromRepositoryId, file);
 
 			try {
-				collisionFile.copyToCopyAttributes(file);
+				fileCloneManager.copyToCopyAttributes(getLocalRepoManager().getLocalRoot(), collisionFile, file);
 			} catch (final IOException e) {
 				throw new RuntimeException(e);
 			}
@@ -961,6 +1023,9 @@ public class FileRepoTransport extends AbstractRepoTransport implements LocalRep
 					case replaceAfterTransfer:
 						tempChunkFileManager.writeFileDataToTempChunkFile(file, offset, fileData);
 						break;
+					case replaceAfterStagedTransfer:
+						stagingFileManager.writeFileDataToStagingFile(file, offset, fileData);
+						break;
 					default:
 						throw new IllegalStateException("Unknown fileWriteStrategy: " + fileWriteStrategy);
 				}
@@ -971,7 +1036,58 @@ public class FileRepoTransport extends AbstractRepoTransport implements LocalRep
 		}
 	}
 
-	private void writeTempChunkFileToDestFile(final File destFile, final File tempChunkFile, final TempChunkFileDto tempChunkFileDto) {
+	@Override
+	public FileSignatureDto getFileSignatureDto(String path) {
+		path = prefixPath(path);
+		final File file = getFile(path);
+		if (file.isSymbolicLink() || ! file.isFile())
+			return null;
+
+		try {
+			return FileDeltaUtil.createFileSignatureDto(file);
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public FileDeltaDto getFileDeltaDto(String path, final FileSignatureDto fileSignatureDto) {
+		requireNonNull(fileSignatureDto, "fileSignatureDto");
+		path = prefixPath(path);
+		final File file = getFile(path);
+		if (file.isSymbolicLink() || ! file.isFile())
+			return null;
+
+		try {
+			return FileDeltaUtil.createFileDeltaDto(file, fileSignatureDto);
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public boolean putFileDelta(final String path, final FileChunkDeltaDto fileChunkDeltaDto) {
+		requireNonNull(fileChunkDeltaDto, "fileChunkDeltaDto");
+		final FileChunkDto fileChunkDto = requireNonNull(fileChunkDeltaDto.getFileChunkDto(), "fileChunkDeltaDto.fileChunkDto");
+		final File file = getFile(prefixPath(path));
+		final byte[] fileData;
+		try {
+			fileData = FileDeltaUtil.createFileChunkData(file, fileChunkDeltaDto);
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+
+		if (fileData == null) {
+			logger.warn("putFileDelta: Could not rebuild data from current file (modified?!): path='{}' offset={}",
+					path, fileChunkDto.getOffset());
+			return false;
+		}
+
+		putFileData(path, fileChunkDto.getOffset(), fileData);
+		return true;
+	}
+
+	private void writeTempChunkFileToDestFile(final File destFile, final File tempChunkFile, final TempChunkFileDto tempChunkFileDto, final FileChunkDigester digester) {
 		requireNonNull(destFile, "destFile");
 		requireNonNull(tempChunkFile, "tempChunkFile");
 		requireNonNull(tempChunkFileDto, "tempChunkFileDto");
@@ -1008,6 +1124,53 @@ public class FileRepoTransport extends AbstractRepoTransport implements LocalRep
 			throw new IllegalStateException("SHA1 mismatch! Corrupt temporary chunk file or corresponding Dto file: " + tempChunkFile.getAbsolutePath());
 
 		writeFileDataToDestFile(destFile, offset, fileData);
+
+		// The data was just verified => pass its SHA1 to avoid calculating it again.
+		digestDestFile(destFile, offset, digester);
+		if (digester.getLength() == offset)
+			digester.update(fileData, 0, fileData.length, sha1FromFileData);
+		else
+			digester.invalidate(String.format("Chunk at offset %d overlaps data already digested up to offset %d!", offset, digester.getLength()));
+	}
+
+	/**
+	 * Passes the data of the {@code destFile} between {@link FileChunkDigester#getLength() digester.length} and
+	 * the given {@code offset} to the {@code digester}.
+	 * <p>
+	 * This is needed for all regions of the file, which were not written (and thus not passed to the digester)
+	 * during {@link #endPutFile(String, Date, long, String) endPutFile(...)}. Usually, there are no such regions
+	 * (then this method does nothing), because a file is transferred either completely or it is written completely
+	 * (with {@link FileWriteStrategy#replaceAfterTransfer replaceAfterTransfer}).
+	 * @param destFile the file being written. Must not be <code>null</code>.
+	 * @param offset the offset up to which the digester should be fed (exclusive).
+	 * @param digester the digester. Must not be <code>null</code>.
+	 */
+	private void digestDestFile(final File destFile, final long offset, final FileChunkDigester digester) {
+		requireNonNull(destFile, "destFile");
+		requireNonNull(digester, "digester");
+		if (!digester.isValid() || digester.getLength() >= offset)
+			return;
+
+		try {
+			final RandomAccessFile raf = destFile.createRandomAccessFile("r");
+			try {
+				if (raf.length() < offset) {
+					digester.invalidate(String.format("File '%s' is shorter than expected offset %d!", destFile.getAbsolutePath(), offset));
+					return;
+				}
+				raf.seek(digester.getLength());
+				final byte[] buf = new byte[200 * 1024];
+				while (digester.getLength() < offset) {
+					final int len = (int) Math.min(offset - digester.getLength(), buf.length);
+					raf.readFully(buf, 0, len);
+					digester.update(buf, 0, len);
+				}
+			} finally {
+				raf.close();
+			}
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
 	}
 
 	private void writeFileDataToDestFile(final File destFile, final long offset, final byte[] fileData) {
@@ -1053,6 +1216,14 @@ public class FileRepoTransport extends AbstractRepoTransport implements LocalRep
 		}
 	}
 
+	@Override
+	public void clearCaches() {
+		synchronized (file2FileWriteStrategy) {
+			file2FileWriteStrategy.clear();
+		}
+		super.clearCaches();
+	}
+
 	@Override
 	public void endPutFile(String path, final Date lastModified, final long length, final String sha1) {
 		path = prefixPath(path);
@@ -1077,90 +1248,17 @@ public class FileRepoTransport extends AbstractRepoTransport implements LocalRep
 				final FileWriteStrategy fileWriteStrategy = getFileWriteStrategy(file);
 				logger.debug("endPutFile: fileWriteStrategy={}", fileWriteStrategy);
 
-				final File destFile = (fileWriteStrategy == FileWriteStrategy.replaceAfterTransfer
-						? createFile(file.getParentFile(), LocalRepoManager.TEMP_NEW_FILE_PREFIX + file.getName()) : file);
+				// The FileChunks and the SHA1 are calculated while writing => we do not need to read the file again, afterwards.
+				final LocalRepoSync localRepoSync = LocalRepoSync.create(transaction);
+				final FileChunkDigester digester = localRepoSync.createFileChunkDigester();
 
-				final InputStream fileIn;
-				if (destFile != file) {
-					try {
-						fileIn = castStream(file.createInputStream());
-						destFile.createNewFile();
-					} catch (final IOException e) {
-						throw new RuntimeException(e);
-					}
-				}
+				if (fileWriteStrategy == FileWriteStrategy.replaceAfterStagedTransfer)
+					writeStagingFileToFile(file, length, digester);
 				else
-					fileIn = null;
+					writeTempChunkFilesToFile(file, fileWriteStrategy, length, digester);
 
-				// tempChunkFileWithDtoFiles are sorted by offset (ascending)
-				final Collection<TempChunkFileWithDtoFile> tempChunkFileWithDtoFiles = tempChunkFileManager.getOffset2TempChunkFileWithDtoFile(file).values();
-				try {
-					final TempChunkFileDtoIo tempChunkFileDtoIo = new TempChunkFileDtoIo();
-					long destFileWriteOffset = 0;
-					logger.debug("endPutFile: #tempChunkFileWithDtoFiles={}", tempChunkFileWithDtoFiles.size());
-					for (final TempChunkFileWithDtoFile tempChunkFileWithDtoFile : tempChunkFileWithDtoFiles) {
-						final File tempChunkFile = tempChunkFileWithDtoFile.getTempChunkFile(); // tempChunkFile may be null!!!
-						final File tempChunkFileDtoFile = tempChunkFileWithDtoFile.getTempChunkFileDtoFile();
-						if (tempChunkFileDtoFile == null)
-							throw new IllegalStateException("No meta-data (tempChunkFileDtoFile) for file: " + (tempChunkFile == null ? null : tempChunkFile.getAbsolutePath()));
-
-						final TempChunkFileDto tempChunkFileDto = tempChunkFileDtoIo.deserialize(tempChunkFileDtoFile);
-						final long offset = requireNonNull(tempChunkFileDto.getFileChunkDto(), "tempChunkFileDto.fileChunkDto").getOffset();
-
-						if (fileIn != null) {
-							// The following might fail, if *file* was truncated during the transfer. In this case,
-							// throwing an exception now is probably the best choice as the next sync run will
-							// continue cleanly.
-							logger.info("endPutFile: writing from fileIn into destFile {}", destFile.getName());
-							writeFileDataToDestFile(destFile, destFileWriteOffset, fileIn, offset - destFileWriteOffset);
-							final long tempChunkFileLength = tempChunkFileDto.getFileChunkDto().getLength();
-							skipOrFail(fileIn, tempChunkFileLength); // skipping beyond the EOF is supported by the FileInputStream according to Javadoc.
-							destFileWriteOffset = offset + tempChunkFileLength;
-						}
-
-						if (tempChunkFile != null && tempChunkFile.exists()) {
-							logger.info("endPutFile: writing tempChunkFile {} into destFile {}", tempChunkFile.getName(), destFile.getName());
-							writeTempChunkFileToDestFile(destFile, tempChunkFile, tempChunkFileDto);
-							deleteOrFail(tempChunkFile);
-						}
-					}
-
-					if (fileIn != null && destFileWriteOffset < length)
-						writeFileDataToDestFile(destFile, destFileWriteOffset, fileIn, length - destFileWriteOffset);
-
-				} finally {
-					if (fileIn != null)
-						fileIn.close();
-				}
-
-				try {
-					final RandomAccessFile raf = destFile.createRandomAccessFile("rw");
-					try {
-						raf.setLength(length);
-					} finally {
-						raf.close();
-					}
-				} catch (final IOException e) {
-					throw new RuntimeException(String.format("Setting file '%s' to length %d failed: %s",
-							destFile.getAbsolutePath(), length, e), e);
-				}
-
-				if (destFile != file) {
-					deleteOrFail(file);
-					destFile.renameTo(file);
-					if (!file.exists())
-						throw new IllegalStateException(String.format("Renaming the file from '%s' to '%s' failed: The destination file does not exist.", destFile.getAbsolutePath(), file.getAbsolutePath()));
-
-					if (destFile.exists())
-						throw new IllegalStateException(String.format("Renaming the file from '%s' to '%s' failed: The source file still exists.", destFile.getAbsolutePath(), file.getAbsolutePath()));
-				}
-
-				tempChunkFileManager.deleteTempChunkFiles(tempChunkFileWithDtoFiles);
-				tempChunkFileManager.deleteTempDirIfEmpty(file);
-
-				final LocalRepoSync localRepoSync = LocalRepoSync.create(transaction);
 				file.setLastModified(lastModified.getTime());
-				localRepoSync.updateRepoFile(normalFile, file, new NullProgressMonitor());
+				localRepoSync.updateRepoFile(normalFile, file, digester, new NullProgressMonitor());
 				normalFile.setLastSyncFromRepositoryId(clientRepositoryId);
 				normalFile.setInProgress(false);
 
@@ -1177,6 +1275,198 @@ public class FileRepoTransport extends AbstractRepoTransport implements LocalRep
 			}
 			transaction.commit();
 		}
+		if (isPropertiesFile(file))
+			ConfigImpl.notifyPropertiesFilesModified();
+	}
+
+	private static boolean isPropertiesFile(final File file) {
+		return file.getName().endsWith(Config.PROPERTIES_FILE_NAME_SUFFIX);
+	}
+
+	/**
+	 * Writes the temporary chunk files (see {@link TempChunkFileManager}) into the {@code file}.
+	 * <p>
+	 * The transferred chunks were verified already and are in memory while writing them, anyway. Therefore, they are
+	 * passed to the {@code digester}, too.
+	 * @param file the destination file. Must not be <code>null</code>.
+	 * @param fileWriteStrategy either {@link FileWriteStrategy#directAfterTransfer directAfterTransfer} or
+	 * {@link FileWriteStrategy#replaceAfterTransfer replaceAfterTransfer}. Must not be <code>null</code>.
+	 * @param length the final length of the file.
+	 * @param digester the digester calculating the {@code FileChunk}s and the SHA1. Must not be <code>null</code>.
+	 */
+	private void writeTempChunkFilesToFile(final File file, final FileWriteStrategy fileWriteStrategy, final long length, final FileChunkDigester digester) throws IOException {
+		final File destFile = (fileWriteStrategy == FileWriteStrategy.replaceAfterTransfer
+				? createFile(file.getParentFile(), LocalRepoManager.TEMP_NEW_FILE_PREFIX + file.getName()) : file);
+
+		final InputStream fileIn;
+		if (destFile != file) {
+			try {
+				fileIn = castStream(file.createInputStream());
+				destFile.createNewFile();
+			} catch (final IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		else
+			fileIn = null;
+
+		// tempChunkFileWithDtoFiles are sorted by offset (ascending)
+		final Collection<TempChunkFileWithDtoFile> tempChunkFileWithDtoFiles = tempChunkFileManager.getOffset2TempChunkFileWithDtoFile(file).values();
+		try {
+			final TempChunkFileDtoIo tempChunkFileDtoIo = new TempChunkFileDtoIo();
+			long destFileWriteOffset = 0;
+			logger.debug("endPutFile: #tempChunkFileWithDtoFiles={}", tempChunkFileWithDtoFiles.size());
+			for (final TempChunkFileWithDtoFile tempChunkFileWithDtoFile : tempChunkFileWithDtoFiles) {
+				final File tempChunkFile = tempChunkFileWithDtoFile.getTempChunkFile(); // tempChunkFile may be null!!!
+				final File tempChunkFileDtoFile = tempChunkFileWithDtoFile.getTempChunkFileDtoFile();
+				if (tempChunkFileDtoFile == null)
+					throw new IllegalStateException("No meta-data (tempChunkFileDtoFile) for file: " + (tempChunkFile == null ? null : tempChunkFile.getAbsolutePath()));
+
+				final TempChunkFileDto tempChunkFileDto = tempChunkFileDtoIo.deserialize(tempChunkFileDtoFile);
+				final long offset = requireNonNull(tempChunkFileDto.getFileChunkDto(), "tempChunkFileDto.fileChunkDto").getOffset();
+
+				if (fileIn != null) {
+					// The following might fail, if *file* was truncated during the transfer. In this case,
+					// throwing an exception now is probably the best choice as the next sync run will
+					// continue cleanly.
+					logger.info("endPutFile: writing from fileIn into destFile {}", destFile.getName());
+					digestDestFile(destFile, destFileWriteOffset, digester);
+					writeFileDataToDestFile(destFile, destFileWriteOffset, fileIn, offset - destFileWriteOffset, digester);
+					final long tempChunkFileLength = tempChunkFileDto.getFileChunkDto().getLength();
+					skipOrFail(fileIn, tempChunkFileLength); // skipping beyond the EOF is supported by the FileInputStream according to Javadoc.
+					destFileWriteOffset = offset + tempChunkFileLength;
+				}
+
+				if (tempChunkFile != null && tempChunkFile.exists()) {
+					logger.info("endPutFile: writing tempChunkFile {} into destFile {}", tempChunkFile.getName(), destFile.getName());
+					writeTempChunkFileToDestFile(destFile, tempChunkFile, tempChunkFileDto, digester);
+					deleteOrFail(tempChunkFile);
+				}
+			}
+
+			if (fileIn != null && destFileWriteOffset < length) {
+				digestDestFile(destFile, destFileWriteOffset, digester);
+				writeFileDataToDestFile(destFile, destFileWriteOffset, fileIn, length - destFileWriteOffset, digester);
+			}
+
+		} finally {
+			if (fileIn != null)
+				fileIn.close();
+		}
+
+		try {
+			final RandomAccessFile raf = destFile.createRandomAccessFile("rw");
+			try {
+				raf.setLength(length);
+			} finally {
+				raf.close();
+			}
+		} catch (final IOException e) {
+			throw new RuntimeException(String.format("Setting file '%s' to length %d failed: %s",
+					destFile.getAbsolutePath(), length, e), e);
+		}
+		digestDestFile(destFile, length, digester);
+
+		if (destFile != file) {
+			deleteOrFail(file);
+			destFile.renameTo(file);
+			if (!file.exists())
+				throw new IllegalStateException(String.format("Renaming the file from '%s' to '%s' failed: The destination file does not exist.", destFile.getAbsolutePath(), file.getAbsolutePath()));
+
+			if (destFile.exists())
+				throw new IllegalStateException(String.format("Renaming the file from '%s' to '%s' failed: The source file still exists.", destFile.getAbsolutePath(), file.getAbsolutePath()));
+		}
+
+		tempChunkFileManager.deleteTempChunkFiles(tempChunkFileWithDtoFiles);
+		tempChunkFileManager.deleteTempDirIfEmpty(file);
+	}
+
+	/**
+	 * Completes the staging file (see {@link StagingFileManager}) with the regions of the old {@code file}, which were
+	 * not transferred, and then replaces the {@code file} by renaming the staging file.
+	 * <p>
+	 * The transferred chunks are neither copied nor hashed again: Their SHA1 is known from the journal and only the
+	 * file's SHA1 is calculated while reading them once.
+	 * @param file the destination file. Must not be <code>null</code>.
+	 * @param length the final length of the file.
+	 * @param digester the digester calculating the {@code FileChunk}s and the SHA1. Must not be <code>null</code>.
+	 */
+	private void writeStagingFileToFile(final File file, final long length, final FileChunkDigester digester) throws IOException {
+		requireNonNull(file, "file");
+		requireNonNull(digester, "digester");
+		stagingFileManager.recover(file);
+		final File stagingFile = stagingFileManager.getStagingFile(file);
+		final List<FileChunkDto> stagedFileChunkDtos = stagingFileManager.getStagedFileChunkDtos(file); // sorted by offset (ascending)
+		if (!stagingFile.isFile())
+			stagingFile.createNewFile(); // no chunk transferred at all, e.g. only truncated.
+
+		logger.debug("endPutFile: #stagedFileChunkDtos={}", stagedFileChunkDtos.size());
+		final InputStream fileIn = castStream(file.createInputStream());
+		try {
+			long fileInOffset = 0;
+			for (final FileChunkDto fileChunkDto : stagedFileChunkDtos) {
+				if (fileChunkDto.getOffset() >= length)
+					break;
+
+				// The following might fail, if *file* was truncated during the transfer. In this case,
+				// throwing an exception now is probably the best choice as the next sync run will
+				// continue cleanly.
+				writeFileDataToDestFile(stagingFile, fileInOffset, fileIn, fileChunkDto.getOffset() - fileInOffset, digester);
+				if (fileChunkDto.getOffset() + fileChunkDto.getLength() > length) {
+					// The file is shorter than this chunk => its SHA1 cannot be used. The remaining part is digested below.
+					fileInOffset = length;
+					break;
+				}
+				digestStagedChunk(stagingFile, fileChunkDto, digester);
+				skipOrFail(fileIn, fileChunkDto.getLength()); // skipping beyond the EOF is supported by the FileInputStream according to Javadoc.
+				fileInOffset = fileChunkDto.getOffset() + fileChunkDto.getLength();
+			}
+			if (fileInOffset < length)
+				writeFileDataToDestFile(stagingFile, fileInOffset, fileIn, length - fileInOffset, digester);
+		} finally {
+			fileIn.close();
+		}
+
+		final RandomAccessFile raf = stagingFile.createRandomAccessFile("rw");
+		try {
+			raf.setLength(length);
+			raf.getFD().sync(); // make sure, the data is on disk before the old file is replaced.
+		} finally {
+			raf.close();
+		}
+		digestDestFile(stagingFile, length, digester);
+
+		// Atomically replacing the file: There is no moment, in which the file does not exist (or is incomplete) - even
+		// if the process crashes. The staging file is in the same file system, hence ATOMIC_MOVE is supported.
+		Files.move(stagingFile.getIoFile().toPath(), file.getIoFile().toPath(),
+				StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+		stagingFileManager.deleteStagingFile(file); // deletes the journal
+	}
+
+	/**
+	 * Passes a staged chunk to the {@code digester}. Its SHA1 is known from the journal and thus not calculated again.
+	 * @param stagingFile the staging file. Must not be <code>null</code>.
+	 * @param fileChunkDto the staged chunk. Must not be <code>null</code>.
+	 * @param digester the digester. Must not be <code>null</code>.
+	 */
+	private void digestStagedChunk(final File stagingFile, final FileChunkDto fileChunkDto, final FileChunkDigester digester) throws IOException {
+		if (!digester.isValid())
+			return;
+
+		if (digester.getLength() != fileChunkDto.getOffset()) {
+			digester.invalidate(String.format("Staged chunk at offset %d, but data was digested up to offset %d!", fileChunkDto.getOffset(), digester.getLength()));
+			return;
+		}
+		final byte[] buf = new byte[fileChunkDto.getLength()];
+		final RandomAccessFile raf = stagingFile.createRandomAccessFile("r");
+		try {
+			raf.seek(fileChunkDto.getOffset());
+			raf.readFully(buf);
+		} finally {
+			raf.close();
+		}
+		digester.update(buf, 0, buf.length, fileChunkDto.getSha1());
 	}
 
 	/**
@@ -1219,9 +1509,10 @@ public class FileRepoTransport extends AbstractRepoTransport implements LocalRep
 		}
 	}
 
-	private void writeFileDataToDestFile(final File destFile, final long offset, final InputStream in, final long length) {
+	private void writeFileDataToDestFile(final File destFile, final long offset, final InputStream in, final long length, final FileChunkDigester digester) {
 		requireNonNull(destFile, "destFile");
 		requireNonNull(in, "in");
+		requireNonNull(digester, "digester");
 		if (offset < 0)
 			throw new IllegalArgumentException("offset < 0");
 
@@ -1231,6 +1522,9 @@ public class FileRepoTransport extends AbstractRepoTransport implements LocalRep
 		if (length < 0)
 			throw new IllegalArgumentException("length < 0");
 
+		if (digester.getLength() != offset)
+			digester.invalidate(String.format("Writing at offset %d, but data was digested up to offset %d!", offset, digester.getLength()));
+
 		long lengthDone = 0;
 
 		try {
@@ -1245,6 +1539,7 @@ public class FileRepoTransport extends AbstractRepoTransport implements LocalRep
 					final int bytesRead = in.read(buf, 0, (int)len);
 					if (bytesRead > 0) {
 						raf.write(buf, 0, bytesRead);
+						digester.update(buf, 0, bytesRead);
 						lengthDone += bytesRead;
 					}
 					else if (bytesRead < 0)
@@ -1418,6 +1713,7 @@ public class FileRepoTransport extends AbstractRepoTransport implements LocalRep
 			}
 
 			mergeRepoParentConfigFiles();
+			ConfigImpl.notifyPropertiesFilesModified();
 
 			transaction.commit();
 		} catch (IOException e) {
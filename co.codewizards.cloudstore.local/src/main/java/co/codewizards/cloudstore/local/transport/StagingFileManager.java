@@ -0,0 +1,399 @@
+package co.codewizards.cloudstore.local.transport;
+
+import static co.codewizards.cloudstore.core.io.StreamUtil.*;
+import static co.codewizards.cloudstore.core.objectfactory.ObjectFactoryUtil.*;
+import static co.codewizards.cloudstore.core.oio.OioFileFactory.*;
+import static co.codewizards.cloudstore.core.util.HashUtil.*;
+import static java.util.Objects.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import co.codewizards.cloudstore.core.dto.FileChunkDto;
+import co.codewizards.cloudstore.core.oio.File;
+import co.codewizards.cloudstore.core.repo.transport.FileWriteStrategy;
+import co.codewizards.cloudstore.core.util.IOUtil;
+
+/**
+ * Manages the staging files used by {@link FileWriteStrategy#replaceAfterStagedTransfer}.
+ * <p>
+ * In contrast to the {@link TempChunkFileManager}, which writes every chunk into its own file plus an XML meta-data
+ * file, all chunks of one destination file are written into one single (sparse) staging file at their final offsets.
+ * The completed chunks are recorded in a binary journal next to the staging file. Every journal record contains
+ * offset, length and SHA1 of the chunk as well as a CRC32 of the record itself.
+ * <p>
+ * A record is appended only after the chunk's data was written. If the process crashes, a torn record at the
+ * end of the journal is ignored and all other records are verified against the staged data by {@link #recover(File)}.
+ * <p>
+ * Both staging file and journal are located in the same {@linkplain TempChunkFileManager#getTempDir(File) temporary
+ * directory} as the temporary chunk files. The staging file is thus in the same file system as its destination file
+ * and can be renamed to replace it.
+ */
+public class StagingFileManager {
+
+	private static final Logger logger = LoggerFactory.getLogger(StagingFileManager.class);
+
+	private static final String STAGING_FILE_PREFIX = "staging_";
+	private static final String JOURNAL_FILE_SUFFIX = ".journal";
+
+	private static final int JOURNAL_MAGIC = 0x43534A31; // "CSJ1"
+	static final int JOURNAL_HEADER_LENGTH = 4;
+	private static final int SHA1_LENGTH = 20;
+	/** offset (8) + length (4) + sha1 (20) + crc32 (4) */
+	static final int JOURNAL_RECORD_LENGTH = 8 + 4 + SHA1_LENGTH + 4;
+
+	private final TempChunkFileManager tempChunkFileManager = TempChunkFileManager.getInstance();
+
+	/**
+	 * The absolute paths of the journals, which were either written or already verified by this process.
+	 * Only journals left over from a previous process (e.g. after a crash) must be verified.
+	 */
+	private final Set<String> verifiedJournalPaths = new HashSet<>();
+
+	private static final class Holder {
+		static final StagingFileManager instance = createObject(StagingFileManager.class);
+	}
+
+	protected StagingFileManager() { }
+
+	public static StagingFileManager getInstance() {
+		return Holder.instance;
+	}
+
+	public File getStagingFile(final File destFile) {
+		requireNonNull(destFile, "destFile");
+		return createFile(tempChunkFileManager.getTempDir(destFile), STAGING_FILE_PREFIX + sha1(destFile.getName()));
+	}
+
+	public File getJournalFile(final File destFile) {
+		final File stagingFile = getStagingFile(destFile);
+		return createFile(stagingFile.getParentFile(), stagingFile.getName() + JOURNAL_FILE_SUFFIX);
+	}
+
+	/**
+	 * Writes the given {@code fileData} into the staging file at the given {@code offset} and records the
+	 * chunk in the journal.
+	 * <p>
+	 * The staging file is created, if it does not yet exist. It is then sparsely pre-allocated to the length of
+	 * the {@code destFile} - the final length is not yet known.
+	 * @param destFile the destination file. Must not be <code>null</code>.
+	 * @param offset the offset of the chunk in the destination file.
+	 * @param fileData the chunk's data. Must not be <code>null</code>.
+	 */
+	public void writeFileDataToStagingFile(final File destFile, final long offset, final byte[] fileData) {
+		requireNonNull(destFile, "destFile");
+		requireNonNull(fileData, "fileData");
+		if (offset < 0)
+			throw new IllegalArgumentException("offset < 0");
+
+		try {
+			final File stagingFile = createStagingFile(destFile);
+			final RandomAccessFile raf = stagingFile.createRandomAccessFile("rw");
+			try {
+				raf.seek(offset);
+				raf.write(fileData);
+			} finally {
+				raf.close();
+			}
+			final String sha1 = sha1(fileData);
+			logger.trace("writeFileDataToStagingFile: Wrote {} bytes with SHA1 '{}' at offset {} to '{}'.", fileData.length, sha1, offset, stagingFile.getAbsolutePath());
+			appendJournalRecord(destFile, offset, fileData.length, sha1);
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Gets the chunks recorded in the journal.
+	 * <p>
+	 * If a chunk was written multiple times, only the last record is taken into account. A torn or corrupt record
+	 * terminates the journal (all following records are ignored).
+	 * @param destFile the destination file. Must not be <code>null</code>.
+	 * @return the staged chunks sorted by offset. Never <code>null</code>, but maybe empty.
+	 */
+	public List<FileChunkDto> getStagedFileChunkDtos(final File destFile) {
+		requireNonNull(destFile, "destFile");
+		final File stagingFile = getStagingFile(destFile);
+		final File journalFile = getJournalFile(destFile);
+		if (!journalFile.isFile() || !stagingFile.isFile())
+			return new ArrayList<>(0);
+
+		try {
+			return new ArrayList<>(readJournal(journalFile).values());
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Verifies the staged chunks after a crash.
+	 * <p>
+	 * This must be invoked before the staged chunks are used - i.e. before they are reported to the source side and
+	 * before a transfer is (re)started. All chunks recorded in a journal left over from a previous process are compared
+	 * against the data in the staging file and the journal is rewritten, if invalid records were found. Orphaned
+	 * files (a staging file without journal or vice versa) are deleted.
+	 * <p>
+	 * A journal written by the current process is trusted, hence this method does nothing, then.
+	 * @param destFile the destination file. Must not be <code>null</code>.
+	 */
+	public synchronized void recover(final File destFile) {
+		requireNonNull(destFile, "destFile");
+		final File stagingFile = getStagingFile(destFile);
+		final File journalFile = getJournalFile(destFile);
+		if (!stagingFile.exists() && !journalFile.exists())
+			return;
+
+		if (verifiedJournalPaths.contains(journalFile.getAbsolutePath()))
+			return;
+
+		try {
+			if (!stagingFile.isFile() || !journalFile.isFile()) {
+				logger.warn("recover: Staging file or journal missing! Deleting orphaned files for '{}'.", destFile.getAbsolutePath());
+				deleteStagingFile(destFile);
+				return;
+			}
+
+			final Map<Long, FileChunkDto> offset2FileChunkDto = readJournal(journalFile);
+			final long journalLength = journalFile.length();
+			boolean rewrite = journalLength != JOURNAL_HEADER_LENGTH + (long) offset2FileChunkDto.size() * JOURNAL_RECORD_LENGTH;
+
+			final RandomAccessFile raf = stagingFile.createRandomAccessFile("r");
+			try {
+				byte[] buf = new byte[0];
+				for (final Iterator<FileChunkDto> it = offset2FileChunkDto.values().iterator(); it.hasNext(); ) {
+					final FileChunkDto fileChunkDto = it.next();
+					if (fileChunkDto.getOffset() + fileChunkDto.getLength() > raf.length()) {
+						logger.warn("recover: Staged chunk beyond end of staging file! Discarding it: {}", fileChunkDto);
+						it.remove();
+						rewrite = true;
+						continue;
+					}
+					if (buf.length < fileChunkDto.getLength())
+						buf = new byte[fileChunkDto.getLength()];
+
+					raf.seek(fileChunkDto.getOffset());
+					raf.readFully(buf, 0, fileChunkDto.getLength());
+					if (!fileChunkDto.getSha1().equals(encodeHexStr(digestSha1(buf, fileChunkDto.getLength())))) {
+						logger.warn("recover: SHA1 mismatch of staged chunk! Discarding it: {}", fileChunkDto);
+						it.remove();
+						rewrite = true;
+					}
+				}
+			} finally {
+				raf.close();
+			}
+
+			if (rewrite) {
+				logger.info("recover: Rewriting journal '{}' with {} valid records.", journalFile.getAbsolutePath(), offset2FileChunkDto.size());
+				final File newJournalFile = createFile(journalFile.getParentFile(), journalFile.getName() + ".new");
+				try (final OutputStream out = castStream(newJournalFile.createOutputStream())) {
+					out.write(createJournalHeader());
+					for (final FileChunkDto fileChunkDto : offset2FileChunkDto.values())
+						out.write(createJournalRecord(fileChunkDto.getOffset(), fileChunkDto.getLength(), fileChunkDto.getSha1()));
+				}
+				Files.move(newJournalFile.getIoFile().toPath(), journalFile.getIoFile().toPath(),
+						StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			}
+			verifiedJournalPaths.add(journalFile.getAbsolutePath());
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/** If the destination file was moved, the staging file and its journal need to be moved, too. */
+	public synchronized void moveStagingFile(final File oldDestFile, final File newDestFile) {
+		final File oldStagingFile = getStagingFile(oldDestFile);
+		final File oldJournalFile = getJournalFile(oldDestFile);
+		if (!oldStagingFile.exists() && !oldJournalFile.exists())
+			return;
+
+		deleteStagingFile(newDestFile);
+		try {
+			synchronized (tempChunkFileManager) {
+				mkTempDir(newDestFile);
+				if (oldStagingFile.exists())
+					moveOrFail(oldStagingFile, getStagingFile(newDestFile));
+
+				if (oldJournalFile.exists()) {
+					moveOrFail(oldJournalFile, getJournalFile(newDestFile));
+					if (verifiedJournalPaths.remove(oldJournalFile.getAbsolutePath()))
+						verifiedJournalPaths.add(getJournalFile(newDestFile).getAbsolutePath());
+				}
+			}
+			logger.info("Moved staging file from {} to {}", oldStagingFile, getStagingFile(newDestFile));
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+		tempChunkFileManager.deleteTempDirIfEmpty(oldDestFile);
+	}
+
+	/**
+	 * Deletes the staging file and its journal (if existing) as well as the temporary directory, if it is empty then.
+	 * @param destFile the destination file. Must not be <code>null</code>.
+	 */
+	public synchronized void deleteStagingFile(final File destFile) {
+		final File stagingFile = getStagingFile(destFile);
+		final File journalFile = getJournalFile(destFile);
+		verifiedJournalPaths.remove(journalFile.getAbsolutePath());
+		try {
+			// Delete the journal first: A journal without staging file is an orphan, but never inconsistent.
+			if (journalFile.exists())
+				deleteOrFail(journalFile);
+
+			if (stagingFile.exists())
+				deleteOrFail(stagingFile);
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+		tempChunkFileManager.deleteTempDirIfEmpty(destFile);
+	}
+
+	protected File createStagingFile(final File destFile) throws IOException {
+		final File stagingFile = getStagingFile(destFile);
+		// Synchronized on the TempChunkFileManager to prevent it from deleting the (empty) temporary directory
+		// before the staging file was created in it - see TempChunkFileManager.deleteTempDirIfEmpty(File).
+		synchronized (tempChunkFileManager) {
+			if (stagingFile.isFile())
+				return stagingFile;
+
+			mkTempDir(destFile);
+			if (stagingFile.createNewFile()) {
+				final RandomAccessFile raf = stagingFile.createRandomAccessFile("rw");
+				try {
+					raf.setLength(destFile.length());
+				} finally {
+					raf.close();
+				}
+			}
+		}
+		return stagingFile;
+	}
+
+	private void mkTempDir(final File destFile) {
+		final File tempDir = tempChunkFileManager.getTempDir(destFile);
+		tempDir.mkdir();
+		if (!tempDir.isDirectory())
+			throw new IllegalStateException("Creating the directory failed (it does not exist after mkdir): " + tempDir.getAbsolutePath());
+	}
+
+	protected synchronized void appendJournalRecord(final File destFile, final long offset, final int length, final String sha1) throws IOException {
+		final File journalFile = getJournalFile(destFile);
+		final boolean newJournal = !journalFile.exists() || journalFile.length() == 0;
+		try (final OutputStream out = castStream(journalFile.createOutputStream(true))) {
+			if (newJournal) {
+				out.write(createJournalHeader());
+				verifiedJournalPaths.add(journalFile.getAbsolutePath());
+			}
+
+			out.write(createJournalRecord(offset, length, sha1));
+		}
+	}
+
+	/**
+	 * Reads the journal.
+	 * @param journalFile the journal. Must not be <code>null</code>.
+	 * @return the valid records - mapped by offset and sorted ascendingly. Never <code>null</code>.
+	 * @throws IOException if reading the file failed.
+	 */
+	protected synchronized TreeMap<Long, FileChunkDto> readJournal(final File journalFile) throws IOException {
+		final byte[] journal = IOUtil.getBytesFromFile(journalFile);
+		final TreeMap<Long, FileChunkDto> result = new TreeMap<>();
+		final ByteBuffer bb = ByteBuffer.wrap(journal);
+		if (bb.remaining() < JOURNAL_HEADER_LENGTH || bb.getInt() != JOURNAL_MAGIC) {
+			logger.warn("readJournal: Missing or unknown header! Ignoring journal '{}'.", journalFile.getAbsolutePath());
+			return result;
+		}
+
+		final CRC32 crc32 = new CRC32();
+		final byte[] sha1 = new byte[SHA1_LENGTH];
+		while (bb.remaining() >= JOURNAL_RECORD_LENGTH) {
+			crc32.reset();
+			crc32.update(journal, bb.position(), JOURNAL_RECORD_LENGTH - 4);
+
+			final long offset = bb.getLong();
+			final int length = bb.getInt();
+			bb.get(sha1);
+			if ((int) crc32.getValue() != bb.getInt()) {
+				logger.warn("readJournal: CRC mismatch at position {}! Ignoring this and all following records in journal '{}'.",
+						bb.position() - JOURNAL_RECORD_LENGTH, journalFile.getAbsolutePath());
+				break;
+			}
+
+			final FileChunkDto fileChunkDto = new FileChunkDto();
+			fileChunkDto.setOffset(offset);
+			fileChunkDto.setLength(length);
+			fileChunkDto.setSha1(encodeHexStr(sha1));
+
+			// A later record supersedes all earlier ones overlapping it.
+			final Map.Entry<Long, FileChunkDto> floorEntry = result.floorEntry(offset);
+			if (floorEntry != null && floorEntry.getKey() + floorEntry.getValue().getLength() > offset)
+				result.remove(floorEntry.getKey());
+
+			result.subMap(offset, offset + length).clear();
+			result.put(offset, fileChunkDto);
+		}
+		if (bb.hasRemaining())
+			logger.debug("readJournal: Ignoring {} trailing bytes (torn record) in journal '{}'.", bb.remaining(), journalFile.getAbsolutePath());
+
+		return result;
+	}
+
+	private static byte[] createJournalHeader() {
+		return ByteBuffer.allocate(JOURNAL_HEADER_LENGTH).putInt(JOURNAL_MAGIC).array();
+	}
+
+	private static byte[] createJournalRecord(final long offset, final int length, final String sha1) throws IOException {
+		final byte[] sha1Bytes = decodeHexStr(requireNonNull(sha1, "sha1"));
+		if (sha1Bytes.length != SHA1_LENGTH)
+			throw new IllegalArgumentException("sha1 has invalid length: " + sha1);
+
+		final ByteArrayOutputStream bout = new ByteArrayOutputStream(JOURNAL_RECORD_LENGTH);
+		final DataOutputStream out = new DataOutputStream(bout);
+		out.writeLong(offset);
+		out.writeInt(length);
+		out.write(sha1Bytes);
+
+		final CRC32 crc32 = new CRC32();
+		crc32.update(bout.toByteArray());
+		out.writeInt((int) crc32.getValue());
+		out.flush();
+		return bout.toByteArray();
+	}
+
+	private static byte[] digestSha1(final byte[] data, final int length) {
+		try {
+			final MessageDigest md = MessageDigest.getInstance(HASH_ALGORITHM_SHA);
+			md.update(data, 0, length);
+			return md.digest();
+		} catch (final NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	protected void deleteOrFail(final File file) throws IOException {
+		IOUtil.deleteOrFail(file);
+	}
+
+	protected void moveOrFail(final File oldFile, final File newFile) throws IOException {
+		oldFile.move(newFile);
+	}
+}
@@ -0,0 +1,92 @@
+package co.codewizards.cloudstore.core.repo.sync;
+
+import static co.codewizards.cloudstore.core.io.StreamUtil.*;
+import static co.codewizards.cloudstore.core.oio.OioFileFactory.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import co.codewizards.cloudstore.core.Severity;
+import co.codewizards.cloudstore.core.dto.FileChunkDto;
+import co.codewizards.cloudstore.core.oio.File;
+import co.codewizards.cloudstore.core.progress.LoggerProgressMonitor;
+import co.codewizards.cloudstore.core.repo.local.LocalRepoManager;
+import co.codewizards.cloudstore.core.util.HashUtil;
+import co.codewizards.cloudstore.local.AbstractTest;
+
+public class RepoSyncRunnerTest extends AbstractTest {
+	private static final Logger logger = LoggerFactory.getLogger(RepoSyncRunnerTest.class);
+
+	@Test
+	public void twoRemotesChangingSameFile() throws Exception {
+		final File localRoot = newTestRepositoryLocalRoot("local");
+		final File remoteRoot1 = newTestRepositoryLocalRoot("remote1");
+		final File remoteRoot2 = newTestRepositoryLocalRoot("remote2");
+		localRoot.mkdirs();
+		remoteRoot1.mkdirs();
+		remoteRoot2.mkdirs();
+
+		final UUID localRepositoryId;
+		try (final LocalRepoManager localRepoManagerLocal = localRepoManagerFactory.createLocalRepoManagerForNewRepository(localRoot);) {
+			localRepositoryId = localRepoManagerLocal.getRepositoryId();
+			connect(localRepoManagerLocal, remoteRoot1);
+			connect(localRepoManagerLocal, remoteRoot2);
+		}
+
+		// The same file with different contents in both remote repositories. It consists of multiple chunks
+		// => both remote repositories would write the same temporary chunk files into the local repository.
+		final File file1 = createFileWithRandomContent(remoteRoot1, "a", 3L * FileChunkDto.MAX_LENGTH);
+		final File file2 = createFileWithRandomContent(remoteRoot2, "a", 3L * FileChunkDto.MAX_LENGTH);
+		final String sha1File1 = sha1(file1);
+		final String sha1File2 = sha1(file2);
+		assertThat(sha1File1).isNotEqualTo(sha1File2);
+
+		final List<RepoSyncState> repoSyncStates = Collections.synchronizedList(new ArrayList<RepoSyncState>());
+		final RepoSyncRunner repoSyncRunner = new RepoSyncRunner(new RepoSyncQueueItem(localRepositoryId, localRoot),
+				new RepoSyncRunner.RemoteSyncListener() {
+					@Override
+					public void remoteSyncFinished(final RepoSyncRunner repoSyncRunner, final RepoSyncState repoSyncState) {
+						repoSyncStates.add(repoSyncState);
+					}
+				});
+		repoSyncRunner.run();
+
+		assertThat(repoSyncStates).hasSize(2);
+		for (final RepoSyncState repoSyncState : repoSyncStates)
+			assertThat(repoSyncState.getSeverity()).isEqualTo(Severity.INFO);
+
+		// One of them won, the other one's version is kept as collision.
+		final String sha1LocalFile = sha1(createFile(localRoot, "a"));
+		assertThat(sha1LocalFile).isIn(sha1File1, sha1File2);
+
+		// Neither temporary chunk files nor done-markers are left over.
+		final File tempDir = createFile(localRoot, LocalRepoManager.TEMP_DIR_NAME);
+		assertThat(tempDir.exists() ? tempDir.list() : new String[0]).isEmpty();
+
+		final File repoTempDir = createFile(localRoot, LocalRepoManager.META_DIR_NAME, LocalRepoManager.REPO_TEMP_DIR_NAME);
+		for (final String fileName : repoTempDir.exists() ? repoTempDir.list() : new String[0])
+			assertThat(fileName).doesNotEndWith(RepoToRepoSync.DONE_DIR_NAME_SUFFIX);
+	}
+
+	private void connect(final LocalRepoManager localRepoManagerLocal, final File remoteRoot) throws Exception {
+		try (final LocalRepoManager localRepoManagerRemote = localRepoManagerFactory.createLocalRepoManagerForNewRepository(remoteRoot);) {
+			localRepoManagerLocal.putRemoteRepository(localRepoManagerRemote.getRepositoryId(), remoteRoot.toURI().toURL(), localRepoManagerRemote.getPublicKey(), "");
+			localRepoManagerRemote.putRemoteRepository(localRepoManagerLocal.getRepositoryId(), null, localRepoManagerLocal.getPublicKey(), "");
+			localRepoManagerRemote.localSync(new LoggerProgressMonitor(logger));
+		}
+	}
+
+	private static String sha1(final File file) throws Exception {
+		try (final InputStream in = castStream(file.createInputStream());) {
+			return HashUtil.sha1(in);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package co.codewizards.cloudstore.local;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import co.codewizards.cloudstore.core.dto.FileChunkDto;
+import co.codewizards.cloudstore.core.util.HashUtil;
+import co.codewizards.cloudstore.local.FileChunkDigester.ChunkInfo;
+
+public class FileChunkDigesterTest {
+
+	private static final int CHUNK_LENGTH = FileChunkDto.MAX_LENGTH;
+
+	private final Random random = new Random(4711);
+
+	@Test
+	public void emptyFile() {
+		assertDigestsMatch(new byte[0]);
+	}
+
+	@Test
+	public void partialLastChunk() {
+		assertDigestsMatch(createData(2 * CHUNK_LENGTH + CHUNK_LENGTH / 3));
+	}
+
+	@Test
+	public void exactMultipleOfChunkLength() {
+		assertDigestsMatch(createData(3 * CHUNK_LENGTH));
+	}
+
+	private void assertDigestsMatch(final byte[] data) {
+		final List<ChunkInfo> expectedChunkInfos = createExpectedChunkInfos(data);
+
+		// Data passed in pieces not aligned to the chunks => every chunk's SHA1 is calculated.
+		final FileChunkDigester digester = new FileChunkDigester();
+		for (int off = 0; off < data.length; off += 7777)
+			digester.update(data, off, Math.min(7777, data.length - off));
+
+		digester.finishDigest();
+		assertChunkInfosEqual(digester.getChunkInfos(), expectedChunkInfos);
+		assertThat(digester.getSha1()).isEqualTo(HashUtil.sha1(data));
+		assertThat(digester.getLength()).isEqualTo(data.length);
+
+		// Data passed chunk by chunk together with the already known SHA1 (as done by FileRepoTransport.endPutFile(...)).
+		final FileChunkDigester chunkDigester = new FileChunkDigester();
+		for (final ChunkInfo chunkInfo : expectedChunkInfos)
+			chunkDigester.update(data, (int) chunkInfo.offset, chunkInfo.length, chunkInfo.sha1);
+
+		chunkDigester.finishDigest();
+		assertChunkInfosEqual(chunkDigester.getChunkInfos(), expectedChunkInfos);
+		assertThat(chunkDigester.getSha1()).isEqualTo(HashUtil.sha1(data));
+		assertThat(chunkDigester.getLength()).isEqualTo(data.length);
+	}
+
+	/**
+	 * Calculates the chunks independently - one SHA1 per chunk - just like {@code FileChunk}s are defined:
+	 * Every chunk has the maximum length except for the last one, which may be shorter or even empty.
+	 */
+	private static List<ChunkInfo> createExpectedChunkInfos(final byte[] data) {
+		final List<ChunkInfo> result = new ArrayList<>();
+		int offset = 0;
+		do {
+			final int length = Math.min(CHUNK_LENGTH, data.length - offset);
+			result.add(new ChunkInfo(offset, length, HashUtil.sha1(Arrays.copyOfRange(data, offset, offset + length))));
+			offset += length;
+		} while (offset < data.length || result.get(result.size() - 1).length == CHUNK_LENGTH);
+		return result;
+	}
+
+	private static void assertChunkInfosEqual(final List<ChunkInfo> actual, final List<ChunkInfo> expected) {
+		assertThat(actual.size()).isEqualTo(expected.size());
+		for (int i = 0; i < expected.size(); ++i) {
+			assertThat(actual.get(i).offset).isEqualTo(expected.get(i).offset);
+			assertThat(actual.get(i).length).isEqualTo(expected.get(i).length);
+			assertThat(actual.get(i).sha1).isEqualTo(expected.get(i).sha1);
+		}
+	}
+
+	private byte[] createData(final int length) {
+		final byte[] data = new byte[length];
+		random.nextBytes(data);
+		return data;
+	}
+}
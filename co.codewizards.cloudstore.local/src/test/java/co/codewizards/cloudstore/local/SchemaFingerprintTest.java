@@ -0,0 +1,39 @@
+package co.codewizards.cloudstore.local;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class SchemaFingerprintTest {
+
+	@Test
+	public void fingerprintDependsOnPersistenceProperties() {
+		final Map<String, String> persistenceProperties = new HashMap<>();
+		persistenceProperties.put("javax.jdo.option.ConnectionURL", "jdbc:derby:/tmp/repo/.cloudstore-repo/derby");
+		persistenceProperties.put("datanucleus.schema.validateTables", "true");
+
+		final String fingerprint = SchemaFingerprint.getSchemaFingerprint(persistenceProperties);
+		assertThat(fingerprint).isNotNull();
+		assertThat(SchemaFingerprint.getSchemaFingerprint(new HashMap<>(persistenceProperties))).isEqualTo(fingerprint);
+
+		persistenceProperties.put("datanucleus.rdbms.stringDefaultLength", "1024");
+		assertThat(SchemaFingerprint.getSchemaFingerprint(persistenceProperties)).isNotEqualTo(fingerprint);
+	}
+
+	@Test
+	public void disableSchemaValidation() {
+		final Map<String, String> persistenceProperties = new HashMap<>();
+		persistenceProperties.put("datanucleus.schema.autoCreateTables", "true");
+		persistenceProperties.put("datanucleus.schema.validateTables", "true");
+
+		SchemaFingerprint.disableSchemaValidation(persistenceProperties);
+
+		assertThat(persistenceProperties.get("datanucleus.schema.autoCreateTables")).isEqualTo("true");
+		assertThat(persistenceProperties.get("datanucleus.schema.validateTables")).isEqualTo("false");
+		assertThat(persistenceProperties.get("datanucleus.schema.validateColumns")).isEqualTo("false");
+		assertThat(persistenceProperties.get("datanucleus.schema.validateConstraints")).isEqualTo("false");
+	}
+}
@@ -10,6 +10,8 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Properties;
 
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
 import org.junit.Test;
 
 import co.codewizards.cloudstore.core.oio.File;
@@ -24,6 +26,17 @@ import co.codewizards.cloudstore.core.config.ConfigImpl;
 public class ConfigTest extends AbstractTest {
 
 	private static final Object mutex = ConfigTest.class;
+
+	@BeforeClass
+	public static void configTest_beforeClass() {
+		// This test modifies properties files behind the back of ConfigImpl and expects this to be noticed immediately.
+		System.setProperty(ConfigImpl.SYSTEM_PROPERTY_REVALIDATION_PERIOD_MILLIS, "0");
+	}
+
+	@AfterClass
+	public static void configTest_afterClass() {
+		System.clearProperty(ConfigImpl.SYSTEM_PROPERTY_REVALIDATION_PERIOD_MILLIS);
+	}
 	
 	private static File[] getPropertiesFiles(ConfigImpl config) {
 		File[] propertiesFiles = ReflectionUtil.getFieldValue(config, "propertiesFiles");
@@ -197,6 +210,43 @@ public class ConfigTest extends AbstractTest {
 		}
 	}
 
+	@Test
+	public void testRevalidationPeriod() throws Exception {
+		synchronized (mutex) {
+			final String testKey = "testKey3";
+			final File localRoot = newTestRepositoryLocalRoot();
+			localRoot.mkdirs();
+
+			try (final LocalRepoManager localRepoManager = LocalRepoManagerFactory.Helper.getInstance().createLocalRepoManagerForNewRepository(localRoot);) {
+				final Config config = ConfigImpl.getInstanceForDirectory(localRoot);
+				final String revalidationPeriod = System.getProperty(ConfigImpl.SYSTEM_PROPERTY_REVALIDATION_PERIOD_MILLIS);
+				System.setProperty(ConfigImpl.SYSTEM_PROPERTY_REVALIDATION_PERIOD_MILLIS, "3600000");
+				try {
+					setProperty(createFile(localRoot, ".cloudstore.properties"), testKey, "testValueAAA");
+					ConfigImpl.notifyPropertiesFilesModified();
+					assertThat(config.getProperty(testKey, null)).isEqualTo("testValueAAA");
+
+					waitForDifferentLastModifiedTimestamp();
+
+					// modified by "another process" => not noticed within the revalidation period
+					setProperty(createFile(localRoot, ".cloudstore.properties"), testKey, "testValueBBB");
+					assertThat(config.getProperty(testKey, null)).isEqualTo("testValueAAA");
+
+					ConfigImpl.notifyPropertiesFilesModified();
+					assertThat(config.getProperty(testKey, null)).isEqualTo("testValueBBB");
+
+					waitForDifferentLastModifiedTimestamp();
+
+					// modified via the API => noticed immediately
+					config.setDirectProperty(testKey, "testValueCCC");
+					assertThat(config.getProperty(testKey, null)).isEqualTo("testValueCCC");
+				} finally {
+					System.setProperty(ConfigImpl.SYSTEM_PROPERTY_REVALIDATION_PERIOD_MILLIS, revalidationPeriod); // restore configTest_beforeClass()'s value
+				}
+			}
+		}
+	}
+
 	private void deleteMainConfigFiles() {
 		File[] propertiesFiles = getPropertiesFiles((ConfigImpl) ConfigImpl.getInstance());
 		for (final File file : propertiesFiles) {
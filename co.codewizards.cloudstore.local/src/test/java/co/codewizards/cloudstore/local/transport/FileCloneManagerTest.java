@@ -0,0 +1,141 @@
+package co.codewizards.cloudstore.local.transport;
+
+import static co.codewizards.cloudstore.core.io.StreamUtil.*;
+import static co.codewizards.cloudstore.core.oio.OioFileFactory.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import co.codewizards.cloudstore.core.config.Config;
+import co.codewizards.cloudstore.core.oio.File;
+import co.codewizards.cloudstore.core.util.IOUtil;
+
+public class FileCloneManagerTest {
+
+	private static final int CLONE_MIN_LENGTH = 1000;
+
+	private final AtomicInteger probeCount = new AtomicInteger();
+	private final AtomicInteger cloneCount = new AtomicInteger();
+
+	private File dir;
+	private File localRoot;
+	private boolean cloneSupported;
+	private boolean cloneSucceeds;
+	private FileCloneManager fileCloneManager;
+
+	@BeforeClass
+	public static void beforeClass() {
+		System.setProperty(Config.SYSTEM_PROPERTY_PREFIX + FileCloneManager.CONFIG_KEY_CLONE_MIN_LENGTH, Integer.toString(CLONE_MIN_LENGTH));
+	}
+
+	@AfterClass
+	public static void afterClass() {
+		System.getProperties().remove(Config.SYSTEM_PROPERTY_PREFIX + FileCloneManager.CONFIG_KEY_CLONE_MIN_LENGTH);
+	}
+
+	@Before
+	public void before() throws Exception {
+		dir = createTempDirectory("FileCloneManagerTest");
+		localRoot = createFile(dir, "repo1");
+		localRoot.mkdirs();
+		fileCloneManager = new FileCloneManager() {
+			@Override
+			protected boolean probeCloneSupported(final File localRoot) {
+				probeCount.incrementAndGet();
+				return cloneSupported;
+			}
+
+			@Override
+			protected boolean cloneToCopyAttributes(final File fromFile, final File toFile) throws IOException {
+				cloneCount.incrementAndGet();
+				if (!cloneSucceeds)
+					return false;
+
+				fromFile.copyToCopyAttributes(toFile); // a real clone has the same result
+				return true;
+			}
+		};
+	}
+
+	@After
+	public void after() throws Exception {
+		if (dir != null)
+			IOUtil.deleteDirectoryRecursively(dir);
+	}
+
+	@Test
+	public void smallFileIsCopiedWithoutProbing() throws Exception {
+		cloneSupported = true;
+		cloneSucceeds = true;
+		final File fromFile = createData(createFile(localRoot, "a"), CLONE_MIN_LENGTH - 1);
+		final File toFile = createFile(localRoot, "b");
+
+		fileCloneManager.copyToCopyAttributes(localRoot, fromFile, toFile);
+
+		assertThat(toFile.length()).isEqualTo(CLONE_MIN_LENGTH - 1);
+		assertThat(probeCount.get()).isEqualTo(0);
+		assertThat(cloneCount.get()).isEqualTo(0);
+	}
+
+	@Test
+	public void largeFileIsCloned() throws Exception {
+		cloneSupported = true;
+		cloneSucceeds = true;
+		final File fromFile = createData(createFile(localRoot, "a"), CLONE_MIN_LENGTH);
+
+		fileCloneManager.copyToCopyAttributes(localRoot, fromFile, createFile(localRoot, "b"));
+		fileCloneManager.copyToCopyAttributes(localRoot, fromFile, createFile(localRoot, "c"));
+
+		assertThat(createFile(localRoot, "b").length()).isEqualTo(CLONE_MIN_LENGTH);
+		assertThat(createFile(localRoot, "c").length()).isEqualTo(CLONE_MIN_LENGTH);
+		assertThat(probeCount.get()).isEqualTo(1);
+		assertThat(cloneCount.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void failedCloneFallsBackToCopy() throws Exception {
+		cloneSupported = true;
+		cloneSucceeds = false;
+		final File fromFile = createData(createFile(localRoot, "a"), CLONE_MIN_LENGTH);
+		fromFile.setLastModified(1000000000000L);
+		final File toFile = createFile(localRoot, "b");
+
+		fileCloneManager.copyToCopyAttributes(localRoot, fromFile, toFile);
+
+		assertThat(cloneCount.get()).isEqualTo(1);
+		assertThat(toFile.length()).isEqualTo(CLONE_MIN_LENGTH);
+		assertThat(toFile.lastModified()).isEqualTo(fromFile.lastModified());
+	}
+
+	@Test
+	public void unsupportedFileStoreIsProbedOnce() throws Exception {
+		cloneSupported = false;
+		final File fromFile = createData(createFile(localRoot, "a"), CLONE_MIN_LENGTH);
+		fileCloneManager.copyToCopyAttributes(localRoot, fromFile, createFile(localRoot, "b"));
+
+		// Another repository in the same file store is not probed again.
+		final File localRoot2 = createFile(dir, "repo2");
+		localRoot2.mkdirs();
+		final File fromFile2 = createData(createFile(localRoot2, "a"), CLONE_MIN_LENGTH);
+		fileCloneManager.copyToCopyAttributes(localRoot2, fromFile2, createFile(localRoot2, "b"));
+
+		assertThat(createFile(localRoot2, "b").length()).isEqualTo(CLONE_MIN_LENGTH);
+		assertThat(probeCount.get()).isEqualTo(1);
+		assertThat(cloneCount.get()).isEqualTo(0);
+	}
+
+	private static File createData(final File file, final int length) throws IOException {
+		try (final OutputStream out = castStream(file.createOutputStream())) {
+			out.write(new byte[length]);
+		}
+		return file;
+	}
+}
@@ -0,0 +1,197 @@
+package co.codewizards.cloudstore.local.transport;
+
+import static co.codewizards.cloudstore.core.oio.OioFileFactory.*;
+import static co.codewizards.cloudstore.local.transport.StagingFileManager.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import co.codewizards.cloudstore.core.dto.FileChunkDto;
+import co.codewizards.cloudstore.core.oio.File;
+import co.codewizards.cloudstore.core.util.HashUtil;
+import co.codewizards.cloudstore.core.util.IOUtil;
+
+public class StagingFileManagerTest {
+
+	private static final int CHUNK_LENGTH = 1000;
+
+	private final Random random = new Random(4711);
+
+	private File dir;
+	private File destFile;
+	private byte[][] chunks;
+
+	@Before
+	public void before() throws Exception {
+		dir = createTempDirectory("StagingFileManagerTest");
+		destFile = createFile(dir, "a.bin");
+		destFile.createNewFile();
+		chunks = new byte[3][];
+		for (int i = 0; i < chunks.length; ++i)
+			chunks[i] = createData(CHUNK_LENGTH);
+	}
+
+	@After
+	public void after() throws Exception {
+		if (dir != null)
+			IOUtil.deleteDirectoryRecursively(dir);
+	}
+
+	@Test
+	public void journalRecordsWrittenChunks() throws Exception {
+		final StagingFileManager stagingFileManager = new StagingFileManager();
+		writeChunks(stagingFileManager);
+
+		assertThat(getJournalFile().length()).isEqualTo(JOURNAL_HEADER_LENGTH + chunks.length * JOURNAL_RECORD_LENGTH);
+		assertStagedChunks(stagingFileManager.getStagedFileChunkDtos(destFile), chunks.length);
+
+		// Writing a chunk again supersedes its first record.
+		chunks[1] = createData(CHUNK_LENGTH);
+		stagingFileManager.writeFileDataToStagingFile(destFile, CHUNK_LENGTH, chunks[1]);
+		assertStagedChunks(stagingFileManager.getStagedFileChunkDtos(destFile), chunks.length);
+	}
+
+	@Test
+	public void tornRecordIsIgnoredAndRemovedByRecover() throws Exception {
+		writeChunks(new StagingFileManager());
+		truncate(getJournalFile(), getJournalFile().length() - 5); // crash while appending the last record
+
+		final StagingFileManager stagingFileManager = new StagingFileManager(); // new process
+		assertStagedChunks(stagingFileManager.getStagedFileChunkDtos(destFile), 2);
+
+		stagingFileManager.recover(destFile);
+		assertThat(getJournalFile().length()).isEqualTo(JOURNAL_HEADER_LENGTH + 2 * JOURNAL_RECORD_LENGTH);
+		assertStagedChunks(stagingFileManager.getStagedFileChunkDtos(destFile), 2);
+	}
+
+	@Test
+	public void corruptRecordTerminatesJournal() throws Exception {
+		writeChunks(new StagingFileManager());
+		// Flip one bit in the SHA1 of the second record => its CRC32 does not match anymore.
+		flipBit(getJournalFile(), JOURNAL_HEADER_LENGTH + JOURNAL_RECORD_LENGTH + 8 + 4);
+
+		final StagingFileManager stagingFileManager = new StagingFileManager();
+		assertStagedChunks(stagingFileManager.getStagedFileChunkDtos(destFile), 1);
+
+		stagingFileManager.recover(destFile);
+		assertThat(getJournalFile().length()).isEqualTo(JOURNAL_HEADER_LENGTH + JOURNAL_RECORD_LENGTH);
+		assertStagedChunks(stagingFileManager.getStagedFileChunkDtos(destFile), 1);
+	}
+
+	@Test
+	public void corruptHeaderInvalidatesJournal() throws Exception {
+		writeChunks(new StagingFileManager());
+		flipBit(getJournalFile(), 0);
+
+		final StagingFileManager stagingFileManager = new StagingFileManager();
+		assertThat(stagingFileManager.getStagedFileChunkDtos(destFile)).isEmpty();
+
+		stagingFileManager.recover(destFile);
+		assertThat(getJournalFile().length()).isEqualTo(JOURNAL_HEADER_LENGTH);
+		assertThat(stagingFileManager.getStagedFileChunkDtos(destFile)).isEmpty();
+	}
+
+	@Test
+	public void recoverDiscardsChunkNotMatchingStagedData() throws Exception {
+		writeChunks(new StagingFileManager());
+		flipBit(getStagingFile(), CHUNK_LENGTH + 17); // the record was written, but the data is corrupt
+
+		final StagingFileManager stagingFileManager = new StagingFileManager();
+		assertThat(stagingFileManager.getStagedFileChunkDtos(destFile).size()).isEqualTo(3);
+
+		stagingFileManager.recover(destFile);
+		final List<FileChunkDto> stagedFileChunkDtos = stagingFileManager.getStagedFileChunkDtos(destFile);
+		assertThat(stagedFileChunkDtos.size()).isEqualTo(2);
+		assertStagedChunk(stagedFileChunkDtos.get(0), 0);
+		assertStagedChunk(stagedFileChunkDtos.get(1), 2);
+		assertThat(getJournalFile().length()).isEqualTo(JOURNAL_HEADER_LENGTH + 2 * JOURNAL_RECORD_LENGTH);
+	}
+
+	@Test
+	public void recoverDiscardsChunkBeyondEndOfStagingFile() throws Exception {
+		writeChunks(new StagingFileManager());
+		truncate(getStagingFile(), 2 * CHUNK_LENGTH + 1);
+
+		final StagingFileManager stagingFileManager = new StagingFileManager();
+		stagingFileManager.recover(destFile);
+		assertStagedChunks(stagingFileManager.getStagedFileChunkDtos(destFile), 2);
+	}
+
+	@Test
+	public void recoverTrustsJournalWrittenByCurrentProcess() throws Exception {
+		final StagingFileManager stagingFileManager = new StagingFileManager();
+		writeChunks(stagingFileManager);
+		flipBit(getStagingFile(), 17);
+
+		stagingFileManager.recover(destFile); // not verified => does not even read the staging file
+		assertThat(stagingFileManager.getStagedFileChunkDtos(destFile).size()).isEqualTo(3);
+	}
+
+	@Test
+	public void recoverDeletesOrphanedStagingFile() throws Exception {
+		writeChunks(new StagingFileManager());
+		getJournalFile().delete();
+
+		new StagingFileManager().recover(destFile);
+		assertThat(getStagingFile().exists()).isFalse();
+		assertThat(getStagingFile().getParentFile().exists()).isFalse();
+	}
+
+	private void writeChunks(final StagingFileManager stagingFileManager) {
+		for (int i = 0; i < chunks.length; ++i)
+			stagingFileManager.writeFileDataToStagingFile(destFile, (long) i * CHUNK_LENGTH, chunks[i]);
+	}
+
+	private void assertStagedChunks(final List<FileChunkDto> stagedFileChunkDtos, final int expectedCount) {
+		assertThat(stagedFileChunkDtos.size()).isEqualTo(expectedCount);
+		for (int i = 0; i < expectedCount; ++i)
+			assertStagedChunk(stagedFileChunkDtos.get(i), i);
+	}
+
+	private void assertStagedChunk(final FileChunkDto fileChunkDto, final int chunkIndex) {
+		assertThat(fileChunkDto.getOffset()).isEqualTo((long) chunkIndex * CHUNK_LENGTH);
+		assertThat(fileChunkDto.getLength()).isEqualTo(CHUNK_LENGTH);
+		assertThat(fileChunkDto.getSha1()).isEqualTo(HashUtil.sha1(chunks[chunkIndex]));
+	}
+
+	private File getStagingFile() {
+		return StagingFileManager.getInstance().getStagingFile(destFile);
+	}
+
+	private File getJournalFile() {
+		return StagingFileManager.getInstance().getJournalFile(destFile);
+	}
+
+	private static void truncate(final File file, final long length) throws Exception {
+		final RandomAccessFile raf = file.createRandomAccessFile("rw");
+		try {
+			raf.setLength(length);
+		} finally {
+			raf.close();
+		}
+	}
+
+	private static void flipBit(final File file, final long position) throws Exception {
+		final RandomAccessFile raf = file.createRandomAccessFile("rw");
+		try {
+			raf.seek(position);
+			final int b = raf.read();
+			raf.seek(position);
+			raf.write(b ^ 0x01);
+		} finally {
+			raf.close();
+		}
+	}
+
+	private byte[] createData(final int length) {
+		final byte[] data = new byte[length];
+		random.nextBytes(data);
+		return data;
+	}
+}
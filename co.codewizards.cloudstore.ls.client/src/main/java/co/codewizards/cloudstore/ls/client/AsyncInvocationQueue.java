@@ -0,0 +1,143 @@
+package co.codewizards.cloudstore.ls.client;
+
+import static java.util.Objects.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import co.codewizards.cloudstore.core.concurrent.VirtualThreadUtil;
+import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationRequest;
+
+/**
+ * Sends asynchronous method-invocations to the local-server.
+ * <p>
+ * All invocations queued until a flush-thread picks them up are sent together in one (concurrent)
+ * {@linkplain InvocationBatch batch}. Hence, many calls issued in quick succession cause only few round-trips.
+ * There is no guarantee about the order in which queued invocations are executed.
+ * <p>
+ * After {@link #close()}, no invocations are accepted anymore and all invocations not yet sent fail with an
+ * {@link IllegalStateException}. A batch already being sent is completed normally.
+ */
+class AsyncInvocationQueue {
+
+	private static final Logger logger = LoggerFactory.getLogger(AsyncInvocationQueue.class);
+
+	private static final class Entry {
+		final MethodInvocationRequest methodInvocationRequest;
+		final CompletableFuture<Object> future = new CompletableFuture<>();
+
+		Entry(final MethodInvocationRequest methodInvocationRequest) {
+			this.methodInvocationRequest = requireNonNull(methodInvocationRequest, "methodInvocationRequest");
+		}
+	}
+
+	private final LocalServerClient localServerClient;
+	private final Queue<Entry> entries = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean flushScheduled = new AtomicBoolean();
+	private ExecutorService executorService;
+	private volatile boolean closed;
+
+	private final Runnable flushRunnable = new Runnable() {
+		@Override
+		public void run() {
+			flushScheduled.set(false);
+			try {
+				flush();
+			} catch (final Throwable x) {
+				logger.error("flushRunnable.run: " + x, x);
+			}
+		}
+	};
+
+	public AsyncInvocationQueue(final LocalServerClient localServerClient) {
+		this.localServerClient = requireNonNull(localServerClient, "localServerClient");
+	}
+
+	/**
+	 * Queues the given invocation.
+	 * @param methodInvocationRequest the invocation. Must not be <code>null</code>.
+	 * @return the future completed with the invocation's result. Never <code>null</code>.
+	 * @throws IllegalStateException if this queue was {@linkplain #close() closed}.
+	 */
+	public CompletableFuture<Object> enqueue(final MethodInvocationRequest methodInvocationRequest) {
+		assertNotClosed();
+		final Entry entry = new Entry(methodInvocationRequest);
+		entries.add(entry);
+		if (flushScheduled.compareAndSet(false, true)) {
+			final ExecutorService executorService = getExecutorService();
+			try {
+				if (executorService != null)
+					executorService.execute(flushRunnable);
+			} catch (final RejectedExecutionException x) {
+				logger.debug("enqueue: Closed concurrently: {}", x.toString()); // the entry is failed below
+			}
+		}
+		if (closed) // closed concurrently => close() might have missed this entry
+			failPendingEntries();
+
+		return entry.future;
+	}
+
+	private void flush() {
+		final List<MethodInvocationRequest> methodInvocationRequests = new ArrayList<>();
+		final List<CompletableFuture<Object>> futures = new ArrayList<>();
+		Entry entry;
+		while ((entry = entries.poll()) != null) {
+			methodInvocationRequests.add(entry.methodInvocationRequest);
+			futures.add(entry.future);
+		}
+		if (methodInvocationRequests.isEmpty())
+			return;
+
+		logger.debug("flush: Sending {} invocations.", methodInvocationRequests.size());
+		localServerClient.executeBatch(methodInvocationRequests, futures, false);
+	}
+
+	/**
+	 * Gets the {@code ExecutorService} - creating it, if needed.
+	 * @return the {@code ExecutorService} or <code>null</code>, if this queue was {@linkplain #close() closed}.
+	 */
+	private synchronized ExecutorService getExecutorService() {
+		if (executorService == null && ! closed)
+			executorService = createExecutorService();
+
+		return executorService;
+	}
+
+	protected ExecutorService createExecutorService() {
+		return VirtualThreadUtil.createUnboundedExecutorService(null, "AsyncInvocationQueue-", true);
+	}
+
+	private void assertNotClosed() {
+		if (closed)
+			throw new IllegalStateException("AsyncInvocationQueue is closed!");
+	}
+
+	private void failPendingEntries() {
+		Entry entry;
+		while ((entry = entries.poll()) != null)
+			entry.future.completeExceptionally(new IllegalStateException("AsyncInvocationQueue was closed before the invocation was sent!"));
+	}
+
+	public void close() {
+		final ExecutorService es;
+		synchronized (this) {
+			closed = true;
+			es = executorService;
+			executorService = null;
+		}
+		if (es != null)
+			es.shutdown();
+
+		failPendingEntries();
+	}
+}
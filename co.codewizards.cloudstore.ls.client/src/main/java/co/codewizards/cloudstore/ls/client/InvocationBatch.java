@@ -0,0 +1,145 @@
+package co.codewizards.cloudstore.ls.client;
+
+import static co.codewizards.cloudstore.core.util.Util.*;
+import static java.util.Objects.*;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import co.codewizards.cloudstore.ls.core.LsConfig;
+import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationRequest;
+import co.codewizards.cloudstore.ls.core.invoke.RemoteObjectProxy;
+
+/**
+ * Collects multiple method-invocations in order to send them to the local-server with one single round-trip.
+ * <p>
+ * The invocations are only recorded by the {@code invoke...} methods. They are sent when {@link #execute()}
+ * is called - and the returned {@link Future}s are completed, then. By default, the server executes the
+ * invocations concurrently. If they depend on each other (e.g. because of side-effects),
+ * {@link #setSequential(boolean) setSequential(true)} makes the server execute them one after the other in
+ * the order they were added.
+ * <p>
+ * A failing invocation does not affect the others: only its own {@code Future} is completed exceptionally.
+ * <p>
+ * If the local-server is {@linkplain LsConfig#isLocalServerEnabled() disabled}, the invocations are performed
+ * immediately (and in order), when they are added.
+ * <p>
+ * Instances are obtained via {@link LocalServerClient#createInvocationBatch()}. They can be executed only once.
+ */
+public class InvocationBatch {
+
+	private final LocalServerClient localServerClient;
+	private final List<MethodInvocationRequest> methodInvocationRequests = new ArrayList<>();
+	private final List<CompletableFuture<Object>> futures = new ArrayList<>();
+	private boolean sequential;
+	private boolean executed;
+
+	protected InvocationBatch(final LocalServerClient localServerClient) {
+		this.localServerClient = requireNonNull(localServerClient, "localServerClient");
+	}
+
+	public synchronized boolean isSequential() {
+		return sequential;
+	}
+
+	public synchronized InvocationBatch setSequential(final boolean sequential) {
+		assertNotExecuted();
+		this.sequential = sequential;
+		return this;
+	}
+
+	public <T> Future<T> invoke(final Object object, final String methodName, final Object ... arguments) {
+		requireNonNull(object, "object");
+		requireNonNull(methodName, "methodName");
+		if (! LsConfig.isLocalServerEnabled()) {
+			return completeImmediately(new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					return localServerClient.invoke(object, methodName, arguments);
+				}
+			});
+		}
+
+		if (!(object instanceof RemoteObjectProxy) && !(object instanceof Serializable))
+			throw new IllegalArgumentException("object is neither an instance of RemoteObjectProxy nor Serializable!");
+
+		return add(MethodInvocationRequest.forObjectInvocation(object, methodName, (String[]) null, arguments));
+	}
+
+	public <T> Future<T> invokeStatic(final Class<?> clazz, final String methodName, final Object ... arguments) {
+		requireNonNull(clazz, "clazz");
+		requireNonNull(methodName, "methodName");
+		if (! LsConfig.isLocalServerEnabled()) {
+			return completeImmediately(new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					return localServerClient.invokeStatic(clazz, methodName, arguments);
+				}
+			});
+		}
+		return add(MethodInvocationRequest.forStaticInvocation(clazz.getName(), methodName, (String[]) null, arguments));
+	}
+
+	public <T> Future<T> invokeConstructor(final Class<T> clazz, final Object ... arguments) {
+		requireNonNull(clazz, "clazz");
+		if (! LsConfig.isLocalServerEnabled()) {
+			return completeImmediately(new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					return localServerClient.invokeConstructor(clazz, arguments);
+				}
+			});
+		}
+		return add(MethodInvocationRequest.forConstructorInvocation(clazz.getName(), (String[]) null, arguments));
+	}
+
+	/**
+	 * Sends all invocations added so far to the local-server and waits until they are completed.
+	 * <p>
+	 * This method does not throw an exception, if an invocation fails. Instead, the corresponding {@link Future}
+	 * is completed exceptionally.
+	 */
+	public void execute() {
+		final List<MethodInvocationRequest> methodInvocationRequests;
+		final List<CompletableFuture<Object>> futures;
+		final boolean sequential;
+		synchronized (this) {
+			assertNotExecuted();
+			executed = true;
+			methodInvocationRequests = new ArrayList<>(this.methodInvocationRequests);
+			futures = new ArrayList<>(this.futures);
+			sequential = this.sequential;
+		}
+		localServerClient.executeBatch(methodInvocationRequests, futures, sequential);
+	}
+
+	private synchronized <T> Future<T> add(final MethodInvocationRequest methodInvocationRequest) {
+		assertNotExecuted();
+		final CompletableFuture<Object> future = new CompletableFuture<>();
+		methodInvocationRequests.add(methodInvocationRequest);
+		futures.add(future);
+		return cast(future);
+	}
+
+	private <T> Future<T> completeImmediately(final Callable<Object> callable) {
+		synchronized (this) {
+			assertNotExecuted();
+		}
+		final CompletableFuture<Object> future = new CompletableFuture<>();
+		try {
+			future.complete(callable.call());
+		} catch (final Throwable x) {
+			future.completeExceptionally(x);
+		}
+		return cast(future);
+	}
+
+	private void assertNotExecuted() {
+		if (executed)
+			throw new IllegalStateException("This batch was already executed!");
+	}
+}
@@ -10,33 +10,47 @@ import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import co.codewizards.cloudstore.core.Uid;
+import co.codewizards.cloudstore.core.dto.Error;
+import co.codewizards.cloudstore.core.dto.RemoteException;
+import co.codewizards.cloudstore.core.dto.RemoteExceptionUtil;
+import co.codewizards.cloudstore.core.oio.File;
 import co.codewizards.cloudstore.core.util.ExceptionUtil;
 import co.codewizards.cloudstore.core.util.ReflectionUtil;
 import co.codewizards.cloudstore.ls.client.handler.InverseServiceRequestHandlerThread;
+import co.codewizards.cloudstore.ls.core.LocalServerPropertiesManager;
 import co.codewizards.cloudstore.ls.core.LsConfig;
+import co.codewizards.cloudstore.ls.core.UnixDomainSocketUtil;
 import co.codewizards.cloudstore.ls.core.invoke.ClassInfo;
 import co.codewizards.cloudstore.ls.core.invoke.ClassInfoMap;
 import co.codewizards.cloudstore.ls.core.invoke.ClassManager;
 import co.codewizards.cloudstore.ls.core.invoke.DelayedMethodInvocationResponse;
 import co.codewizards.cloudstore.ls.core.invoke.IncDecRefCountQueue;
 import co.codewizards.cloudstore.ls.core.invoke.Invoker;
+import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationBatchRequest;
+import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationBatchResponse;
 import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationRequest;
 import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationResponse;
 import co.codewizards.cloudstore.ls.core.invoke.ObjectManager;
 import co.codewizards.cloudstore.ls.core.invoke.ObjectRef;
+import co.codewizards.cloudstore.ls.core.invoke.ObjectRefConverter;
 import co.codewizards.cloudstore.ls.core.invoke.RemoteObjectProxy;
 import co.codewizards.cloudstore.ls.core.invoke.RemoteObjectProxyFactory;
 import co.codewizards.cloudstore.ls.core.invoke.RemoteObjectProxyInvocationHandler;
+import co.codewizards.cloudstore.ls.core.provider.BinaryWithObjectRefMessageBodyReader;
+import co.codewizards.cloudstore.ls.core.provider.BinaryWithObjectRefMessageBodyWriter;
 import co.codewizards.cloudstore.ls.core.provider.JavaNativeWithObjectRefMessageBodyReader;
 import co.codewizards.cloudstore.ls.core.provider.JavaNativeWithObjectRefMessageBodyWriter;
 import co.codewizards.cloudstore.ls.rest.client.LocalServerRestClient;
 import co.codewizards.cloudstore.ls.rest.client.request.GetDelayedMethodInvocationResponse;
 import co.codewizards.cloudstore.ls.rest.client.request.InvokeMethod;
+import co.codewizards.cloudstore.ls.rest.client.request.InvokeMethodBatch;
 
 /**
  * @author Marco หงุ่ยตระกูล-Schulze - marco at codewizards dot co
@@ -48,6 +62,8 @@ public class LocalServerClient implements Invoker, Closeable {
 	private volatile InverseServiceRequestHandlerThread inverseServiceRequestHandlerThread;
 
 	private LocalServerRestClient localServerRestClient;
+	private UnixSocketInvoker unixSocketInvoker;
+	private boolean unixSocketInvokerInitialised;
 	private final ObjectManager objectManager = ObjectManager.getInstance(new Uid()); // needed for inverse references as used by listeners!
 	{
 		objectManager.setNeverEvict(true);
@@ -56,6 +72,8 @@ public class LocalServerClient implements Invoker, Closeable {
 
 	private final IncDecRefCountQueue incDecRefCountQueue = new IncDecRefCountQueue(this);
 
+	private final AsyncInvocationQueue asyncInvocationQueue = new AsyncInvocationQueue(this);
+
 	@Override
 	public ClassInfoMap getClassInfoMap() {
 		return classInfoMap;
@@ -76,10 +94,40 @@ public class LocalServerClient implements Invoker, Closeable {
 			final ObjectRefConverterFactoryImpl objectRefConverterFactory = new ObjectRefConverterFactoryImpl(this);
 			localServerRestClient.registerRestComponent(new JavaNativeWithObjectRefMessageBodyReader(objectRefConverterFactory));
 			localServerRestClient.registerRestComponent(new JavaNativeWithObjectRefMessageBodyWriter(objectRefConverterFactory));
+			localServerRestClient.registerRestComponent(new BinaryWithObjectRefMessageBodyReader(objectRefConverterFactory));
+			localServerRestClient.registerRestComponent(new BinaryWithObjectRefMessageBodyWriter(objectRefConverterFactory));
 		}
 		return localServerRestClient;
 	}
 
+	/**
+	 * Gets the invoker transporting method-invocations via the local-server's Unix domain socket.
+	 * @return the invoker or <code>null</code>, if method-invocations must be transported via HTTP - because
+	 * the Unix domain socket is {@linkplain LsConfig#isLocalServerUnixSocketEnabled() disabled}, not supported
+	 * or not offered by the local-server.
+	 */
+	private synchronized UnixSocketInvoker getUnixSocketInvoker() {
+		if (! unixSocketInvokerInitialised) {
+			unixSocketInvokerInitialised = true;
+			if (LsConfig.isLocalServerUnixSocketEnabled() && UnixDomainSocketUtil.isSupported()) {
+				final File unixSocketFile = LocalServerPropertiesManager.getInstance().getUnixSocketFile();
+				if (unixSocketFile != null)
+					unixSocketInvoker = new UnixSocketInvoker(this, unixSocketFile, getLocalServerRestClient().getCredentialsProvider());
+			}
+		}
+		final UnixSocketInvoker usi = unixSocketInvoker;
+		return usi == null || usi.isDisabled() ? null : usi;
+	}
+
+	/**
+	 * Creates an {@link ObjectRefConverter} for object graphs received outside of the REST message bodies -
+	 * e.g. through the stream of inverse service-requests.
+	 * @return a new {@link ObjectRefConverter}. Never <code>null</code>.
+	 */
+	public ObjectRefConverter createObjectRefConverter() {
+		return new ObjectRefConverterImpl(this);
+	}
+
 	protected LocalServerRestClient _getLocalServerRestClient() {
 		return LocalServerRestClient.getInstance();
 	}
@@ -214,6 +262,94 @@ public class LocalServerClient implements Invoker, Closeable {
 		return invoke(methodInvocationRequest);
 	}
 
+	/**
+	 * Invokes the given method asynchronously.
+	 * <p>
+	 * The invocation is queued and sent to the local-server together with all other asynchronous invocations
+	 * queued at the same time. There is no guarantee about the order of execution - use an
+	 * {@link #createInvocationBatch() InvocationBatch}, if the order matters.
+	 * @return the future result. Never <code>null</code>.
+	 */
+	public <T> Future<T> invokeAsync(final Object object, final String methodName, final Object ... arguments) {
+		requireNonNull(object, "object");
+		requireNonNull(methodName, "methodName");
+		if (! LsConfig.isLocalServerEnabled())
+			return createInvocationBatch().invoke(object, methodName, arguments);
+
+		if (!(object instanceof RemoteObjectProxy) && !(object instanceof Serializable))
+			throw new IllegalArgumentException("object is neither an instance of RemoteObjectProxy nor Serializable!");
+
+		return cast(asyncInvocationQueue.enqueue(MethodInvocationRequest.forObjectInvocation(
+				object, methodName, (String[]) null, arguments)));
+	}
+
+	/**
+	 * Invokes the given static method asynchronously.
+	 * @see #invokeAsync(Object, String, Object...)
+	 */
+	public <T> Future<T> invokeStaticAsync(final Class<?> clazz, final String methodName, final Object ... arguments) {
+		requireNonNull(clazz, "clazz");
+		requireNonNull(methodName, "methodName");
+		if (! LsConfig.isLocalServerEnabled())
+			return createInvocationBatch().invokeStatic(clazz, methodName, arguments);
+
+		return cast(asyncInvocationQueue.enqueue(MethodInvocationRequest.forStaticInvocation(
+				clazz.getName(), methodName, (String[]) null, arguments)));
+	}
+
+	/**
+	 * Creates a new batch, allowing to perform multiple invocations with one single round-trip.
+	 * @return a new, empty batch. Never <code>null</code>.
+	 */
+	public InvocationBatch createInvocationBatch() {
+		return new InvocationBatch(this);
+	}
+
+	/**
+	 * Sends the given invocations to the local-server and completes the corresponding futures (same index).
+	 * <p>
+	 * If the batch as a whole cannot be transported, all futures are completed exceptionally.
+	 */
+	void executeBatch(final List<MethodInvocationRequest> methodInvocationRequests, final List<CompletableFuture<Object>> futures, final boolean sequential) {
+		requireNonNull(methodInvocationRequests, "methodInvocationRequests");
+		requireNonNull(futures, "futures");
+		if (methodInvocationRequests.isEmpty())
+			return;
+
+		final MethodInvocationBatchResponse methodInvocationBatchResponse;
+		try {
+			final MethodInvocationBatchRequest methodInvocationBatchRequest = new MethodInvocationBatchRequest(
+					methodInvocationRequests.toArray(new MethodInvocationRequest[methodInvocationRequests.size()]), sequential);
+
+			final UnixSocketInvoker usi = getUnixSocketInvoker();
+			MethodInvocationBatchResponse mibr = usi == null ? null : usi.invokeBatch(methodInvocationBatchRequest);
+			if (mibr == null)
+				mibr = getLocalServerRestClient().execute(new InvokeMethodBatch(methodInvocationBatchRequest));
+
+			methodInvocationBatchResponse = mibr;
+		} catch (final Throwable x) {
+			for (final CompletableFuture<Object> future : futures)
+				future.completeExceptionally(x);
+
+			return;
+		}
+
+		final MethodInvocationResponse[] methodInvocationResponses = methodInvocationBatchResponse.getMethodInvocationResponses();
+		final Error[] errors = methodInvocationBatchResponse.getErrors();
+		for (int i = 0; i < futures.size(); ++i) {
+			final CompletableFuture<Object> future = futures.get(i);
+			try {
+				if (errors[i] != null) {
+					RemoteExceptionUtil.throwOriginalExceptionIfPossible(errors[i]);
+					throw new RemoteException(errors[i]);
+				}
+				future.complete(getResult(methodInvocationRequests.get(i), methodInvocationResponses[i]));
+			} catch (final Throwable x) {
+				future.completeExceptionally(x);
+			}
+		}
+	}
+
 	private Class<?>[] getClassesOrFail(final String[] classNames) {
 		requireNonNull(classNames, "classNames");
 		final Class<?>[] result = new Class<?>[classNames.length];
@@ -251,15 +387,32 @@ public class LocalServerClient implements Invoker, Closeable {
 	private <T> T invoke(final MethodInvocationRequest methodInvocationRequest) {
 		requireNonNull(methodInvocationRequest, "methodInvocationRequest");
 
-		MethodInvocationResponse methodInvocationResponse = getLocalServerRestClient().execute(
-				new InvokeMethod(methodInvocationRequest));
+		// If the Unix domain socket cannot be used (anymore), the invoker returns null and we fall back to HTTP.
+		// This is fine for delayed responses, too, because the server handles both transports in the same way.
+		final UnixSocketInvoker usi = getUnixSocketInvoker();
+		MethodInvocationResponse methodInvocationResponse = usi == null ? null : usi.invoke(methodInvocationRequest);
+		if (methodInvocationResponse == null)
+			methodInvocationResponse = getLocalServerRestClient().execute(
+					new InvokeMethod(methodInvocationRequest));
+
+		return getResult(methodInvocationRequest, methodInvocationResponse);
+	}
 
+	/**
+	 * Gets the result of the given invocation - waiting for it, if the response is delayed. Writable arguments
+	 * are copied back into the request's arguments.
+	 */
+	private <T> T getResult(final MethodInvocationRequest methodInvocationRequest, MethodInvocationResponse methodInvocationResponse) {
+		requireNonNull(methodInvocationResponse, "methodInvocationResponse");
+		final UnixSocketInvoker usi = getUnixSocketInvoker();
 		while (methodInvocationResponse instanceof DelayedMethodInvocationResponse) {
 			final DelayedMethodInvocationResponse dmir = (DelayedMethodInvocationResponse) methodInvocationResponse;
 			final Uid delayedResponseId = dmir.getDelayedResponseId();
 
-			methodInvocationResponse = getLocalServerRestClient().execute(
-					new GetDelayedMethodInvocationResponse(delayedResponseId));
+			methodInvocationResponse = usi == null ? null : usi.getDelayedMethodInvocationResponse(delayedResponseId);
+			if (methodInvocationResponse == null)
+				methodInvocationResponse = getLocalServerRestClient().execute(
+						new GetDelayedMethodInvocationResponse(delayedResponseId));
 		}
 
 		final Object result = methodInvocationResponse.getResult();
@@ -368,6 +521,15 @@ public class LocalServerClient implements Invoker, Closeable {
 				logger.error("close: " + x, x);
 			}
 		}
+
+		final UnixSocketInvoker usi;
+		synchronized (this) {
+			usi = unixSocketInvoker;
+		}
+		if (usi != null)
+			usi.close();
+
+		asyncInvocationQueue.close();
 	}
 
 	public Object getRemoteObjectProxyOrCreate(final ObjectRef objectRef) {
@@ -0,0 +1,247 @@
+package co.codewizards.cloudstore.ls.client;
+
+import static co.codewizards.cloudstore.core.chronos.ChronosUtil.*;
+import static java.util.Objects.*;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import co.codewizards.cloudstore.core.Uid;
+import co.codewizards.cloudstore.core.dto.Error;
+import co.codewizards.cloudstore.core.dto.RemoteException;
+import co.codewizards.cloudstore.core.dto.RemoteExceptionUtil;
+import co.codewizards.cloudstore.core.oio.File;
+import co.codewizards.cloudstore.ls.core.LsConfig;
+import co.codewizards.cloudstore.ls.core.UnixDomainSocketUtil;
+import co.codewizards.cloudstore.ls.core.UnixSocketHandshake;
+import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationBatchRequest;
+import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationBatchResponse;
+import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationRequest;
+import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationResponse;
+import co.codewizards.cloudstore.ls.core.invoke.ObjectRefConverter;
+import co.codewizards.cloudstore.ls.core.provider.ObjectGraphFrameCodec;
+import co.codewizards.cloudstore.ls.rest.client.CredentialsProvider;
+
+/**
+ * Transports method-invocations to the local-server via its Unix domain socket.
+ * <p>
+ * Connections are pooled and used by one request at a time. If no connection can be established (or the
+ * server rejects the credentials), this invoker disables itself temporarily and the methods return <code>null</code>,
+ * telling the {@link LocalServerClient} to use HTTP instead. Since nothing was sent, yet, this fallback is
+ * safe. The socket is tried again after the {@linkplain LsConfig#getLocalServerUnixSocketRetryPeriod() retry period},
+ * which grows with every consecutive failure - e.g. the local-server might just have been restarted.
+ * <p>
+ * A pooled connection might be stale, because the local-server was restarted. If writing a request to it fails,
+ * the request did not reach the server. Hence, all idle connections are discarded and the request is sent once
+ * again via a new connection (or HTTP is used, if connecting fails).
+ * <p>
+ * If a connection breaks <i>after</i> a request was sent, though, an exception is thrown, because the
+ * method might already have been invoked.
+ */
+class UnixSocketInvoker {
+
+	private static final Logger logger = LoggerFactory.getLogger(UnixSocketInvoker.class);
+
+	private static final int MAX_RETRY_PERIOD_FACTOR = 16;
+
+	private final LocalServerClient localServerClient;
+	private final File socketFile;
+	private final CredentialsProvider credentialsProvider;
+
+	private final Deque<Connection> idleConnections = new ArrayDeque<>();
+	private volatile long retryAfterTimestamp;
+	private int consecutiveConnectFailureCount; // synchronized by: idleConnections
+	private volatile boolean closed;
+
+	private static final class Connection {
+		final SocketChannel socketChannel;
+		final DataInputStream in;
+		final DataOutputStream out;
+		boolean pooled;
+
+		Connection(final SocketChannel socketChannel) {
+			this.socketChannel = socketChannel;
+			this.in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(socketChannel)));
+			this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(socketChannel)));
+		}
+
+		void close() {
+			try {
+				socketChannel.close();
+			} catch (final IOException x) {
+				logger.debug("Connection.close: " + x);
+			}
+		}
+	}
+
+	public UnixSocketInvoker(final LocalServerClient localServerClient, final File socketFile, final CredentialsProvider credentialsProvider) {
+		this.localServerClient = requireNonNull(localServerClient, "localServerClient");
+		this.socketFile = requireNonNull(socketFile, "socketFile");
+		this.credentialsProvider = requireNonNull(credentialsProvider, "credentialsProvider");
+	}
+
+	/**
+	 * Is this invoker (currently) unusable?
+	 * @return <code>true</code>, if it is closed or connecting failed recently; <code>false</code>, if it should be used.
+	 */
+	public boolean isDisabled() {
+		return closed || nowAsMillis() < retryAfterTimestamp;
+	}
+
+	/**
+	 * Invokes the given method.
+	 * @param methodInvocationRequest the request. Must not be <code>null</code>.
+	 * @return the response or <code>null</code>, if this invoker is not usable and HTTP must be used instead.
+	 */
+	public MethodInvocationResponse invoke(final MethodInvocationRequest methodInvocationRequest) {
+		return (MethodInvocationResponse) execute(requireNonNull(methodInvocationRequest, "methodInvocationRequest"));
+	}
+
+	/**
+	 * Invokes multiple methods with one single round-trip.
+	 * @param methodInvocationBatchRequest the batch. Must not be <code>null</code>.
+	 * @return the response or <code>null</code>, if this invoker is not usable and HTTP must be used instead.
+	 */
+	public MethodInvocationBatchResponse invokeBatch(final MethodInvocationBatchRequest methodInvocationBatchRequest) {
+		return (MethodInvocationBatchResponse) execute(requireNonNull(methodInvocationBatchRequest, "methodInvocationBatchRequest"));
+	}
+
+	/**
+	 * Gets the response of a method-invocation which took too long to be returned immediately.
+	 * @param delayedResponseId the identifier of the delayed response. Must not be <code>null</code>.
+	 * @return the response or <code>null</code>, if this invoker is not usable and HTTP must be used instead.
+	 */
+	public MethodInvocationResponse getDelayedMethodInvocationResponse(final Uid delayedResponseId) {
+		return (MethodInvocationResponse) execute(requireNonNull(delayedResponseId, "delayedResponseId"));
+	}
+
+	private Object execute(final Object request) {
+		Connection connection = acquireConnection();
+		if (connection == null)
+			return null;
+
+		final ObjectRefConverter objectRefConverter = localServerClient.createObjectRefConverter();
+		try {
+			writeRequest(connection, request, objectRefConverter);
+		} catch (final IOException x) {
+			connection.close();
+			if (! connection.pooled)
+				throw new IllegalStateException("Invocation via Unix domain socket failed: " + x, x);
+
+			// The request did not reach the server => it is safe to send it again.
+			logger.info("execute: Pooled connection to {} is stale. Reconnecting: {}", socketFile, x.toString());
+			closeIdleConnections();
+			connection = openConnection();
+			if (connection == null)
+				return null;
+
+			try {
+				writeRequest(connection, request, objectRefConverter);
+			} catch (final IOException y) {
+				connection.close();
+				throw new IllegalStateException("Invocation via Unix domain socket failed: " + y, y);
+			}
+		}
+
+		final Object response;
+		try {
+			response = ObjectGraphFrameCodec.readFrame(connection.in, objectRefConverter);
+		} catch (final IOException x) {
+			connection.close();
+			throw new IllegalStateException("Invocation via Unix domain socket failed: " + x, x);
+		}
+		releaseConnection(connection);
+
+		if (response instanceof Error) {
+			final Error error = (Error) response;
+			RemoteExceptionUtil.throwOriginalExceptionIfPossible(error);
+			throw new RemoteException(error);
+		}
+		return response;
+	}
+
+	private static void writeRequest(final Connection connection, final Object request, final ObjectRefConverter objectRefConverter) throws IOException {
+		ObjectGraphFrameCodec.writeFrame(request, objectRefConverter, connection.out);
+		connection.out.flush();
+	}
+
+	private Connection acquireConnection() {
+		if (isDisabled())
+			return null;
+
+		synchronized (idleConnections) {
+			final Connection connection = idleConnections.pollFirst();
+			if (connection != null)
+				return connection;
+		}
+		return openConnection();
+	}
+
+	private Connection openConnection() {
+		Connection connection = null;
+		try {
+			connection = new Connection(UnixDomainSocketUtil.openSocketChannel(socketFile));
+			final String password = requireNonNull(credentialsProvider.getPassword(), "credentialsProvider.password");
+			if (! UnixSocketHandshake.performClientHandshake(credentialsProvider.getUserName(), password, connection.in, connection.out))
+				throw new IOException("Server rejected credentials!");
+
+			synchronized (idleConnections) {
+				if (consecutiveConnectFailureCount > 0)
+					logger.info("acquireConnection: Connected to {} again.", socketFile);
+
+				consecutiveConnectFailureCount = 0;
+			}
+			return connection;
+		} catch (final Exception x) {
+			if (connection != null)
+				connection.close();
+
+			final long retryPeriod;
+			synchronized (idleConnections) {
+				final int factor = 1 << Math.min(consecutiveConnectFailureCount, Integer.numberOfTrailingZeros(MAX_RETRY_PERIOD_FACTOR));
+				++consecutiveConnectFailureCount;
+				retryPeriod = LsConfig.getLocalServerUnixSocketRetryPeriod() * factor;
+				retryAfterTimestamp = nowAsMillis() + retryPeriod;
+			}
+			logger.warn("acquireConnection: Connecting to {} failed. Falling back to HTTP for {} ms: {}", socketFile, retryPeriod, x.toString());
+			return null;
+		}
+	}
+
+	private void releaseConnection(final Connection connection) {
+		synchronized (idleConnections) {
+			if (! closed) {
+				connection.pooled = true;
+				idleConnections.addFirst(connection);
+				return;
+			}
+		}
+		connection.close();
+	}
+
+	private void closeIdleConnections() {
+		synchronized (idleConnections) {
+			for (final Connection connection : idleConnections)
+				connection.close();
+
+			idleConnections.clear();
+		}
+	}
+
+	public void close() {
+		synchronized (idleConnections) {
+			closed = true;
+			closeIdleConnections();
+		}
+	}
+}
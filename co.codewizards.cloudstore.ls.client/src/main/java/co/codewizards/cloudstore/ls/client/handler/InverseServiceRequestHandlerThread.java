@@ -3,42 +3,77 @@ package co.codewizards.cloudstore.ls.client.handler;
 import static co.codewizards.cloudstore.core.util.Util.*;
 import static java.util.Objects.*;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.ref.WeakReference;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import co.codewizards.cloudstore.core.Uid;
+import co.codewizards.cloudstore.core.concurrent.VirtualThreadUtil;
+import co.codewizards.cloudstore.core.config.Config;
+import co.codewizards.cloudstore.core.config.ConfigImpl;
 import co.codewizards.cloudstore.core.dto.Error;
 import co.codewizards.cloudstore.ls.client.LocalServerClient;
 import co.codewizards.cloudstore.ls.core.dto.ErrorResponse;
 import co.codewizards.cloudstore.ls.core.dto.InverseServiceRequest;
 import co.codewizards.cloudstore.ls.core.dto.InverseServiceResponse;
 import co.codewizards.cloudstore.ls.core.dto.NullResponse;
+import co.codewizards.cloudstore.ls.core.invoke.ObjectRefConverter;
+import co.codewizards.cloudstore.ls.core.provider.ObjectGraphFrameCodec;
 import co.codewizards.cloudstore.ls.rest.client.LocalServerRestClient;
+import co.codewizards.cloudstore.ls.rest.client.request.OpenInverseServiceRequestStream;
 import co.codewizards.cloudstore.ls.rest.client.request.PollInverseServiceRequest;
 import co.codewizards.cloudstore.ls.rest.client.request.PushInverseServiceResponse;
 
+/**
+ * Receives the inverse service-requests from the server and passes them to the matching
+ * {@link InverseServiceRequestHandler}s.
+ * <p>
+ * The requests are pushed by the server through one long-living stream. If the server does not support
+ * this stream (or it is disabled via {@link #CONFIG_KEY_INVERSE_SERVICE_REQUEST_STREAM_ENABLED}), they are
+ * polled - one HTTP request per inverse service-request.
+ */
 public class InverseServiceRequestHandlerThread extends Thread {
 
 	private static final Logger logger = LoggerFactory.getLogger(InverseServiceRequestHandlerThread.class);
 
+	/**
+	 * The {@code key} controlling whether the inverse service-requests are pushed through a stream (instead of
+	 * being polled). Used with {@link Config#getPropertyAsBoolean(String, boolean)}.
+	 * <p>
+	 * The configuration can be overridden by a system property - see {@link Config#SYSTEM_PROPERTY_PREFIX}.
+	 */
+	public static final String CONFIG_KEY_INVERSE_SERVICE_REQUEST_STREAM_ENABLED = "localServer.inverseServiceRequestStream.enabled"; //$NON-NLS-1$
+	public static final boolean DEFAULT_INVERSE_SERVICE_REQUEST_STREAM_ENABLED = true;
+
 	private static final AtomicInteger nextThreadId = new AtomicInteger();
 	private volatile boolean interrupted;
 
+	private volatile boolean streamEnabled;
+	private volatile InputStream streamInputStream;
+	private int consecutiveErrorCounter;
+
 	private final WeakReference<LocalServerClient> localServerClientRef;
 	private final WeakReference<LocalServerRestClient> localServerRestClientRef;
 	private final InverseServiceRequestHandlerManager inverseServiceRequestHandlerManager = InverseServiceRequestHandlerManager.getInstance();
-	private final Executor executor = Executors.newCachedThreadPool();
+	private final Executor executor = VirtualThreadUtil.createUnboundedExecutorService(null, "InverseServiceRequestHandler-", true);
 
 	public InverseServiceRequestHandlerThread(final LocalServerClient localServerClient) {
 		this.localServerClientRef = new WeakReference<LocalServerClient>(requireNonNull(localServerClient, "localServerClient"));
 		this.localServerRestClientRef = new WeakReference<LocalServerRestClient>(requireNonNull(localServerClient.getLocalServerRestClient(), "localServerRestClient"));
 		setName(getClass().getSimpleName() + '-' + nextThreadId.getAndIncrement());
 		setDaemon(true);
+		streamEnabled = ConfigImpl.getInstance().getPropertyAsBoolean(
+				CONFIG_KEY_INVERSE_SERVICE_REQUEST_STREAM_ENABLED, DEFAULT_INVERSE_SERVICE_REQUEST_STREAM_ENABLED);
 	}
 
 	@Override
@@ -47,6 +82,16 @@ public class InverseServiceRequestHandlerThread extends Thread {
 		// flag may be reset by an InterruptedException, while our flag cannot be reset.
 		interrupted = true;
 		super.interrupt();
+
+		// A blocking read is not interrupted by Thread.interrupt() => close the stream.
+		final InputStream in = streamInputStream;
+		if (in != null) {
+			try {
+				in.close();
+			} catch (Exception x) {
+				doNothing();
+			}
+		}
 	}
 
 	@Override
@@ -56,15 +101,21 @@ public class InverseServiceRequestHandlerThread extends Thread {
 
 	@Override
 	public void run() {
-		int consecutiveErrorCounter = 0;
 		while (! isInterrupted()) {
 			try {
-				final InverseServiceRequest inverseServiceRequest = getLocalServerRestClientOrFail().execute(new PollInverseServiceRequest());
-				if (inverseServiceRequest != null)
-					executor.execute(new HandlerRunnable(inverseServiceRequest));
-
-				consecutiveErrorCounter = 0;
+				if (streamEnabled)
+					receiveInverseServiceRequestsFromStream();
+				else
+					pollInverseServiceRequest();
 			} catch (Exception x) {
+				if (isInterrupted())
+					break;
+
+				if (streamEnabled && isStreamNotSupported(x)) {
+					logger.info("run: Server does not support the inverse-service-request-stream. Falling back to polling.");
+					streamEnabled = false;
+					continue;
+				}
 				logger.error(x.toString(), x);
 
 				// Wait a bit before retrying (increasingly longer) in order to prevent the log from filling up too quickly.
@@ -75,6 +126,53 @@ public class InverseServiceRequestHandlerThread extends Thread {
 		}
 	}
 
+	private void pollInverseServiceRequest() {
+		final InverseServiceRequest inverseServiceRequest = getLocalServerRestClientOrFail().execute(new PollInverseServiceRequest());
+		if (inverseServiceRequest != null)
+			executor.execute(new HandlerRunnable(inverseServiceRequest));
+
+		consecutiveErrorCounter = 0;
+	}
+
+	private void receiveInverseServiceRequestsFromStream() throws IOException {
+		final InputStream in = getLocalServerRestClientOrFail().execute(new OpenInverseServiceRequestStream());
+		streamInputStream = in;
+		try (DataInputStream din = new DataInputStream(new BufferedInputStream(in))) {
+			if (isInterrupted()) // interrupt() might have been called before streamInputStream was assigned.
+				return;
+
+			while (! isInterrupted()) {
+				final byte[] frame = ObjectGraphFrameCodec.readFrameBytes(din);
+				if (frame != null) {
+					// We must not keep a (strong) reference to the LocalServerClient while blocking => new converter for each frame.
+					final ObjectRefConverter objectRefConverter = getLocalServerClientOrFail().createObjectRefConverter();
+					final InverseServiceRequest inverseServiceRequest = (InverseServiceRequest) ObjectGraphFrameCodec.decodeFrame(frame, objectRefConverter);
+					if (inverseServiceRequest != null)
+						executor.execute(new HandlerRunnable(inverseServiceRequest));
+				}
+
+				consecutiveErrorCounter = 0;
+			}
+		} finally {
+			streamInputStream = null;
+		}
+	}
+
+	private static boolean isStreamNotSupported(final Exception x) {
+		if (!(x instanceof WebApplicationException))
+			return false;
+
+		final Response response = ((WebApplicationException) x).getResponse();
+		if (response == null)
+			return false;
+
+		final int status = response.getStatus();
+		return status == Response.Status.NOT_FOUND.getStatusCode()
+				|| status == Response.Status.METHOD_NOT_ALLOWED.getStatusCode()
+				|| status == Response.Status.NOT_ACCEPTABLE.getStatusCode()
+				|| status == Response.Status.UNSUPPORTED_MEDIA_TYPE.getStatusCode();
+	}
+
 	private class HandlerRunnable implements Runnable {
 		private final InverseServiceRequest inverseServiceRequest;
 
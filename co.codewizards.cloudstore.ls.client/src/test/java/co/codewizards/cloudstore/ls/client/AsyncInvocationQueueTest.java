@@ -0,0 +1,150 @@
+package co.codewizards.cloudstore.ls.client;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationRequest;
+
+public class AsyncInvocationQueueTest {
+
+	private final List<MethodInvocationRequest> sentMethodInvocationRequests = new ArrayList<>();
+	private final ManualExecutorService executorService = new ManualExecutorService();
+
+	private LocalServerClient localServerClient;
+	private AsyncInvocationQueue asyncInvocationQueue;
+
+	@Before
+	public void before() {
+		localServerClient = new LocalServerClient() {
+			@Override
+			void executeBatch(final List<MethodInvocationRequest> methodInvocationRequests, final List<CompletableFuture<Object>> futures, final boolean sequential) {
+				sentMethodInvocationRequests.addAll(methodInvocationRequests);
+				for (final CompletableFuture<Object> future : futures)
+					future.complete("result");
+			}
+		};
+		asyncInvocationQueue = new AsyncInvocationQueue(localServerClient) {
+			@Override
+			protected ExecutorService createExecutorService() {
+				return executorService;
+			}
+		};
+	}
+
+	@After
+	public void after() {
+		if (localServerClient != null)
+			localServerClient.getObjectManager().close();
+	}
+
+	@Test
+	public void queuedInvocationsAreSentTogether() throws Exception {
+		final CompletableFuture<Object> future1 = asyncInvocationQueue.enqueue(createRequest());
+		final CompletableFuture<Object> future2 = asyncInvocationQueue.enqueue(createRequest());
+		assertThat(executorService.runAll()).isEqualTo(1);
+
+		assertThat(sentMethodInvocationRequests.size()).isEqualTo(2);
+		assertThat(future1.get()).isEqualTo("result");
+		assertThat(future2.get()).isEqualTo("result");
+	}
+
+	@Test
+	public void pendingInvocationsFailOnClose() throws Exception {
+		final CompletableFuture<Object> future = asyncInvocationQueue.enqueue(createRequest());
+		asyncInvocationQueue.close();
+		assertThat(executorService.isShutdown()).isTrue();
+
+		assertThat(future.isCompletedExceptionally()).isTrue();
+		try {
+			future.get();
+			fail("ExecutionException expected!");
+		} catch (final ExecutionException x) {
+			assertThat(x.getCause()).isInstanceOf(IllegalStateException.class);
+		}
+
+		executorService.runAll(); // the flush scheduled before closing does not find anything to send
+		assertThat(sentMethodInvocationRequests).isEmpty();
+	}
+
+	@Test
+	public void closedQueueRejectsInvocations() {
+		asyncInvocationQueue.close();
+		try {
+			asyncInvocationQueue.enqueue(createRequest());
+			fail("IllegalStateException expected!");
+		} catch (final IllegalStateException x) {
+			// expected
+		}
+		assertThat(executorService.runAll()).isEqualTo(0); // no new executor was started
+	}
+
+	private static MethodInvocationRequest createRequest() {
+		return MethodInvocationRequest.forStaticInvocation(System.class.getName(), "lineSeparator", null);
+	}
+
+	/**
+	 * Runs the tasks only when {@link #runAll()} is invoked.
+	 */
+	private static class ManualExecutorService extends AbstractExecutorService {
+		private final List<Runnable> tasks = new ArrayList<>();
+		private boolean shutdown;
+
+		@Override
+		public synchronized void execute(final Runnable command) {
+			if (shutdown)
+				throw new RejectedExecutionException("shutdown");
+
+			tasks.add(command);
+		}
+
+		public int runAll() {
+			final List<Runnable> tasks;
+			synchronized (this) {
+				tasks = new ArrayList<>(this.tasks);
+				this.tasks.clear();
+			}
+			for (final Runnable task : tasks)
+				task.run();
+
+			return tasks.size();
+		}
+
+		@Override
+		public synchronized void shutdown() {
+			shutdown = true;
+		}
+
+		@Override
+		public List<Runnable> shutdownNow() {
+			shutdown();
+			return new ArrayList<>();
+		}
+
+		@Override
+		public synchronized boolean isShutdown() {
+			return shutdown;
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return isShutdown();
+		}
+
+		@Override
+		public boolean awaitTermination(final long timeout, final TimeUnit unit) {
+			return isTerminated();
+		}
+	}
+}
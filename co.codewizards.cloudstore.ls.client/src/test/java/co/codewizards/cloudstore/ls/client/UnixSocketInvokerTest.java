@@ -0,0 +1,200 @@
+package co.codewizards.cloudstore.ls.client;
+
+import static co.codewizards.cloudstore.core.oio.OioFileFactory.*;
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.Assume.*;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import co.codewizards.cloudstore.core.config.Config;
+import co.codewizards.cloudstore.core.oio.File;
+import co.codewizards.cloudstore.core.util.IOUtil;
+import co.codewizards.cloudstore.ls.core.LsConfig;
+import co.codewizards.cloudstore.ls.core.UnixDomainSocketUtil;
+import co.codewizards.cloudstore.ls.core.UnixSocketHandshake;
+import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationRequest;
+import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationResponse;
+import co.codewizards.cloudstore.ls.core.invoke.ObjectRefConverter;
+import co.codewizards.cloudstore.ls.core.provider.ObjectGraphFrameCodec;
+import co.codewizards.cloudstore.ls.rest.client.CredentialsProvider;
+
+public class UnixSocketInvokerTest {
+
+	private static final long RETRY_PERIOD_MS = 300;
+
+	private File dir;
+	private File socketFile;
+	private LocalServerClient localServerClient;
+	private UnixSocketInvoker unixSocketInvoker;
+
+	@BeforeClass
+	public static void beforeClass() {
+		System.setProperty(Config.SYSTEM_PROPERTY_PREFIX + LsConfig.CONFIG_KEY_LOCAL_SERVER_UNIX_SOCKET_RETRY_PERIOD, Long.toString(RETRY_PERIOD_MS));
+	}
+
+	@AfterClass
+	public static void afterClass() {
+		System.getProperties().remove(Config.SYSTEM_PROPERTY_PREFIX + LsConfig.CONFIG_KEY_LOCAL_SERVER_UNIX_SOCKET_RETRY_PERIOD);
+	}
+
+	@Before
+	public void before() throws Exception {
+		assumeTrue(UnixDomainSocketUtil.isSupported());
+		dir = createTempDirectory("UnixSocketInvokerTest");
+		socketFile = createFile(dir, "ls.sock");
+		localServerClient = new LocalServerClient();
+		unixSocketInvoker = new UnixSocketInvoker(localServerClient, socketFile, new CredentialsProvider() {
+			@Override
+			public String getUserName() {
+				return "client";
+			}
+
+			@Override
+			public String getPassword() {
+				return "secret";
+			}
+		});
+	}
+
+	@After
+	public void after() throws Exception {
+		if (unixSocketInvoker != null)
+			unixSocketInvoker.close();
+
+		if (localServerClient != null)
+			localServerClient.getObjectManager().close();
+
+		if (dir != null)
+			IOUtil.deleteDirectoryRecursively(dir);
+	}
+
+	@Test
+	public void fallbackToHttpAndRecoveryAfterRetryPeriod() throws Exception {
+		// No server listening => fall back to HTTP.
+		assertThat(unixSocketInvoker.invoke(createRequest())).isNull();
+		assertThat(unixSocketInvoker.isDisabled()).isTrue();
+
+		// The server is (re-)started, but the retry period did not yet elapse => still HTTP.
+		final ServerThread serverThread = new ServerThread(UnixDomainSocketUtil.openServerSocketChannel(socketFile));
+		serverThread.start();
+		try {
+			assertThat(unixSocketInvoker.invoke(createRequest())).isNull();
+
+			waitUntilEnabled();
+			final MethodInvocationResponse response = unixSocketInvoker.invoke(createRequest());
+			assertThat(response).isNotNull();
+			assertThat(response.getResult()).isEqualTo("pong");
+			assertThat(unixSocketInvoker.isDisabled()).isFalse();
+
+			serverThread.join(10000);
+			assertThat(serverThread.error.get()).isNull();
+			assertThat(serverThread.clientId.get()).isEqualTo("client");
+		} finally {
+			serverThread.serverSocketChannel.close();
+		}
+	}
+
+	@Test
+	public void retryPeriodGrowsWithConsecutiveFailures() throws Exception {
+		assertThat(unixSocketInvoker.invoke(createRequest())).isNull();
+		waitUntilEnabled();
+
+		// Failing again => disabled for twice the retry period.
+		assertThat(unixSocketInvoker.invoke(createRequest())).isNull();
+		Thread.sleep(RETRY_PERIOD_MS + RETRY_PERIOD_MS / 3);
+		assertThat(unixSocketInvoker.isDisabled()).isTrue();
+		waitUntilEnabled();
+	}
+
+	@Test
+	public void staleConnectionIsReplacedAfterServerRestart() throws Exception {
+		final ServerThread serverThread1 = new ServerThread(UnixDomainSocketUtil.openServerSocketChannel(socketFile));
+		serverThread1.start();
+		try {
+			assertThat(unixSocketInvoker.invoke(createRequest()).getResult()).isEqualTo("pong");
+			serverThread1.join(10000);
+			assertThat(serverThread1.error.get()).isNull();
+		} finally {
+			serverThread1.serverSocketChannel.close(); // the server is stopped => the pooled connection is stale
+		}
+
+		final ServerThread serverThread2 = new ServerThread(UnixDomainSocketUtil.openServerSocketChannel(socketFile));
+		serverThread2.start();
+		try {
+			final MethodInvocationResponse response = unixSocketInvoker.invoke(createRequest());
+			assertThat(response).isNotNull(); // not HTTP
+			assertThat(response.getResult()).isEqualTo("pong");
+			assertThat(unixSocketInvoker.isDisabled()).isFalse();
+
+			serverThread2.join(10000);
+			assertThat(serverThread2.error.get()).isNull();
+			assertThat(serverThread2.clientId.get()).isEqualTo("client");
+		} finally {
+			serverThread2.serverSocketChannel.close();
+		}
+	}
+
+	private void waitUntilEnabled() throws InterruptedException {
+		for (int i = 0; i < 100 && unixSocketInvoker.isDisabled(); ++i)
+			Thread.sleep(RETRY_PERIOD_MS / 10);
+
+		assertThat(unixSocketInvoker.isDisabled()).isFalse();
+	}
+
+	private static MethodInvocationRequest createRequest() {
+		return MethodInvocationRequest.forStaticInvocation(System.class.getName(), "lineSeparator", null);
+	}
+
+	/**
+	 * Simulates the local-server: Accepts one connection and answers one request.
+	 */
+	private class ServerThread extends Thread {
+		public final ServerSocketChannel serverSocketChannel;
+		public final AtomicReference<String> clientId = new AtomicReference<>();
+		public final AtomicReference<Throwable> error = new AtomicReference<>();
+
+		public ServerThread(final ServerSocketChannel serverSocketChannel) {
+			this.serverSocketChannel = serverSocketChannel;
+		}
+
+		@Override
+		public void run() {
+			try {
+				final SocketChannel socketChannel = serverSocketChannel.accept();
+				try {
+					final DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(socketChannel)));
+					final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(socketChannel)));
+					final String[] credentials = UnixSocketHandshake.readClientHandshake(in);
+					clientId.set(credentials[0]);
+					out.writeBoolean("secret".equals(credentials[1]));
+					out.flush();
+
+					final ObjectRefConverter objectRefConverter = localServerClient.createObjectRefConverter();
+					final Object request = ObjectGraphFrameCodec.readFrame(in, objectRefConverter);
+					if (! (request instanceof MethodInvocationRequest))
+						throw new IllegalStateException("Unexpected request: " + request);
+
+					ObjectGraphFrameCodec.writeFrame(MethodInvocationResponse.forInvocation("pong", null), objectRefConverter, out);
+					out.flush();
+				} finally {
+					socketChannel.close();
+				}
+			} catch (final Throwable x) {
+				error.set(x);
+			}
+		}
+	}
+}
@@ -23,6 +23,7 @@ public class LocalServerPropertiesManager {
 
 	public static final String PROPERTY_KEY_PORT = "port";
 	public static final String PROPERTY_KEY_PASSWORD = "password";
+	public static final String PROPERTY_KEY_UNIX_SOCKET_PATH = "unixSocketPath";
 
 	private static final class Holder {
 		public static final LocalServerPropertiesManager instance = new LocalServerPropertiesManager();
@@ -117,6 +118,25 @@ public class LocalServerPropertiesManager {
 		getLocalServerProperties().setProperty(PROPERTY_KEY_PASSWORD, password);
 	}
 
+	/**
+	 * Gets the Unix domain socket the local-server is listening on (in addition to its TCP port).
+	 * @return the socket-file or <code>null</code>, if the local-server does not listen on a Unix domain socket.
+	 */
+	public File getUnixSocketFile() {
+		final String path = getLocalServerProperties().getProperty(PROPERTY_KEY_UNIX_SOCKET_PATH);
+		if (path == null || path.isEmpty())
+			return null;
+
+		return createFile(path);
+	}
+
+	public void setUnixSocketFile(final File unixSocketFile) {
+		if (unixSocketFile == null)
+			getLocalServerProperties().remove(PROPERTY_KEY_UNIX_SOCKET_PATH);
+		else
+			getLocalServerProperties().setProperty(PROPERTY_KEY_UNIX_SOCKET_PATH, unixSocketFile.getAbsolutePath());
+	}
+
 	public void clear() {
 		localServerProperties = null;
 	}
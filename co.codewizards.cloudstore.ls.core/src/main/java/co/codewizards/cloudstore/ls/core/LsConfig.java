@@ -75,6 +75,54 @@ public class LsConfig {
 	 */
 	public static final String DEFAULT_LOCAL_SERVER_PROCESS_MAX_HEAP_SIZE = "";
 
+	/**
+	 * {@link Config}-key controlling whether method-invocations are transported via a Unix domain socket
+	 * instead of HTTP.
+	 * <p>
+	 * This requires Java 16 or newer in both the local-server and the client. If the local-server does not
+	 * offer a socket, or connecting to it fails, the client falls back to HTTP.
+	 * @see #DEFAULT_LOCAL_SERVER_UNIX_SOCKET_ENABLED
+	 * @see #isLocalServerUnixSocketEnabled()
+	 */
+	public static final String CONFIG_KEY_LOCAL_SERVER_UNIX_SOCKET_ENABLED = "localServer.unixSocket.enabled";
+	/**
+	 * Default value for {@link #CONFIG_KEY_LOCAL_SERVER_UNIX_SOCKET_ENABLED}.
+	 */
+	public static final boolean DEFAULT_LOCAL_SERVER_UNIX_SOCKET_ENABLED = false;
+
+	/**
+	 * {@link Config}-key controlling how long (in milliseconds) the client uses HTTP after connecting to the
+	 * Unix domain socket failed, before it tries the socket again.
+	 * <p>
+	 * This period is doubled with every further consecutive failure - up to 16 times its configured value.
+	 * @see #DEFAULT_LOCAL_SERVER_UNIX_SOCKET_RETRY_PERIOD
+	 * @see #getLocalServerUnixSocketRetryPeriod()
+	 */
+	public static final String CONFIG_KEY_LOCAL_SERVER_UNIX_SOCKET_RETRY_PERIOD = "localServer.unixSocket.retryPeriod";
+	/**
+	 * Default value for {@link #CONFIG_KEY_LOCAL_SERVER_UNIX_SOCKET_RETRY_PERIOD}.
+	 */
+	public static final long DEFAULT_LOCAL_SERVER_UNIX_SOCKET_RETRY_PERIOD = 10000L;
+
+	/**
+	 * {@link Config}-key controlling how many method-invocations of the same client the local-server executes
+	 * concurrently.
+	 * <p>
+	 * Further invocations of this client are queued until one of its running invocations completes. This prevents
+	 * a single client from starving the others, if many clients (e.g. many JVMs on a build host) share the same
+	 * local-server. 0 means unlimited.
+	 * <p>
+	 * Do not set this too low: an invocation may cause the client to invoke further methods (e.g. from a listener)
+	 * and if these were queued behind their waiting callers, they would never complete.
+	 * @see #DEFAULT_LOCAL_SERVER_MAX_CONCURRENT_INVOCATIONS_PER_CLIENT
+	 * @see #getLocalServerMaxConcurrentInvocationsPerClient()
+	 */
+	public static final String CONFIG_KEY_LOCAL_SERVER_MAX_CONCURRENT_INVOCATIONS_PER_CLIENT = "localServer.maxConcurrentInvocationsPerClient";
+	/**
+	 * Default value for {@link #CONFIG_KEY_LOCAL_SERVER_MAX_CONCURRENT_INVOCATIONS_PER_CLIENT}.
+	 */
+	public static final int DEFAULT_LOCAL_SERVER_MAX_CONCURRENT_INVOCATIONS_PER_CLIENT = 64;
+
 	public static final Pattern CONFIG_KEY_PATTERN_LOCAL_SERVER_PROCESS_VM_ARGS = Pattern.compile("localServerProcess\\.vmArgs\\[([^]]+)\\]");
 
 	private LsConfig() {
@@ -133,6 +181,44 @@ public class LsConfig {
 		return timeoutMs;
 	}
 
+	/**
+	 * Should method-invocations be transported via a Unix domain socket?
+	 * <p>
+	 * The local-server then listens on a Unix domain socket in addition to its TCP port, and the client uses
+	 * this socket for invoking methods. All other requests still use HTTP. The credentials are the same for
+	 * both transports.
+	 * @return <code>true</code>, if the Unix domain socket should be used; <code>false</code> otherwise.
+	 * @see #CONFIG_KEY_LOCAL_SERVER_UNIX_SOCKET_ENABLED
+	 */
+	public static boolean isLocalServerUnixSocketEnabled() {
+		return ConfigImpl.getInstance().getPropertyAsBoolean(
+				CONFIG_KEY_LOCAL_SERVER_UNIX_SOCKET_ENABLED,
+				DEFAULT_LOCAL_SERVER_UNIX_SOCKET_ENABLED);
+	}
+
+	/**
+	 * Gets the time in milliseconds the client waits after a failed connection to the Unix domain socket,
+	 * before it tries again.
+	 * @return the retry period in milliseconds.
+	 * @see #CONFIG_KEY_LOCAL_SERVER_UNIX_SOCKET_RETRY_PERIOD
+	 */
+	public static long getLocalServerUnixSocketRetryPeriod() {
+		return ConfigImpl.getInstance().getPropertyAsPositiveOrZeroLong(
+				CONFIG_KEY_LOCAL_SERVER_UNIX_SOCKET_RETRY_PERIOD,
+				DEFAULT_LOCAL_SERVER_UNIX_SOCKET_RETRY_PERIOD);
+	}
+
+	/**
+	 * Gets the maximum number of method-invocations of one client executed concurrently by the local-server.
+	 * @return the maximum number of concurrent invocations per client; 0 means unlimited.
+	 * @see #CONFIG_KEY_LOCAL_SERVER_MAX_CONCURRENT_INVOCATIONS_PER_CLIENT
+	 */
+	public static int getLocalServerMaxConcurrentInvocationsPerClient() {
+		return ConfigImpl.getInstance().getPropertyAsPositiveOrZeroInt(
+				CONFIG_KEY_LOCAL_SERVER_MAX_CONCURRENT_INVOCATIONS_PER_CLIENT,
+				DEFAULT_LOCAL_SERVER_MAX_CONCURRENT_INVOCATIONS_PER_CLIENT);
+	}
+
 	public static String getLocalServerProcessMaxHeapSize() {
 		final String maxHeapSize = ConfigImpl.getInstance().getPropertyAsNonEmptyTrimmedString(
 						CONFIG_KEY_LOCAL_SERVER_PROCESS_MAX_HEAP_SIZE,
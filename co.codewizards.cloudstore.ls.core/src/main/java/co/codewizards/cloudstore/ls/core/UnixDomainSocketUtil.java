@@ -0,0 +1,151 @@
+package co.codewizards.cloudstore.ls.core;
+
+import static java.util.Objects.*;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import co.codewizards.cloudstore.core.oio.File;
+
+/**
+ * Opens Unix domain sockets, if supported by the current JRE.
+ * <p>
+ * Since CloudStore is still compiled for older Java versions, the Unix-domain-socket-API (Java 16+) is accessed
+ * via reflection. If it is not available, {@link #isSupported()} returns <code>false</code> and the local-server
+ * is only reachable via TCP.
+ */
+public final class UnixDomainSocketUtil {
+	private static final Logger logger = LoggerFactory.getLogger(UnixDomainSocketUtil.class);
+
+	private static final ProtocolFamily unixProtocolFamily;
+	private static final Method unixDomainSocketAddressOfMethod;
+	private static final Method serverSocketChannelOpenMethod;
+	private static final Method socketChannelOpenMethod;
+
+	static {
+		ProtocolFamily unix = null;
+		Method addressOf = null;
+		Method serverOpen = null;
+		Method open = null;
+		try {
+			unix = StandardProtocolFamily.valueOf("UNIX");
+			addressOf = Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", String.class);
+			serverOpen = ServerSocketChannel.class.getMethod("open", ProtocolFamily.class);
+			open = SocketChannel.class.getMethod("open", ProtocolFamily.class);
+		} catch (final IllegalArgumentException | ReflectiveOperationException x) {
+			logger.debug("Unix domain sockets are not supported by this JRE: " + x);
+			unix = null;
+			addressOf = null;
+			serverOpen = null;
+			open = null;
+		}
+		unixProtocolFamily = unix;
+		unixDomainSocketAddressOfMethod = addressOf;
+		serverSocketChannelOpenMethod = serverOpen;
+		socketChannelOpenMethod = open;
+	}
+
+	private UnixDomainSocketUtil() {
+	}
+
+	/**
+	 * Is the current JRE able to open Unix domain sockets?
+	 * @return <code>true</code>, if Unix domain sockets are supported; <code>false</code> otherwise.
+	 */
+	public static boolean isSupported() {
+		return unixProtocolFamily != null;
+	}
+
+	/**
+	 * Opens a server-socket bound to the given file.
+	 * <p>
+	 * If the file already exists (e.g. left over by a crashed server), it is deleted first. After binding, the
+	 * file's permissions are restricted to the owner, if the file system supports POSIX permissions.
+	 * @param file the socket-file. Must not be <code>null</code>.
+	 * @return the bound server-socket. Never <code>null</code>.
+	 * @throws IOException if binding failed - e.g. because the path is too long.
+	 * @throws UnsupportedOperationException if Unix domain sockets are not {@linkplain #isSupported() supported}.
+	 */
+	public static ServerSocketChannel openServerSocketChannel(final File file) throws IOException {
+		requireNonNull(file, "file");
+		assertSupported();
+		file.delete();
+		if (file.exists())
+			throw new IOException("Could not delete stale socket-file: " + file);
+
+		final ServerSocketChannel serverSocketChannel = invoke(serverSocketChannelOpenMethod, null, unixProtocolFamily);
+		try {
+			serverSocketChannel.bind(createSocketAddress(file));
+			restrictPermissions(file);
+		} catch (final IOException | RuntimeException x) {
+			serverSocketChannel.close();
+			throw x;
+		}
+		return serverSocketChannel;
+	}
+
+	/**
+	 * Opens a blocking socket connected to the given file.
+	 * @param file the socket-file a server is bound to. Must not be <code>null</code>.
+	 * @return the connected socket. Never <code>null</code>.
+	 * @throws IOException if connecting failed - e.g. because no server is bound to the file.
+	 * @throws UnsupportedOperationException if Unix domain sockets are not {@linkplain #isSupported() supported}.
+	 */
+	public static SocketChannel openSocketChannel(final File file) throws IOException {
+		requireNonNull(file, "file");
+		assertSupported();
+		final SocketChannel socketChannel = invoke(socketChannelOpenMethod, null, unixProtocolFamily);
+		try {
+			socketChannel.connect(createSocketAddress(file));
+		} catch (final IOException | RuntimeException x) {
+			socketChannel.close();
+			throw x;
+		}
+		return socketChannel;
+	}
+
+	private static SocketAddress createSocketAddress(final File file) throws IOException {
+		return invoke(unixDomainSocketAddressOfMethod, null, file.getAbsolutePath());
+	}
+
+	private static void restrictPermissions(final File file) {
+		try {
+			Files.setPosixFilePermissions(file.getIoFile().toPath(), PosixFilePermissions.fromString("rw-------"));
+		} catch (final UnsupportedOperationException | IOException x) {
+			logger.debug("restrictPermissions: " + x);
+		}
+	}
+
+	private static void assertSupported() {
+		if (! isSupported())
+			throw new UnsupportedOperationException("Unix domain sockets are not supported by this JRE: " + System.getProperty("java.version"));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T invoke(final Method method, final Object target, final Object... args) throws IOException {
+		try {
+			return (T) method.invoke(target, args);
+		} catch (final InvocationTargetException x) {
+			final Throwable cause = x.getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+
+			throw new IllegalStateException(String.format("Invoking %s failed: %s", method, cause), cause);
+		} catch (final IllegalAccessException x) {
+			throw new IllegalStateException(String.format("Invoking %s failed: %s", method, x), x);
+		}
+	}
+}
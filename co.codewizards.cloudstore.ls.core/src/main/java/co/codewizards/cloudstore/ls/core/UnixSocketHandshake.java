@@ -0,0 +1,70 @@
+package co.codewizards.cloudstore.ls.core;
+
+import static java.util.Objects.*;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Handshake opening a connection to the local-server's Unix domain socket.
+ * <p>
+ * The client sends {@link #MAGIC}, {@link #VERSION}, its client-id and the local-server's password - i.e. the
+ * same credentials as used for HTTP basic authentication. The server replies with one {@code boolean} telling
+ * whether the credentials are valid. If they are not, the server closes the connection.
+ * <p>
+ * After a successful handshake, requests and responses are exchanged as frames written/read by the
+ * {@link co.codewizards.cloudstore.ls.core.provider.ObjectGraphFrameCodec ObjectGraphFrameCodec}.
+ */
+public final class UnixSocketHandshake {
+
+	public static final int MAGIC = 0x43534C53; // "CSLS"
+
+	public static final int VERSION = 1;
+
+	private UnixSocketHandshake() {
+	}
+
+	/**
+	 * Writes the client's part of the handshake and reads the server's reply.
+	 * @param clientId the client-id. Must not be <code>null</code>.
+	 * @param password the local-server's password. Must not be <code>null</code>.
+	 * @param in the stream to read the reply from. Must not be <code>null</code>.
+	 * @param out the stream to write to. Must not be <code>null</code>.
+	 * @return <code>true</code>, if the server accepted the credentials; <code>false</code> otherwise.
+	 * @throws IOException if reading or writing failed.
+	 */
+	public static boolean performClientHandshake(final String clientId, final String password, final DataInputStream in, final DataOutputStream out) throws IOException {
+		requireNonNull(clientId, "clientId");
+		requireNonNull(password, "password");
+		requireNonNull(in, "in");
+		requireNonNull(out, "out");
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeUTF(clientId);
+		out.writeUTF(password);
+		out.flush();
+		return in.readBoolean();
+	}
+
+	/**
+	 * Reads the client's part of the handshake.
+	 * @param in the stream to read from. Must not be <code>null</code>.
+	 * @return the client-id (index 0) and the password (index 1). Never <code>null</code>.
+	 * @throws IOException if reading failed or the client does not speak this protocol (version).
+	 */
+	public static String[] readClientHandshake(final DataInputStream in) throws IOException {
+		requireNonNull(in, "in");
+		final int magic = in.readInt();
+		if (magic != MAGIC)
+			throw new IOException("Invalid magic: " + Integer.toHexString(magic));
+
+		final int version = in.readInt();
+		if (version != VERSION)
+			throw new IOException("Unsupported version: " + version);
+
+		final String clientId = in.readUTF();
+		final String password = in.readUTF();
+		return new String[] { clientId, password };
+	}
+}
@@ -0,0 +1,62 @@
+package co.codewizards.cloudstore.ls.core.dto;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Snapshot of the {@link co.codewizards.cloudstore.ls.core.invoke.InvocationMetrics InvocationMetrics} of the
+ * local-server.
+ */
+@XmlRootElement
+public class InvocationMetricsDto {
+
+	private int activeClientCount;
+	private long invocationCount;
+	private long failedInvocationCount;
+	private long queuedInvocationCount;
+	private int runningInvocationCount;
+	private double averageLatencyMillis;
+	private double maxLatencyMillis;
+
+	public int getActiveClientCount() {
+		return activeClientCount;
+	}
+	public void setActiveClientCount(final int activeClientCount) {
+		this.activeClientCount = activeClientCount;
+	}
+	public long getInvocationCount() {
+		return invocationCount;
+	}
+	public void setInvocationCount(final long invocationCount) {
+		this.invocationCount = invocationCount;
+	}
+	public long getFailedInvocationCount() {
+		return failedInvocationCount;
+	}
+	public void setFailedInvocationCount(final long failedInvocationCount) {
+		this.failedInvocationCount = failedInvocationCount;
+	}
+	public long getQueuedInvocationCount() {
+		return queuedInvocationCount;
+	}
+	public void setQueuedInvocationCount(final long queuedInvocationCount) {
+		this.queuedInvocationCount = queuedInvocationCount;
+	}
+	public int getRunningInvocationCount() {
+		return runningInvocationCount;
+	}
+	public void setRunningInvocationCount(final int runningInvocationCount) {
+		this.runningInvocationCount = runningInvocationCount;
+	}
+	public double getAverageLatencyMillis() {
+		return averageLatencyMillis;
+	}
+	public void setAverageLatencyMillis(final double averageLatencyMillis) {
+		this.averageLatencyMillis = averageLatencyMillis;
+	}
+	public double getMaxLatencyMillis() {
+		return maxLatencyMillis;
+	}
+	public void setMaxLatencyMillis(final double maxLatencyMillis) {
+		this.maxLatencyMillis = maxLatencyMillis;
+	}
+}
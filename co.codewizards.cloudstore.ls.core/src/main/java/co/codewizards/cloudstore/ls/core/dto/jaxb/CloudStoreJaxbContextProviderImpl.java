@@ -1,6 +1,7 @@
 package co.codewizards.cloudstore.ls.core.dto.jaxb;
 
 import co.codewizards.cloudstore.core.dto.jaxb.AbstractCloudStoreJaxbContextProvider;
+import co.codewizards.cloudstore.ls.core.dto.InvocationMetricsDto;
 import co.codewizards.cloudstore.ls.core.dto.RemoteRepositoryDto;
 import co.codewizards.cloudstore.ls.core.dto.RepoInfoRequestDto;
 import co.codewizards.cloudstore.ls.core.dto.RepoInfoResponseDto;
@@ -11,6 +12,7 @@ public class CloudStoreJaxbContextProviderImpl extends AbstractCloudStoreJaxbCon
 	@Override
 	public Class<?>[] getClassesToBeBound() {
 		return new Class<?>[] {
+				InvocationMetricsDto.class,
 				ObjectRef.class,
 				RemoteRepositoryDto.class,
 				RepoInfoRequestDto.class,
@@ -9,6 +9,8 @@ import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,6 +31,11 @@ public class ClassManager {
 	// the ClassInfoMap is used on the proxies' side.
 	private Map<Integer, ClassInfo> classId2ClassInfo = new HashMap<Integer, ClassInfo>();
 
+	// shared by all ClassManagers, i.e. by all clients
+	private static final ConcurrentMap<String, Class<?>> className2Class = new ConcurrentHashMap<>();
+	private static final ConcurrentMap<Class<?>, Set<String>> class2InterfaceNames = new ConcurrentHashMap<>();
+	private static final ConcurrentMap<Class<?>, Boolean> class2EqualsOverridden = new ConcurrentHashMap<>();
+
 	private static final Map<String, Class<?>> primitiveClassName2Class;
 	static {
 		final Class<?>[] primitives = {
@@ -124,8 +131,18 @@ public class ClassManager {
 			if (clazz == null)
 				return null;
 
-			final Set<String> interfaceNames = getInterfaceNames(clazz);
-			classInfo = new ClassInfo(classId, clazz.getName(), interfaceNames, isEqualsOverridden(clazz));
+			// The class-id is specific to this ClassManager, but the rest is the same for all clients.
+			Set<String> interfaceNames = class2InterfaceNames.get(clazz);
+			if (interfaceNames == null) {
+				interfaceNames = Collections.unmodifiableSet(getInterfaceNames(clazz));
+				class2InterfaceNames.put(clazz, interfaceNames);
+			}
+			Boolean equalsOverridden = class2EqualsOverridden.get(clazz);
+			if (equalsOverridden == null) {
+				equalsOverridden = isEqualsOverridden(clazz);
+				class2EqualsOverridden.put(clazz, equalsOverridden);
+			}
+			classInfo = new ClassInfo(classId, clazz.getName(), interfaceNames, equalsOverridden);
 			classId2ClassInfo.put(classId, classInfo);
 		}
 		return classInfo;
@@ -179,18 +196,36 @@ public class ClassManager {
 	}
 
 	public Class<?> getClassOrFail(final String className) {
+		return forName(className);
+	}
+
+	/**
+	 * Gets the class with the given name - including the primitive types.
+	 * <p>
+	 * The result is cached, because {@link Class#forName(String)} is comparatively expensive and invoked for
+	 * the argument-types of nearly every method-invocation.
+	 * @param className the fully qualified name of the class. Must not be <code>null</code>.
+	 * @return the class. Never <code>null</code>.
+	 * @throws IllegalArgumentException if there is no such class.
+	 */
+	static Class<?> forName(final String className) {
 		requireNonNull(className, "className");
 
 		Class<?> clazz = primitiveClassName2Class.get(className);
 		if (clazz != null)
 			return clazz;
 
+		clazz = className2Class.get(className);
+		if (clazz != null)
+			return clazz;
+
 		// TODO maybe use context-class-loader, too and other loaders (which?)?
 		try {
 			clazz = Class.forName(className);
 		} catch (ClassNotFoundException e) {
 			throw new IllegalArgumentException(e);
 		}
+		className2Class.put(className, clazz);
 		return clazz;
 	}
 }
@@ -5,13 +5,13 @@ import static java.util.Objects.*;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ScheduledFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import co.codewizards.cloudstore.core.Uid;
+import co.codewizards.cloudstore.core.concurrent.SharedScheduler;
 
 public class IncDecRefCountQueue {
 
@@ -32,16 +32,23 @@ public class IncDecRefCountQueue {
 	private final List<ObjectRefWithRefId> incEntries = Collections.synchronizedList(new LinkedList<ObjectRefWithRefId>());
 	private final List<ObjectRefWithRefId> decEntries = Collections.synchronizedList(new LinkedList<ObjectRefWithRefId>());
 
-	private final Timer incDecRefCountTimer = new Timer("incDecRefCountTimer-" + Integer.toHexString(System.identityHashCode(this)), true);
-	private final TimerTask incDecRefCountTimerTask = new TimerTask() {
+	private final Runnable incDecRefCountTask = new Runnable() {
 		@Override
 		public void run() {
+			if (invoker.getObjectManager().isClosed()) {
+				// The ObjectManager was closed (e.g. the client is gone) => nobody needs to be notified, anymore.
+				final ScheduledFuture<?> future = incDecRefCountFuture;
+				if (future != null)
+					future.cancel(false);
+
+				return;
+			}
 			try {
 				final ObjectRefWithRefId[] incEntries = popIncEntries();
 				if (incEntries.length > 0)
 					invoker.invokeStatic(ObjectRef.class, ObjectRef.VIRTUAL_METHOD_NAME_INC_REF_COUNT, (Class<?>[])null, new Object[] { incEntries });
 			} catch (final Exception x) {
-				logger.error("incDecRefCountTimerTask.run: " + x, x);
+				logger.error("incDecRefCountTask.run: " + x, x);
 			}
 
 			try {
@@ -49,13 +56,13 @@ public class IncDecRefCountQueue {
 				if (decEntries.length > 0)
 					invoker.invokeStatic(ObjectRef.class, ObjectRef.VIRTUAL_METHOD_NAME_DEC_REF_COUNT, (Class<?>[])null, new Object[] { decEntries });
 			} catch (final Exception x) {
-				logger.error("incDecRefCountTimerTask.run: " + x, x);
+				logger.error("incDecRefCountTask.run: " + x, x);
 			}
-
-			// TODO cancel this task, if there's nothing to do and re-schedule when needed.
 		}
 	};
 
+	private volatile ScheduledFuture<?> incDecRefCountFuture;
+
 	private ObjectRefWithRefId[] popIncEntries() { // an array has the same effect as an ArrayList-subclass being annotated with @NoObjectRef - and is more efficient
 		final ObjectRefWithRefId[] result;
 		synchronized (incEntries) {
@@ -78,7 +85,9 @@ public class IncDecRefCountQueue {
 
 	public IncDecRefCountQueue(final Invoker invoker) {
 		this.invoker = requireNonNull(invoker, "invoker");
-		incDecRefCountTimer.schedule(incDecRefCountTimerTask, INC_DEC_REF_COUNT_PERIOD_MS, INC_DEC_REF_COUNT_PERIOD_MS);
+		// Shared by all instances, because the local-server has one instance per client.
+		incDecRefCountFuture = SharedScheduler.getInstance().schedulePeriodically(
+				incDecRefCountTask, INC_DEC_REF_COUNT_PERIOD_MS, INC_DEC_REF_COUNT_PERIOD_MS);
 	}
 
 	public void incRefCount(final ObjectRef objectRef, final Uid refId) {
@@ -0,0 +1,133 @@
+package co.codewizards.cloudstore.ls.core.invoke;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import co.codewizards.cloudstore.ls.core.dto.InvocationMetricsDto;
+
+/**
+ * Counters about the method-invocations performed by an {@link InvokeMethodExecutor}.
+ * <p>
+ * The latency of an invocation is measured from its submission until its completion - including the time it
+ * waited for the client's {@linkplain co.codewizards.cloudstore.ls.core.LsConfig#getLocalServerMaxConcurrentInvocationsPerClient()
+ * quota}.
+ * <p>
+ * This class is thread-safe. The instance is obtained via {@link InvokeMethodExecutor#getMetrics()}. Clients
+ * obtain a {@linkplain #toInvocationMetricsDto() snapshot} from the local-server's {@code InvocationMetrics} service.
+ */
+public class InvocationMetrics {
+
+	private final AtomicLong invocationCount = new AtomicLong();
+	private final AtomicLong failedInvocationCount = new AtomicLong();
+	private final AtomicLong queuedInvocationCount = new AtomicLong();
+	private final AtomicInteger runningInvocationCount = new AtomicInteger();
+	private final AtomicLong totalLatencyNanos = new AtomicLong();
+	private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+	protected InvocationMetrics() {
+	}
+
+	/**
+	 * Gets the number of clients currently connected - more precisely: the number of {@link ObjectManager}s.
+	 * @return the number of active clients.
+	 */
+	public int getActiveClientCount() {
+		return ObjectManager.getObjectManagerCount();
+	}
+
+	/**
+	 * Gets the number of completed invocations (including the failed ones).
+	 * @return the number of completed invocations.
+	 */
+	public long getInvocationCount() {
+		return invocationCount.get();
+	}
+
+	/**
+	 * Gets the number of invocations which threw an exception.
+	 * @return the number of failed invocations.
+	 */
+	public long getFailedInvocationCount() {
+		return failedInvocationCount.get();
+	}
+
+	/**
+	 * Gets the number of invocations which had to wait, because their client's quota was exhausted.
+	 * @return the number of invocations having been queued.
+	 */
+	public long getQueuedInvocationCount() {
+		return queuedInvocationCount.get();
+	}
+
+	/**
+	 * Gets the number of invocations currently running.
+	 * @return the number of running invocations.
+	 */
+	public int getRunningInvocationCount() {
+		return runningInvocationCount.get();
+	}
+
+	/**
+	 * Gets the average latency of all completed invocations.
+	 * @return the average latency in milliseconds.
+	 */
+	public double getAverageLatencyMillis() {
+		final long count = getInvocationCount();
+		return count == 0 ? 0 : totalLatencyNanos.get() / 1000000d / count;
+	}
+
+	/**
+	 * Gets the longest latency of all completed invocations.
+	 * @return the maximum latency in milliseconds.
+	 */
+	public double getMaxLatencyMillis() {
+		return maxLatencyNanos.get() / 1000000d;
+	}
+
+	/**
+	 * Creates a snapshot of the current values.
+	 * @return a new DTO. Never <code>null</code>.
+	 */
+	public InvocationMetricsDto toInvocationMetricsDto() {
+		final InvocationMetricsDto invocationMetricsDto = new InvocationMetricsDto();
+		invocationMetricsDto.setActiveClientCount(getActiveClientCount());
+		invocationMetricsDto.setInvocationCount(getInvocationCount());
+		invocationMetricsDto.setFailedInvocationCount(getFailedInvocationCount());
+		invocationMetricsDto.setQueuedInvocationCount(getQueuedInvocationCount());
+		invocationMetricsDto.setRunningInvocationCount(getRunningInvocationCount());
+		invocationMetricsDto.setAverageLatencyMillis(getAverageLatencyMillis());
+		invocationMetricsDto.setMaxLatencyMillis(getMaxLatencyMillis());
+		return invocationMetricsDto;
+	}
+
+	protected void incQueuedInvocationCount() {
+		queuedInvocationCount.incrementAndGet();
+	}
+
+	protected void onInvocationStarted() {
+		runningInvocationCount.incrementAndGet();
+	}
+
+	protected void onInvocationCompleted(final long latencyNanos, final boolean failed) {
+		runningInvocationCount.decrementAndGet();
+		invocationCount.incrementAndGet();
+		if (failed)
+			failedInvocationCount.incrementAndGet();
+
+		totalLatencyNanos.addAndGet(latencyNanos);
+		long max;
+		while ((max = maxLatencyNanos.get()) < latencyNanos && ! maxLatencyNanos.compareAndSet(max, latencyNanos));
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[activeClientCount=" + getActiveClientCount()
+				+ ", invocationCount=" + getInvocationCount()
+				+ ", failedInvocationCount=" + getFailedInvocationCount()
+				+ ", queuedInvocationCount=" + getQueuedInvocationCount()
+				+ ", runningInvocationCount=" + getRunningInvocationCount()
+				+ ", averageLatencyMillis=" + String.format("%.3f", getAverageLatencyMillis())
+				+ ", maxLatencyMillis=" + String.format("%.3f", getMaxLatencyMillis())
+				+ ']';
+	}
+}
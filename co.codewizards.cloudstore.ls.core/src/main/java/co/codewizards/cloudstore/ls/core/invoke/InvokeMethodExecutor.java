@@ -1,27 +1,30 @@
 package co.codewizards.cloudstore.ls.core.invoke;
 
 import static co.codewizards.cloudstore.core.chronos.ChronosUtil.*;
-import static co.codewizards.cloudstore.core.util.ReflectionUtil.*;
 import static java.util.Objects.*;
 
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import co.codewizards.cloudstore.core.Uid;
+import co.codewizards.cloudstore.core.concurrent.SharedScheduler;
+import co.codewizards.cloudstore.core.concurrent.VirtualThreadUtil;
+import co.codewizards.cloudstore.ls.core.LsConfig;
 import co.codewizards.cloudstore.ls.core.invoke.filter.ExtMethodInvocationRequest;
 import co.codewizards.cloudstore.ls.core.invoke.filter.InvocationFilterRegistry;
 
@@ -32,12 +35,22 @@ public class InvokeMethodExecutor {
 	private static final AtomicInteger nextInstanceId = new AtomicInteger();
 	private final int instanceId = nextInstanceId.getAndIncrement();
 
-	private final Executor executor = Executors.newCachedThreadPool();
+	/**
+	 * How long to wait for an invocation to complete, before a {@link DelayedMethodInvocationResponse} is returned.
+	 */
+	protected static final long RESPONSE_TIMEOUT_MS = 45000L;
+
+	private final Executor executor = VirtualThreadUtil.createUnboundedExecutorService(
+			null, String.format("InvokeMethodExecutor[%d].invocationThread_", instanceId), false);
 	private final Map<Uid, InvocationRunnable> delayedResponseId2InvocationRunnable = Collections.synchronizedMap(new HashMap<Uid, InvocationRunnable>());
 	private final SortedSet<DelayedResponseIdScheduledEviction> delayedResponseIdScheduledEvictions = Collections.synchronizedSortedSet(new TreeSet<DelayedResponseIdScheduledEviction>());
 
-	private final Timer evictOldDataTimer = new Timer(String.format("InvokeMethodExecutor[%d].evictOldDataTimer", instanceId), true);
-	private final TimerTask evictOldDataTimerTask = new TimerTask() {
+	private final int maxConcurrentInvocationsPerClient = LsConfig.getLocalServerMaxConcurrentInvocationsPerClient();
+	private final ConcurrentMap<Uid, ClientInvocationQueue> clientId2ClientInvocationQueue = new ConcurrentHashMap<>();
+	private final InvocationMetrics metrics = new InvocationMetrics();
+	private long lastLoggedInvocationCount; // only accessed by the evictOldDataTask
+
+	private final Runnable evictOldDataTask = new Runnable() {
 		@Override
 		public void run() {
 			try {
@@ -59,13 +72,27 @@ public class InvokeMethodExecutor {
 						delayedResponseId2InvocationRunnable.remove(delayedResponseId);
 				}
 			} catch (final Throwable t) {
-				logger.error("evictOldDataTimerTask.run: " + t, t);
+				logger.error("evictOldDataTask.run: " + t, t);
+			}
+
+			final long invocationCount = metrics.getInvocationCount();
+			if (lastLoggedInvocationCount != invocationCount) {
+				lastLoggedInvocationCount = invocationCount;
+				logger.info("[{}] {}", instanceId, metrics);
 			}
 		}
 	};
 
 	public InvokeMethodExecutor() {
-		evictOldDataTimer.schedule(evictOldDataTimerTask, 60000L, 60000L);
+		SharedScheduler.getInstance().schedulePeriodically(evictOldDataTask, 60000L, 60000L);
+	}
+
+	/**
+	 * Gets the metrics of this executor. They are logged every minute, too, if there were invocations.
+	 * @return the metrics. Never <code>null</code>.
+	 */
+	public InvocationMetrics getMetrics() {
+		return metrics;
 	}
 
 	public MethodInvocationResponse execute(final ExtMethodInvocationRequest extMethodInvocationRequest) throws Exception {
@@ -74,30 +101,193 @@ public class InvokeMethodExecutor {
 		InvocationFilterRegistry.getInstance().assertCanInvoke(extMethodInvocationRequest);
 
 		final InvocationRunnable invocationRunnable = new InvocationRunnable(extMethodInvocationRequest);
-		executor.execute(invocationRunnable);
+		submit(extMethodInvocationRequest.getObjectManager().getClientId(), isExemptFromQuota(extMethodInvocationRequest), invocationRunnable);
 
-		synchronized (invocationRunnable) {
-			MethodInvocationResponse methodInvocationResponse = invocationRunnable.getMethodInvocationResponse();
-			if (methodInvocationResponse != null)
-				return methodInvocationResponse;
+		return awaitResponse(invocationRunnable, nowAsMillis() + RESPONSE_TIMEOUT_MS);
+	}
 
-			Throwable error = invocationRunnable.getError();
-			if (error != null)
-				throwError(error);
+	/**
+	 * Executes multiple invocations - either concurrently or one after the other in the given order.
+	 * <p>
+	 * Like with {@link #execute(ExtMethodInvocationRequest)}, this method waits at most
+	 * {@link #RESPONSE_TIMEOUT_MS} (for all invocations together). For every invocation not yet completed then,
+	 * a {@link DelayedMethodInvocationResponse} is returned.
+	 * <p>
+	 * A failing invocation does not prevent the others from being executed - even if they are sequential.
+	 * @param extMethodInvocationRequests the invocations to be executed. Must not be <code>null</code>.
+	 * @param sequential <code>true</code> to execute the invocations one after the other (in one single thread);
+	 * <code>false</code> to execute them concurrently.
+	 * @return for each request (same index) either its {@link MethodInvocationResponse} or the {@link Throwable} it failed
+	 * with. Never <code>null</code>.
+	 */
+	public Object[] executeBatch(final List<ExtMethodInvocationRequest> extMethodInvocationRequests, final boolean sequential) {
+		requireNonNull(extMethodInvocationRequests, "extMethodInvocationRequests");
+
+		final Object[] result = new Object[extMethodInvocationRequests.size()];
+		final InvocationRunnable[] invocationRunnables = new InvocationRunnable[result.length];
+		for (int i = 0; i < result.length; ++i) {
+			final ExtMethodInvocationRequest extMethodInvocationRequest = extMethodInvocationRequests.get(i);
+			try {
+				InvocationFilterRegistry.getInstance().assertCanInvoke(extMethodInvocationRequest);
+				invocationRunnables[i] = new InvocationRunnable(extMethodInvocationRequest);
+			} catch (final Throwable x) {
+				result[i] = x;
+			}
+		}
+
+		final Uid clientId = extMethodInvocationRequests.isEmpty() ? null
+				: extMethodInvocationRequests.get(0).getObjectManager().getClientId();
+		final boolean exemptFromQuota = ! extMethodInvocationRequests.isEmpty()
+				&& isExemptFromQuota(extMethodInvocationRequests.get(0));
+
+		if (sequential) {
+			submit(clientId, exemptFromQuota, new Runnable() {
+				@Override
+				public void run() {
+					for (final InvocationRunnable invocationRunnable : invocationRunnables) {
+						if (invocationRunnable == null)
+							continue;
+
+						try {
+							invocationRunnable.run();
+						} catch (final Throwable x) {
+							logger.error("executeBatch.run: " + x, x);
+						}
+					}
+				}
+			});
+		}
+		else {
+			for (final InvocationRunnable invocationRunnable : invocationRunnables) {
+				if (invocationRunnable != null)
+					submit(clientId, exemptFromQuota, invocationRunnable);
+			}
+		}
+
+		final long deadline = nowAsMillis() + RESPONSE_TIMEOUT_MS;
+		for (int i = 0; i < result.length; ++i) {
+			if (invocationRunnables[i] == null)
+				continue;
 
 			try {
-				invocationRunnable.wait(45000L);
-			} catch (InterruptedException e) {
-				logger.debug("performMethodInvocation: " + e, e);
+				result[i] = awaitResponse(invocationRunnables[i], deadline);
+			} catch (final Throwable x) {
+				result[i] = x;
 			}
+		}
+		return result;
+	}
 
-			methodInvocationResponse = invocationRunnable.getMethodInvocationResponse();
-			if (methodInvocationResponse != null)
-				return methodInvocationResponse;
+	/**
+	 * Determines whether the given invocation must bypass its client's quota.
+	 * <p>
+	 * This is needed for re-entrant invocations: If an invocation running on the server waits for the client (e.g.
+	 * for an inverse service-request notifying a listener), the client might invoke the server again in order to
+	 * answer. If this nested invocation was queued behind the waiting ones, neither could ever complete.
+	 * <p>
+	 * The default implementation returns <code>false</code>. Override this method, if the transport knows about
+	 * such nested invocations.
+	 * @param extMethodInvocationRequest the invocation to be executed. Never <code>null</code>.
+	 * @return <code>true</code>, if the invocation is executed immediately - ignoring (and not counting towards) the
+	 * client's quota; <code>false</code>, if it is subject to the quota.
+	 */
+	protected boolean isExemptFromQuota(final ExtMethodInvocationRequest extMethodInvocationRequest) {
+		return false;
+	}
 
-			error = invocationRunnable.getError();
-			if (error != null)
-				throwError(error);
+	/**
+	 * Executes the given task as soon as the client's quota permits.
+	 * <p>
+	 * At most {@link LsConfig#getLocalServerMaxConcurrentInvocationsPerClient()} tasks of the same client run at the
+	 * same time - the others are queued. Thus, a single client cannot starve all others.
+	 */
+	private void submit(final Uid clientId, final boolean exemptFromQuota, final Runnable runnable) {
+		if (clientId == null || exemptFromQuota || maxConcurrentInvocationsPerClient <= 0) {
+			executor.execute(runnable);
+			return;
+		}
+
+		ClientInvocationQueue clientInvocationQueue = clientId2ClientInvocationQueue.get(clientId);
+		if (clientInvocationQueue == null) {
+			final ClientInvocationQueue newQueue = new ClientInvocationQueue(clientId);
+			clientInvocationQueue = clientId2ClientInvocationQueue.putIfAbsent(clientId, newQueue);
+			if (clientInvocationQueue == null)
+				clientInvocationQueue = newQueue;
+		}
+		clientInvocationQueue.submit(runnable);
+	}
+
+	/**
+	 * The tasks of one client. It is removed from {@link #clientId2ClientInvocationQueue}, when it becomes idle.
+	 */
+	private class ClientInvocationQueue {
+		private final Uid clientId;
+		private final Deque<Runnable> pendingRunnables = new ArrayDeque<>();
+		private int runningCount;
+
+		public ClientInvocationQueue(final Uid clientId) {
+			this.clientId = requireNonNull(clientId, "clientId");
+		}
+
+		public void submit(final Runnable runnable) {
+			synchronized (this) {
+				if (runningCount >= maxConcurrentInvocationsPerClient) {
+					pendingRunnables.addLast(runnable);
+					metrics.incQueuedInvocationCount();
+					return;
+				}
+				++runningCount;
+			}
+			executeNow(runnable);
+		}
+
+		private void executeNow(final Runnable runnable) {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						runnable.run();
+					} finally {
+						onCompleted();
+					}
+				}
+			});
+		}
+
+		private void onCompleted() {
+			final Runnable next;
+			synchronized (this) {
+				next = pendingRunnables.pollFirst();
+				if (next == null && --runningCount == 0)
+					clientId2ClientInvocationQueue.remove(clientId, this);
+			}
+			if (next != null)
+				executeNow(next);
+		}
+	}
+
+	private MethodInvocationResponse awaitResponse(final InvocationRunnable invocationRunnable, final long deadline) throws Exception {
+		synchronized (invocationRunnable) {
+			while (true) {
+				final MethodInvocationResponse methodInvocationResponse = invocationRunnable.getMethodInvocationResponse();
+				if (methodInvocationResponse != null)
+					return methodInvocationResponse;
+
+				final Throwable error = invocationRunnable.getError();
+				if (error != null)
+					throwError(error);
+
+				final long remaining = deadline - nowAsMillis();
+				if (remaining <= 0)
+					break;
+
+				try {
+					invocationRunnable.wait(remaining);
+				} catch (InterruptedException e) {
+					logger.debug("performMethodInvocation: " + e, e);
+					break;
+				}
+			}
 
 			final Uid delayedResponseId = invocationRunnable.getDelayedResponseId();
 			requireNonNull(delayedResponseId, "delayedResponseId");
@@ -165,6 +355,7 @@ public class InvokeMethodExecutor {
 		private final Logger logger = LoggerFactory.getLogger(InvocationRunnable.class);
 
 		private final ExtMethodInvocationRequest extMethodInvocationRequest;
+		private final long submitNanos = System.nanoTime();
 		private MethodInvocationResponse methodInvocationResponse;
 		private Throwable error;
 		private Uid delayedResponseId;
@@ -187,22 +378,24 @@ public class InvokeMethodExecutor {
 
 			final Object[] arguments = methodInvocationRequest.getArguments();
 
+			metrics.onInvocationStarted();
 			objectManager.getReferenceCleanerRegistry().preInvoke(extMethodInvocationRequest);
 
 			Throwable error = null;
 			Object resultObject = null;
 			try {
 
+				final MethodDispatcher methodDispatcher = MethodDispatcher.getInstance();
 				final InvocationType invocationType = methodInvocationRequest.getInvocationType();
 				switch (invocationType) {
 					case CONSTRUCTOR:
-						resultObject = invokeConstructor(clazz, arguments);
+						resultObject = methodDispatcher.invokeConstructor(clazz, arguments);
 						break;
 					case OBJECT:
-						resultObject = invoke(object, methodName, argumentTypes, arguments);
+						resultObject = methodDispatcher.invoke(object, methodName, argumentTypes, arguments);
 						break;
 					case STATIC:
-						resultObject = invokeStatic(clazz, methodName, arguments);
+						resultObject = methodDispatcher.invokeStatic(clazz, methodName, arguments);
 						break;
 					default:
 						throw new IllegalStateException("Unknown InvocationType: " + invocationType);
@@ -217,6 +410,7 @@ public class InvokeMethodExecutor {
 				logger.debug("run: " + x, x);
 			} finally {
 				objectManager.getReferenceCleanerRegistry().postInvoke(extMethodInvocationRequest, resultObject, error);
+				metrics.onInvocationCompleted(System.nanoTime() - submitNanos, error != null);
 			}
 
 			synchronized (this) {
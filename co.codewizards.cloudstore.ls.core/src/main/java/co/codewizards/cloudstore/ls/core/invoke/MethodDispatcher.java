@@ -0,0 +1,317 @@
+package co.codewizards.cloudstore.ls.core.invoke;
+
+import static co.codewizards.cloudstore.core.io.StreamUtil.*;
+import static co.codewizards.cloudstore.core.oio.OioFileFactory.*;
+import static java.util.Objects.*;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import co.codewizards.cloudstore.core.oio.File;
+import co.codewizards.cloudstore.core.util.ReflectionUtil;
+
+/**
+ * Invokes the constructors and methods requested by {@link MethodInvocationRequest}s.
+ * <p>
+ * Finding the constructor or method matching a name and the types of the arguments is expensive. Hence, the result
+ * of every lookup is cached as a {@link MethodHandle} - per class, method-name and argument-types. This cache is
+ * shared by all {@link ObjectManager}s, i.e. by all clients.
+ * <p>
+ * The lookup follows the same rules as {@link ReflectionUtil}: if multiple methods are compatible, the first
+ * one found is used.
+ * <p>
+ * The signatures used by a local-server are {@linkplain #writeDispatchKeys(File) written} into a file, when it
+ * stops, and {@linkplain #warmUp(File) resolved in advance} when it starts the next time. Thus, even the first
+ * invocations after a restart do not need to search the methods.
+ */
+public class MethodDispatcher {
+
+	private static final Logger logger = LoggerFactory.getLogger(MethodDispatcher.class);
+
+	/**
+	 * The maximum number of signatures written by {@link #writeDispatchKeys(File)}.
+	 */
+	protected static final int MAX_WRITTEN_DISPATCH_KEY_COUNT = 10000;
+
+	private static final MethodType DISPATCH_METHOD_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+	private final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+	private final ConcurrentMap<DispatchKey, MethodHandle> dispatchKey2MethodHandle = new ConcurrentHashMap<>();
+
+	private static final class Holder {
+		public static final MethodDispatcher instance = new MethodDispatcher();
+	}
+
+	public static MethodDispatcher getInstance() {
+		return Holder.instance;
+	}
+
+	protected MethodDispatcher() {
+	}
+
+	public Object invokeConstructor(final Class<?> clazz, final Object[] arguments) {
+		requireNonNull(clazz, "clazz");
+		final DispatchKey dispatchKey = new DispatchKey(InvocationType.CONSTRUCTOR, clazz, null,
+				ReflectionUtil.getArgumentTypes(arguments), false);
+		return dispatch(dispatchKey, null, arguments);
+	}
+
+	public Object invokeStatic(final Class<?> clazz, final String methodName, final Object[] arguments) {
+		requireNonNull(clazz, "clazz");
+		requireNonNull(methodName, "methodName");
+		final DispatchKey dispatchKey = new DispatchKey(InvocationType.STATIC, clazz, methodName,
+				ReflectionUtil.getArgumentTypes(arguments), false);
+		return dispatch(dispatchKey, null, arguments);
+	}
+
+	/**
+	 * Invokes a method on the given object.
+	 * @param object the object whose method to invoke. Must not be <code>null</code>.
+	 * @param methodName the name of the method. Must not be <code>null</code>.
+	 * @param argumentTypes the declared parameter-types of the method. If <code>null</code>, the method is looked
+	 * up using the types of the actual arguments.
+	 * @param arguments the arguments. May be <code>null</code>, if there are none.
+	 * @return the result of the invocation.
+	 */
+	public Object invoke(final Object object, final String methodName, final Class<?>[] argumentTypes, final Object[] arguments) {
+		requireNonNull(object, "object");
+		requireNonNull(methodName, "methodName");
+		final DispatchKey dispatchKey = argumentTypes == null
+				? new DispatchKey(InvocationType.OBJECT, object.getClass(), methodName, ReflectionUtil.getArgumentTypes(arguments), false)
+						: new DispatchKey(InvocationType.OBJECT, object.getClass(), methodName, argumentTypes, true);
+		return dispatch(dispatchKey, object, arguments);
+	}
+
+	private Object dispatch(final DispatchKey dispatchKey, final Object target, final Object[] arguments) {
+		final MethodHandle methodHandle = getMethodHandleOrCreate(dispatchKey);
+		// The static types of the arguments must match the MethodHandle's type exactly => a local variable is needed.
+		final Object[] args = arguments == null ? new Object[0] : arguments;
+		try {
+			return (Object) methodHandle.invokeExact(target, args);
+		} catch (final RuntimeException | Error x) {
+			throw x;
+		} catch (final Throwable x) {
+			throw new RuntimeException(x);
+		}
+	}
+
+	private MethodHandle getMethodHandleOrCreate(final DispatchKey dispatchKey) {
+		MethodHandle methodHandle = dispatchKey2MethodHandle.get(dispatchKey);
+		if (methodHandle == null) {
+			methodHandle = createMethodHandle(dispatchKey);
+			final MethodHandle old = dispatchKey2MethodHandle.putIfAbsent(dispatchKey, methodHandle);
+			if (old != null)
+				methodHandle = old;
+		}
+		return methodHandle;
+	}
+
+	/**
+	 * Creates a {@link MethodHandle} of the type {@code (Object target, Object[] arguments)Object} invoking the
+	 * constructor or method identified by the given key.
+	 */
+	private MethodHandle createMethodHandle(final DispatchKey dispatchKey) {
+		final MethodHandle methodHandle;
+		final int parameterCount;
+		final boolean targetNeeded;
+		try {
+			if (dispatchKey.invocationType == InvocationType.CONSTRUCTOR) {
+				final Constructor<?> constructor = dispatchKey.declaredTypes
+						? ReflectionUtil.getDeclaredConstructorOrFail(dispatchKey.clazz, dispatchKey.types)
+								: ReflectionUtil.getCompatibleConstructorOrFail(dispatchKey.clazz, dispatchKey.types);
+				constructor.setAccessible(true);
+				methodHandle = lookup.unreflectConstructor(constructor);
+				parameterCount = constructor.getParameterCount();
+				targetNeeded = false;
+			}
+			else {
+				final Method method = dispatchKey.declaredTypes
+						? ReflectionUtil.getDeclaredMethodOrFail(dispatchKey.clazz, dispatchKey.methodName, dispatchKey.types)
+								: ReflectionUtil.getCompatibleMethodOrFail(dispatchKey.clazz, dispatchKey.methodName, dispatchKey.types);
+				method.setAccessible(true);
+				methodHandle = lookup.unreflect(method);
+				parameterCount = method.getParameterCount();
+				targetNeeded = ! Modifier.isStatic(method.getModifiers());
+			}
+		} catch (final IllegalAccessException x) {
+			throw new RuntimeException(x);
+		}
+
+		MethodHandle result = methodHandle.asFixedArity();
+		result = result.asType(result.type().generic());
+		result = result.asSpreader(Object[].class, parameterCount);
+		if (! targetNeeded)
+			result = MethodHandles.dropArguments(result, 0, Object.class);
+
+		return result.asType(DISPATCH_METHOD_TYPE);
+	}
+
+	/**
+	 * Resolves all signatures listed in the given file, which was written by {@link #writeDispatchKeys(File)}.
+	 * <p>
+	 * Signatures which cannot be resolved (anymore) are silently skipped.
+	 * @param file the file to read. Must not be <code>null</code>. If it does not exist, this method does nothing.
+	 * @return the number of signatures resolved.
+	 */
+	public int warmUp(final File file) {
+		requireNonNull(file, "file");
+		if (! file.isFile())
+			return 0;
+
+		final List<String> lines = new ArrayList<>();
+		try (final Reader r = new InputStreamReader(castStream(file.createInputStream()), StandardCharsets.UTF_8)) {
+			final BufferedReader reader = new BufferedReader(r);
+			String line;
+			while ((line = reader.readLine()) != null)
+				lines.add(line);
+		} catch (final IOException x) {
+			logger.warn("warmUp: Reading " + file + " failed: " + x, x);
+			return 0;
+		}
+
+		int resolvedCount = 0;
+		for (final String line : lines) {
+			try {
+				final DispatchKey dispatchKey = DispatchKey.parse(line);
+				if (dispatchKey != null) {
+					getMethodHandleOrCreate(dispatchKey);
+					++resolvedCount;
+				}
+			} catch (final Exception x) { // the class or method might not exist anymore after an update
+				logger.debug("warmUp: Skipping '{}': {}", line, x.toString());
+			}
+		}
+		logger.debug("warmUp: Resolved {} of {} signatures.", resolvedCount, lines.size());
+		return resolvedCount;
+	}
+
+	/**
+	 * Writes the signatures resolved so far into the given file, allowing for {@link #warmUp(File)} later.
+	 * @param file the file to write. Must not be <code>null</code>. It is overwritten, if it exists.
+	 * @throws IOException if writing fails.
+	 */
+	public void writeDispatchKeys(final File file) throws IOException {
+		requireNonNull(file, "file");
+		final File tmpFile = createFile(file.getParentFile(), file.getName() + ".tmp");
+		int count = 0;
+		try (final Writer w = new OutputStreamWriter(castStream(tmpFile.createOutputStream()), StandardCharsets.UTF_8)) {
+			final BufferedWriter writer = new BufferedWriter(w);
+			for (final DispatchKey dispatchKey : dispatchKey2MethodHandle.keySet()) {
+				if (count >= MAX_WRITTEN_DISPATCH_KEY_COUNT)
+					break;
+
+				final String line = dispatchKey.format();
+				if (line != null) {
+					writer.write(line);
+					writer.newLine();
+					++count;
+				}
+			}
+			writer.flush();
+		}
+		file.delete();
+		tmpFile.move(file);
+	}
+
+	private static final class DispatchKey {
+		private static final char SEPARATOR = '\t';
+		private static final String NULL_TYPE = "-";
+
+		final InvocationType invocationType;
+		final Class<?> clazz;
+		final String methodName;
+		final Class<?>[] types;
+		final boolean declaredTypes;
+		private final int hashCode;
+
+		DispatchKey(final InvocationType invocationType, final Class<?> clazz, final String methodName, final Class<?>[] types, final boolean declaredTypes) {
+			this.invocationType = requireNonNull(invocationType, "invocationType");
+			this.clazz = requireNonNull(clazz, "clazz");
+			this.methodName = methodName;
+			this.types = requireNonNull(types, "types");
+			this.declaredTypes = declaredTypes;
+			this.hashCode = 31 * (31 * (31 * clazz.hashCode() + Objects.hashCode(methodName)) + Arrays.hashCode(types))
+					+ invocationType.hashCode() + (declaredTypes ? 1 : 0);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null || getClass() != obj.getClass())
+				return false;
+
+			final DispatchKey other = (DispatchKey) obj;
+			return this.hashCode == other.hashCode
+					&& this.invocationType == other.invocationType
+					&& this.clazz == other.clazz
+					&& this.declaredTypes == other.declaredTypes
+					&& Objects.equals(this.methodName, other.methodName)
+					&& Arrays.equals(this.types, other.types);
+		}
+
+		/**
+		 * Formats this key as one line.
+		 * @return the line or <code>null</code>, if this key cannot be resolved in another JVM.
+		 */
+		String format() {
+			if (Proxy.isProxyClass(clazz) || clazz.isAnonymousClass() || clazz.getName().contains("$$"))
+				return null;
+
+			final StringBuilder sb = new StringBuilder();
+			sb.append(invocationType.name()).append(SEPARATOR);
+			sb.append(declaredTypes).append(SEPARATOR);
+			sb.append(clazz.getName()).append(SEPARATOR);
+			sb.append(methodName == null ? "" : methodName);
+			for (final Class<?> type : types)
+				sb.append(SEPARATOR).append(type == null ? NULL_TYPE : type.getName());
+
+			return sb.toString();
+		}
+
+		static DispatchKey parse(final String line) {
+			final String[] fields = line.split(String.valueOf(SEPARATOR), -1);
+			if (fields.length < 4)
+				return null;
+
+			final InvocationType invocationType = InvocationType.valueOf(fields[0]);
+			final boolean declaredTypes = Boolean.parseBoolean(fields[1]);
+			final Class<?> clazz = ClassManager.forName(fields[2]);
+			final String methodName = fields[3].isEmpty() ? null : fields[3];
+			final Class<?>[] types = new Class<?>[fields.length - 4];
+			for (int i = 0; i < types.length; ++i) {
+				final String typeName = fields[i + 4];
+				types[i] = NULL_TYPE.equals(typeName) ? null : ClassManager.forName(typeName);
+			}
+			return new DispatchKey(invocationType, clazz, methodName, types, declaredTypes);
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package co.codewizards.cloudstore.ls.core.invoke;
+
+import static java.util.Objects.*;
+
+import java.io.Serializable;
+
+/**
+ * Multiple {@link MethodInvocationRequest}s transferred in one single round-trip.
+ * <p>
+ * If the batch is not {@linkplain #isSequential() sequential}, the calls are independent of each other and
+ * the server executes them concurrently. Otherwise, the server executes them one after the other in the order
+ * given here. In both cases, a failing call does not prevent the other calls from being executed.
+ */
+public class MethodInvocationBatchRequest implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private MethodInvocationRequest[] methodInvocationRequests;
+
+	private boolean sequential;
+
+	protected MethodInvocationBatchRequest() {
+	}
+
+	public MethodInvocationBatchRequest(final MethodInvocationRequest[] methodInvocationRequests, final boolean sequential) {
+		this.methodInvocationRequests = requireNonNull(methodInvocationRequests, "methodInvocationRequests");
+		this.sequential = sequential;
+	}
+
+	public MethodInvocationRequest[] getMethodInvocationRequests() {
+		return methodInvocationRequests;
+	}
+
+	public boolean isSequential() {
+		return sequential;
+	}
+}
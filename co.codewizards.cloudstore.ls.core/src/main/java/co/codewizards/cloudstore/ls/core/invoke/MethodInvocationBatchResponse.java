@@ -0,0 +1,40 @@
+package co.codewizards.cloudstore.ls.core.invoke;
+
+import static java.util.Objects.*;
+
+import java.io.Serializable;
+
+import co.codewizards.cloudstore.core.dto.Error;
+
+/**
+ * The outcome of a {@link MethodInvocationBatchRequest}.
+ * <p>
+ * For every request (same index), there is either a {@link MethodInvocationResponse} or an {@link Error}. A
+ * response may be a {@link DelayedMethodInvocationResponse}, if the call did not complete in time - it must then
+ * be fetched individually.
+ */
+public class MethodInvocationBatchResponse implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private MethodInvocationResponse[] methodInvocationResponses;
+
+	private Error[] errors;
+
+	protected MethodInvocationBatchResponse() {
+	}
+
+	public MethodInvocationBatchResponse(final MethodInvocationResponse[] methodInvocationResponses, final Error[] errors) {
+		this.methodInvocationResponses = requireNonNull(methodInvocationResponses, "methodInvocationResponses");
+		this.errors = requireNonNull(errors, "errors");
+		if (methodInvocationResponses.length != errors.length)
+			throw new IllegalArgumentException("methodInvocationResponses.length != errors.length");
+	}
+
+	public MethodInvocationResponse[] getMethodInvocationResponses() {
+		return methodInvocationResponses;
+	}
+
+	public Error[] getErrors() {
+		return errors;
+	}
+}
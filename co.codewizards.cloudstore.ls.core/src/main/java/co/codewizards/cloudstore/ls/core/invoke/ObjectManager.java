@@ -11,22 +11,33 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import co.codewizards.cloudstore.core.Uid;
+import co.codewizards.cloudstore.core.concurrent.SharedScheduler;
 import co.codewizards.cloudstore.ls.core.invoke.refjanitor.ReferenceJanitorRegistry;
 
+/**
+ * Registry of the objects referenced by one client via {@link ObjectRef}s.
+ * <p>
+ * Since many threads of the same client invoke methods concurrently, this class is not guarded by one single
+ * monitor. Instead, the mappings are held in concurrent maps and all modifications concerning one object
+ * (creating its {@code ObjectRef}, reference-counting, eviction) are synchronized on one of
+ * {@link #STRIPE_COUNT} stripes - chosen by the object's identity-hash-code. Threads working with different
+ * objects thus rarely block each other.
+ */
 public class ObjectManager {
 	/**
 	 * Timeout after which an unused {@code ObjectManager} is evicted.
@@ -62,35 +73,60 @@ public class ObjectManager {
 	protected static final long EVICT_ZERO_REFERENCE_OBJECT_REFS_TIMEOUT_MS = 30 * 1000L; // 30 seconds
 	protected static final long EVICT_ZERO_REFERENCE_OBJECT_REFS_PERIOD_MS = 5 * 1000L;
 
+	/**
+	 * Number of stripes the objects are distributed on. Must be a power of 2.
+	 */
+	protected static final int STRIPE_COUNT = 64;
+
 	private static final Logger logger = LoggerFactory.getLogger(ObjectManager.class);
 
 	private final Uid clientId;
 
-	private long nextObjectId;
+	private final AtomicLong nextObjectId = new AtomicLong();
 
-	private volatile Date lastUseDate;
+	private volatile long lastUseTimestamp; // not a Date in order to avoid an allocation on every access
 	private volatile boolean neverEvict;
 
-	private boolean closed;
+	private volatile boolean closed;
+
+	private final Map<ObjectRef, Object> objectRef2Object = new ConcurrentHashMap<>();
+	private final Map<String, Object> contextObjectMap = new ConcurrentHashMap<>();
 
-	private final Map<ObjectRef, Object> objectRef2Object = new HashMap<>();
-	private final Map<Object, ObjectRef> object2ObjectRef = new IdentityHashMap<>();
-	private final Map<String, Object> contextObjectMap = new HashMap<>();
+	private final Map<ObjectRef, Long> zeroReferenceObjectRef2Timestamp = new ConcurrentHashMap<>();
+	private final Map<ObjectRef, Set<Uid>> objectRef2RefIds = new ConcurrentHashMap<>(); // the Set is synchronized by the object's Stripe
+
+	/**
+	 * The object-to-{@code ObjectRef}-mapping must be based on identity. There is no concurrent identity-map
+	 * in the JRE, hence it is split into {@link IdentityHashMap}s - one per stripe - each guarded by its stripe.
+	 */
+	private static final class Stripe {
+		final Map<Object, ObjectRef> object2ObjectRef = new IdentityHashMap<>();
+	}
 
-	private final Map<ObjectRef, Long> zeroReferenceObjectRef2Timestamp = new HashMap<>();
-	private final Map<ObjectRef, Set<Uid>> objectRef2RefIds = new HashMap<>();
+	private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
+	{
+		for (int i = 0; i < stripes.length; ++i)
+			stripes[i] = new Stripe();
+	}
 
 	private final RemoteObjectProxyManager remoteObjectProxyManager = new RemoteObjectProxyManager();
 	private final ClassManager classManager;
 	private final ReferenceJanitorRegistry referenceJanitorRegistry;
 
-	private static final Map<Uid, ObjectManager> clientId2ObjectManager = new HashMap<>();
+	private static final ConcurrentMap<Uid, ObjectManager> clientId2ObjectManager = new ConcurrentHashMap<>();
+
+	private static final Function<Uid, ObjectManager> objectManagerFactory = new Function<Uid, ObjectManager>() {
+		@Override
+		public ObjectManager apply(final Uid clientId) {
+			return new ObjectManager(clientId);
+		}
+	};
 
+	// Only accessed by the evictTask (which never runs concurrently with itself).
 	private static long evictOldObjectManagersLastInvocation = 0;
 	private static long evictZeroReferenceObjectRefsLastInvocation = 0;
 
-	private static final Timer timer = new Timer(true);
-	private static final TimerTask timerTask = new TimerTask() {
+	private static final Runnable evictTask = new Runnable() {
 		@Override
 		public void run() {
 			try {
@@ -109,25 +145,32 @@ public class ObjectManager {
 		final long period = BigInteger.valueOf(EVICT_UNUSED_OBJECT_MANAGER_PERIOD_MS)
 				.gcd(BigInteger.valueOf(EVICT_ZERO_REFERENCE_OBJECT_REFS_PERIOD_MS)).longValue();
 
-		timer.schedule(timerTask, period, period);
+		SharedScheduler.getInstance().schedulePeriodically(evictTask, period, period);
 	}
 
-	public static synchronized ObjectManager getInstance(final Uid clientId) {
+	public static ObjectManager getInstance(final Uid clientId) {
 		requireNonNull(clientId, "clientId");
 		ObjectManager objectManager = clientId2ObjectManager.get(clientId);
-		if (objectManager == null) {
-			objectManager = new ObjectManager(clientId);
-			clientId2ObjectManager.put(clientId, objectManager);
-		}
+		if (objectManager == null)
+			objectManager = clientId2ObjectManager.computeIfAbsent(clientId, objectManagerFactory);
+
 		objectManager.updateLastUseDate();
 		return objectManager;
 	}
 
+	/**
+	 * Gets the number of {@code ObjectManager}s currently in use - i.e. the number of active clients.
+	 * @return the number of {@code ObjectManager}s.
+	 */
+	public static int getObjectManagerCount() {
+		return clientId2ObjectManager.size();
+	}
+
 	/**
 	 * @deprecated Only used for tests! Don't use this method productively!
 	 */
 	@Deprecated
-	public static synchronized void clearObjectManagers() {
+	public static void clearObjectManagers() {
 		clientId2ObjectManager.clear();
 	}
 
@@ -136,26 +179,24 @@ public class ObjectManager {
 		int objectManagerCountNeverEvict = 0;
 
 		final List<ObjectManager> objectManagersToClose = new LinkedList<>();
-		synchronized (ObjectManager.class) {
-			final long now = nowAsMillis();
+		final long now = nowAsMillis();
 
-			if (evictOldObjectManagersLastInvocation > now - EVICT_UNUSED_OBJECT_MANAGER_PERIOD_MS)
-				return;
+		if (evictOldObjectManagersLastInvocation > now - EVICT_UNUSED_OBJECT_MANAGER_PERIOD_MS)
+			return;
 
-			evictOldObjectManagersLastInvocation = now;
+		evictOldObjectManagersLastInvocation = now;
 
-			for (final ObjectManager objectManager : clientId2ObjectManager.values()) {
-				++objectManagerCountTotal;
+		for (final ObjectManager objectManager : clientId2ObjectManager.values()) {
+			++objectManagerCountTotal;
 
-				if (objectManager.isNeverEvict()) {
-					++objectManagerCountNeverEvict;
-					continue;
-				}
+			if (objectManager.isNeverEvict()) {
+				++objectManagerCountNeverEvict;
+				continue;
+			}
 
-				if (objectManager.getLastUseDate().getTime() < now - EVICT_UNUSED_OBJECT_MANAGER_TIMEOUT_MS) {
-					objectManagersToClose.add(objectManager);
-					logger.debug("evictOldObjectManagers: evicting ObjectManager with clientId={}", objectManager.getClientId());
-				}
+			if (objectManager.getLastUseDate().getTime() < now - EVICT_UNUSED_OBJECT_MANAGER_TIMEOUT_MS) {
+				objectManagersToClose.add(objectManager);
+				logger.debug("evictOldObjectManagers: evicting ObjectManager with clientId={}", objectManager.getClientId());
 			}
 		}
 
@@ -166,7 +207,7 @@ public class ObjectManager {
 				objectManagerCountTotal, objectManagerCountNeverEvict, objectManagersToClose.size());
 	}
 
-	private static synchronized List<ObjectManager> getObjectManagers() {
+	private static List<ObjectManager> getObjectManagers() {
 		final List<ObjectManager> objectManagers = new ArrayList<ObjectManager>(clientId2ObjectManager.values());
 		return objectManagers;
 	}
@@ -184,20 +225,50 @@ public class ObjectManager {
 			objectManager.evictZeroReferenceObjectRefs();
 	}
 
-	private synchronized void evictZeroReferenceObjectRefs() {
-		final long now = nowAsMillis();
+	/**
+	 * Removes all {@code ObjectRef}s not referenced by the other side within
+	 * {@link #EVICT_ZERO_REFERENCE_OBJECT_REFS_TIMEOUT_MS}.
+	 * <p>
+	 * The candidates are collected without any lock and grouped by their stripe. Then, each affected stripe is
+	 * locked only once for its entire batch - and every candidate is checked again, because it might have been
+	 * referenced in the meantime.
+	 */
+	protected void evictZeroReferenceObjectRefs() {
+		final long evictBefore = nowAsMillis() - EVICT_ZERO_REFERENCE_OBJECT_REFS_TIMEOUT_MS;
 
-		final LinkedList<ObjectRef> objectRefsToRemove = new LinkedList<>();
+		@SuppressWarnings("unchecked")
+		final List<ObjectRef>[] stripeIndex2ObjectRefsToRemove = new List[STRIPE_COUNT];
 		for (final Map.Entry<ObjectRef, Long> me : zeroReferenceObjectRef2Timestamp.entrySet()) {
+			if (me.getValue() >= evictBefore)
+				continue;
+
 			final ObjectRef objectRef = me.getKey();
-			final long timestamp = me.getValue();
+			final Object object = objectRef2Object.get(objectRef);
+			if (object == null)
+				continue; // removed concurrently
 
-			if (timestamp < now - EVICT_ZERO_REFERENCE_OBJECT_REFS_TIMEOUT_MS)
-				objectRefsToRemove.add(objectRef);
+			final int stripeIndex = getStripeIndex(object);
+			List<ObjectRef> objectRefsToRemove = stripeIndex2ObjectRefsToRemove[stripeIndex];
+			if (objectRefsToRemove == null)
+				stripeIndex2ObjectRefsToRemove[stripeIndex] = objectRefsToRemove = new ArrayList<>();
+
+			objectRefsToRemove.add(objectRef);
 		}
 
-		for (final ObjectRef objectRef : objectRefsToRemove)
-			remove(objectRef);
+		for (int stripeIndex = 0; stripeIndex < STRIPE_COUNT; ++stripeIndex) {
+			final List<ObjectRef> objectRefsToRemove = stripeIndex2ObjectRefsToRemove[stripeIndex];
+			if (objectRefsToRemove == null)
+				continue;
+
+			final Stripe stripe = stripes[stripeIndex];
+			synchronized (stripe) {
+				for (final ObjectRef objectRef : objectRefsToRemove) {
+					final Long timestamp = zeroReferenceObjectRef2Timestamp.get(objectRef);
+					if (timestamp != null && timestamp < evictBefore)
+						_remove(stripe, objectRef);
+				}
+			}
+		}
 	}
 
 	protected ObjectManager(final Uid clientId) {
@@ -208,10 +279,10 @@ public class ObjectManager {
 	}
 
 	protected Date getLastUseDate() {
-		return lastUseDate;
+		return new Date(lastUseTimestamp);
 	}
 	private void updateLastUseDate() {
-		this.lastUseDate = nowAsDate();
+		this.lastUseTimestamp = nowAsMillis();
 	}
 
 	public boolean isNeverEvict() {
@@ -231,19 +302,22 @@ public class ObjectManager {
 		return clientId;
 	}
 
-	public synchronized Object getContextObject(String key) {
+	public Object getContextObject(String key) {
 		return contextObjectMap.get(key);
 	}
 
-	public synchronized void putContextObject(String key, Object object) {
-		contextObjectMap.put(key, object);
+	public void putContextObject(String key, Object object) {
+		if (object == null)
+			contextObjectMap.remove(key);
+		else
+			contextObjectMap.put(key, object);
 	}
 
-	protected synchronized ObjectRef createObjectRef(Class<?> clazz) {
+	protected ObjectRef createObjectRef(Class<?> clazz) {
 		assertNotClosed();
 
 		final int classId = classManager.getClassIdOrCreate(clazz);
-		final ObjectRef objectRef = new ObjectRef(clientId, classId, nextObjectId++);
+		final ObjectRef objectRef = new ObjectRef(clientId, classId, nextObjectId.getAndIncrement());
 
 		if (! classManager.isClassIdKnownByRemoteSide(classId))
 			objectRef.setClassInfo(classManager.getClassInfo(classId));
@@ -251,35 +325,42 @@ public class ObjectManager {
 		return objectRef;
 	}
 
-	public synchronized Object getObjectRefOrObject(final Object object) {
+	public Object getObjectRefOrObject(final Object object) {
 		if (isObjectRefMappingEnabled(object))
 			return getObjectRefOrCreate(object);
 		else
 			return object;
 	}
 
-	public synchronized ObjectRef getObjectRefOrCreate(final Object object) {
-		ObjectRef objectRef = getObjectRef(object);
-		if (objectRef == null) {
-			objectRef = createObjectRef(object.getClass());
+	public ObjectRef getObjectRefOrCreate(final Object object) {
+		requireNonNull(object, "object");
+		assertNotInstanceOfObjectRef(object);
+		updateLastUseDate();
 
-			if (logger.isDebugEnabled())
-				logger.debug("[{}].getObjectRefOrCreate: Created {} for {} ({}).", clientId, objectRef, toIdentityString(object), object);
+		final Stripe stripe = getStripe(object);
+		synchronized (stripe) {
+			ObjectRef objectRef = stripe.object2ObjectRef.get(object);
+			if (objectRef == null) {
+				objectRef = createObjectRef(object.getClass());
 
-			objectRef2Object.put(objectRef, object);
-			object2ObjectRef.put(object, objectRef);
-			zeroReferenceObjectRef2Timestamp.put(objectRef, nowAsMillis());
-		}
-		else {
-			// Must refresh timestamp to guarantee enough time for reference handling.
-			// Otherwise it might be released after maybe only a few millis!
-			if (zeroReferenceObjectRef2Timestamp.containsKey(objectRef))
+				if (logger.isDebugEnabled())
+					logger.debug("[{}].getObjectRefOrCreate: Created {} for {} ({}).", clientId, objectRef, toIdentityString(object), object);
+
+				objectRef2Object.put(objectRef, object);
+				stripe.object2ObjectRef.put(object, objectRef);
 				zeroReferenceObjectRef2Timestamp.put(objectRef, nowAsMillis());
+			}
+			else {
+				// Must refresh timestamp to guarantee enough time for reference handling.
+				// Otherwise it might be released after maybe only a few millis!
+				if (zeroReferenceObjectRef2Timestamp.containsKey(objectRef))
+					zeroReferenceObjectRef2Timestamp.put(objectRef, nowAsMillis());
+			}
+			return objectRef;
 		}
-		return objectRef;
 	}
 
-	public synchronized ObjectRef getObjectRefOrFail(final Object object) {
+	public ObjectRef getObjectRefOrFail(final Object object) {
 		final ObjectRef objectRef = getObjectRef(object);
 		if (objectRef == null)
 			throw new IllegalArgumentException(String.format("ObjectManager[%s] does not have ObjectRef for this object: %s (%s)",
@@ -288,15 +369,19 @@ public class ObjectManager {
 		return objectRef;
 	}
 
-	public synchronized ObjectRef getObjectRef(final Object object) {
+	public ObjectRef getObjectRef(final Object object) {
 		requireNonNull(object, "object");
 		assertNotInstanceOfObjectRef(object);
-		final ObjectRef objectRef = object2ObjectRef.get(object);
+		final ObjectRef objectRef;
+		final Stripe stripe = getStripe(object);
+		synchronized (stripe) {
+			objectRef = stripe.object2ObjectRef.get(object);
+		}
 		updateLastUseDate();
 		return objectRef;
 	}
 
-	public synchronized Object getObjectOrFail(final ObjectRef objectRef) {
+	public Object getObjectOrFail(final ObjectRef objectRef) {
 		final Object object = getObject(objectRef);
 		if (object == null)
 			throw new IllegalArgumentException(String.format("ObjectManager[%s] does not have object for this ObjectRef: %s",
@@ -305,48 +390,62 @@ public class ObjectManager {
 		return object;
 	}
 
-	public synchronized Object getObject(final ObjectRef objectRef) {
+	public Object getObject(final ObjectRef objectRef) {
 		requireNonNull(objectRef, "objectRef");
 		final Object object = objectRef2Object.get(objectRef);
 		updateLastUseDate();
 		return object;
 	}
 
-	protected synchronized void remove(final ObjectRef objectRef) {
+	protected void remove(final ObjectRef objectRef) {
 		requireNonNull(objectRef, "objectRef");
 
-		if (!objectRef2Object.containsKey(objectRef))
+		final Object object = objectRef2Object.get(objectRef);
+		if (object == null)
 			throw new IllegalStateException("!objectRef2Object.containsKey(objectRef): " + objectRef);
 
+		final Stripe stripe = getStripe(object);
+		synchronized (stripe) {
+			if (!objectRef2Object.containsKey(objectRef))
+				throw new IllegalStateException("!objectRef2Object.containsKey(objectRef): " + objectRef);
+
+			_remove(stripe, objectRef);
+		}
+	}
+
+	private void _remove(final Stripe stripe, final ObjectRef objectRef) {
 		zeroReferenceObjectRef2Timestamp.remove(objectRef);
 		final Object object = objectRef2Object.remove(objectRef);
-		object2ObjectRef.remove(object);
+		stripe.object2ObjectRef.remove(object);
 		updateLastUseDate();
 
 		logger.debug("remove: {}", objectRef);
 	}
 
-	public synchronized void incRefCount(final Object object, final Uid refId) {
+	public void incRefCount(final Object object, final Uid refId) {
 		requireNonNull(object, "object");
 		requireNonNull(refId, "refId");
 
 		int refCountBefore;
 		int refCountAfter;
 
-		final ObjectRef objectRef = getObjectRefOrFail(object);
-		if (zeroReferenceObjectRef2Timestamp.remove(objectRef) != null) {
-			if (objectRef2RefIds.put(objectRef, new HashSet<Uid>(Collections.singleton(refId))) != null)
-				throw new IllegalStateException("Collision! WTF?!");
+		final ObjectRef objectRef;
+		synchronized (getStripe(object)) {
+			objectRef = getObjectRefOrFail(object);
+			if (zeroReferenceObjectRef2Timestamp.remove(objectRef) != null) {
+				if (objectRef2RefIds.put(objectRef, new HashSet<Uid>(Collections.singleton(refId))) != null)
+					throw new IllegalStateException("Collision! WTF?!");
 
-			refCountBefore = 0;
-			refCountAfter = 1;
-		}
-		else {
-			final Set<Uid> refIds = objectRef2RefIds.get(objectRef);
-			refCountBefore = refIds.size();
-			requireNonNull(refIds, "objectRef2RefIds.get(" + objectRef + ")");
-			refIds.add(refId);
-			refCountAfter = refIds.size();
+				refCountBefore = 0;
+				refCountAfter = 1;
+			}
+			else {
+				final Set<Uid> refIds = objectRef2RefIds.get(objectRef);
+				requireNonNull(refIds, "objectRef2RefIds.get(" + objectRef + ")");
+				refCountBefore = refIds.size();
+				refIds.add(refId);
+				refCountAfter = refIds.size();
+			}
 		}
 		classManager.setClassIdKnownByRemoteSide(objectRef.getClassId());
 
@@ -354,29 +453,41 @@ public class ObjectManager {
 				clientId, objectRef, refCountAfter, refCountBefore, refId);
 	}
 
-	public synchronized void decRefCount(final Object object, final Uid refId) {
+	public void decRefCount(final Object object, final Uid refId) {
 		requireNonNull(object, "object");
 		requireNonNull(refId, "refId");
 
 		int refCountBefore = 0;
 		int refCountAfter = 0;
 
-		final ObjectRef objectRef = getObjectRefOrFail(object);
-		final Set<Uid> refIds = objectRef2RefIds.get(objectRef);
-		if (refIds != null) {
-			refCountBefore = refIds.size();
-			refIds.remove(refId);
-			refCountAfter = refIds.size();
-
-			if (refIds.isEmpty()) {
-				objectRef2RefIds.remove(objectRef);
-				zeroReferenceObjectRef2Timestamp.put(objectRef, nowAsMillis());
+		final ObjectRef objectRef;
+		synchronized (getStripe(object)) {
+			objectRef = getObjectRefOrFail(object);
+			final Set<Uid> refIds = objectRef2RefIds.get(objectRef);
+			if (refIds != null) {
+				refCountBefore = refIds.size();
+				refIds.remove(refId);
+				refCountAfter = refIds.size();
+
+				if (refIds.isEmpty()) {
+					objectRef2RefIds.remove(objectRef);
+					zeroReferenceObjectRef2Timestamp.put(objectRef, nowAsMillis());
+				}
 			}
 		}
 		logger.trace("[{}].decRefCount: {} refCountAfter={} refCountBefore={} refId={}",
 				clientId, objectRef, refCountAfter, refCountBefore, refId);
 	}
 
+	private Stripe getStripe(final Object object) {
+		return stripes[getStripeIndex(object)];
+	}
+
+	private static int getStripeIndex(final Object object) {
+		final int h = System.identityHashCode(object);
+		return (h ^ (h >>> 16)) & (STRIPE_COUNT - 1);
+	}
+
 	private static void assertNotInstanceOfObjectRef(final Object object) {
 		if (object instanceof ObjectRef)
 			throw new IllegalArgumentException("object is an instance of ObjectRef! " + object);
@@ -423,11 +534,11 @@ public class ObjectManager {
 		return referenceJanitorRegistry;
 	}
 
-	public synchronized boolean isClosed() {
+	public boolean isClosed() {
 		return closed;
 	}
 
-	protected synchronized void assertNotClosed() {
+	protected void assertNotClosed() {
 		if (closed)
 			throw new IllegalStateException(String.format("ObjectManager[%s] is closed!", clientId));
 	}
@@ -439,9 +550,7 @@ public class ObjectManager {
 
 			closed = true;
 		}
-		synchronized (ObjectManager.class) {
-			clientId2ObjectManager.remove(clientId);
-		}
+		clientId2ObjectManager.remove(clientId, this);
 		referenceJanitorRegistry.cleanUp();
 	}
 }
@@ -0,0 +1,826 @@
+package co.codewizards.cloudstore.ls.core.provider;
+
+import static co.codewizards.cloudstore.core.util.ReflectionUtil.*;
+import static java.util.Objects.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import co.codewizards.cloudstore.core.Uid;
+import co.codewizards.cloudstore.core.ls.NoObjectRef;
+import co.codewizards.cloudstore.ls.core.invoke.ClassInfo;
+import co.codewizards.cloudstore.ls.core.invoke.DelayedMethodInvocationResponse;
+import co.codewizards.cloudstore.ls.core.invoke.ForceNonTransientClassSet;
+import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationRequest;
+import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationResponse;
+import co.codewizards.cloudstore.ls.core.invoke.ObjectManager;
+import co.codewizards.cloudstore.ls.core.invoke.ObjectRef;
+import co.codewizards.cloudstore.ls.core.invoke.ObjectRefConverter;
+import co.codewizards.cloudstore.ls.core.invoke.ObjectRefWithRefId;
+
+/**
+ * Compact binary codec for the object graphs transferred between {@code LocalServerClient} and {@code LocalServer}.
+ * <p>
+ * It supports the types occurring in nearly all invocations: primitives (and their wrappers), strings, {@link Date},
+ * enums, {@link Uid}, {@link ObjectRef}, the protocol's own types ({@link MethodInvocationRequest},
+ * {@link MethodInvocationResponse} etc.), the usual collections and arrays as well as DTOs. A DTO is a serializable
+ * class of our own ({@code co.codewizards.*}) without custom serialization and with a no-arg constructor. Its
+ * persistent fields are determined once per class and cached.
+ * <p>
+ * Like with the {@link JavaNativeWithObjectRefMessageBodyWriter}, every object is passed to the
+ * {@link ObjectRefConverter}, which replaces it by an {@link ObjectRef}, if needed. Shared references (and thus cycles)
+ * are preserved.
+ * <p>
+ * If the object graph contains anything else, {@link #encode(Object, ObjectRefConverter)} throws an
+ * {@link UnsupportedTypeException} and the caller falls back to Java native serialization. This is detected before
+ * any object is passed to the {@link ObjectRefConverter}.
+ */
+class BinaryObjectCodec {
+
+	/** The first byte of a message encoded by this codec. */
+	static final int FORMAT_BINARY = 'B';
+	/** The first byte of a message encoded by Java native serialization (fallback). */
+	static final int FORMAT_NATIVE = 'N';
+
+	static final int VERSION = 1;
+
+	private static final byte TAG_NULL = 0;
+	private static final byte TAG_BACK_REF = 1;
+	private static final byte TAG_STRING = 2;
+	private static final byte TAG_TRUE = 3;
+	private static final byte TAG_FALSE = 4;
+	private static final byte TAG_BYTE = 5;
+	private static final byte TAG_SHORT = 6;
+	private static final byte TAG_INT = 7;
+	private static final byte TAG_LONG = 8;
+	private static final byte TAG_FLOAT = 9;
+	private static final byte TAG_DOUBLE = 10;
+	private static final byte TAG_CHAR = 11;
+	private static final byte TAG_DATE = 12;
+	private static final byte TAG_UID = 13;
+	private static final byte TAG_ENUM = 14;
+	private static final byte TAG_OBJECT_REF = 15;
+	private static final byte TAG_BYTE_ARRAY = 16;
+	private static final byte TAG_OBJECT_ARRAY = 17;
+	private static final byte TAG_COLLECTION = 18;
+	private static final byte TAG_MAP = 19;
+	private static final byte TAG_METHOD_INVOCATION_REQUEST = 20;
+	private static final byte TAG_METHOD_INVOCATION_RESPONSE = 21;
+	private static final byte TAG_DELAYED_METHOD_INVOCATION_RESPONSE = 22;
+	private static final byte TAG_OBJECT_REF_WITH_REF_ID = 23;
+	private static final byte TAG_DTO = 24;
+
+	private static final Set<Class<?>> collectionClasses = new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+			ArrayList.class, LinkedList.class, HashSet.class, LinkedHashSet.class));
+
+	private static final Set<Class<?>> mapClasses = new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+			HashMap.class, LinkedHashMap.class));
+
+	private static final DtoSchema UNSUPPORTED_DTO_SCHEMA = new DtoSchema(null, null);
+
+	private static final Map<Class<?>, DtoSchema> class2DtoSchema = new ConcurrentHashMap<>();
+
+	/**
+	 * Thrown, if an object of a type not supported by this codec is encountered.
+	 */
+	static class UnsupportedTypeException extends Exception {
+		private static final long serialVersionUID = 1L;
+
+		public UnsupportedTypeException(final String message) {
+			super(message);
+		}
+
+		@Override
+		public synchronized Throwable fillInStackTrace() {
+			return this; // expected and handled => no need for an expensive stack trace.
+		}
+	}
+
+	private BinaryObjectCodec() { }
+
+	/**
+	 * Encodes the given object graph.
+	 * @param root the root of the object graph. May be <code>null</code>.
+	 * @param objectRefConverter the converter replacing objects by {@link ObjectRef}s. Must not be <code>null</code>.
+	 * @return the encoded message - starting with {@link #FORMAT_BINARY} and {@link #VERSION}. Never <code>null</code>.
+	 * @throws UnsupportedTypeException if the object graph contains an object not supported by this codec.
+	 */
+	static byte[] encode(final Object root, final ObjectRefConverter objectRefConverter) throws UnsupportedTypeException {
+		requireNonNull(objectRefConverter, "objectRefConverter");
+		// Converting an object to an ObjectRef registers it in the ObjectManager. If an unsupported type was found after
+		// some objects were converted, their ObjectRefs might never be transferred - the native serialization falling
+		// back does not necessarily convert the same objects. Hence, the entire graph is checked first without
+		// converting anything.
+		try {
+			new Encoder(new DataOutputStream(new DiscardingOutputStream()), null).writeObject(root);
+		} catch (final IOException e) {
+			throw new IllegalStateException(e); // should never happen with a DiscardingOutputStream.
+		}
+
+		final ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		final Encoder encoder = new Encoder(new DataOutputStream(bout), objectRefConverter);
+		try {
+			encoder.out.writeByte(FORMAT_BINARY);
+			encoder.out.writeByte(VERSION);
+			encoder.writeObject(root);
+			encoder.out.flush();
+		} catch (final IOException e) {
+			throw new IllegalStateException(e); // should never happen with a ByteArrayOutputStream.
+		}
+		return bout.toByteArray();
+	}
+
+	/**
+	 * Decodes an object graph. The {@link #FORMAT_BINARY} byte must already have been read from the given stream.
+	 * @param in the stream to read from. Must not be <code>null</code>.
+	 * @param objectRefConverter the converter resolving {@link ObjectRef}s. Must not be <code>null</code>.
+	 * @return the root of the decoded object graph. May be <code>null</code>.
+	 * @throws IOException if reading failed or the data is corrupt.
+	 */
+	static Object decode(final DataInputStream in, final ObjectRefConverter objectRefConverter) throws IOException {
+		final int version = in.readUnsignedByte();
+		if (version != VERSION)
+			throw new IOException("Unsupported version: " + version);
+
+		return new Decoder(requireNonNull(in, "in"), requireNonNull(objectRefConverter, "objectRefConverter")).readObject();
+	}
+
+	private static class Encoder {
+		final DataOutputStream out;
+		private final ObjectRefConverter objectRefConverter;
+		private final IdentityHashMap<Object, Integer> object2Handle = new IdentityHashMap<>();
+		private final Map<String, Integer> className2Index = new HashMap<>();
+
+		/**
+		 * @param out the stream to write to. Must not be <code>null</code>.
+		 * @param objectRefConverter the converter replacing objects by {@link ObjectRef}s. If <code>null</code>, the
+		 * object graph is only checked: The conversion is predicted by {@link ObjectManager#isObjectRefMappingEnabled(Object)}
+		 * without registering anything.
+		 */
+		Encoder(final DataOutputStream out, final ObjectRefConverter objectRefConverter) {
+			this.out = out;
+			this.objectRefConverter = objectRefConverter;
+		}
+
+		void writeObject(final Object object) throws IOException, UnsupportedTypeException {
+			if (object == null) {
+				out.writeByte(TAG_NULL);
+				return;
+			}
+			if (writeLeaf(object))
+				return;
+
+			final Integer handle = object2Handle.get(object);
+			if (handle != null) {
+				out.writeByte(TAG_BACK_REF);
+				out.writeInt(handle);
+				return;
+			}
+
+			final Class<?> clazz = object.getClass();
+			if (clazz.isAnnotationPresent(NoObjectRef.class) || ForceNonTransientClassSet.getInstance().isForceNonTransientClass(clazz))
+				throw new UnsupportedTypeException(clazz.getName());
+
+			if (objectRefConverter == null && ObjectManager.isObjectRefMappingEnabled(object))
+				return; // only checking: it will become an ObjectRef => its type does not matter.
+
+			final Object converted = objectRefConverter == null ? object : objectRefConverter.convertToObjectRefIfNeeded(object);
+			if (converted instanceof ObjectRef) {
+				writeObjectRef((ObjectRef) converted);
+				return;
+			}
+			if (converted != object) // a converter replacing by anything else than an ObjectRef is not supported.
+				throw new UnsupportedTypeException(clazz.getName());
+
+			if (clazz == MethodInvocationRequest.class) {
+				final MethodInvocationRequest request = (MethodInvocationRequest) object;
+				out.writeByte(TAG_METHOD_INVOCATION_REQUEST);
+				writeObject(request.getClassName());
+				writeObject(request.getObject());
+				writeObject(request.getMethodName());
+				writeObject(request.getArgumentTypeNames());
+				writeObject(request.getArguments());
+			}
+			else if (clazz == MethodInvocationResponse.class) {
+				final MethodInvocationResponse response = (MethodInvocationResponse) object;
+				out.writeByte(TAG_METHOD_INVOCATION_RESPONSE);
+				writeObject(response.getResult());
+				writeObject(response.getWritableArguments());
+			}
+			else if (clazz == DelayedMethodInvocationResponse.class) {
+				out.writeByte(TAG_DELAYED_METHOD_INVOCATION_RESPONSE);
+				writeUid(((DelayedMethodInvocationResponse) object).getDelayedResponseId());
+			}
+			else if (clazz == ObjectRefWithRefId.class) {
+				final ObjectRefWithRefId objectRefWithRefId = (ObjectRefWithRefId) object;
+				out.writeByte(TAG_OBJECT_REF_WITH_REF_ID);
+				writeObject(objectRefWithRefId.object);
+				writeUid(objectRefWithRefId.refId);
+			}
+			else if (clazz == byte[].class) {
+				final byte[] bytes = (byte[]) object;
+				registerHandle(object);
+				out.writeByte(TAG_BYTE_ARRAY);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+			else if (clazz.isArray()) {
+				if (clazz.getComponentType().isPrimitive())
+					throw new UnsupportedTypeException(clazz.getName());
+
+				final Object[] array = (Object[]) object;
+				registerHandle(object);
+				out.writeByte(TAG_OBJECT_ARRAY);
+				writeClassName(clazz.getComponentType().getName());
+				out.writeInt(array.length);
+				for (final Object element : array)
+					writeObject(element);
+			}
+			else if (collectionClasses.contains(clazz)) {
+				final Collection<?> collection = (Collection<?>) object;
+				registerHandle(object);
+				out.writeByte(TAG_COLLECTION);
+				writeClassName(clazz.getName());
+				out.writeInt(collection.size());
+				for (final Object element : collection)
+					writeObject(element);
+			}
+			else if (mapClasses.contains(clazz)) {
+				final Map<?, ?> map = (Map<?, ?>) object;
+				registerHandle(object);
+				out.writeByte(TAG_MAP);
+				writeClassName(clazz.getName());
+				out.writeInt(map.size());
+				for (final Map.Entry<?, ?> me : map.entrySet()) {
+					writeObject(me.getKey());
+					writeObject(me.getValue());
+				}
+			}
+			else
+				writeDto(object);
+		}
+
+		private boolean writeLeaf(final Object object) throws IOException {
+			if (object instanceof String) {
+				out.writeByte(TAG_STRING);
+				writeString((String) object);
+			}
+			else if (object instanceof Boolean)
+				out.writeByte(((Boolean) object).booleanValue() ? TAG_TRUE : TAG_FALSE);
+			else if (object instanceof Integer) {
+				out.writeByte(TAG_INT);
+				out.writeInt((Integer) object);
+			}
+			else if (object instanceof Long) {
+				out.writeByte(TAG_LONG);
+				out.writeLong((Long) object);
+			}
+			else if (object instanceof Byte) {
+				out.writeByte(TAG_BYTE);
+				out.writeByte((Byte) object);
+			}
+			else if (object instanceof Short) {
+				out.writeByte(TAG_SHORT);
+				out.writeShort((Short) object);
+			}
+			else if (object instanceof Float) {
+				out.writeByte(TAG_FLOAT);
+				out.writeFloat((Float) object);
+			}
+			else if (object instanceof Double) {
+				out.writeByte(TAG_DOUBLE);
+				out.writeDouble((Double) object);
+			}
+			else if (object instanceof Character) {
+				out.writeByte(TAG_CHAR);
+				out.writeChar((Character) object);
+			}
+			else if (object.getClass() == Date.class) {
+				out.writeByte(TAG_DATE);
+				out.writeLong(((Date) object).getTime());
+			}
+			else if (object instanceof Uid) {
+				out.writeByte(TAG_UID);
+				writeUid((Uid) object);
+			}
+			else if (object instanceof ObjectRef)
+				writeObjectRef((ObjectRef) object);
+			else if (object instanceof Enum<?>) {
+				final Enum<?> e = (Enum<?>) object;
+				out.writeByte(TAG_ENUM);
+				writeClassName(e.getDeclaringClass().getName());
+				writeString(e.name());
+			}
+			else
+				return false;
+
+			return true;
+		}
+
+		private void writeDto(final Object object) throws IOException, UnsupportedTypeException {
+			final DtoSchema dtoSchema = getDtoSchema(object.getClass());
+			if (dtoSchema == UNSUPPORTED_DTO_SCHEMA)
+				throw new UnsupportedTypeException(object.getClass().getName());
+
+			registerHandle(object);
+			out.writeByte(TAG_DTO);
+			final String className = object.getClass().getName();
+			final boolean newClass = !className2Index.containsKey(className);
+			writeClassName(className);
+			if (newClass) { // transfer the schema only once per message
+				out.writeShort(dtoSchema.fields.length);
+				for (final String fieldName : dtoSchema.fieldNames)
+					writeString(fieldName);
+			}
+			try {
+				for (final Field field : dtoSchema.fields)
+					writeFieldValue(field, object);
+			} catch (final IllegalAccessException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		private void writeFieldValue(final Field field, final Object object) throws IOException, UnsupportedTypeException, IllegalAccessException {
+			final Class<?> type = field.getType();
+			if (!type.isPrimitive())
+				writeObject(field.get(object));
+			else if (type == int.class)
+				out.writeInt(field.getInt(object));
+			else if (type == long.class)
+				out.writeLong(field.getLong(object));
+			else if (type == boolean.class)
+				out.writeBoolean(field.getBoolean(object));
+			else if (type == byte.class)
+				out.writeByte(field.getByte(object));
+			else if (type == short.class)
+				out.writeShort(field.getShort(object));
+			else if (type == char.class)
+				out.writeChar(field.getChar(object));
+			else if (type == float.class)
+				out.writeFloat(field.getFloat(object));
+			else if (type == double.class)
+				out.writeDouble(field.getDouble(object));
+			else
+				throw new IllegalStateException("Unknown primitive type: " + type);
+		}
+
+		private void writeObjectRef(final ObjectRef objectRef) throws IOException {
+			out.writeByte(TAG_OBJECT_REF);
+			writeUid(objectRef.getClientId());
+			out.writeInt(objectRef.getClassId());
+			out.writeLong(objectRef.getObjectId());
+			final ClassInfo classInfo = objectRef.getClassInfo();
+			out.writeBoolean(classInfo != null);
+			if (classInfo != null) {
+				out.writeInt(classInfo.getClassId());
+				writeClassName(classInfo.getClassName());
+				out.writeInt(classInfo.getInterfaceNames().size());
+				for (final String interfaceName : classInfo.getInterfaceNames())
+					writeClassName(interfaceName);
+				out.writeBoolean(classInfo.isEqualsOverridden());
+			}
+		}
+
+		private void writeUid(final Uid uid) throws IOException {
+			out.write(uid.toBytes());
+		}
+
+		private void writeClassName(final String className) throws IOException {
+			final Integer index = className2Index.get(className);
+			if (index != null)
+				out.writeInt(index);
+			else {
+				className2Index.put(className, className2Index.size());
+				out.writeInt(-1);
+				writeString(className);
+			}
+		}
+
+		private void writeString(final String string) throws IOException {
+			final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+
+		private void registerHandle(final Object object) {
+			object2Handle.put(object, object2Handle.size());
+		}
+	}
+
+	private static class Decoder {
+		private final DataInputStream in;
+		private final ObjectRefConverter objectRefConverter;
+		private final List<Object> handle2Object = new ArrayList<>();
+		private final List<String> index2ClassName = new ArrayList<>();
+		private final Map<String, Field[]> className2Fields = new HashMap<>();
+
+		Decoder(final DataInputStream in, final ObjectRefConverter objectRefConverter) {
+			this.in = in;
+			this.objectRefConverter = objectRefConverter;
+		}
+
+		Object readObject() throws IOException {
+			final byte tag = in.readByte();
+			switch (tag) {
+				case TAG_NULL:
+					return null;
+				case TAG_BACK_REF: {
+					final int handle = in.readInt();
+					if (handle < 0 || handle >= handle2Object.size())
+						throw new IOException("Invalid handle: " + handle);
+
+					return handle2Object.get(handle);
+				}
+				case TAG_STRING:
+					return readString();
+				case TAG_TRUE:
+					return Boolean.TRUE;
+				case TAG_FALSE:
+					return Boolean.FALSE;
+				case TAG_BYTE:
+					return in.readByte();
+				case TAG_SHORT:
+					return in.readShort();
+				case TAG_INT:
+					return in.readInt();
+				case TAG_LONG:
+					return in.readLong();
+				case TAG_FLOAT:
+					return in.readFloat();
+				case TAG_DOUBLE:
+					return in.readDouble();
+				case TAG_CHAR:
+					return in.readChar();
+				case TAG_DATE:
+					return new Date(in.readLong());
+				case TAG_UID:
+					return readUid();
+				case TAG_ENUM:
+					return readEnum();
+				case TAG_OBJECT_REF:
+					return objectRefConverter.convertFromObjectRefIfNeeded(readObjectRef());
+				case TAG_BYTE_ARRAY: {
+					final byte[] bytes = new byte[readLength()];
+					handle2Object.add(bytes);
+					in.readFully(bytes);
+					return bytes;
+				}
+				case TAG_OBJECT_ARRAY: {
+					final Class<?> componentType = loadClass(readClassName());
+					final Object[] array = (Object[]) Array.newInstance(componentType, readLength());
+					handle2Object.add(array);
+					for (int i = 0; i < array.length; ++i)
+						array[i] = readObject();
+					return array;
+				}
+				case TAG_COLLECTION:
+					return readCollection();
+				case TAG_MAP:
+					return readMap();
+				case TAG_METHOD_INVOCATION_REQUEST:
+					return readMethodInvocationRequest();
+				case TAG_METHOD_INVOCATION_RESPONSE: {
+					final Object result = readObject();
+					final Object[] writableArguments = (Object[]) readObject();
+					return MethodInvocationResponse.forInvocation(result, writableArguments);
+				}
+				case TAG_DELAYED_METHOD_INVOCATION_RESPONSE:
+					return new DelayedMethodInvocationResponse(readUid());
+				case TAG_OBJECT_REF_WITH_REF_ID: {
+					final Object object = readObject();
+					return new ObjectRefWithRefId(object, readUid());
+				}
+				case TAG_DTO:
+					return readDto();
+				default:
+					throw new IOException("Unknown tag: " + tag);
+			}
+		}
+
+		private MethodInvocationRequest readMethodInvocationRequest() throws IOException {
+			final String className = (String) readObject();
+			final Object object = readObject();
+			final String methodName = (String) readObject();
+			final String[] argumentTypeNames = (String[]) readObject();
+			final Object[] arguments = (Object[]) readObject();
+			if (className == null)
+				return MethodInvocationRequest.forObjectInvocation(object, methodName, argumentTypeNames, arguments);
+			else if (methodName == null)
+				return MethodInvocationRequest.forConstructorInvocation(className, argumentTypeNames, arguments);
+			else
+				return MethodInvocationRequest.forStaticInvocation(className, methodName, argumentTypeNames, arguments);
+		}
+
+		private Object readCollection() throws IOException {
+			final Class<?> clazz = loadClass(readClassName());
+			if (!collectionClasses.contains(clazz))
+				throw new IOException("Unsupported collection class: " + clazz.getName());
+
+			final int size = readLength();
+			final Collection<Object> collection = cast(newInstance(clazz));
+			handle2Object.add(collection);
+			for (int i = 0; i < size; ++i)
+				collection.add(readObject());
+
+			return collection;
+		}
+
+		private Object readMap() throws IOException {
+			final Class<?> clazz = loadClass(readClassName());
+			if (!mapClasses.contains(clazz))
+				throw new IOException("Unsupported map class: " + clazz.getName());
+
+			final int size = readLength();
+			final Map<Object, Object> map = cast(newInstance(clazz));
+			handle2Object.add(map);
+			for (int i = 0; i < size; ++i) {
+				final Object key = readObject();
+				map.put(key, readObject());
+			}
+			return map;
+		}
+
+		private Object readDto() throws IOException {
+			final String className = readClassName();
+			final Class<?> clazz = loadClass(className);
+			final DtoSchema dtoSchema = getDtoSchema(clazz);
+			if (dtoSchema == UNSUPPORTED_DTO_SCHEMA)
+				throw new IOException("Unsupported DTO class: " + className);
+
+			Field[] fields = className2Fields.get(className);
+			if (fields == null) {
+				final int fieldCount = in.readUnsignedShort();
+				final String[] fieldNames = new String[fieldCount];
+				for (int i = 0; i < fieldCount; ++i)
+					fieldNames[i] = readString();
+
+				fields = Arrays.equals(fieldNames, dtoSchema.fieldNames) ? dtoSchema.fields : dtoSchema.getFields(fieldNames);
+				className2Fields.put(className, fields);
+			}
+
+			final Object object = dtoSchema.newInstance();
+			handle2Object.add(object);
+			try {
+				for (final Field field : fields)
+					readFieldValue(field, object);
+			} catch (final IllegalAccessException e) {
+				throw new IllegalStateException(e);
+			}
+			return object;
+		}
+
+		private void readFieldValue(final Field field, final Object object) throws IOException, IllegalAccessException {
+			final Class<?> type = field.getType();
+			if (!type.isPrimitive())
+				field.set(object, readObject());
+			else if (type == int.class)
+				field.setInt(object, in.readInt());
+			else if (type == long.class)
+				field.setLong(object, in.readLong());
+			else if (type == boolean.class)
+				field.setBoolean(object, in.readBoolean());
+			else if (type == byte.class)
+				field.setByte(object, in.readByte());
+			else if (type == short.class)
+				field.setShort(object, in.readShort());
+			else if (type == char.class)
+				field.setChar(object, in.readChar());
+			else if (type == float.class)
+				field.setFloat(object, in.readFloat());
+			else if (type == double.class)
+				field.setDouble(object, in.readDouble());
+			else
+				throw new IllegalStateException("Unknown primitive type: " + type);
+		}
+
+		private Object readEnum() throws IOException {
+			final Class<?> clazz = loadClass(readClassName());
+			if (!clazz.isEnum())
+				throw new IOException("Not an enum: " + clazz.getName());
+
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			final Object result = Enum.valueOf((Class) clazz, readString());
+			return result;
+		}
+
+		private ObjectRef readObjectRef() throws IOException {
+			final ObjectRef objectRef = new ObjectRef(readUid(), in.readInt(), in.readLong());
+			if (in.readBoolean()) {
+				final int classId = in.readInt();
+				final String className = readClassName();
+				final int interfaceNameCount = readLength();
+				final Set<String> interfaceNames = new HashSet<>(interfaceNameCount);
+				for (int i = 0; i < interfaceNameCount; ++i)
+					interfaceNames.add(readClassName());
+
+				objectRef.setClassInfo(new ClassInfo(classId, className, Collections.unmodifiableSet(interfaceNames), in.readBoolean()));
+			}
+			return objectRef;
+		}
+
+		private Uid readUid() throws IOException {
+			final byte[] bytes = new byte[Uid.LENGTH_BYTES];
+			in.readFully(bytes);
+			return new Uid(bytes);
+		}
+
+		private String readClassName() throws IOException {
+			final int index = in.readInt();
+			if (index >= 0) {
+				if (index >= index2ClassName.size())
+					throw new IOException("Invalid class-name-index: " + index);
+
+				return index2ClassName.get(index);
+			}
+			final String className = readString();
+			index2ClassName.add(className);
+			return className;
+		}
+
+		private String readString() throws IOException {
+			final byte[] bytes = new byte[readLength()];
+			in.readFully(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		private int readLength() throws IOException {
+			final int length = in.readInt();
+			if (length < 0)
+				throw new IOException("Negative length: " + length);
+
+			return length;
+		}
+
+		private Object newInstance(final Class<?> clazz) throws IOException {
+			try {
+				return clazz.getConstructor().newInstance();
+			} catch (final ReflectiveOperationException e) {
+				throw new IOException(e);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private static <T> T cast(final Object o) {
+			return (T) o;
+		}
+	}
+
+	private static Class<?> loadClass(final String className) throws IOException {
+		final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+		if (contextClassLoader != null) {
+			try {
+				return Class.forName(className, false, contextClassLoader);
+			} catch (final ClassNotFoundException | NoClassDefFoundError x) {
+				// try again with the static ClassLoader below
+			}
+		}
+		final ClassLoader staticClassLoader = JavaNativeMessageBodyReader.getClassLoader();
+		try {
+			return Class.forName(className, false, staticClassLoader != null ? staticClassLoader : BinaryObjectCodec.class.getClassLoader());
+		} catch (final ClassNotFoundException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private static DtoSchema getDtoSchema(final Class<?> clazz) {
+		DtoSchema dtoSchema = class2DtoSchema.get(clazz);
+		if (dtoSchema == null) {
+			dtoSchema = createDtoSchema(clazz);
+			class2DtoSchema.put(clazz, dtoSchema);
+		}
+		return dtoSchema;
+	}
+
+	private static DtoSchema createDtoSchema(final Class<?> clazz) {
+		if (!Serializable.class.isAssignableFrom(clazz) || Externalizable.class.isAssignableFrom(clazz)
+				|| clazz.isArray() || clazz.isEnum() || clazz.isInterface() || Proxy.isProxyClass(clazz)
+				|| Modifier.isAbstract(clazz.getModifiers())
+				|| !clazz.getName().startsWith("co.codewizards.")
+				|| clazz.isAnnotationPresent(NoObjectRef.class)
+				|| ForceNonTransientClassSet.getInstance().isForceNonTransientClass(clazz))
+			return UNSUPPORTED_DTO_SCHEMA;
+
+		final Constructor<?> constructor;
+		try {
+			constructor = clazz.getDeclaredConstructor();
+			constructor.setAccessible(true);
+		} catch (final NoSuchMethodException | RuntimeException e) {
+			return UNSUPPORTED_DTO_SCHEMA;
+		}
+
+		for (Class<?> c = clazz; c != null && Serializable.class.isAssignableFrom(c); c = c.getSuperclass()) {
+			for (final Method method : c.getDeclaredMethods()) {
+				switch (method.getName()) {
+					case "writeObject":
+					case "readObject":
+					case "readObjectNoData":
+					case "writeReplace":
+					case "readResolve":
+						return UNSUPPORTED_DTO_SCHEMA;
+				}
+			}
+		}
+
+		final List<Field> fields = new ArrayList<>();
+		for (final Field field : getAllDeclaredFields(clazz)) {
+			if ("serialPersistentFields".equals(field.getName()) && Modifier.isStatic(field.getModifiers()))
+				return UNSUPPORTED_DTO_SCHEMA;
+
+			if ((field.getModifiers() & (Modifier.STATIC | Modifier.TRANSIENT)) != 0)
+				continue;
+
+			if (!Serializable.class.isAssignableFrom(field.getDeclaringClass()))
+				continue; // like native serialization: the fields of non-serializable super-classes are not transferred.
+
+			if (field.isAnnotationPresent(NoObjectRef.class))
+				return UNSUPPORTED_DTO_SCHEMA;
+
+			try {
+				field.setAccessible(true);
+			} catch (final RuntimeException x) {
+				return UNSUPPORTED_DTO_SCHEMA;
+			}
+			fields.add(field);
+		}
+		return new DtoSchema(constructor, fields.toArray(new Field[fields.size()]));
+	}
+
+	/**
+	 * The persistent fields and the constructor of a DTO class. Determined once per class and cached.
+	 */
+	private static class DtoSchema {
+		final Constructor<?> constructor;
+		final Field[] fields;
+		final String[] fieldNames;
+
+		DtoSchema(final Constructor<?> constructor, final Field[] fields) {
+			this.constructor = constructor;
+			this.fields = fields;
+			if (fields == null)
+				this.fieldNames = null;
+			else {
+				this.fieldNames = new String[fields.length];
+				for (int i = 0; i < fields.length; ++i)
+					fieldNames[i] = fields[i].getDeclaringClass().getName() + '.' + fields[i].getName();
+			}
+		}
+
+		Object newInstance() throws IOException {
+			try {
+				return constructor.newInstance();
+			} catch (final ReflectiveOperationException e) {
+				throw new IOException(e);
+			}
+		}
+
+		/**
+		 * Gets the fields in the order of the given names - used, if the sender's class differs from ours.
+		 */
+		Field[] getFields(final String[] names) throws IOException {
+			final Field[] result = new Field[names.length];
+			for (int i = 0; i < names.length; ++i) {
+				final int index = Arrays.asList(fieldNames).indexOf(names[i]);
+				if (index < 0)
+					throw new IOException("Field not found: " + names[i]);
+
+				result[i] = fields[index];
+			}
+			return result;
+		}
+	}
+
+	private static class DiscardingOutputStream extends OutputStream {
+		@Override
+		public void write(final int b) { }
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) { }
+	}
+}
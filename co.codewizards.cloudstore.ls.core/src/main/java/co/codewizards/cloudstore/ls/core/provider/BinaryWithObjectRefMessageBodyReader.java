@@ -0,0 +1,69 @@
+package co.codewizards.cloudstore.ls.core.provider;
+
+import static java.util.Objects.*;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.Provider;
+
+import co.codewizards.cloudstore.core.io.NoCloseInputStream;
+import co.codewizards.cloudstore.ls.core.invoke.ObjectRefConverter;
+import co.codewizards.cloudstore.ls.core.invoke.ObjectRefConverterFactory;
+
+/**
+ * Reads an object graph written by the {@link BinaryWithObjectRefMessageBodyWriter}.
+ */
+@Provider
+@Consumes(MediaTypeConst.APPLICATION_CLOUDSTORE_BINARY_WITH_OBJECT_REF)
+public class BinaryWithObjectRefMessageBodyReader
+implements MessageBodyReader<Object>
+{
+	private final ObjectRefConverterFactory objectRefConverterFactory;
+
+	@Context
+	private SecurityContext securityContext;
+
+	public BinaryWithObjectRefMessageBodyReader(final ObjectRefConverterFactory objectRefConverterFactory) {
+		this.objectRefConverterFactory = requireNonNull(objectRefConverterFactory, "objectRefConverterFactory");
+	}
+
+	@Override
+	public boolean isReadable(final Class<?> type, final Type genericType, final Annotation[] annotations, final MediaType mediaType) {
+		return true;
+	}
+
+	@Override
+	public Object readFrom(
+			final Class<Object> type, final Type genericType,
+			final Annotation[] annotations, final MediaType mediaType,
+			final MultivaluedMap<String, String> httpHeaders, final InputStream entityStream
+			)
+					throws IOException, WebApplicationException
+	{
+		final ObjectRefConverter objectRefConverter = objectRefConverterFactory.createObjectRefConverter(securityContext);
+		return readObjectGraph(objectRefConverter, entityStream);
+	}
+
+	static Object readObjectGraph(final ObjectRefConverter objectRefConverter, final InputStream entityStream) throws IOException {
+		final int format = entityStream.read();
+		switch (format) {
+			case BinaryObjectCodec.FORMAT_BINARY:
+				return BinaryObjectCodec.decode(new DataInputStream(new NoCloseInputStream(entityStream)), objectRefConverter);
+			case BinaryObjectCodec.FORMAT_NATIVE:
+				return JavaNativeWithObjectRefMessageBodyReader.readObjectGraph(objectRefConverter, entityStream);
+			default:
+				throw new IOException("Unknown format: " + format);
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package co.codewizards.cloudstore.ls.core.provider;
+
+import static java.util.Objects.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import co.codewizards.cloudstore.ls.core.invoke.ObjectRefConverter;
+import co.codewizards.cloudstore.ls.core.invoke.ObjectRefConverterFactory;
+
+/**
+ * Writes the object graph using the compact {@link BinaryObjectCodec}. If the object graph contains
+ * a type not supported by this codec, the whole message is written exactly like with the
+ * {@link JavaNativeWithObjectRefMessageBodyWriter} instead. The first byte tells the
+ * {@link BinaryWithObjectRefMessageBodyReader}, which encoding was used.
+ */
+@Provider
+@Produces(MediaTypeConst.APPLICATION_CLOUDSTORE_BINARY_WITH_OBJECT_REF)
+public class BinaryWithObjectRefMessageBodyWriter
+implements MessageBodyWriter<Object>
+{
+	private static final Logger logger = LoggerFactory.getLogger(BinaryWithObjectRefMessageBodyWriter.class);
+
+	private final ObjectRefConverterFactory objectRefConverterFactory;
+
+	@Context
+	private SecurityContext securityContext;
+
+	public BinaryWithObjectRefMessageBodyWriter(final ObjectRefConverterFactory objectRefConverterFactory) {
+		this.objectRefConverterFactory = requireNonNull(objectRefConverterFactory, "objectRefConverterFactory");
+	}
+
+	@Override
+	public long getSize(Object t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+	{
+		return -1;
+	}
+
+	@Override
+	public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+		return true;
+	}
+
+	@Override
+	public void writeTo(
+			Object t, Class<?> type, Type genericType,
+			Annotation[] annotations, MediaType mediaType,
+			MultivaluedMap<String, Object> httpHeaders,
+			OutputStream entityStream
+			) throws IOException, WebApplicationException
+	{
+		final ObjectRefConverter objectRefConverter = objectRefConverterFactory.createObjectRefConverter(securityContext);
+		writeObjectGraph(t, objectRefConverter, entityStream);
+	}
+
+	static void writeObjectGraph(final Object t, final ObjectRefConverter objectRefConverter, final OutputStream entityStream) throws IOException {
+		final byte[] encoded;
+		try {
+			encoded = BinaryObjectCodec.encode(t, objectRefConverter);
+		} catch (final BinaryObjectCodec.UnsupportedTypeException x) {
+			logger.debug("writeTo: Falling back to native serialization because of unsupported type: {}", x.getMessage());
+			entityStream.write(BinaryObjectCodec.FORMAT_NATIVE);
+			JavaNativeWithObjectRefMessageBodyWriter.writeObjectGraph(t, objectRefConverter, entityStream);
+			return;
+		}
+		entityStream.write(encoded);
+	}
+}
@@ -58,6 +58,10 @@ implements MessageBodyReader<Object>
 					throws IOException, WebApplicationException
 	{
 		final ObjectRefConverter objectRefConverter = objectRefConverterFactory.createObjectRefConverter(securityContext);
+		return readObjectGraph(objectRefConverter, entityStream);
+	}
+
+	static Object readObjectGraph(final ObjectRefConverter objectRefConverter, final InputStream entityStream) throws IOException {
 		try (ObjectInputStream oin = new ResolvingObjectInputStream(new NoCloseInputStream(entityStream), objectRefConverter);) {
 			final Object o = oin.readObject();
 			final ObjectGraphContainer objectGraphContainer = (ObjectGraphContainer) o;
@@ -69,10 +73,9 @@ implements MessageBodyReader<Object>
 		} catch (ClassNotFoundException e) {
 			throw new IOException(e);
 		}
-
 	}
 
-	private void restoreTransientFields(final ForceNonTransientContainer container) {
+	private static void restoreTransientFields(final ForceNonTransientContainer container) {
 		final Object ownerObject = container.getTransientFieldOwnerObject();
 
 		for (final Map.Entry<String, Object> me : container.getTransientFieldName2Value().entrySet()) {
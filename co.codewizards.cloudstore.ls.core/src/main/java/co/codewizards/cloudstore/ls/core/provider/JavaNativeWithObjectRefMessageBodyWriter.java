@@ -81,6 +81,10 @@ implements MessageBodyWriter<Object>
 			) throws IOException, WebApplicationException
 	{
 		final ObjectRefConverter objectRefConverter = objectRefConverterFactory.createObjectRefConverter(securityContext);
+		writeObjectGraph(t, objectRefConverter, entityStream);
+	}
+
+	static void writeObjectGraph(final Object t, final ObjectRefConverter objectRefConverter, final OutputStream entityStream) throws IOException {
 		final ObjectGraphContainer objectGraphContainer = new ObjectGraphContainer(t);
 		final NoObjectRefAnalyser noObjectRefAnalyser = new NoObjectRefAnalyser(objectGraphContainer);
 		try (ObjectOutputStream oout = new ReplacingObjectOutputStream(new NoCloseOutputStream(entityStream), objectRefConverter, noObjectRefAnalyser, objectGraphContainer);) {
@@ -12,4 +12,13 @@ public interface MediaTypeConst
 
 	String APPLICATION_JAVA_NATIVE_WITH_OBJECT_REF = "application/java-native+oref"; //$NON-NLS-1$
 	MediaType APPLICATION_JAVA_NATIVE_WITH_OBJECT_REF_TYPE = new MediaType("application", "java-native+oref"); //$NON-NLS-1$ //$NON-NLS-2$
+
+	/**
+	 * Compact binary encoding of the local-server's invocation protocol - see {@link BinaryWithObjectRefMessageBodyWriter}.
+	 * <p>
+	 * Object graphs not supported by the binary codec are transparently encoded like
+	 * {@link #APPLICATION_JAVA_NATIVE_WITH_OBJECT_REF} (inside the same media-type).
+	 */
+	String APPLICATION_CLOUDSTORE_BINARY_WITH_OBJECT_REF = "application/cloudstore-binary+oref"; //$NON-NLS-1$
+	MediaType APPLICATION_CLOUDSTORE_BINARY_WITH_OBJECT_REF_TYPE = new MediaType("application", "cloudstore-binary+oref"); //$NON-NLS-1$ //$NON-NLS-2$
 }
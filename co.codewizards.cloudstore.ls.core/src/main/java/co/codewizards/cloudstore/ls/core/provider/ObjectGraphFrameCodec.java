@@ -0,0 +1,103 @@
+package co.codewizards.cloudstore.ls.core.provider;
+
+import static java.util.Objects.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import co.codewizards.cloudstore.ls.core.invoke.ObjectRefConverter;
+
+/**
+ * Writes and reads a sequence of object graphs to/from one single (long-living) stream.
+ * <p>
+ * Each frame consists of the length (an {@code int}) followed by the object graph encoded exactly like by the
+ * {@link BinaryWithObjectRefMessageBodyWriter}. A frame with length 0 is a heartbeat without any payload.
+ * <p>
+ * This is used for pushing inverse service-requests from the server to the client without a separate
+ * HTTP request per service-request.
+ */
+public final class ObjectGraphFrameCodec {
+
+	/**
+	 * The maximum length of one frame. Protects the reader from allocating huge arrays, if the stream is corrupt.
+	 */
+	private static final int MAX_FRAME_LENGTH = 256 * 1024 * 1024;
+
+	private ObjectGraphFrameCodec() { }
+
+	/**
+	 * Writes the given object graph as one frame. The stream is <i>not</i> flushed.
+	 * @param object the root of the object graph to be written. May be <code>null</code>.
+	 * @param objectRefConverter the converter replacing objects by {@code ObjectRef}s. Must not be <code>null</code>.
+	 * @param out the stream to write to. Must not be <code>null</code>.
+	 * @throws IOException if writing failed.
+	 */
+	public static void writeFrame(final Object object, final ObjectRefConverter objectRefConverter, final DataOutputStream out) throws IOException {
+		requireNonNull(objectRefConverter, "objectRefConverter");
+		requireNonNull(out, "out");
+		final ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		BinaryWithObjectRefMessageBodyWriter.writeObjectGraph(object, objectRefConverter, bout);
+		out.writeInt(bout.size());
+		bout.writeTo(out);
+	}
+
+	/**
+	 * Writes an empty frame. The stream is <i>not</i> flushed.
+	 * @param out the stream to write to. Must not be <code>null</code>.
+	 * @throws IOException if writing failed.
+	 */
+	public static void writeHeartbeatFrame(final DataOutputStream out) throws IOException {
+		requireNonNull(out, "out").writeInt(0);
+	}
+
+	/**
+	 * Reads the next frame. Blocks until a frame is available.
+	 * @param in the stream to read from. Must not be <code>null</code>.
+	 * @param objectRefConverter the converter resolving {@code ObjectRef}s. Must not be <code>null</code>.
+	 * @return the root of the object graph read or <code>null</code>, if a heartbeat was read (or the object
+	 * graph's root is <code>null</code>).
+	 * @throws IOException if reading failed - e.g. {@link java.io.EOFException}, if the other side closed the stream.
+	 */
+	public static Object readFrame(final DataInputStream in, final ObjectRefConverter objectRefConverter) throws IOException {
+		requireNonNull(objectRefConverter, "objectRefConverter");
+		final byte[] frame = readFrameBytes(in);
+		return frame == null ? null : decodeFrame(frame, objectRefConverter);
+	}
+
+	/**
+	 * Reads the next frame without decoding it. Blocks until a frame is available.
+	 * @param in the stream to read from. Must not be <code>null</code>.
+	 * @return the frame's payload to be passed to {@link #decodeFrame(byte[], ObjectRefConverter)} or
+	 * <code>null</code>, if a heartbeat was read.
+	 * @throws IOException if reading failed - e.g. {@link java.io.EOFException}, if the other side closed the stream.
+	 */
+	public static byte[] readFrameBytes(final DataInputStream in) throws IOException {
+		requireNonNull(in, "in");
+		final int length = in.readInt();
+		if (length == 0)
+			return null;
+
+		if (length < 0 || length > MAX_FRAME_LENGTH)
+			throw new IOException("Invalid frame length: " + length);
+
+		final byte[] frame = new byte[length];
+		in.readFully(frame);
+		return frame;
+	}
+
+	/**
+	 * Decodes a frame's payload read by {@link #readFrameBytes(DataInputStream)}.
+	 * @param frame the frame's payload. Must not be <code>null</code>.
+	 * @param objectRefConverter the converter resolving {@code ObjectRef}s. Must not be <code>null</code>.
+	 * @return the root of the object graph. May be <code>null</code>.
+	 * @throws IOException if decoding failed.
+	 */
+	public static Object decodeFrame(final byte[] frame, final ObjectRefConverter objectRefConverter) throws IOException {
+		requireNonNull(frame, "frame");
+		requireNonNull(objectRefConverter, "objectRefConverter");
+		return BinaryWithObjectRefMessageBodyReader.readObjectGraph(objectRefConverter, new ByteArrayInputStream(frame));
+	}
+}
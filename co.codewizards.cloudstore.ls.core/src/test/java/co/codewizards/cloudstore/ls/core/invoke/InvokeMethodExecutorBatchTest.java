@@ -0,0 +1,103 @@
+package co.codewizards.cloudstore.ls.core.invoke;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import co.codewizards.cloudstore.core.Uid;
+import co.codewizards.cloudstore.ls.core.LsConfig;
+import co.codewizards.cloudstore.ls.core.invoke.filter.ExtMethodInvocationRequest;
+
+public class InvokeMethodExecutorBatchTest {
+
+	private static final List<String> invokedValues = Collections.synchronizedList(new ArrayList<String>());
+
+	private ObjectManager objectManager;
+	private InvokeMethodExecutor invokeMethodExecutor;
+
+	public static String record(final String value) {
+		invokedValues.add(value);
+		return value;
+	}
+
+	public static String fail(final String message) {
+		throw new IllegalStateException(message);
+	}
+
+	@Before
+	public void before() {
+		invokedValues.clear();
+		objectManager = new ObjectManager(new Uid());
+		invokeMethodExecutor = new InvokeMethodExecutor();
+	}
+
+	@After
+	public void after() {
+		objectManager.close();
+		objectManager = null;
+	}
+
+	@Test
+	public void sequentialBatchKeepsOrderAndIsolatesFailure() throws Exception {
+		final List<ExtMethodInvocationRequest> requests = new ArrayList<>();
+		requests.add(createRequest("record", "a"));
+		requests.add(createRequest("fail", "b"));
+		requests.add(createRequest("record", "c"));
+		requests.add(createRequest("record", "d"));
+
+		final Object[] results = invokeMethodExecutor.executeBatch(requests, true);
+
+		assertThat(results).hasSize(4);
+		assertThat(((MethodInvocationResponse) results[0]).getResult()).isEqualTo("a");
+		assertThat(results[1]).isInstanceOf(IllegalStateException.class);
+		assertThat(((MethodInvocationResponse) results[2]).getResult()).isEqualTo("c");
+		assertThat(((MethodInvocationResponse) results[3]).getResult()).isEqualTo("d");
+		assertThat(invokedValues).containsExactly("a", "c", "d");
+	}
+
+	@Test
+	public void concurrentBatchCompletesAll() throws Exception {
+		final List<ExtMethodInvocationRequest> requests = new ArrayList<>();
+		for (int i = 0; i < 20; ++i)
+			requests.add(createRequest("record", Integer.toString(i)));
+
+		final Object[] results = invokeMethodExecutor.executeBatch(requests, false);
+
+		assertThat(results).hasSize(20);
+		for (int i = 0; i < results.length; ++i)
+			assertThat(((MethodInvocationResponse) results[i]).getResult()).isEqualTo(Integer.toString(i));
+
+		assertThat(invokedValues).hasSize(20);
+	}
+
+	@Test
+	public void batchExceedingClientQuotaIsQueuedAndCompletes() throws Exception {
+		final int count = LsConfig.getLocalServerMaxConcurrentInvocationsPerClient() * 3;
+		final List<ExtMethodInvocationRequest> requests = new ArrayList<>();
+		for (int i = 0; i < count; ++i)
+			requests.add(createRequest("record", Integer.toString(i)));
+
+		final Object[] results = invokeMethodExecutor.executeBatch(requests, false);
+
+		assertThat(results).hasSize(count);
+		for (int i = 0; i < results.length; ++i)
+			assertThat(((MethodInvocationResponse) results[i]).getResult()).isEqualTo(Integer.toString(i));
+
+		final InvocationMetrics metrics = invokeMethodExecutor.getMetrics();
+		assertThat(metrics.getInvocationCount()).isEqualTo((long) count);
+		assertThat(metrics.getFailedInvocationCount()).isEqualTo(0L);
+		assertThat(metrics.getRunningInvocationCount()).isEqualTo(0);
+	}
+
+	private ExtMethodInvocationRequest createRequest(final String methodName, final String argument) {
+		final MethodInvocationRequest methodInvocationRequest = MethodInvocationRequest.forStaticInvocation(
+				InvokeMethodExecutorBatchTest.class.getName(), methodName, new String[] { String.class.getName() }, argument);
+		return new ExtMethodInvocationRequest(objectManager, methodInvocationRequest, InvokeMethodExecutorBatchTest.class);
+	}
+}
@@ -0,0 +1,136 @@
+package co.codewizards.cloudstore.ls.core.invoke;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import co.codewizards.cloudstore.core.Uid;
+import co.codewizards.cloudstore.core.config.Config;
+import co.codewizards.cloudstore.ls.core.LsConfig;
+import co.codewizards.cloudstore.ls.core.dto.InvocationMetricsDto;
+import co.codewizards.cloudstore.ls.core.invoke.filter.ExtMethodInvocationRequest;
+
+public class InvokeMethodExecutorQuotaTest {
+
+	private static volatile CountDownLatch blockingLatch;
+	private static volatile CountDownLatch blockingStartedLatch;
+
+	private ObjectManager objectManager;
+
+	public static String block(final String value) throws InterruptedException {
+		blockingStartedLatch.countDown();
+		blockingLatch.await(30, TimeUnit.SECONDS);
+		return value;
+	}
+
+	public static String echo(final String value) {
+		return value;
+	}
+
+	@BeforeClass
+	public static void beforeClass() {
+		System.setProperty(Config.SYSTEM_PROPERTY_PREFIX + LsConfig.CONFIG_KEY_LOCAL_SERVER_MAX_CONCURRENT_INVOCATIONS_PER_CLIENT, "1");
+	}
+
+	@AfterClass
+	public static void afterClass() {
+		System.getProperties().remove(Config.SYSTEM_PROPERTY_PREFIX + LsConfig.CONFIG_KEY_LOCAL_SERVER_MAX_CONCURRENT_INVOCATIONS_PER_CLIENT);
+	}
+
+	@Before
+	public void before() {
+		blockingLatch = new CountDownLatch(1);
+		blockingStartedLatch = new CountDownLatch(1);
+		objectManager = new ObjectManager(new Uid());
+	}
+
+	@After
+	public void after() {
+		blockingLatch.countDown();
+		objectManager.close();
+		objectManager = null;
+	}
+
+	@Test
+	public void invocationExceedingQuotaIsQueued() throws Exception {
+		final InvokeMethodExecutor invokeMethodExecutor = new InvokeMethodExecutor();
+		final Thread blockingThread = startBlockingInvocation(invokeMethodExecutor);
+
+		final ExecuteThread executeThread = new ExecuteThread(invokeMethodExecutor, createRequest("echo", "b"));
+		executeThread.start();
+		executeThread.join(500);
+		assertThat(executeThread.isAlive()).isTrue(); // waiting for the blocking invocation
+		assertThat(invokeMethodExecutor.getMetrics().getQueuedInvocationCount()).isEqualTo(1L);
+
+		blockingLatch.countDown();
+		executeThread.join(10000);
+		blockingThread.join(10000);
+		assertThat(executeThread.response.get().getResult()).isEqualTo("b");
+	}
+
+	@Test
+	public void reentrantInvocationIsExemptFromQuota() throws Exception {
+		final InvokeMethodExecutor invokeMethodExecutor = new InvokeMethodExecutor() {
+			@Override
+			protected boolean isExemptFromQuota(final ExtMethodInvocationRequest extMethodInvocationRequest) {
+				// the blocking invocation waits for the client => the client's invocations are needed to answer
+				return blockingStartedLatch.getCount() == 0;
+			}
+		};
+		final Thread blockingThread = startBlockingInvocation(invokeMethodExecutor);
+
+		// The quota is exhausted by the blocking invocation, but this one is executed nevertheless.
+		final MethodInvocationResponse response = invokeMethodExecutor.execute(createRequest("echo", "b"));
+		assertThat(response.getResult()).isEqualTo("b");
+
+		final InvocationMetricsDto invocationMetricsDto = invokeMethodExecutor.getMetrics().toInvocationMetricsDto();
+		assertThat(invocationMetricsDto.getQueuedInvocationCount()).isEqualTo(0L);
+		assertThat(invocationMetricsDto.getRunningInvocationCount()).isEqualTo(1);
+		assertThat(invocationMetricsDto.getInvocationCount()).isEqualTo(1L);
+
+		blockingLatch.countDown();
+		blockingThread.join(10000);
+		assertThat(invokeMethodExecutor.getMetrics().getInvocationCount()).isEqualTo(2L);
+	}
+
+	private Thread startBlockingInvocation(final InvokeMethodExecutor invokeMethodExecutor) throws InterruptedException {
+		final ExecuteThread blockingThread = new ExecuteThread(invokeMethodExecutor, createRequest("block", "a"));
+		blockingThread.start();
+		assertThat(blockingStartedLatch.await(10, TimeUnit.SECONDS)).isTrue();
+		return blockingThread;
+	}
+
+	private ExtMethodInvocationRequest createRequest(final String methodName, final String argument) {
+		final MethodInvocationRequest methodInvocationRequest = MethodInvocationRequest.forStaticInvocation(
+				InvokeMethodExecutorQuotaTest.class.getName(), methodName, new String[] { String.class.getName() }, argument);
+		return new ExtMethodInvocationRequest(objectManager, methodInvocationRequest, InvokeMethodExecutorQuotaTest.class);
+	}
+
+	private static class ExecuteThread extends Thread {
+		private final InvokeMethodExecutor invokeMethodExecutor;
+		private final ExtMethodInvocationRequest extMethodInvocationRequest;
+		public final AtomicReference<MethodInvocationResponse> response = new AtomicReference<>();
+
+		public ExecuteThread(final InvokeMethodExecutor invokeMethodExecutor, final ExtMethodInvocationRequest extMethodInvocationRequest) {
+			this.invokeMethodExecutor = invokeMethodExecutor;
+			this.extMethodInvocationRequest = extMethodInvocationRequest;
+		}
+
+		@Override
+		public void run() {
+			try {
+				response.set(invokeMethodExecutor.execute(extMethodInvocationRequest));
+			} catch (final Exception x) {
+				throw new RuntimeException(x);
+			}
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package co.codewizards.cloudstore.ls.core.invoke;
+
+import static co.codewizards.cloudstore.core.oio.OioFileFactory.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import co.codewizards.cloudstore.core.oio.File;
+
+public class MethodDispatcherTest {
+
+	private MethodDispatcher methodDispatcher;
+
+	public static class Target {
+		private final String prefix;
+		private final List<String> values = new ArrayList<>();
+
+		public Target() {
+			this("");
+		}
+
+		public Target(final String prefix) {
+			this.prefix = prefix;
+		}
+
+		public String concat(final String value, final int count) {
+			final StringBuilder sb = new StringBuilder(prefix);
+			for (int i = 0; i < count; ++i)
+				sb.append(value);
+
+			return sb.toString();
+		}
+
+		public void add(final Object value) {
+			values.add(String.valueOf(value));
+		}
+
+		public void add(final String value) {
+			values.add("String:" + value);
+		}
+
+		private int size() {
+			return values.size();
+		}
+
+		public static long sum(final long a, final long b) {
+			return a + b;
+		}
+
+		public static void fail(final String message) throws Exception {
+			throw new Exception(message);
+		}
+	}
+
+	@Before
+	public void before() {
+		methodDispatcher = new MethodDispatcher();
+	}
+
+	@Test
+	public void invokeConstructorStaticAndObject() {
+		final Target target = (Target) methodDispatcher.invokeConstructor(Target.class, new Object[] { "x" });
+		assertThat(methodDispatcher.invoke(target, "concat", null, new Object[] { "ab", 2 })).isEqualTo("xabab");
+		assertThat(methodDispatcher.invokeStatic(Target.class, "sum", new Object[] { 3L, 4L })).isEqualTo(7L);
+
+		final Target target2 = (Target) methodDispatcher.invokeConstructor(Target.class, null);
+		assertThat(methodDispatcher.invoke(target2, "concat", null, new Object[] { "c", 3 })).isEqualTo("ccc");
+	}
+
+	@Test
+	public void invokeWithDeclaredArgumentTypes() {
+		final Target target = new Target();
+		assertThat(methodDispatcher.invoke(target, "add", new Class<?>[] { Object.class }, new Object[] { "a" })).isNull();
+		assertThat(methodDispatcher.invoke(target, "add", new Class<?>[] { String.class }, new Object[] { "b" })).isNull();
+		assertThat(target.values).containsExactly("a", "String:b");
+		assertThat(methodDispatcher.invoke(target, "size", new Class<?>[0], null)).isEqualTo(2);
+	}
+
+	@Test
+	public void checkedExceptionIsWrapped() {
+		try {
+			methodDispatcher.invokeStatic(Target.class, "fail", new Object[] { "boom" });
+			throw new AssertionError("Exception expected!");
+		} catch (final RuntimeException x) {
+			assertThat(x.getCause()).isInstanceOf(Exception.class);
+			assertThat(x.getCause().getMessage()).isEqualTo("boom");
+		}
+	}
+
+	@Test
+	public void writeDispatchKeysAndWarmUp() throws Exception {
+		final Target target = new Target();
+		methodDispatcher.invoke(target, "concat", null, new Object[] { "a", 1 });
+		methodDispatcher.invoke(target, "add", new Class<?>[] { Object.class }, new Object[] { null });
+		methodDispatcher.invokeStatic(Target.class, "sum", new Object[] { 1L, 2L });
+		methodDispatcher.invokeConstructor(Target.class, new Object[] { null });
+
+		final File file = createFile(createFile(System.getProperty("java.io.tmpdir")), "MethodDispatcherTest-" + Long.toHexString(System.nanoTime()));
+		try {
+			methodDispatcher.writeDispatchKeys(file);
+			assertThat(new MethodDispatcher().warmUp(file)).isEqualTo(4);
+		} finally {
+			file.delete();
+		}
+	}
+}
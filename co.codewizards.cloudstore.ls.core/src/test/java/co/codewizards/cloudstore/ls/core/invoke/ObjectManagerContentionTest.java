@@ -0,0 +1,185 @@
+package co.codewizards.cloudstore.ls.core.invoke;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import co.codewizards.cloudstore.core.Uid;
+
+/**
+ * Checks the {@link ObjectManager} under concurrent access and measures its throughput under contention.
+ */
+public class ObjectManagerContentionTest {
+
+	private static final Logger logger = LoggerFactory.getLogger(ObjectManagerContentionTest.class);
+
+	private static final int THREAD_COUNT = 8;
+	private static final int OBJECT_COUNT = 2000;
+	private static final int ITERATION_COUNT = 20;
+
+	private ObjectManager objectManager;
+	private ExecutorService executorService;
+
+	@Before
+	public void before() {
+		objectManager = new ObjectManager(new Uid());
+		executorService = Executors.newFixedThreadPool(THREAD_COUNT);
+	}
+
+	@After
+	public void after() {
+		executorService.shutdownNow();
+		objectManager.close();
+		objectManager = null;
+	}
+
+	@Test
+	public void sameObjectRefForSameObjectFromConcurrentThreads() throws Exception {
+		final Object[] objects = createObjects();
+		final List<Future<ObjectRef[]>> futures = new ArrayList<>();
+		final CyclicBarrier barrier = new CyclicBarrier(THREAD_COUNT);
+		for (int t = 0; t < THREAD_COUNT; ++t) {
+			futures.add(executorService.submit(new Callable<ObjectRef[]>() {
+				@Override
+				public ObjectRef[] call() throws Exception {
+					barrier.await();
+					final ObjectRef[] objectRefs = new ObjectRef[objects.length];
+					for (int i = 0; i < objects.length; ++i)
+						objectRefs[i] = objectManager.getObjectRefOrCreate(objects[i]);
+
+					return objectRefs;
+				}
+			}));
+		}
+
+		final ObjectRef[] expected = futures.get(0).get();
+		for (final Future<ObjectRef[]> future : futures)
+			assertThat(future.get()).containsExactly(expected);
+
+		final Set<Long> objectIds = new HashSet<>();
+		for (int i = 0; i < objects.length; ++i) {
+			assertThat(objectIds.add(expected[i].getObjectId())).isTrue();
+			assertThat(objectManager.getObject(expected[i])).isSameAs(objects[i]);
+		}
+	}
+
+	@Test
+	public void concurrentIncAndDecRefCount() throws Exception {
+		final Object[] objects = createObjects();
+		for (final Object object : objects)
+			objectManager.getObjectRefOrCreate(object);
+
+		runConcurrently(new Runnable() {
+			@Override
+			public void run() {
+				final Uid refId = new Uid();
+				for (int iteration = 0; iteration < ITERATION_COUNT; ++iteration) {
+					for (final Object object : objects)
+						objectManager.incRefCount(object, refId);
+
+					for (final Object object : objects)
+						objectManager.decRefCount(object, refId);
+				}
+			}
+		});
+
+		// Every object is unreferenced again, but the eviction-timeout did not yet pass => nothing is evicted.
+		objectManager.evictZeroReferenceObjectRefs();
+		for (final Object object : objects)
+			assertThat(objectManager.getObjectRef(object)).isNotNull();
+	}
+
+	/**
+	 * Not a real benchmark harness, but good enough to compare the throughput of one thread with the throughput of
+	 * {@link #THREAD_COUNT} threads working on the same {@code ObjectManager}.
+	 * <p>
+	 * The throughput depends on the machine's load and number of CPUs. Hence, it is only logged - the test merely
+	 * asserts that all threads got consistent results.
+	 */
+	@Test
+	public void throughputUnderContention() throws Exception {
+		final Object[] objects = createObjects();
+		final ObjectRef[] objectRefs = new ObjectRef[objects.length];
+		for (int i = 0; i < objects.length; ++i)
+			objectRefs[i] = objectManager.getObjectRefOrCreate(objects[i]);
+
+		final AtomicLong mismatchCount = new AtomicLong();
+		final Runnable workload = new Runnable() {
+			@Override
+			public void run() {
+				final Uid refId = new Uid();
+				for (int iteration = 0; iteration < ITERATION_COUNT; ++iteration) {
+					for (int i = 0; i < objects.length; ++i) {
+						final Object object = objects[i];
+						final ObjectRef objectRef = objectManager.getObjectRefOrCreate(object);
+						if (objectRef != objectRefs[i] || objectManager.getObject(objectRef) != object)
+							mismatchCount.incrementAndGet();
+
+						objectManager.incRefCount(object, refId);
+						objectManager.decRefCount(object, refId);
+					}
+				}
+			}
+		};
+		workload.run(); // warm-up
+
+		final long singleThreadStart = System.nanoTime();
+		workload.run();
+		final long singleThreadNanos = System.nanoTime() - singleThreadStart;
+
+		final long multiThreadStart = System.nanoTime();
+		runConcurrently(workload);
+		final long multiThreadNanos = System.nanoTime() - multiThreadStart;
+
+		final long opsPerRun = 4L * ITERATION_COUNT * OBJECT_COUNT;
+		final long singleThreadOpsPerSecond = opsPerRun * 1000000000L / singleThreadNanos;
+		final long multiThreadOpsPerSecond = opsPerRun * THREAD_COUNT * 1000000000L / multiThreadNanos;
+		logger.info("throughputUnderContention: 1 thread: {} ops/s; {} threads: {} ops/s; ratio: {}",
+				singleThreadOpsPerSecond, THREAD_COUNT, multiThreadOpsPerSecond,
+				String.format("%.2f", (double) multiThreadOpsPerSecond / singleThreadOpsPerSecond));
+
+		assertThat(mismatchCount.get()).isEqualTo(0);
+		for (int i = 0; i < objects.length; ++i)
+			assertThat(objectManager.getObjectRef(objects[i])).isSameAs(objectRefs[i]);
+	}
+
+	private void runConcurrently(final Runnable runnable) throws Exception {
+		final List<Future<?>> futures = new ArrayList<>();
+		final CyclicBarrier barrier = new CyclicBarrier(THREAD_COUNT);
+		for (int t = 0; t < THREAD_COUNT; ++t) {
+			futures.add(executorService.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					barrier.await();
+					runnable.run();
+					return null;
+				}
+			}));
+		}
+		for (final Future<?> future : futures)
+			future.get();
+	}
+
+	private static Object[] createObjects() {
+		final Object[] objects = new Object[OBJECT_COUNT];
+		for (int i = 0; i < objects.length; ++i)
+			objects[i] = new Object();
+
+		return objects;
+	}
+}
@@ -0,0 +1,179 @@
+package co.codewizards.cloudstore.ls.core.provider;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import co.codewizards.cloudstore.core.Uid;
+import co.codewizards.cloudstore.ls.core.invoke.ClassInfo;
+import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationRequest;
+import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationResponse;
+import co.codewizards.cloudstore.ls.core.invoke.ObjectManager;
+import co.codewizards.cloudstore.ls.core.invoke.ObjectRef;
+import co.codewizards.cloudstore.ls.core.invoke.ObjectRefConverter;
+
+public class BinaryObjectCodecTest {
+
+	private static final ObjectRefConverter identityObjectRefConverter = new ObjectRefConverter() {
+		@Override
+		public Object convertToObjectRefIfNeeded(final Object object) {
+			return object;
+		}
+
+		@Override
+		public Object convertFromObjectRefIfNeeded(final Object object) {
+			return object;
+		}
+	};
+
+	public static class TestDto implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private int number;
+		private String name;
+		private TestDto parent;
+		private transient String ignored = "x";
+		private List<TestDto> children = new ArrayList<>();
+	}
+
+	public static class NoDefaultConstructor implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		public NoDefaultConstructor(final int dummy) { }
+	}
+
+	public static class Pair implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private Object first;
+		private Object second;
+
+		public Pair() { }
+
+		public Pair(final Object first, final Object second) {
+			this.first = first;
+			this.second = second;
+		}
+	}
+
+	@Test
+	public void methodInvocationRequestWithObjectRef() throws Exception {
+		final ObjectRef objectRef = new ObjectRef(new Uid(), 7, 4711L);
+		objectRef.setClassInfo(new ClassInfo(7, "a.b.C", Collections.singleton("a.b.I"), true));
+		final Date date = new Date();
+		final MethodInvocationRequest request = MethodInvocationRequest.forObjectInvocation(
+				objectRef, "doSomething", new String[] { "java.lang.String", "long", "java.util.Date" }, "abc", 42L, date);
+
+		final MethodInvocationRequest result = (MethodInvocationRequest) roundTrip(request);
+		assertThat(result.getClassName()).isNull();
+		assertThat(result.getMethodName()).isEqualTo("doSomething");
+		assertThat(result.getArgumentTypeNames()).containsExactly("java.lang.String", "long", "java.util.Date");
+		assertThat(result.getArguments()).containsExactly("abc", 42L, date);
+
+		final ObjectRef resultObjectRef = (ObjectRef) result.getObject();
+		assertThat(resultObjectRef).isEqualTo(objectRef);
+		assertThat(resultObjectRef.getClassInfo().getClassName()).isEqualTo("a.b.C");
+		assertThat(resultObjectRef.getClassInfo().getInterfaceNames()).containsOnly("a.b.I");
+		assertThat(resultObjectRef.getClassInfo().isEqualsOverridden()).isTrue();
+	}
+
+	@Test
+	public void dtoGraphWithSharedReferences() throws Exception {
+		final TestDto parent = new TestDto();
+		parent.number = 1;
+		parent.name = "parent";
+		final TestDto child = new TestDto();
+		child.number = 2;
+		child.parent = parent;
+		parent.children.add(child);
+
+		final Map<String, Object> map = new HashMap<>();
+		map.put("a", parent);
+		map.put("b", child);
+
+		final MethodInvocationResponse response = MethodInvocationResponse.forInvocation(new Object[] { parent, child, map }, null);
+		final Object[] result = (Object[]) ((MethodInvocationResponse) roundTrip(response)).getResult();
+
+		final TestDto resultParent = (TestDto) result[0];
+		final TestDto resultChild = (TestDto) result[1];
+		assertThat(resultParent.number).isEqualTo(1);
+		assertThat(resultParent.name).isEqualTo("parent");
+		assertThat(resultParent.ignored).isEqualTo("x"); // transient => not transferred, but initialised by constructor
+		assertThat(resultParent.children).containsExactly(resultChild);
+		assertThat(resultChild.parent).isSameAs(resultParent);
+		assertThat(resultChild.name).isNull();
+
+		@SuppressWarnings("unchecked")
+		final Map<String, Object> resultMap = (Map<String, Object>) result[2];
+		assertThat(resultMap.get("a")).isSameAs(resultParent);
+		assertThat(resultMap.get("b")).isSameAs(resultChild);
+	}
+
+	@Test(expected = BinaryObjectCodec.UnsupportedTypeException.class)
+	public void unsupportedType() throws Exception {
+		BinaryObjectCodec.encode(MethodInvocationResponse.forInvocation(new NoDefaultConstructor(1), null), identityObjectRefConverter);
+	}
+
+	@Test
+	public void unsupportedTypeIsDetectedBeforeConverting() throws Exception {
+		final RecordingObjectRefConverter objectRefConverter = new RecordingObjectRefConverter();
+		try {
+			// The first value would be converted into an ObjectRef, but the second one is not supported.
+			BinaryObjectCodec.encode(MethodInvocationResponse.forInvocation(new Pair(new Object(), new NoDefaultConstructor(1)), null), objectRefConverter);
+			fail("UnsupportedTypeException expected!");
+		} catch (final BinaryObjectCodec.UnsupportedTypeException x) {
+			// expected
+		}
+		assertThat(objectRefConverter.convertedObjects).isEmpty();
+
+		final Object notSerializable = new Object();
+		final byte[] encoded = BinaryObjectCodec.encode(MethodInvocationResponse.forInvocation(new Pair(notSerializable, "a"), null), objectRefConverter);
+		assertThat(objectRefConverter.convertedObjects).containsExactly(notSerializable);
+
+		final DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded));
+		assertThat(in.read()).isEqualTo(BinaryObjectCodec.FORMAT_BINARY);
+		final Pair decoded = (Pair) ((MethodInvocationResponse) BinaryObjectCodec.decode(in, identityObjectRefConverter)).getResult();
+		assertThat(decoded.first).isEqualTo(objectRefConverter.objectRef);
+		assertThat(decoded.second).isEqualTo("a");
+	}
+
+	/**
+	 * Converts like the real {@code ObjectRefConverterImpl}s - but into always the same {@link ObjectRef} - and
+	 * records the converted objects.
+	 */
+	private static class RecordingObjectRefConverter implements ObjectRefConverter {
+		public final ObjectRef objectRef = new ObjectRef(new Uid(), 1, 1L);
+		public final List<Object> convertedObjects = new ArrayList<>();
+
+		@Override
+		public Object convertToObjectRefIfNeeded(final Object object) {
+			if (!ObjectManager.isObjectRefMappingEnabled(object))
+				return object;
+
+			convertedObjects.add(object);
+			return objectRef;
+		}
+
+		@Override
+		public Object convertFromObjectRefIfNeeded(final Object object) {
+			return object;
+		}
+	}
+
+	private static Object roundTrip(final Object object) throws Exception {
+		final byte[] encoded = BinaryObjectCodec.encode(object, identityObjectRefConverter);
+		final DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded));
+		assertThat(in.read()).isEqualTo(BinaryObjectCodec.FORMAT_BINARY);
+		return BinaryObjectCodec.decode(in, identityObjectRefConverter);
+	}
+}
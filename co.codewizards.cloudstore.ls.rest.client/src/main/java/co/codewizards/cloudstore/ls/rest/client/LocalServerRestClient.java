@@ -13,6 +13,7 @@ import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.ResponseProcessingException;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import org.glassfish.jersey.client.ClientConfig;
@@ -31,6 +32,7 @@ import co.codewizards.cloudstore.core.dto.RemoteExceptionUtil;
 import co.codewizards.cloudstore.ls.core.LocalServerPropertiesManager;
 import co.codewizards.cloudstore.ls.core.provider.JavaNativeMessageBodyReader;
 import co.codewizards.cloudstore.ls.core.provider.JavaNativeMessageBodyWriter;
+import co.codewizards.cloudstore.ls.core.provider.MediaTypeConst;
 import co.codewizards.cloudstore.ls.rest.client.request.Request;
 
 /**
@@ -65,8 +67,24 @@ public class LocalServerRestClient {
 	 */
 	public static final String CONFIG_KEY_SOCKET_READ_TIMEOUT = "localServer.socket.readTimeout"; //$NON-NLS-1$
 
+	/**
+	 * The {@code key} controlling whether the compact binary encoding
+	 * ({@link MediaTypeConst#APPLICATION_CLOUDSTORE_BINARY_WITH_OBJECT_REF}) is used for the invocation protocol.
+	 * If {@code false}, Java native serialization ({@link MediaTypeConst#APPLICATION_JAVA_NATIVE_WITH_OBJECT_REF})
+	 * is used. Used with {@link Config#getPropertyAsBoolean(String, boolean)}.
+	 * <p>
+	 * The configuration can be overridden by a system property - see {@link Config#SYSTEM_PROPERTY_PREFIX}.
+	 */
+	public static final String CONFIG_KEY_BINARY_CODEC_ENABLED = "localServer.binaryCodec.enabled"; //$NON-NLS-1$
+	public static final boolean DEFAULT_BINARY_CODEC_ENABLED = true;
+
 	private Integer socketConnectTimeout;
 
+	/**
+	 * Whether the server rejected the binary encoding (e.g. because it is an older version).
+	 */
+	private volatile boolean binaryCodecRejected;
+
 	private Integer socketReadTimeout;
 
 	private String baseUrl;
@@ -127,6 +145,22 @@ public class LocalServerRestClient {
 		return baseUrl;
 	}
 
+	/**
+	 * Gets the media-type to be used for transferring object graphs with {@code ObjectRef}s.
+	 * <p>
+	 * This is {@link MediaTypeConst#APPLICATION_CLOUDSTORE_BINARY_WITH_OBJECT_REF_TYPE}, unless it was disabled
+	 * via {@link #CONFIG_KEY_BINARY_CODEC_ENABLED} or rejected by the server - then it is
+	 * {@link MediaTypeConst#APPLICATION_JAVA_NATIVE_WITH_OBJECT_REF_TYPE}.
+	 * @return the media-type. Never <code>null</code>.
+	 */
+	public MediaType getObjectRefMediaType() {
+		if (!binaryCodecRejected
+				&& ConfigImpl.getInstance().getPropertyAsBoolean(CONFIG_KEY_BINARY_CODEC_ENABLED, DEFAULT_BINARY_CODEC_ENABLED))
+			return MediaTypeConst.APPLICATION_CLOUDSTORE_BINARY_WITH_OBJECT_REF_TYPE;
+
+		return MediaTypeConst.APPLICATION_JAVA_NATIVE_WITH_OBJECT_REF_TYPE;
+	}
+
 	/**
 	 * Create a new client.
 	 */
@@ -179,10 +213,16 @@ public class LocalServerRestClient {
 					if (firstException == null)
 						firstException = x;
 
+					if (isMediaTypeRejected(x) && !binaryCodecRejected) {
+						logger.info("execute: Server does not support the binary codec. Falling back to native serialization.");
+						binaryCodecRejected = true; // the retry below uses the native serialization
+					}
+
 					final String oldBaseUrl = getBaseUrl();
 					baseUrl = null;
 					if (!oldBaseUrl.equals(getBaseUrl())) {
 						retryCounter = 0; // reset to make sure we really try again with the new URL
+						binaryCodecRejected = false; // maybe the new server supports it
 						clearClientCache();
 					}
 
@@ -204,6 +244,22 @@ public class LocalServerRestClient {
 		}
 	}
 
+	private static boolean isMediaTypeRejected(final RuntimeException x) {
+		final Response response;
+		if (x instanceof WebApplicationException)
+			response = ((WebApplicationException) x).getResponse();
+		else if (x instanceof ResponseProcessingException)
+			response = ((ResponseProcessingException) x).getResponse();
+		else
+			return false;
+
+		if (response == null)
+			return false;
+
+		return response.getStatus() == Response.Status.UNSUPPORTED_MEDIA_TYPE.getStatusCode()
+				|| response.getStatus() == Response.Status.NOT_ACCEPTABLE.getStatusCode();
+	}
+
 	private synchronized void clearClientCache() {
 		clientCache.clear();
 	}
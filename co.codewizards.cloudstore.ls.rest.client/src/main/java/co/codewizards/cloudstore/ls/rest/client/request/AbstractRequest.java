@@ -8,6 +8,7 @@ import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import org.slf4j.Logger;
@@ -66,6 +67,15 @@ public abstract class AbstractRequest<R> implements Request<R> {
 		return getLocalServerRestClientOrFail().assignCredentials(builder);
 	}
 
+	/**
+	 * Gets the media-type to be used for object graphs with {@code ObjectRef}s.
+	 * @return the media-type. Never <code>null</code>.
+	 * @see LocalServerRestClient#getObjectRefMediaType()
+	 */
+	protected MediaType getObjectRefMediaType() {
+		return getLocalServerRestClientOrFail().getObjectRefMediaType();
+	}
+
 	protected String getPath(final Class<?> dtoClass) {
 		return dtoClass.getSimpleName();
 	}
@@ -6,7 +6,6 @@ import javax.ws.rs.client.WebTarget;
 
 import co.codewizards.cloudstore.core.Uid;
 import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationResponse;
-import co.codewizards.cloudstore.ls.core.provider.MediaTypeConst;
 
 public class GetDelayedMethodInvocationResponse extends AbstractRequest<MethodInvocationResponse> {
 
@@ -19,7 +18,7 @@ public class GetDelayedMethodInvocationResponse extends AbstractRequest<MethodIn
 	@Override
 	public MethodInvocationResponse execute() {
 		final WebTarget webTarget = createWebTarget("InvokeMethod", delayedResponseId.toString());
-		final MethodInvocationResponse repoInfoResponseDto = assignCredentials(webTarget.request(MediaTypeConst.APPLICATION_JAVA_NATIVE_WITH_OBJECT_REF_TYPE))
+		final MethodInvocationResponse repoInfoResponseDto = assignCredentials(webTarget.request(getObjectRefMediaType()))
 				.get(MethodInvocationResponse.class);
 		return repoInfoResponseDto;
 	}
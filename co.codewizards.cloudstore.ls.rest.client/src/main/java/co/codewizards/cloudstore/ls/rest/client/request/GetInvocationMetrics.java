@@ -0,0 +1,21 @@
+package co.codewizards.cloudstore.ls.rest.client.request;
+
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+
+import co.codewizards.cloudstore.ls.core.dto.InvocationMetricsDto;
+
+public class GetInvocationMetrics extends AbstractRequest<InvocationMetricsDto> {
+
+	@Override
+	public InvocationMetricsDto execute() {
+		final WebTarget webTarget = createWebTarget("InvocationMetrics");
+		final InvocationMetricsDto invocationMetricsDto = assignCredentials(webTarget.request(MediaType.APPLICATION_XML_TYPE)).get(InvocationMetricsDto.class);
+		return invocationMetricsDto;
+	}
+
+	@Override
+	public boolean isResultNullable() {
+		return false;
+	}
+}
@@ -4,10 +4,10 @@ import static java.util.Objects.*;
 
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
 
 import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationRequest;
 import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationResponse;
-import co.codewizards.cloudstore.ls.core.provider.MediaTypeConst;
 
 public class InvokeMethod extends AbstractRequest<MethodInvocationResponse> {
 
@@ -20,8 +20,9 @@ public class InvokeMethod extends AbstractRequest<MethodInvocationResponse> {
 	@Override
 	public MethodInvocationResponse execute() {
 		final WebTarget webTarget = createWebTarget("InvokeMethod");
-		final MethodInvocationResponse repoInfoResponseDto = assignCredentials(webTarget.request(MediaTypeConst.APPLICATION_JAVA_NATIVE_WITH_OBJECT_REF_TYPE))
-				.post(Entity.entity(methodInvocationRequest, MediaTypeConst.APPLICATION_JAVA_NATIVE_WITH_OBJECT_REF_TYPE), MethodInvocationResponse.class);
+		final MediaType objectRefMediaType = getObjectRefMediaType();
+		final MethodInvocationResponse repoInfoResponseDto = assignCredentials(webTarget.request(objectRefMediaType))
+				.post(Entity.entity(methodInvocationRequest, objectRefMediaType), MethodInvocationResponse.class);
 		return repoInfoResponseDto;
 	}
 
@@ -0,0 +1,33 @@
+package co.codewizards.cloudstore.ls.rest.client.request;
+
+import static java.util.Objects.*;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+
+import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationBatchRequest;
+import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationBatchResponse;
+
+public class InvokeMethodBatch extends AbstractRequest<MethodInvocationBatchResponse> {
+
+	private final MethodInvocationBatchRequest methodInvocationBatchRequest;
+
+	public InvokeMethodBatch(MethodInvocationBatchRequest methodInvocationBatchRequest) {
+		this.methodInvocationBatchRequest = requireNonNull(methodInvocationBatchRequest, "methodInvocationBatchRequest");
+	}
+
+	@Override
+	public MethodInvocationBatchResponse execute() {
+		final WebTarget webTarget = createWebTarget("InvokeMethod", "_batch");
+		final MediaType objectRefMediaType = getObjectRefMediaType();
+		final MethodInvocationBatchResponse methodInvocationBatchResponse = assignCredentials(webTarget.request(objectRefMediaType))
+				.post(Entity.entity(methodInvocationBatchRequest, objectRefMediaType), MethodInvocationBatchResponse.class);
+		return methodInvocationBatchResponse;
+	}
+
+	@Override
+	public boolean isResultNullable() {
+		return false;
+	}
+}
@@ -0,0 +1,29 @@
+package co.codewizards.cloudstore.ls.rest.client.request;
+
+import java.io.InputStream;
+
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+
+import co.codewizards.cloudstore.ls.core.dto.InverseServiceRequest;
+
+/**
+ * Opens the long-living stream through which the server pushes all inverse service-requests.
+ * <p>
+ * The stream consists of frames as written by {@code ObjectGraphFrameCodec}. The caller must close it.
+ */
+public class OpenInverseServiceRequestStream extends AbstractRequest<InputStream> {
+
+	@Override
+	public InputStream execute() {
+		final WebTarget webTarget = createWebTarget(getPath(InverseServiceRequest.class), "_stream");
+		final InputStream inputStream = assignCredentials(webTarget.request(MediaType.APPLICATION_OCTET_STREAM_TYPE))
+				.get(InputStream.class);
+		return inputStream;
+	}
+
+	@Override
+	public boolean isResultNullable() {
+		return false;
+	}
+}
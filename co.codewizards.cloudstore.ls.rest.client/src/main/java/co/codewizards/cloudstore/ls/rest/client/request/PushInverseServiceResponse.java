@@ -4,10 +4,10 @@ import static java.util.Objects.*;
 
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import co.codewizards.cloudstore.ls.core.dto.InverseServiceResponse;
-import co.codewizards.cloudstore.ls.core.provider.MediaTypeConst;
 
 public class PushInverseServiceResponse extends VoidRequest {
 
@@ -20,8 +20,9 @@ public class PushInverseServiceResponse extends VoidRequest {
 	@Override
 	protected Response _execute() {
 		final WebTarget webTarget = createWebTarget(getPath(InverseServiceResponse.class));
-		final Response r = assignCredentials(webTarget.request(MediaTypeConst.APPLICATION_JAVA_NATIVE_WITH_OBJECT_REF_TYPE))
-				.post(Entity.entity(response, MediaTypeConst.APPLICATION_JAVA_NATIVE_WITH_OBJECT_REF_TYPE));
+		final MediaType objectRefMediaType = getObjectRefMediaType();
+		final Response r = assignCredentials(webTarget.request(objectRefMediaType))
+				.post(Entity.entity(response, objectRefMediaType));
 		return r;
 	}
 }
@@ -49,7 +49,7 @@ public class InverseInvoker implements Invoker {
 	 * {@linkplain #pollInverseServiceRequest() polling} serves additionally as a keep-alive for
 	 * the server-side {@code ObjectManager}.
 	 */
-	private static final long POLL_INVERSE_SERVICE_REQUEST_TIMEOUT_MS = 15L * 1000L; // 15 seconds
+	static final long POLL_INVERSE_SERVICE_REQUEST_TIMEOUT_MS = 15L * 1000L; // 15 seconds
 
 	/**
 	 * Timeout for {@link #performInverseServiceRequest(InverseServiceRequest)}.
@@ -76,8 +76,13 @@ public class InverseInvoker implements Invoker {
 	public static InverseInvoker getInverseInvoker(final ObjectManager objectManager) {
 		requireNonNull(objectManager, "objectManager");
 
+		// This is invoked for every request => first look it up without locking the ObjectManager.
+		InverseInvoker inverseInvoker = (InverseInvoker) objectManager.getContextObject(InverseInvoker.class.getName());
+		if (inverseInvoker != null)
+			return inverseInvoker;
+
 		synchronized (objectManager) {
-			InverseInvoker inverseInvoker = (InverseInvoker) objectManager.getContextObject(InverseInvoker.class.getName());
+			inverseInvoker = (InverseInvoker) objectManager.getContextObject(InverseInvoker.class.getName());
 			if (inverseInvoker == null) {
 				inverseInvoker = new InverseInvoker(objectManager);
 				objectManager.putContextObject(InverseInvoker.class.getName(), inverseInvoker);
@@ -371,17 +376,40 @@ public class InverseInvoker implements Invoker {
 				objectManager.getClientId(), requestId, diedOfTimeout));
 	}
 
+	/**
+	 * Is at least one {@linkplain #performInverseServiceRequest(InverseServiceRequest) inverse service-request} waiting
+	 * for the client's response?
+	 * <p>
+	 * While this is the case, invocations of the client might be needed to answer it - e.g. a client-side listener
+	 * reading data from the server.
+	 * @return <code>true</code>, if the server waits for the client; <code>false</code> otherwise.
+	 */
+	public boolean isWaitingForInverseServiceResponse() {
+		synchronized (requestId2InverseServiceResponse) {
+			return ! requestIdsWaitingForResponse.isEmpty();
+		}
+	}
+
 	public InverseServiceRequest pollInverseServiceRequest() {
+		return pollInverseServiceRequest(POLL_INVERSE_SERVICE_REQUEST_TIMEOUT_MS);
+	}
+
+	/**
+	 * Gets the next inverse service-request - waiting for it at most the given timeout.
+	 * @param timeoutMs the maximum time in milliseconds to wait for a request.
+	 * @return the next request or <code>null</code>, if there was none within the timeout.
+	 */
+	public InverseServiceRequest pollInverseServiceRequest(final long timeoutMs) {
 		final long startTimestamp = nowAsMillis();
 
 		synchronized (inverseServiceRequests) {
 			boolean first = true;
-			while (first || nowAsMillis() - startTimestamp < POLL_INVERSE_SERVICE_REQUEST_TIMEOUT_MS) {
+			while (first || nowAsMillis() - startTimestamp < timeoutMs) {
 				if (first)
 					first = false;
 				else {
 					final long timeSpentTillNowMillis = nowAsMillis() - startTimestamp;
-					final long waitTimeout = POLL_INVERSE_SERVICE_REQUEST_TIMEOUT_MS - timeSpentTillNowMillis;
+					final long waitTimeout = timeoutMs - timeSpentTillNowMillis;
 					if (waitTimeout > 0) {
 						try {
 							inverseServiceRequests.wait(waitTimeout);
@@ -399,6 +427,26 @@ public class InverseInvoker implements Invoker {
 		return null;
 	}
 
+	/**
+	 * Puts a request previously obtained from {@link #pollInverseServiceRequest()} back into the queue, because it
+	 * could not be delivered to the client. It is put at the head of the queue to be delivered next.
+	 * <p>
+	 * If nobody waits for the response anymore (e.g. due to a timeout), the request is silently discarded.
+	 * @param request the request that could not be delivered. Must not be <code>null</code>.
+	 */
+	public void requeueInverseServiceRequest(final InverseServiceRequest request) {
+		requireNonNull(request, "request");
+
+		synchronized (requestId2InverseServiceResponse) {
+			if (!requestIdsWaitingForResponse.contains(request.getRequestId()))
+				return;
+		}
+		synchronized (inverseServiceRequests) {
+			inverseServiceRequests.addFirst(request);
+			inverseServiceRequests.notify();
+		}
+	}
+
 	public void pushInverseServiceResponse(final InverseServiceResponse response) {
 		requireNonNull(response, "response");
 
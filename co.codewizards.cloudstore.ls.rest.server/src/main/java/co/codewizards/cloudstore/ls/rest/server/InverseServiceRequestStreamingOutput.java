@@ -0,0 +1,82 @@
+package co.codewizards.cloudstore.ls.rest.server;
+
+import static java.util.Objects.*;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import co.codewizards.cloudstore.core.Uid;
+import co.codewizards.cloudstore.ls.core.dto.InverseServiceRequest;
+import co.codewizards.cloudstore.ls.core.invoke.ObjectManager;
+import co.codewizards.cloudstore.ls.core.invoke.ObjectRefConverter;
+import co.codewizards.cloudstore.ls.core.provider.ObjectGraphFrameCodec;
+
+/**
+ * Pushes all inverse service-requests of one {@link InverseInvoker} to the client through one single, long-living
+ * response.
+ * <p>
+ * Every request is written as one frame (see {@link ObjectGraphFrameCodec}) and flushed immediately. If there
+ * is no request, a heartbeat frame is written whenever {@link InverseInvoker#pollInverseServiceRequest(long)} times
+ * out. This detects a client having gone away and keeps the server-side {@link ObjectManager} alive - like the
+ * polling does. A request which could not be written is
+ * {@linkplain InverseInvoker#requeueInverseServiceRequest(InverseServiceRequest) requeued}.
+ * <p>
+ * The stream ends, when the {@code ObjectManager} is closed or the client closes the connection.
+ */
+public class InverseServiceRequestStreamingOutput implements StreamingOutput {
+	private static final Logger logger = LoggerFactory.getLogger(InverseServiceRequestStreamingOutput.class);
+
+	private final InverseInvoker inverseInvoker;
+	private final ObjectRefConverter objectRefConverter;
+	private final long heartbeatPeriodMs;
+
+	public InverseServiceRequestStreamingOutput(final InverseInvoker inverseInvoker, final ObjectRefConverter objectRefConverter) {
+		this(inverseInvoker, objectRefConverter, InverseInvoker.POLL_INVERSE_SERVICE_REQUEST_TIMEOUT_MS);
+	}
+
+	InverseServiceRequestStreamingOutput(final InverseInvoker inverseInvoker, final ObjectRefConverter objectRefConverter, final long heartbeatPeriodMs) {
+		this.inverseInvoker = requireNonNull(inverseInvoker, "inverseInvoker");
+		this.objectRefConverter = requireNonNull(objectRefConverter, "objectRefConverter");
+		if (heartbeatPeriodMs <= 0)
+			throw new IllegalArgumentException("heartbeatPeriodMs <= 0");
+
+		this.heartbeatPeriodMs = heartbeatPeriodMs;
+	}
+
+	@Override
+	public void write(final OutputStream output) throws IOException {
+		final ObjectManager objectManager = inverseInvoker.getObjectManager();
+		final Uid clientId = objectManager.getClientId();
+		final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+		out.flush(); // send the headers immediately - the client waits for them.
+		while (true) {
+			if (objectManager.isClosed())
+				return;
+
+			ObjectManager.getInstance(clientId); // keep-alive
+
+			final InverseServiceRequest request = inverseInvoker.pollInverseServiceRequest(heartbeatPeriodMs);
+			try {
+				if (request == null)
+					ObjectGraphFrameCodec.writeHeartbeatFrame(out);
+				else
+					ObjectGraphFrameCodec.writeFrame(request, objectRefConverter, out);
+
+				out.flush();
+			} catch (final IOException | RuntimeException x) {
+				if (request != null)
+					inverseInvoker.requeueInverseServiceRequest(request);
+
+				logger.debug("write: clientId={}: {}", clientId, x.toString());
+				throw x;
+			}
+		}
+	}
+}
@@ -0,0 +1,190 @@
+package co.codewizards.cloudstore.ls.rest.server;
+
+import static co.codewizards.cloudstore.core.util.Util.*;
+import static java.util.Objects.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import co.codewizards.cloudstore.core.Uid;
+import co.codewizards.cloudstore.core.dto.Error;
+import co.codewizards.cloudstore.ls.core.invoke.ClassManager;
+import co.codewizards.cloudstore.ls.core.invoke.InvocationMetrics;
+import co.codewizards.cloudstore.ls.core.invoke.InvokeMethodExecutor;
+import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationBatchRequest;
+import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationBatchResponse;
+import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationRequest;
+import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationResponse;
+import co.codewizards.cloudstore.ls.core.invoke.ObjectManager;
+import co.codewizards.cloudstore.ls.core.invoke.ObjectRef;
+import co.codewizards.cloudstore.ls.core.invoke.ObjectRefWithRefId;
+import co.codewizards.cloudstore.ls.core.invoke.filter.ExtMethodInvocationRequest;
+
+/**
+ * Performs the method-invocations requested by a client - independent of the transport.
+ * <p>
+ * There is only one {@link InvokeMethodExecutor} shared by all transports. Hence, a
+ * {@link co.codewizards.cloudstore.ls.core.invoke.DelayedMethodInvocationResponse DelayedMethodInvocationResponse}
+ * may be resolved via a different transport than the one used for the original request.
+ */
+public class InvokeMethodHandler {
+
+	private static final Logger logger = LoggerFactory.getLogger(InvokeMethodHandler.class);
+
+	private final InvokeMethodExecutor invokeMethodExecutor = new InvokeMethodExecutor() {
+		/**
+		 * {@inheritDoc}
+		 * <p>
+		 * Invocations of a client are exempt, while the server waits for this client's response to an inverse
+		 * service-request - they might be required to answer it.
+		 */
+		@Override
+		protected boolean isExemptFromQuota(final ExtMethodInvocationRequest extMethodInvocationRequest) {
+			return InverseInvoker.getInverseInvoker(extMethodInvocationRequest.getObjectManager()).isWaitingForInverseServiceResponse();
+		}
+	};
+
+	private static final class Holder {
+		public static final InvokeMethodHandler instance = new InvokeMethodHandler();
+	}
+
+	public static InvokeMethodHandler getInstance() {
+		return Holder.instance;
+	}
+
+	protected InvokeMethodHandler() {
+	}
+
+	/**
+	 * Gets the metrics of all method-invocations - no matter via which transport they were requested.
+	 * @return the metrics. Never <code>null</code>.
+	 */
+	public InvocationMetrics getInvocationMetrics() {
+		return invokeMethodExecutor.getMetrics();
+	}
+
+	public MethodInvocationResponse performMethodInvocation(final Uid clientId, final MethodInvocationRequest methodInvocationRequest) throws Throwable {
+		requireNonNull(clientId, "clientId");
+		requireNonNull(methodInvocationRequest, "methodInvocationRequest");
+
+		// *always* acquiring to make sure the lastUseDate is updated - and to make things easy: we have what we need.
+		final InverseInvoker inverseInvoker = getInverseInvoker(clientId);
+		final ObjectManager objectManager = inverseInvoker.getObjectManager();
+		final ClassManager classManager = objectManager.getClassManager();
+
+		final MethodInvocationResponse virtualMethodInvocationResponse = performVirtualMethodInvocation(objectManager, methodInvocationRequest);
+		if (virtualMethodInvocationResponse != null)
+			return virtualMethodInvocationResponse;
+
+		final String className = methodInvocationRequest.getClassName();
+		final Class<?> clazz = className == null ? null : classManager.getClassOrFail(className);
+
+		final ExtMethodInvocationRequest extMethodInvocationRequest = new ExtMethodInvocationRequest(objectManager, methodInvocationRequest, clazz);
+		return invokeMethodExecutor.execute(extMethodInvocationRequest);
+	}
+
+	/**
+	 * Performs multiple method-invocations with one single round-trip.
+	 * <p>
+	 * The invocations are executed concurrently - or one after the other, if the batch is
+	 * {@linkplain MethodInvocationBatchRequest#isSequential() sequential}. A failing invocation does not affect
+	 * the others: its {@link Error} is returned at its index, instead of a response.
+	 * @param clientId the client's identifier. Must not be <code>null</code>.
+	 * @param methodInvocationBatchRequest the batch. Must not be <code>null</code>.
+	 * @return the responses. Never <code>null</code>.
+	 */
+	public MethodInvocationBatchResponse performMethodInvocationBatch(final Uid clientId, final MethodInvocationBatchRequest methodInvocationBatchRequest) {
+		requireNonNull(clientId, "clientId");
+		requireNonNull(methodInvocationBatchRequest, "methodInvocationBatchRequest");
+
+		final InverseInvoker inverseInvoker = getInverseInvoker(clientId);
+		final ObjectManager objectManager = inverseInvoker.getObjectManager();
+		final ClassManager classManager = objectManager.getClassManager();
+
+		final MethodInvocationRequest[] methodInvocationRequests = requireNonNull(
+				methodInvocationBatchRequest.getMethodInvocationRequests(), "methodInvocationBatchRequest.methodInvocationRequests");
+
+		final MethodInvocationResponse[] methodInvocationResponses = new MethodInvocationResponse[methodInvocationRequests.length];
+		final Error[] errors = new Error[methodInvocationRequests.length];
+
+		// Virtual methods are cheap and handled immediately; all others are passed to the executor in one go.
+		final List<ExtMethodInvocationRequest> extMethodInvocationRequests = new ArrayList<>(methodInvocationRequests.length);
+		final List<Integer> extMethodInvocationRequestIndexes = new ArrayList<>(methodInvocationRequests.length);
+		for (int i = 0; i < methodInvocationRequests.length; ++i) {
+			final MethodInvocationRequest methodInvocationRequest = methodInvocationRequests[i];
+			try {
+				requireNonNull(methodInvocationRequest, "methodInvocationRequests[" + i + "]");
+				methodInvocationResponses[i] = performVirtualMethodInvocation(objectManager, methodInvocationRequest);
+				if (methodInvocationResponses[i] != null)
+					continue;
+
+				final String className = methodInvocationRequest.getClassName();
+				final Class<?> clazz = className == null ? null : classManager.getClassOrFail(className);
+				extMethodInvocationRequests.add(new ExtMethodInvocationRequest(objectManager, methodInvocationRequest, clazz));
+				extMethodInvocationRequestIndexes.add(i);
+			} catch (final Throwable x) {
+				errors[i] = createError(x);
+			}
+		}
+
+		final Object[] results = invokeMethodExecutor.executeBatch(extMethodInvocationRequests, methodInvocationBatchRequest.isSequential());
+		for (int j = 0; j < results.length; ++j) {
+			final int i = extMethodInvocationRequestIndexes.get(j);
+			if (results[j] instanceof Throwable)
+				errors[i] = createError((Throwable) results[j]);
+			else
+				methodInvocationResponses[i] = (MethodInvocationResponse) results[j];
+		}
+		return new MethodInvocationBatchResponse(methodInvocationResponses, errors);
+	}
+
+	private static Error createError(final Throwable x) {
+		logger.debug("performMethodInvocationBatch: " + x, x);
+		return new Error(x);
+	}
+
+	/**
+	 * Performs the given invocation immediately, if it targets one of the virtual methods managing the
+	 * {@link ObjectManager}.
+	 * @return the response or <code>null</code>, if the method is not virtual.
+	 */
+	private MethodInvocationResponse performVirtualMethodInvocation(final ObjectManager objectManager, final MethodInvocationRequest methodInvocationRequest) {
+		final String methodName = methodInvocationRequest.getMethodName();
+
+		if (ObjectRef.VIRTUAL_METHOD_NAME_INC_REF_COUNT.equals(methodName)) {
+			final ObjectRefWithRefId[] objectRefWithRefIds = cast(methodInvocationRequest.getArguments()[0]);
+			for (final ObjectRefWithRefId objectRefWithRefId : objectRefWithRefIds)
+				objectManager.incRefCount(objectRefWithRefId.object, objectRefWithRefId.refId);
+
+			return MethodInvocationResponse.forInvocation(null, null);
+		}
+		else if (ObjectRef.VIRTUAL_METHOD_NAME_DEC_REF_COUNT.equals(methodName)) {
+			final ObjectRefWithRefId[] objectRefWithRefIds = cast(methodInvocationRequest.getArguments()[0]);
+			for (final ObjectRefWithRefId objectRefWithRefId : objectRefWithRefIds)
+				objectManager.decRefCount(objectRefWithRefId.object, objectRefWithRefId.refId);
+
+			return MethodInvocationResponse.forInvocation(null, null);
+		}
+		else if (ObjectRef.VIRTUAL_METHOD_CLOSE_OBJECT_MANAGER.equals(methodName)) {
+			objectManager.close();
+			return MethodInvocationResponse.forInvocation(null, null);
+		}
+		return null;
+	}
+
+	public MethodInvocationResponse getDelayedMethodInvocationResponse(final Uid clientId, final Uid delayedResponseId) throws Throwable {
+		requireNonNull(clientId, "clientId");
+		requireNonNull(delayedResponseId, "delayedResponseId");
+		// *always* acquiring to make sure the lastUseDate is updated - and to make things easy: we have what we need.
+		getInverseInvoker(clientId).getObjectManager();
+
+		return invokeMethodExecutor.getDelayedResponse(delayedResponseId);
+	}
+
+	protected InverseInvoker getInverseInvoker(final Uid clientId) {
+		return InverseInvoker.getInverseInvoker(ObjectManager.getInstance(clientId));
+	}
+}
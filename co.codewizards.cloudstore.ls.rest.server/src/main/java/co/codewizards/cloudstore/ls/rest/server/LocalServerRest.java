@@ -6,12 +6,15 @@ import org.glassfish.jersey.server.ResourceConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import co.codewizards.cloudstore.ls.core.provider.BinaryWithObjectRefMessageBodyReader;
+import co.codewizards.cloudstore.ls.core.provider.BinaryWithObjectRefMessageBodyWriter;
 import co.codewizards.cloudstore.ls.core.provider.JavaNativeMessageBodyReader;
 import co.codewizards.cloudstore.ls.core.provider.JavaNativeMessageBodyWriter;
 import co.codewizards.cloudstore.ls.core.provider.JavaNativeWithObjectRefMessageBodyReader;
 import co.codewizards.cloudstore.ls.core.provider.JavaNativeWithObjectRefMessageBodyWriter;
 import co.codewizards.cloudstore.ls.rest.server.auth.AuthFilter;
 import co.codewizards.cloudstore.ls.rest.server.service.ClassInfoService;
+import co.codewizards.cloudstore.ls.rest.server.service.InvocationMetricsService;
 import co.codewizards.cloudstore.ls.rest.server.service.InverseServiceRequestService;
 import co.codewizards.cloudstore.ls.rest.server.service.InverseServiceResponseService;
 import co.codewizards.cloudstore.ls.rest.server.service.InvokeMethodService;
@@ -35,6 +38,7 @@ public class LocalServerRest extends ResourceConfig {
 		registerClasses(
 				// BEGIN services
 				ClassInfoService.class,
+				InvocationMetricsService.class,
 				InverseServiceRequestService.class,
 				InverseServiceResponseService.class,
 				InvokeMethodService.class,
@@ -57,5 +61,7 @@ public class LocalServerRest extends ResourceConfig {
 		final ObjectRefConverterFactoryImpl objectRefConverterFactory = new ObjectRefConverterFactoryImpl();
 		register(new JavaNativeWithObjectRefMessageBodyReader(objectRefConverterFactory));
 		register(new JavaNativeWithObjectRefMessageBodyWriter(objectRefConverterFactory));
+		register(new BinaryWithObjectRefMessageBodyReader(objectRefConverterFactory));
+		register(new BinaryWithObjectRefMessageBodyWriter(objectRefConverterFactory));
 	}
 }
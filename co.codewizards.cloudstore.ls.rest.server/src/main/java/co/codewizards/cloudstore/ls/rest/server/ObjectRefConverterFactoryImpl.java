@@ -11,7 +11,7 @@ import co.codewizards.cloudstore.ls.core.invoke.ObjectManager;
 import co.codewizards.cloudstore.ls.core.invoke.ObjectRefConverter;
 import co.codewizards.cloudstore.ls.core.invoke.ObjectRefConverterFactory;
 
-class ObjectRefConverterFactoryImpl implements ObjectRefConverterFactory {
+public class ObjectRefConverterFactoryImpl implements ObjectRefConverterFactory {
 
 	@Override
 	public ObjectRefConverter createObjectRefConverter(final SecurityContext securityContext) {
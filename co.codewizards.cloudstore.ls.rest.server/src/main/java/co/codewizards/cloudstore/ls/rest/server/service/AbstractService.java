@@ -5,7 +5,9 @@ import javax.ws.rs.core.SecurityContext;
 
 import co.codewizards.cloudstore.core.Uid;
 import co.codewizards.cloudstore.ls.core.invoke.ObjectManager;
+import co.codewizards.cloudstore.ls.core.invoke.ObjectRefConverter;
 import co.codewizards.cloudstore.ls.rest.server.InverseInvoker;
+import co.codewizards.cloudstore.ls.rest.server.ObjectRefConverterFactoryImpl;
 
 public abstract class AbstractService {
 	@Context
@@ -22,4 +24,8 @@ public abstract class AbstractService {
 	protected InverseInvoker getInverseInvoker() {
 		return InverseInvoker.getInverseInvoker(getObjectManager());
 	}
+
+	protected ObjectRefConverter createObjectRefConverter() {
+		return new ObjectRefConverterFactoryImpl().createObjectRefConverter(securityContext);
+	}
 }
@@ -1,20 +1,36 @@
 package co.codewizards.cloudstore.ls.rest.server.service;
 
 import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
 
 import co.codewizards.cloudstore.ls.core.dto.InverseServiceRequest;
 import co.codewizards.cloudstore.ls.core.provider.MediaTypeConst;
+import co.codewizards.cloudstore.ls.rest.server.InverseServiceRequestStreamingOutput;
 
 @Path("InverseServiceRequest")
-@Consumes(MediaTypeConst.APPLICATION_JAVA_NATIVE_WITH_OBJECT_REF)
-@Produces(MediaTypeConst.APPLICATION_JAVA_NATIVE_WITH_OBJECT_REF)
+@Consumes({ MediaTypeConst.APPLICATION_CLOUDSTORE_BINARY_WITH_OBJECT_REF, MediaTypeConst.APPLICATION_JAVA_NATIVE_WITH_OBJECT_REF })
+@Produces({ MediaTypeConst.APPLICATION_CLOUDSTORE_BINARY_WITH_OBJECT_REF, MediaTypeConst.APPLICATION_JAVA_NATIVE_WITH_OBJECT_REF })
 public class InverseServiceRequestService extends AbstractService {
 
 	@POST
 	public InverseServiceRequest pollInverseServiceRequest() {
 		return getInverseInvoker().pollInverseServiceRequest();
 	}
+
+	/**
+	 * Pushes all inverse service-requests to the client through one single, long-living response.
+	 * @return the stream. Never <code>null</code>.
+	 * @see InverseServiceRequestStreamingOutput
+	 */
+	@GET
+	@Path("_stream")
+	@Produces(MediaType.APPLICATION_OCTET_STREAM)
+	public StreamingOutput streamInverseServiceRequests() {
+		return new InverseServiceRequestStreamingOutput(getInverseInvoker(), createObjectRefConverter());
+	}
 }
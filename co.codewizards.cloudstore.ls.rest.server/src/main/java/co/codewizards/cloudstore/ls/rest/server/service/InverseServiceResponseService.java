@@ -9,8 +9,8 @@ import co.codewizards.cloudstore.ls.core.dto.InverseServiceResponse;
 import co.codewizards.cloudstore.ls.core.provider.MediaTypeConst;
 
 @Path("InverseServiceResponse")
-@Consumes(MediaTypeConst.APPLICATION_JAVA_NATIVE_WITH_OBJECT_REF)
-@Produces(MediaTypeConst.APPLICATION_JAVA_NATIVE_WITH_OBJECT_REF)
+@Consumes({ MediaTypeConst.APPLICATION_CLOUDSTORE_BINARY_WITH_OBJECT_REF, MediaTypeConst.APPLICATION_JAVA_NATIVE_WITH_OBJECT_REF })
+@Produces({ MediaTypeConst.APPLICATION_CLOUDSTORE_BINARY_WITH_OBJECT_REF, MediaTypeConst.APPLICATION_JAVA_NATIVE_WITH_OBJECT_REF })
 public class InverseServiceResponseService extends AbstractService {
 
 	@POST
@@ -0,0 +1,35 @@
+package co.codewizards.cloudstore.ls.rest.server.service;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import co.codewizards.cloudstore.ls.core.dto.InvocationMetricsDto;
+import co.codewizards.cloudstore.ls.rest.server.InvokeMethodHandler;
+
+/**
+ * Provides the metrics of all method-invocations performed by the local-server - no matter via which transport
+ * they were requested.
+ */
+@Path("InvocationMetrics")
+@Consumes(MediaType.APPLICATION_XML)
+@Produces(MediaType.APPLICATION_XML)
+public class InvocationMetricsService
+{
+	private static final Logger logger = LoggerFactory.getLogger(InvocationMetricsService.class);
+
+	{
+		logger.debug("<init>: Instance created.");
+	}
+
+	@GET
+	public InvocationMetricsDto getInvocationMetrics()
+	{
+		return InvokeMethodHandler.getInstance().getInvocationMetrics().toInvocationMetricsDto();
+	}
+}
@@ -0,0 +1,141 @@
+package co.codewizards.cloudstore.ls.rest.server;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import co.codewizards.cloudstore.core.Uid;
+import co.codewizards.cloudstore.ls.core.dto.InverseServiceRequest;
+import co.codewizards.cloudstore.ls.core.invoke.ClassInfo;
+import co.codewizards.cloudstore.ls.core.invoke.GetClassInfoRequest;
+import co.codewizards.cloudstore.ls.core.invoke.GetClassInfoResponse;
+import co.codewizards.cloudstore.ls.core.invoke.ObjectManager;
+import co.codewizards.cloudstore.ls.core.provider.ObjectGraphFrameCodec;
+
+public class InverseServiceRequestStreamingOutputTest {
+
+	private static final long HEARTBEAT_PERIOD_MS = 100;
+
+	private ObjectManager objectManager;
+	private InverseInvoker inverseInvoker;
+	private ObjectRefConverterImpl objectRefConverter;
+
+	@Before
+	public void before() {
+		objectManager = ObjectManager.getInstance(new Uid());
+		inverseInvoker = InverseInvoker.getInverseInvoker(objectManager);
+		objectRefConverter = new ObjectRefConverterImpl(objectManager);
+	}
+
+	@After
+	public void after() {
+		objectManager.close();
+	}
+
+	@Test
+	public void requestIsPushedAndStreamEndsWhenObjectManagerIsClosed() throws Exception {
+		final PipedInputStream pipedIn = new PipedInputStream(64 * 1024);
+		final PipedOutputStream pipedOut = new PipedOutputStream(pipedIn);
+		final AtomicReference<Throwable> streamError = new AtomicReference<>();
+		final Thread streamThread = new Thread() {
+			@Override
+			public void run() {
+				try {
+					new InverseServiceRequestStreamingOutput(inverseInvoker, objectRefConverter, HEARTBEAT_PERIOD_MS).write(pipedOut);
+					pipedOut.close();
+				} catch (final Throwable x) {
+					streamError.set(x);
+				}
+			}
+		};
+		streamThread.start();
+
+		final GetClassInfoRequest request = new GetClassInfoRequest(7);
+		final RequestThread requestThread = new RequestThread(request);
+		requestThread.start();
+
+		final DataInputStream in = new DataInputStream(pipedIn);
+		Object frame = null;
+		for (int i = 0; i < 100 && frame == null; ++i)
+			frame = ObjectGraphFrameCodec.readFrame(in, objectRefConverter); // null = heartbeat
+
+		assertThat(frame).isInstanceOf(GetClassInfoRequest.class);
+		final GetClassInfoRequest pushedRequest = (GetClassInfoRequest) frame;
+		assertThat(pushedRequest.getRequestId()).isEqualTo(request.getRequestId());
+		assertThat(pushedRequest.getClassId()).isEqualTo(7);
+
+		// The client posts its response separately => the blocked server-side invocation returns it.
+		inverseInvoker.pushInverseServiceResponse(new GetClassInfoResponse(pushedRequest,
+				new ClassInfo(7, "a.b.C", Collections.<String>emptySet(), false)));
+		requestThread.join(10000);
+		assertThat(requestThread.error.get()).isNull();
+		assertThat(requestThread.response.get().getClassInfo().getClassName()).isEqualTo("a.b.C");
+
+		// Only heartbeats follow, until the ObjectManager is closed.
+		assertThat(ObjectGraphFrameCodec.readFrameBytes(in)).isNull();
+		objectManager.close();
+		streamThread.join(10000);
+		assertThat(streamThread.isAlive()).isFalse();
+		assertThat(streamError.get()).isNull();
+	}
+
+	@Test
+	public void undeliveredRequestIsRequeued() throws Exception {
+		final GetClassInfoRequest request = new GetClassInfoRequest(8);
+		final RequestThread requestThread = new RequestThread(request);
+		requestThread.start();
+
+		// The connection to the client broke => writing the request fails.
+		final OutputStream brokenOut = new OutputStream() {
+			@Override
+			public void write(final int b) throws IOException {
+				throw new IOException("Connection reset");
+			}
+		};
+		try {
+			// Long heartbeat period => the request is polled (and not a heartbeat written) - even if requestThread is slow.
+			new InverseServiceRequestStreamingOutput(inverseInvoker, objectRefConverter, 10000).write(brokenOut);
+			fail("IOException expected!");
+		} catch (final IOException x) {
+			// expected
+		}
+
+		// The client re-connects and gets the same request again.
+		final InverseServiceRequest requeuedRequest = inverseInvoker.pollInverseServiceRequest(HEARTBEAT_PERIOD_MS);
+		assertThat(requeuedRequest).isSameAs(request);
+
+		inverseInvoker.pushInverseServiceResponse(new GetClassInfoResponse(request,
+				new ClassInfo(8, "a.b.D", Collections.<String>emptySet(), false)));
+		requestThread.join(10000);
+		assertThat(requestThread.response.get().getClassInfo().getClassName()).isEqualTo("a.b.D");
+	}
+
+	private class RequestThread extends Thread {
+		private final InverseServiceRequest request;
+		public final AtomicReference<GetClassInfoResponse> response = new AtomicReference<>();
+		public final AtomicReference<Throwable> error = new AtomicReference<>();
+
+		public RequestThread(final InverseServiceRequest request) {
+			this.request = request;
+		}
+
+		@Override
+		public void run() {
+			try {
+				response.set(inverseInvoker.<GetClassInfoResponse>performInverseServiceRequest(request));
+			} catch (final Throwable x) {
+				error.set(x);
+			}
+		}
+	}
+}
@@ -135,6 +135,12 @@ public class LocalServerProcessLauncher {
 					Socket socket = new Socket(baseUrl.getHost(), port);
 					socket.close();
 					logger.info("waitUntilServerOnline: Connecting to " + baseUrl + " succeeded!");
+
+					// The local-server-process writes the socket-path together with the port, hence it is already known here.
+					final File unixSocketFile = LocalServerPropertiesManager.getInstance().getUnixSocketFile();
+					if (unixSocketFile != null)
+						logger.info("waitUntilServerOnline: LocalServer offers Unix domain socket: {}", unixSocketFile);
+
 					return;
 				} catch (IOException e) {
 					if (timeout)
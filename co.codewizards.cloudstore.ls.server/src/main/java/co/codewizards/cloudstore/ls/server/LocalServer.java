@@ -35,6 +35,8 @@ import co.codewizards.cloudstore.core.io.TimeoutException;
 import co.codewizards.cloudstore.core.oio.File;
 import co.codewizards.cloudstore.ls.core.LocalServerPropertiesManager;
 import co.codewizards.cloudstore.ls.core.LsConfig;
+import co.codewizards.cloudstore.ls.core.UnixDomainSocketUtil;
+import co.codewizards.cloudstore.ls.core.invoke.MethodDispatcher;
 import co.codewizards.cloudstore.ls.rest.server.LocalServerRest;
 import co.codewizards.cloudstore.ls.rest.server.auth.AuthManager;
 
@@ -47,6 +49,7 @@ public class LocalServer {
 
 	private Server server;
 	private int port = -1;
+	private UnixSocketServer unixSocketServer;
 
 	private File localServerRunningFile;
 	private LockFile localServerRunningLockFile;
@@ -140,7 +143,9 @@ public class LocalServer {
 			// Start outside of synchronized block to make sure, any listeners don't get stuck in a deadlock.
 			s.start();
 
+			startUnixSocketServer();
 			writeLocalServerProperties();
+			warmUpMethodDispatcher();
 
 //			waitForServerToGetReady(); // seems not to be necessary => start() seems to block until the REST app is ready => commented out.
 
@@ -222,8 +227,88 @@ public class LocalServer {
 //		}
 //	}
 
+	/**
+	 * Gets the Unix domain socket used for method-invocations, if {@linkplain LsConfig#isLocalServerUnixSocketEnabled() enabled}.
+	 * @return the socket-file. Never <code>null</code>.
+	 */
+	public File getUnixSocketFile() {
+		return createFile(ConfigDir.getInstance().getFile(), "localServer.sock");
+	}
+
+	private void startUnixSocketServer() {
+		if (! LsConfig.isLocalServerUnixSocketEnabled())
+			return;
+
+		if (! UnixDomainSocketUtil.isSupported()) {
+			logger.warn("startUnixSocketServer: Config key '{}' is 'true', but this JRE ({}) does not support Unix domain sockets. Using only HTTP.",
+					LsConfig.CONFIG_KEY_LOCAL_SERVER_UNIX_SOCKET_ENABLED, System.getProperty("java.version"));
+			return;
+		}
+
+		final UnixSocketServer uss = new UnixSocketServer(getUnixSocketFile());
+		try {
+			uss.start();
+		} catch (final Exception x) { // e.g. the path is too long for a Unix domain socket => not fatal, HTTP still works.
+			logger.warn("startUnixSocketServer: Failed to listen on " + uss.getSocketFile() + ". Using only HTTP: " + x, x);
+			return;
+		}
+		synchronized (localServerRunningFile2LocalServer_running) {
+			unixSocketServer = uss;
+		}
+	}
+
+	private void stopUnixSocketServer() {
+		final UnixSocketServer uss;
+		synchronized (localServerRunningFile2LocalServer_running) {
+			uss = unixSocketServer;
+			unixSocketServer = null;
+		}
+		if (uss != null)
+			uss.stop();
+	}
+
+	/**
+	 * Gets the file listing the method-signatures invoked by clients. It is written when the server stops and
+	 * read when it starts, in order to resolve these methods in advance.
+	 * @return the file. Never <code>null</code>.
+	 */
+	public File getMethodDispatchFile() {
+		return createFile(ConfigDir.getInstance().getFile(), "localServer.dispatch");
+	}
+
+	private void warmUpMethodDispatcher() {
+		final File methodDispatchFile = getMethodDispatchFile();
+		if (! methodDispatchFile.isFile())
+			return;
+
+		final Thread thread = new Thread("LocalServer.warmUpMethodDispatcher") {
+			@Override
+			public void run() {
+				try {
+					final int count = MethodDispatcher.getInstance().warmUp(methodDispatchFile);
+					logger.info("warmUpMethodDispatcher: Resolved {} method-signatures in advance.", count);
+				} catch (final Exception x) {
+					logger.warn("warmUpMethodDispatcher: " + x, x);
+				}
+			}
+		};
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+	private void writeMethodDispatchFile() {
+		try {
+			MethodDispatcher.getInstance().writeDispatchKeys(getMethodDispatchFile());
+		} catch (final Exception x) {
+			logger.warn("writeMethodDispatchFile: " + x, x);
+		}
+	}
+
 	private void onStopOrFailure() {
 		cancelLocalServerStopFileTimerTask();
+		stopUnixSocketServer();
+		writeMethodDispatchFile();
 
 		synchronized (localServerRunningFile2LocalServer_running) {
 			final File localServerRunningFile = getLocalServerRunningFile();
@@ -260,6 +345,12 @@ public class LocalServer {
 		final LocalServerPropertiesManager localServerPropertiesManager = LocalServerPropertiesManager.getInstance();
 		localServerPropertiesManager.setPort(localPort);
 		localServerPropertiesManager.setPassword(new String(AuthManager.getInstance().getCurrentPassword()));
+
+		final UnixSocketServer uss;
+		synchronized (localServerRunningFile2LocalServer_running) {
+			uss = unixSocketServer;
+		}
+		localServerPropertiesManager.setUnixSocketFile(uss == null ? null : uss.getSocketFile());
 		localServerPropertiesManager.writeLocalServerProperties();
 	}
 
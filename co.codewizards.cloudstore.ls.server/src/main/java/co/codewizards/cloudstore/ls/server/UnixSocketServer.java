@@ -0,0 +1,233 @@
+package co.codewizards.cloudstore.ls.server;
+
+import static co.codewizards.cloudstore.core.util.Util.*;
+import static java.util.Objects.*;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channel;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import co.codewizards.cloudstore.core.Uid;
+import co.codewizards.cloudstore.core.concurrent.DeferredCompletionException;
+import co.codewizards.cloudstore.core.concurrent.VirtualThreadUtil;
+import co.codewizards.cloudstore.core.dto.Error;
+import co.codewizards.cloudstore.core.oio.File;
+import co.codewizards.cloudstore.ls.core.UnixDomainSocketUtil;
+import co.codewizards.cloudstore.ls.core.UnixSocketHandshake;
+import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationBatchRequest;
+import co.codewizards.cloudstore.ls.core.invoke.MethodInvocationRequest;
+import co.codewizards.cloudstore.ls.core.invoke.ObjectRefConverter;
+import co.codewizards.cloudstore.ls.core.provider.ObjectGraphFrameCodec;
+import co.codewizards.cloudstore.ls.rest.server.InvokeMethodHandler;
+import co.codewizards.cloudstore.ls.rest.server.ObjectRefConverterFactoryImpl;
+import co.codewizards.cloudstore.ls.rest.server.auth.AuthFilter;
+import co.codewizards.cloudstore.ls.rest.server.auth.AuthManager;
+
+/**
+ * Serves method-invocations via a Unix domain socket.
+ * <p>
+ * This is an alternative to the HTTP-based {@code InvokeMethodService} avoiding the HTTP overhead for calls
+ * within the same computer. After the {@linkplain UnixSocketHandshake handshake}, the client sends either a
+ * {@link MethodInvocationRequest}, a {@link MethodInvocationBatchRequest} or the {@link Uid} of a delayed response.
+ * The server replies with a
+ * {@link co.codewizards.cloudstore.ls.core.invoke.MethodInvocationResponse MethodInvocationResponse}, a
+ * {@link co.codewizards.cloudstore.ls.core.invoke.MethodInvocationBatchResponse MethodInvocationBatchResponse}
+ * or an {@link Error}. Each connection handles one request at a time.
+ */
+public class UnixSocketServer {
+
+	private static final Logger logger = LoggerFactory.getLogger(UnixSocketServer.class);
+
+	private final File socketFile;
+	private ServerSocketChannel serverSocketChannel;
+	private ExecutorService connectionExecutorService;
+	private final Set<SocketChannel> socketChannels = new HashSet<>();
+
+	public UnixSocketServer(final File socketFile) {
+		this.socketFile = requireNonNull(socketFile, "socketFile");
+	}
+
+	public File getSocketFile() {
+		return socketFile;
+	}
+
+	public synchronized void start() throws IOException {
+		if (serverSocketChannel != null)
+			throw new IllegalStateException("Already started!");
+
+		final ServerSocketChannel ssc = UnixDomainSocketUtil.openServerSocketChannel(socketFile);
+		serverSocketChannel = ssc;
+		connectionExecutorService = VirtualThreadUtil.createUnboundedExecutorService(null, "UnixSocketServer.connection-", true);
+		final Thread acceptThread = new Thread("UnixSocketServer.accept") {
+			@Override
+			public void run() {
+				acceptLoop(ssc);
+			}
+		};
+		acceptThread.setDaemon(true);
+		acceptThread.start();
+		logger.info("start: Listening on {}", socketFile);
+	}
+
+	public void stop() {
+		final ServerSocketChannel ssc;
+		final ExecutorService executorService;
+		final Set<SocketChannel> channels;
+		synchronized (this) {
+			ssc = serverSocketChannel;
+			executorService = connectionExecutorService;
+			serverSocketChannel = null;
+			connectionExecutorService = null;
+			channels = new HashSet<>(socketChannels);
+			socketChannels.clear();
+		}
+		if (ssc == null)
+			return;
+
+		close(ssc);
+		for (final SocketChannel socketChannel : channels)
+			close(socketChannel);
+
+		executorService.shutdownNow();
+
+		socketFile.delete();
+		logger.info("stop: Stopped listening on {}", socketFile);
+	}
+
+	private void acceptLoop(final ServerSocketChannel ssc) {
+		while (ssc.isOpen()) {
+			final SocketChannel socketChannel;
+			try {
+				socketChannel = ssc.accept();
+			} catch (final AsynchronousCloseException x) {
+				return;
+			} catch (final IOException x) {
+				logger.error("acceptLoop: " + x, x);
+				return;
+			}
+
+			final ExecutorService executorService;
+			synchronized (this) {
+				executorService = connectionExecutorService;
+				if (executorService != null)
+					socketChannels.add(socketChannel);
+			}
+			if (executorService == null) {
+				close(socketChannel);
+				return;
+			}
+
+			executorService.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						serveConnection(socketChannel);
+					} finally {
+						synchronized (UnixSocketServer.this) {
+							socketChannels.remove(socketChannel);
+						}
+						close(socketChannel);
+					}
+				}
+			});
+		}
+	}
+
+	private void serveConnection(final SocketChannel socketChannel) {
+		try {
+			final DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(socketChannel)));
+			final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(socketChannel)));
+
+			final Uid clientId = authenticate(in, out);
+			if (clientId == null)
+				return;
+
+			while (true) {
+				final byte[] frame = ObjectGraphFrameCodec.readFrameBytes(in);
+				if (frame == null)
+					continue; // heartbeat
+
+				// A new converter per request, just like the HTTP transport does => the ObjectManager is looked up
+				// again, in case it was evicted in the meantime.
+				final ObjectRefConverter objectRefConverter = createObjectRefConverter(clientId);
+				final Object response = handleRequest(clientId, ObjectGraphFrameCodec.decodeFrame(frame, objectRefConverter));
+				ObjectGraphFrameCodec.writeFrame(response, objectRefConverter, out);
+				out.flush();
+			}
+		} catch (final IOException x) {
+			// EOF or closed socket: the client disconnected or the server is stopping.
+			logger.debug("serveConnection: " + x);
+		} catch (final Exception x) {
+			logger.error("serveConnection: " + x, x);
+		}
+	}
+
+	private Uid authenticate(final DataInputStream in, final DataOutputStream out) throws IOException {
+		final String[] clientIdAndPassword = UnixSocketHandshake.readClientHandshake(in);
+		final char[] password = clientIdAndPassword[1].toCharArray();
+		clientIdAndPassword[1] = null;
+
+		Uid clientId = null;
+		try {
+			if (AuthManager.getInstance().isPasswordValid(password))
+				clientId = new Uid(clientIdAndPassword[0]);
+		} catch (final IllegalArgumentException x) {
+			logger.warn("authenticate: Invalid clientId: " + x);
+		} finally {
+			Arrays.fill(password, (char) 0); // password is not needed anymore => clear it
+		}
+
+		out.writeBoolean(clientId != null);
+		out.flush();
+		return clientId;
+	}
+
+	private Object handleRequest(final Uid clientId, final Object request) {
+		try {
+			if (request instanceof MethodInvocationRequest)
+				return InvokeMethodHandler.getInstance().performMethodInvocation(clientId, (MethodInvocationRequest) request);
+
+			if (request instanceof MethodInvocationBatchRequest)
+				return InvokeMethodHandler.getInstance().performMethodInvocationBatch(clientId, (MethodInvocationBatchRequest) request);
+
+			if (request instanceof Uid)
+				return InvokeMethodHandler.getInstance().getDelayedMethodInvocationResponse(clientId, (Uid) request);
+
+			throw new IllegalArgumentException("Unsupported request: " + request);
+		} catch (final Throwable x) {
+			if (x instanceof DeferredCompletionException) // normal part of protocol => only debug
+				logger.debug(String.valueOf(x), x);
+			else
+				logger.error(String.valueOf(x), x);
+
+			return new Error(x);
+		}
+	}
+
+	protected ObjectRefConverter createObjectRefConverter(final Uid clientId) {
+		return new ObjectRefConverterFactoryImpl().createObjectRefConverter(
+				new AuthFilter.SecurityContextImpl(clientId.toString(), false));
+	}
+
+	private static void close(final Channel channel) {
+		try {
+			channel.close();
+		} catch (final IOException x) {
+			doNothing();
+		}
+	}
+}
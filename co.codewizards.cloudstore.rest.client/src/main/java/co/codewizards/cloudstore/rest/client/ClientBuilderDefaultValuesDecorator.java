@@ -80,7 +80,7 @@ public class ClientBuilderDefaultValuesDecorator extends ClientBuilder {
 
 	@Override
 	public ClientBuilderDefaultValuesDecorator sslContext(final SSLContext sslContext){
-		builder.sslContext(sslContext);
+		builder.sslContext(ConnectionManager.getInstance().decorateSslContext(sslContext));
 		return this;
 	}
 
@@ -5,6 +5,7 @@ import static co.codewizards.cloudstore.core.util.ExceptionUtil.*;
 import static co.codewizards.cloudstore.core.util.Util.*;
 import static java.util.Objects.*;
 
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
@@ -16,6 +17,8 @@ import javax.ws.rs.ProcessingException;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
 import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.ResponseProcessingException;
 import javax.ws.rs.core.MediaType;
@@ -25,6 +28,7 @@ import org.glassfish.jersey.client.authentication.HttpAuthenticationFeature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import co.codewizards.cloudstore.core.Uid;
 import co.codewizards.cloudstore.core.dto.Error;
 import co.codewizards.cloudstore.core.dto.RemoteException;
 import co.codewizards.cloudstore.core.dto.RemoteExceptionUtil;
@@ -32,6 +36,7 @@ import co.codewizards.cloudstore.core.exception.ApplicationException;
 import co.codewizards.cloudstore.core.util.ExceptionUtil;
 import co.codewizards.cloudstore.rest.client.request.Request;
 import co.codewizards.cloudstore.rest.client.ssl.CallbackDeniedTrustException;
+import co.codewizards.cloudstore.rest.shared.IdempotencyUtil;
 
 /**
  * Client for executing REST requests.
@@ -57,6 +62,10 @@ public class CloudStoreRestClient {
 
 	private CredentialsProvider credentialsProvider;
 
+	private final RetryPolicy retryPolicy = new RetryPolicy();
+
+	private final ThreadLocal<String> idempotencyKeyThreadLocal = new ThreadLocal<String>();
+
 	/**
 	 * Get the server's base-URL.
 	 * <p>
@@ -162,7 +171,12 @@ public class CloudStoreRestClient {
 		requireNonNull(request, "request");
 		Throwable firstException = null;
 		int retryCounter = 0; // *re*-try: first (normal) invocation is 0, first re-try is 1
-		final int retryMax = 2; // *re*-try: 2 retries means 3 invocations in total
+		final int retryMax = retryPolicy.getMaxRetries(request); // *re*-try: e.g. 2 retries means 3 invocations in total
+		// The same key is sent with all tries => the server recognizes re-tries of an already successful invocation.
+		final String idempotencyKey = request.isIdempotent() ? null : new Uid().toString();
+		// A nested invocation (e.g. obtaining the auth-token while assigning the credentials) must not lose the outer key.
+		final String outerIdempotencyKey = idempotencyKeyThreadLocal.get();
+		retryPolicy.onInvocation();
 		while (true) {
 			acquireClient();
 			try {
@@ -173,6 +187,8 @@ public class CloudStoreRestClient {
 
 				try {
 					request.setCloudStoreRestClient(this);
+					idempotencyKeyThreadLocal.set(idempotencyKey);
+					ConnectionManager.getInstance().getMetrics().incRequestCount();
 					final R result = request.execute();
 
 					if (logger.isDebugEnabled())
@@ -204,23 +220,43 @@ public class CloudStoreRestClient {
 					if (firstException == null)
 						firstException = exception;
 
-					markClientBroken(); // make sure we do not reuse this client
+					if (isClientBroken(exception))
+						markClientBroken(); // make sure we do not reuse this client
+
 					if (++retryCounter > retryMax || !retryExecuteAfterException(exception)) {
 						logger.warn("execute: invocation failed (will NOT retry): " + exception, exception);
 						throw handleAndRethrowException(firstException); // TODO maybe we should make a MultiCauseException?!
 					}
-					logger.warn("execute: invocation failed (will retry): " + exception, exception);
+					if (!retryPolicy.tryAcquireRetry()) {
+						logger.warn("execute: invocation failed (will NOT retry, because retry-budget is exhausted): " + exception, exception);
+						throw handleAndRethrowException(firstException);
+					}
+					final long backoff = retryPolicy.getBackoff(retryCounter);
+					logger.warn("execute: invocation failed (will retry in " + backoff + " ms): " + exception, exception);
 
-					// Wait a bit before retrying (increasingly longer).
-					try { Thread.sleep(retryCounter * 1000L); } catch (Exception y) { doNothing(); }
+					// Wait a bit before retrying (exponentially longer).
+					try { Thread.sleep(backoff); } catch (Exception y) { doNothing(); }
 				}
 			} finally {
+				if (outerIdempotencyKey == null)
+					idempotencyKeyThreadLocal.remove();
+				else
+					idempotencyKeyThreadLocal.set(outerIdempotencyKey);
+
 				releaseClient();
 				request.setCloudStoreRestClient(null);
 			}
 		}
 	}
 
+	/**
+	 * Gets the idempotency-key of the invocation currently {@linkplain #execute(Request) executed} on the current thread.
+	 * @return the idempotency-key or <code>null</code>, if there is no invocation or it is idempotent.
+	 */
+	String getIdempotencyKey() {
+		return idempotencyKeyThreadLocal.get();
+	}
+
 	private Throwable getApplicationException(final Throwable exception) {
 		requireNonNull(exception, "exception");
 
@@ -235,6 +271,12 @@ public class CloudStoreRestClient {
 		return null;
 	}
 
+	private boolean isClientBroken(final Throwable x) {
+		// If the server sent an error-response, the connection is fine and the client can be re-used.
+		return ExceptionUtil.getCause(x, RemoteException.class) == null
+				&& ExceptionUtil.getCause(x, WebApplicationException.class) == null;
+	}
+
 	private boolean retryExecuteAfterException(final Throwable x) {
 		// If the user explicitly denied trust, we do not retry, because we don't want to ask the user
 		// multiple times.
@@ -301,6 +343,15 @@ public class CloudStoreRestClient {
 			// requests really requiring it.
 			final HttpAuthenticationFeature feature = HttpAuthenticationFeature.basic("anonymous", "");
 			client.register(feature);
+
+			client.register(new ClientRequestFilter() {
+				@Override
+				public void filter(final ClientRequestContext requestContext) throws IOException {
+					final String idempotencyKey = idempotencyKeyThreadLocal.get();
+					if (idempotencyKey != null && IdempotencyUtil.isIdempotencyKeyApplicable(requestContext.getMethod()))
+						requestContext.getHeaders().putSingle(IdempotencyUtil.IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+				}
+			});
 		}
 		clientThreadLocal.set(new ClientRef(client));
 	}
@@ -334,6 +385,11 @@ public class CloudStoreRestClient {
 
 			if (!clientRef.broken)
 				clientCache.add(clientRef.client);
+			else {
+				ConnectionManager.getInstance().getMetrics().incBrokenClientCount();
+				logger.debug("releaseClient: Discarding broken client. {}", ConnectionManager.getInstance().getMetrics());
+				clientRef.client.close();
+			}
 		}
 	}
 
@@ -0,0 +1,114 @@
+package co.codewizards.cloudstore.rest.client;
+
+import static java.util.Objects.*;
+
+import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+
+import co.codewizards.cloudstore.core.config.Config;
+import co.codewizards.cloudstore.core.config.ConfigImpl;
+import co.codewizards.cloudstore.rest.client.ssl.SSLContextBuilder;
+
+/**
+ * Manages the HTTP(S) connections of all {@link CloudStoreRestClient}s.
+ * <p>
+ * The {@code CloudStoreRestClient} uses Jersey's default connector, which is based on {@code HttpURLConnection}.
+ * Its connection-pool is the JRE's keep-alive-cache, which is configured by the JRE's standard system properties
+ * ({@code http.keepAlive}, {@code http.maxConnections} etc.) passed to the JVM. They are global, hence this class
+ * does not set them.
+ * <p>
+ * This class {@linkplain #decorateSslContext(SSLContext) decorates} the {@link SSLContext}s used by the clients:
+ * Its TLS session cache is configured (to resume sessions instead of doing full handshakes) and it provides one single
+ * {@code SSLSocketFactory} per {@code SSLContext}. Additionally, the decorated {@code SSLContext} collects the
+ * {@linkplain #getMetrics() metrics}.
+ * <p>
+ * TLS sessions are cached per {@code SSLContext} and the JRE's keep-alive-cache only hands out connections created by
+ * the very same {@code SSLSocketFactory}. Hence, sessions and connections are re-used across multiple {@code Client}s
+ * only, if they share the same {@code SSLContext} - obtained from {@link #getSharedSslContext(SSLContextBuilder)}.
+ */
+public class ConnectionManager {
+
+	/**
+	 * The {@code key} for the number of TLS sessions cached for resumption used with
+	 * {@link Config#getPropertyAsInt(String, int)}. 0 means unlimited.
+	 * <p>
+	 * The configuration can be overridden by a system property - see {@link Config#SYSTEM_PROPERTY_PREFIX}.
+	 */
+	public static final String CONFIG_KEY_TLS_SESSION_CACHE_SIZE = "restClient.tlsSessionCacheSize"; //$NON-NLS-1$
+
+	private static final int DEFAULT_TLS_SESSION_CACHE_SIZE = 1000;
+
+	/**
+	 * The {@code key} for the time in milliseconds a TLS session can be resumed used with
+	 * {@link Config#getPropertyAsLong(String, long)}. 0 means unlimited.
+	 * <p>
+	 * The configuration can be overridden by a system property - see {@link Config#SYSTEM_PROPERTY_PREFIX}.
+	 */
+	public static final String CONFIG_KEY_TLS_SESSION_TIMEOUT = "restClient.tlsSessionTimeout"; //$NON-NLS-1$
+
+	private static final long DEFAULT_TLS_SESSION_TIMEOUT = 24L * 60L * 60L * 1000L;
+
+	private final ConnectionMetrics metrics = new ConnectionMetrics();
+
+	private final Map<String, SSLContext> trustConfigurationKey2SslContext = new HashMap<>();
+
+	private static final class Holder {
+		public static final ConnectionManager instance = new ConnectionManager();
+	}
+
+	protected ConnectionManager() { }
+
+	public static ConnectionManager getInstance() {
+		return Holder.instance;
+	}
+
+	public ConnectionMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Gets the decorated {@link SSLContext} shared by all clients having the same trust configuration, i.e. the same
+	 * {@linkplain SSLContextBuilder#getTrustConfigurationKey() trust-store and callback-class}. If there is none, yet,
+	 * it is built using the given {@code sslContextBuilder}.
+	 * @param sslContextBuilder the builder describing the trust configuration. Must not be <code>null</code>.
+	 * @return the shared, {@linkplain #decorateSslContext(SSLContext) decorated} {@code SSLContext}. Never <code>null</code>.
+	 * @throws GeneralSecurityException if building the {@code SSLContext} failed.
+	 */
+	public SSLContext getSharedSslContext(final SSLContextBuilder sslContextBuilder) throws GeneralSecurityException {
+		requireNonNull(sslContextBuilder, "sslContextBuilder");
+		final String trustConfigurationKey = sslContextBuilder.getTrustConfigurationKey();
+		synchronized (trustConfigurationKey2SslContext) {
+			SSLContext sslContext = trustConfigurationKey2SslContext.get(trustConfigurationKey);
+			if (sslContext == null) {
+				sslContext = decorateSslContext(sslContextBuilder.build());
+				trustConfigurationKey2SslContext.put(trustConfigurationKey, sslContext);
+			}
+			return sslContext;
+		}
+	}
+
+	/**
+	 * Configures the TLS session cache of the given {@code sslContext} and wraps it in order to share one
+	 * {@code SSLSocketFactory} and to collect {@linkplain #getMetrics() metrics}.
+	 * @param sslContext the {@code SSLContext} to be decorated. Must not be <code>null</code>.
+	 * @return the decorated {@code SSLContext}. Never <code>null</code>.
+	 */
+	public SSLContext decorateSslContext(final SSLContext sslContext) {
+		requireNonNull(sslContext, "sslContext");
+		if (sslContext instanceof MetricsSSLContext)
+			return sslContext;
+
+		final Config config = ConfigImpl.getInstance();
+		final SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+		if (sessionContext != null) {
+			sessionContext.setSessionCacheSize(config.getPropertyAsPositiveOrZeroInt(CONFIG_KEY_TLS_SESSION_CACHE_SIZE, DEFAULT_TLS_SESSION_CACHE_SIZE));
+			final long sessionTimeout = config.getPropertyAsPositiveOrZeroLong(CONFIG_KEY_TLS_SESSION_TIMEOUT, DEFAULT_TLS_SESSION_TIMEOUT);
+			sessionContext.setSessionTimeout((int) Math.min(Integer.MAX_VALUE, sessionTimeout / 1000L)); // the JRE expects seconds
+		}
+		return new MetricsSSLContext(sslContext, metrics);
+	}
+}
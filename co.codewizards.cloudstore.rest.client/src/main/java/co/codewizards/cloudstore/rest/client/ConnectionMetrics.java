@@ -0,0 +1,88 @@
+package co.codewizards.cloudstore.rest.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters about the HTTP(S) connections used by all {@link CloudStoreRestClient}s of this JVM.
+ * <p>
+ * A request either re-uses a kept-alive connection or opens a new one. Every new HTTPS connection
+ * requires a TLS handshake - this is expensive, unless the TLS session is resumed.
+ * <p>
+ * This class is thread-safe. The instance is obtained via {@link ConnectionManager#getMetrics()}.
+ */
+public class ConnectionMetrics {
+
+	private final AtomicLong requestCount = new AtomicLong();
+	private final AtomicLong connectionCount = new AtomicLong();
+	private final AtomicLong handshakeCount = new AtomicLong();
+	private final AtomicLong brokenClientCount = new AtomicLong();
+
+	protected ConnectionMetrics() {
+	}
+
+	/**
+	 * Gets the number of requests sent (including re-tries).
+	 * @return the number of requests sent.
+	 */
+	public long getRequestCount() {
+		return requestCount.get();
+	}
+
+	/**
+	 * Gets the number of new (TLS) connections opened.
+	 * @return the number of connections opened.
+	 */
+	public long getConnectionCount() {
+		return connectionCount.get();
+	}
+
+	/**
+	 * Gets the number of requests, which were sent via an already existing connection.
+	 * @return the number of requests re-using a connection.
+	 */
+	public long getConnectionReuseCount() {
+		return Math.max(0, getRequestCount() - getConnectionCount());
+	}
+
+	/**
+	 * Gets the number of completed TLS handshakes.
+	 * @return the number of completed TLS handshakes.
+	 */
+	public long getHandshakeCount() {
+		return handshakeCount.get();
+	}
+
+	/**
+	 * Gets the number of {@code Client}s which were discarded after a failure.
+	 * @return the number of discarded {@code Client}s.
+	 */
+	public long getBrokenClientCount() {
+		return brokenClientCount.get();
+	}
+
+	protected void incRequestCount() {
+		requestCount.incrementAndGet();
+	}
+
+	protected void incConnectionCount() {
+		connectionCount.incrementAndGet();
+	}
+
+	protected void incHandshakeCount() {
+		handshakeCount.incrementAndGet();
+	}
+
+	protected void incBrokenClientCount() {
+		brokenClientCount.incrementAndGet();
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[requestCount=" + getRequestCount()
+				+ ", connectionCount=" + getConnectionCount()
+				+ ", connectionReuseCount=" + getConnectionReuseCount()
+				+ ", handshakeCount=" + getHandshakeCount()
+				+ ", brokenClientCount=" + getBrokenClientCount()
+				+ ']';
+	}
+}
@@ -0,0 +1,159 @@
+package co.codewizards.cloudstore.rest.client;
+
+import static java.util.Objects.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.security.KeyManagementException;
+import java.security.SecureRandom;
+
+import javax.net.ssl.HandshakeCompletedEvent;
+import javax.net.ssl.HandshakeCompletedListener;
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLContextSpi;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLServerSocketFactory;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+
+/**
+ * {@link SSLContext} delegating to another one, but always returning the same {@link SSLSocketFactory}
+ * which updates the {@link ConnectionMetrics}.
+ * @see ConnectionManager#decorateSslContext(SSLContext)
+ */
+class MetricsSSLContext extends SSLContext {
+
+	protected MetricsSSLContext(final SSLContext delegate, final ConnectionMetrics metrics) {
+		super(new MetricsSSLContextSpi(delegate, metrics), delegate.getProvider(), delegate.getProtocol());
+	}
+
+	private static class MetricsSSLContextSpi extends SSLContextSpi {
+		private final SSLContext delegate;
+		private final SSLSocketFactory socketFactory;
+
+		public MetricsSSLContextSpi(final SSLContext delegate, final ConnectionMetrics metrics) {
+			this.delegate = requireNonNull(delegate, "delegate");
+			this.socketFactory = new MetricsSSLSocketFactory(delegate.getSocketFactory(), metrics);
+		}
+
+		@Override
+		protected void engineInit(final KeyManager[] km, final TrustManager[] tm, final SecureRandom sr) throws KeyManagementException {
+			delegate.init(km, tm, sr);
+		}
+
+		@Override
+		protected SSLSocketFactory engineGetSocketFactory() {
+			return socketFactory;
+		}
+
+		@Override
+		protected SSLServerSocketFactory engineGetServerSocketFactory() {
+			return delegate.getServerSocketFactory();
+		}
+
+		@Override
+		protected SSLEngine engineCreateSSLEngine() {
+			return delegate.createSSLEngine();
+		}
+
+		@Override
+		protected SSLEngine engineCreateSSLEngine(final String host, final int port) {
+			return delegate.createSSLEngine(host, port);
+		}
+
+		@Override
+		protected SSLSessionContext engineGetServerSessionContext() {
+			return delegate.getServerSessionContext();
+		}
+
+		@Override
+		protected SSLSessionContext engineGetClientSessionContext() {
+			return delegate.getClientSessionContext();
+		}
+
+		@Override
+		protected SSLParameters engineGetDefaultSSLParameters() {
+			return delegate.getDefaultSSLParameters();
+		}
+
+		@Override
+		protected SSLParameters engineGetSupportedSSLParameters() {
+			return delegate.getSupportedSSLParameters();
+		}
+	}
+
+	private static class MetricsSSLSocketFactory extends SSLSocketFactory {
+		private final SSLSocketFactory delegate;
+		private final ConnectionMetrics metrics;
+		private final HandshakeCompletedListener handshakeCompletedListener = new HandshakeCompletedListener() {
+			@Override
+			public void handshakeCompleted(final HandshakeCompletedEvent event) {
+				metrics.incHandshakeCount();
+			}
+		};
+
+		public MetricsSSLSocketFactory(final SSLSocketFactory delegate, final ConnectionMetrics metrics) {
+			this.delegate = requireNonNull(delegate, "delegate");
+			this.metrics = requireNonNull(metrics, "metrics");
+		}
+
+		private Socket created(final Socket socket) {
+			metrics.incConnectionCount();
+			if (socket instanceof SSLSocket)
+				((SSLSocket) socket).addHandshakeCompletedListener(handshakeCompletedListener);
+
+			return socket;
+		}
+
+		@Override
+		public String[] getDefaultCipherSuites() {
+			return delegate.getDefaultCipherSuites();
+		}
+
+		@Override
+		public String[] getSupportedCipherSuites() {
+			return delegate.getSupportedCipherSuites();
+		}
+
+		@Override
+		public Socket createSocket() throws IOException {
+			return created(delegate.createSocket());
+		}
+
+		@Override
+		public Socket createSocket(final Socket s, final String host, final int port, final boolean autoClose) throws IOException {
+			return created(delegate.createSocket(s, host, port, autoClose));
+		}
+
+		@Override
+		public Socket createSocket(final Socket s, final InputStream consumed, final boolean autoClose) throws IOException {
+			return created(delegate.createSocket(s, consumed, autoClose));
+		}
+
+		@Override
+		public Socket createSocket(final String host, final int port) throws IOException {
+			return created(delegate.createSocket(host, port));
+		}
+
+		@Override
+		public Socket createSocket(final String host, final int port, final InetAddress localHost, final int localPort) throws IOException {
+			return created(delegate.createSocket(host, port, localHost, localPort));
+		}
+
+		@Override
+		public Socket createSocket(final InetAddress host, final int port) throws IOException {
+			return created(delegate.createSocket(host, port));
+		}
+
+		@Override
+		public Socket createSocket(final InetAddress address, final int port, final InetAddress localAddress, final int localPort) throws IOException {
+			return created(delegate.createSocket(address, port, localAddress, localPort));
+		}
+	}
+}
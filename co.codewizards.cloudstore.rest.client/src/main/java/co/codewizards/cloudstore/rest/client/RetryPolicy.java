@@ -0,0 +1,134 @@
+package co.codewizards.cloudstore.rest.client;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import co.codewizards.cloudstore.core.config.Config;
+import co.codewizards.cloudstore.core.config.ConfigImpl;
+import co.codewizards.cloudstore.rest.client.request.Request;
+
+/**
+ * Decides whether and when a failed {@link Request} is re-tried by the {@link CloudStoreRestClient}.
+ * <p>
+ * The delay between two tries grows exponentially (starting with {@link #CONFIG_KEY_INITIAL_BACKOFF}, doubling with
+ * every re-try, but never exceeding {@link #CONFIG_KEY_MAX_BACKOFF}). Half of the delay is randomised (jitter) in
+ * order to prevent many clients from hitting a recovering server at the very same time.
+ * <p>
+ * Additionally, a retry-budget limits the re-tries in relation to the requests: Every request deposits
+ * {@link #CONFIG_KEY_BUDGET_PERCENT} percent of a re-try into the budget and every re-try withdraws one whole re-try.
+ * The budget starts with (and never exceeds) {@link #CONFIG_KEY_BUDGET_RESERVE} re-tries. Thus, short outages are
+ * bridged, while a permanently failing server is not flooded with re-tries.
+ * <p>
+ * Non-idempotent requests are re-tried as well, because the {@code CloudStoreRestClient} sends an idempotency-key
+ * with them, which allows the server to skip re-tries of invocations already executed successfully.
+ * <p>
+ * This class is thread-safe.
+ */
+public class RetryPolicy {
+
+	/**
+	 * The {@code key} for the maximum number of re-tries of one single invocation used with
+	 * {@link Config#getPropertyAsInt(String, int)}.
+	 * <p>
+	 * The configuration can be overridden by a system property - see {@link Config#SYSTEM_PROPERTY_PREFIX}.
+	 */
+	public static final String CONFIG_KEY_MAX_RETRIES = "restClient.retry.maxRetries"; //$NON-NLS-1$
+
+	private static final int DEFAULT_MAX_RETRIES = 2;
+
+	/**
+	 * The {@code key} for the delay in milliseconds before the first re-try used with
+	 * {@link Config#getPropertyAsLong(String, long)}.
+	 * <p>
+	 * The configuration can be overridden by a system property - see {@link Config#SYSTEM_PROPERTY_PREFIX}.
+	 */
+	public static final String CONFIG_KEY_INITIAL_BACKOFF = "restClient.retry.initialBackoff"; //$NON-NLS-1$
+
+	private static final long DEFAULT_INITIAL_BACKOFF = 1000L;
+
+	/**
+	 * The {@code key} for the maximum delay in milliseconds between two tries used with
+	 * {@link Config#getPropertyAsLong(String, long)}.
+	 * <p>
+	 * The configuration can be overridden by a system property - see {@link Config#SYSTEM_PROPERTY_PREFIX}.
+	 */
+	public static final String CONFIG_KEY_MAX_BACKOFF = "restClient.retry.maxBackoff"; //$NON-NLS-1$
+
+	private static final long DEFAULT_MAX_BACKOFF = 60L * 1000L;
+
+	/**
+	 * The {@code key} for the percentage of a re-try deposited into the retry-budget by every request used with
+	 * {@link Config#getPropertyAsInt(String, int)}.
+	 * <p>
+	 * The configuration can be overridden by a system property - see {@link Config#SYSTEM_PROPERTY_PREFIX}.
+	 */
+	public static final String CONFIG_KEY_BUDGET_PERCENT = "restClient.retry.budgetPercent"; //$NON-NLS-1$
+
+	private static final int DEFAULT_BUDGET_PERCENT = 10;
+
+	/**
+	 * The {@code key} for the initial (and maximum) number of re-tries in the retry-budget used with
+	 * {@link Config#getPropertyAsInt(String, int)}.
+	 * <p>
+	 * The configuration can be overridden by a system property - see {@link Config#SYSTEM_PROPERTY_PREFIX}.
+	 */
+	public static final String CONFIG_KEY_BUDGET_RESERVE = "restClient.retry.budgetReserve"; //$NON-NLS-1$
+
+	private static final int DEFAULT_BUDGET_RESERVE = 20;
+
+	private final int maxRetries;
+	private final long initialBackoff;
+	private final long maxBackoff;
+	private final double budgetDeposit;
+	private final double budgetMax;
+	private double budget;
+
+	public RetryPolicy() {
+		final Config config = ConfigImpl.getInstance();
+		maxRetries = config.getPropertyAsPositiveOrZeroInt(CONFIG_KEY_MAX_RETRIES, DEFAULT_MAX_RETRIES);
+		initialBackoff = Math.max(1L, config.getPropertyAsPositiveOrZeroLong(CONFIG_KEY_INITIAL_BACKOFF, DEFAULT_INITIAL_BACKOFF));
+		maxBackoff = Math.max(initialBackoff, config.getPropertyAsPositiveOrZeroLong(CONFIG_KEY_MAX_BACKOFF, DEFAULT_MAX_BACKOFF));
+		budgetDeposit = config.getPropertyAsPositiveOrZeroInt(CONFIG_KEY_BUDGET_PERCENT, DEFAULT_BUDGET_PERCENT) / 100d;
+		budgetMax = config.getPropertyAsPositiveOrZeroInt(CONFIG_KEY_BUDGET_RESERVE, DEFAULT_BUDGET_RESERVE);
+		budget = budgetMax;
+	}
+
+	/**
+	 * Gets the maximum number of re-tries for the given request.
+	 * @param request the request to be executed. Never <code>null</code>.
+	 * @return the maximum number of re-tries. 0 disables re-tries.
+	 */
+	public int getMaxRetries(final Request<?> request) {
+		return maxRetries;
+	}
+
+	/**
+	 * Notifies this policy about a new invocation (not a re-try).
+	 */
+	public synchronized void onInvocation() {
+		budget = Math.min(budgetMax, budget + budgetDeposit);
+	}
+
+	/**
+	 * Withdraws one re-try from the retry-budget.
+	 * @return <code>true</code>, if the re-try is allowed; <code>false</code>, if the budget is exhausted.
+	 */
+	public synchronized boolean tryAcquireRetry() {
+		if (budget < 1d)
+			return false;
+
+		budget -= 1d;
+		return true;
+	}
+
+	/**
+	 * Gets the delay before the given re-try.
+	 * @param retryCounter the re-try, starting with 1 for the first re-try.
+	 * @return the delay in milliseconds.
+	 */
+	public long getBackoff(final int retryCounter) {
+		final int shift = Math.min(Long.numberOfLeadingZeros(initialBackoff) - 2, Math.max(0, retryCounter - 1)); // prevent overflow
+		final long backoff = Math.min(maxBackoff, initialBackoff << shift);
+		final long half = backoff / 2;
+		return half + ThreadLocalRandom.current().nextLong(backoff - half + 1);
+	}
+}
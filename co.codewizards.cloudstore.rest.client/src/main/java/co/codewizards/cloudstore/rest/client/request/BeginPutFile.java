@@ -21,4 +21,9 @@ public class BeginPutFile extends VoidRequest {
 				.request()).put(null);
 	}
 
+	@Override
+	public boolean isIdempotent() {
+		return true;
+	}
+
 }
@@ -23,4 +23,9 @@ public class Copy extends VoidRequest {
 				.request()).post(null);
 	}
 
+	@Override
+	public boolean isIdempotent() {
+		return false;
+	}
+
 }
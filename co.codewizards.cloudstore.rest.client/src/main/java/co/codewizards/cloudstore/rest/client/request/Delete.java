@@ -20,4 +20,9 @@ public class Delete extends VoidRequest {
 				createWebTarget(urlEncode(repositoryName), encodePath(path)).request()).delete();
 	}
 
+	@Override
+	public boolean isIdempotent() {
+		return true;
+	}
+
 }
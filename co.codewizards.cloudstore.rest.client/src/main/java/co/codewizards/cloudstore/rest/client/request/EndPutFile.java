@@ -32,4 +32,9 @@ public class EndPutFile extends VoidRequest {
 				.request()).put(null);
 	}
 
+	@Override
+	public boolean isIdempotent() {
+		return true;
+	}
+
 }
@@ -19,4 +19,9 @@ public class EndSyncFromRepository extends VoidRequest {
 				.request()).post(null);
 	}
 
+	@Override
+	public boolean isIdempotent() {
+		return false;
+	}
+
 }
@@ -22,4 +22,9 @@ public class EndSyncToRepository extends VoidRequest {
 				.request()).post(null);
 	}
 
+	@Override
+	public boolean isIdempotent() {
+		return false;
+	}
+
 }
@@ -12,11 +12,17 @@ public class GetChangeSetDto extends AbstractRequest<ChangeSetDto> {
 	private final String repositoryName;
 	private final boolean localSync;
 	private final Long lastSyncToRemoteRepoLocalRepositoryRevisionSynced;
+	private final Long changedAfterRevision;
 
 	public GetChangeSetDto(final String repositoryName, final boolean localSync, final Long lastSyncToRemoteRepoLocalRepositoryRevisionSynced) {
+		this(repositoryName, localSync, lastSyncToRemoteRepoLocalRepositoryRevisionSynced, null);
+	}
+
+	public GetChangeSetDto(final String repositoryName, final boolean localSync, final Long lastSyncToRemoteRepoLocalRepositoryRevisionSynced, final Long changedAfterRevision) {
 		this.repositoryName = requireNonNull(repositoryName, "repositoryName");
 		this.localSync = localSync;
 		this.lastSyncToRemoteRepoLocalRepositoryRevisionSynced = lastSyncToRemoteRepoLocalRepositoryRevisionSynced;
+		this.changedAfterRevision = changedAfterRevision;
 	}
 
 	@Override
@@ -29,6 +35,9 @@ public class GetChangeSetDto extends AbstractRequest<ChangeSetDto> {
 		if (lastSyncToRemoteRepoLocalRepositoryRevisionSynced != null)
 			webTarget = webTarget.queryParam("lastSyncToRemoteRepoLocalRepositoryRevisionSynced", lastSyncToRemoteRepoLocalRepositoryRevisionSynced);
 
+		if (changedAfterRevision != null)
+			webTarget = webTarget.queryParam("changedAfterRevision", changedAfterRevision);
+
 		final ChangeSetDto changeSetDto = assignCredentials(webTarget.request(MediaType.APPLICATION_XML)).get(ChangeSetDto.class);
 		return changeSetDto;
 	}
@@ -38,4 +47,9 @@ public class GetChangeSetDto extends AbstractRequest<ChangeSetDto> {
 		return false;
 	}
 
+	@Override
+	public boolean isIdempotent() {
+		return true;
+	}
+
 }
@@ -24,4 +24,9 @@ public class GetClientRepositoryDto extends AbstractRequest<RepositoryDto> {
 	public boolean isResultNullable() {
 		return false;
 	}
+
+	@Override
+	public boolean isIdempotent() {
+		return true;
+	}
 }
@@ -30,4 +30,9 @@ public class GetEncryptedSignedAuthToken extends AbstractRequest<EncryptedSigned
 	public boolean isResultNullable() {
 		return false;
 	}
+
+	@Override
+	public boolean isIdempotent() {
+		return true;
+	}
 }
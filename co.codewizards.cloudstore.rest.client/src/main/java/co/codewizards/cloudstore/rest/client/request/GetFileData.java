@@ -35,4 +35,9 @@ public class GetFileData extends AbstractRequest<byte[]> {
 	public boolean isResultNullable() {
 		return false;
 	}
+
+	@Override
+	public boolean isIdempotent() {
+		return true;
+	}
 }
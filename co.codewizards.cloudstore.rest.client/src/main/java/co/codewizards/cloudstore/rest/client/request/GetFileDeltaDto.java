@@ -0,0 +1,41 @@
+package co.codewizards.cloudstore.rest.client.request;
+
+import static java.util.Objects.*;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+
+import co.codewizards.cloudstore.core.dto.FileDeltaDto;
+import co.codewizards.cloudstore.core.dto.FileSignatureDto;
+
+public class GetFileDeltaDto extends AbstractRequest<FileDeltaDto> {
+	private final String repositoryName;
+	private final String path;
+	private final FileSignatureDto fileSignatureDto;
+
+	public GetFileDeltaDto(final String repositoryName, final String path, final FileSignatureDto fileSignatureDto) {
+		this.repositoryName = requireNonNull(repositoryName, "repositoryName");
+		this.path = requireNonNull(path, "path");
+		this.fileSignatureDto = requireNonNull(fileSignatureDto, "fileSignatureDto");
+	}
+
+	@Override
+	public FileDeltaDto execute() {
+		final WebTarget webTarget = createWebTarget(getPath(FileDeltaDto.class), urlEncode(repositoryName), encodePath(path));
+		final FileDeltaDto fileDeltaDto = assignCredentials(webTarget.request(MediaType.APPLICATION_XML))
+				.post(Entity.entity(fileSignatureDto, MediaType.APPLICATION_XML_TYPE), FileDeltaDto.class);
+		return fileDeltaDto;
+	}
+
+	@Override
+	public boolean isResultNullable() {
+		return true;
+	}
+
+	@Override
+	public boolean isIdempotent() {
+		return true;
+	}
+
+}
@@ -0,0 +1,36 @@
+package co.codewizards.cloudstore.rest.client.request;
+
+import static java.util.Objects.*;
+
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+
+import co.codewizards.cloudstore.core.dto.FileSignatureDto;
+
+public class GetFileSignatureDto extends AbstractRequest<FileSignatureDto> {
+	private final String repositoryName;
+	private final String path;
+
+	public GetFileSignatureDto(final String repositoryName, final String path) {
+		this.repositoryName = requireNonNull(repositoryName, "repositoryName");
+		this.path = requireNonNull(path, "path");
+	}
+
+	@Override
+	public FileSignatureDto execute() {
+		final WebTarget webTarget = createWebTarget(getPath(FileSignatureDto.class), urlEncode(repositoryName), encodePath(path));
+		final FileSignatureDto fileSignatureDto = assignCredentials(webTarget.request(MediaType.APPLICATION_XML)).get(FileSignatureDto.class);
+		return fileSignatureDto;
+	}
+
+	@Override
+	public boolean isResultNullable() {
+		return true;
+	}
+
+	@Override
+	public boolean isIdempotent() {
+		return true;
+	}
+
+}
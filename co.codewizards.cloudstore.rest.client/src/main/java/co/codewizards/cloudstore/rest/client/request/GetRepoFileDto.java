@@ -28,4 +28,9 @@ public class GetRepoFileDto extends AbstractRequest<RepoFileDto> {
 		return true;
 	}
 
+	@Override
+	public boolean isIdempotent() {
+		return true;
+	}
+
 }
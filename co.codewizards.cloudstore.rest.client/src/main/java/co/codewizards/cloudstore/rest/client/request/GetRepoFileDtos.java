@@ -0,0 +1,48 @@
+package co.codewizards.cloudstore.rest.client.request;
+
+import static java.util.Objects.*;
+
+import java.util.List;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+
+import co.codewizards.cloudstore.core.dto.PathListDto;
+import co.codewizards.cloudstore.core.dto.RepoFileDto;
+import co.codewizards.cloudstore.core.dto.RepoFileDtoListDto;
+
+public class GetRepoFileDtos extends AbstractRequest<RepoFileDtoListDto> {
+	private final String repositoryName;
+	private final List<String> paths;
+	private final boolean withFileChunkDtos;
+
+	public GetRepoFileDtos(final String repositoryName, final List<String> paths, final boolean withFileChunkDtos) {
+		this.repositoryName = requireNonNull(repositoryName, "repositoryName");
+		this.paths = requireNonNull(paths, "paths");
+		this.withFileChunkDtos = withFileChunkDtos;
+	}
+
+	@Override
+	public RepoFileDtoListDto execute() {
+		WebTarget webTarget = createWebTarget(getPath(RepoFileDto.class), urlEncode(repositoryName));
+
+		if (withFileChunkDtos)
+			webTarget = webTarget.queryParam("withFileChunkDtos", withFileChunkDtos);
+
+		final RepoFileDtoListDto repoFileDtoListDto = assignCredentials(webTarget.request(MediaType.APPLICATION_XML))
+				.post(Entity.entity(new PathListDto(paths), MediaType.APPLICATION_XML_TYPE), RepoFileDtoListDto.class);
+		return repoFileDtoListDto;
+	}
+
+	@Override
+	public boolean isResultNullable() {
+		return false;
+	}
+
+	@Override
+	public boolean isIdempotent() {
+		return true;
+	}
+
+}
@@ -0,0 +1,27 @@
+package co.codewizards.cloudstore.rest.client.request;
+
+import co.codewizards.cloudstore.core.dto.RepoTransportPoolMetricsDto;
+
+public class GetRepoTransportPoolMetricsDto extends AbstractRequest<RepoTransportPoolMetricsDto> {
+
+	public GetRepoTransportPoolMetricsDto() {
+	}
+
+	@Override
+	public RepoTransportPoolMetricsDto execute() {
+		final RepoTransportPoolMetricsDto repoTransportPoolMetricsDto = createWebTarget(getPath(RepoTransportPoolMetricsDto.class))
+				.request().get(RepoTransportPoolMetricsDto.class);
+		return repoTransportPoolMetricsDto;
+	}
+
+	@Override
+	public boolean isResultNullable() {
+		return false;
+	}
+
+	@Override
+	public boolean isIdempotent() {
+		return true;
+	}
+
+}
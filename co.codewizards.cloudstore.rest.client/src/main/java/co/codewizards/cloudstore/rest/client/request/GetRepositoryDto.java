@@ -24,4 +24,9 @@ public class GetRepositoryDto extends AbstractRequest<RepositoryDto> {
 		return false;
 	}
 
+	@Override
+	public boolean isIdempotent() {
+		return true;
+	}
+
 }
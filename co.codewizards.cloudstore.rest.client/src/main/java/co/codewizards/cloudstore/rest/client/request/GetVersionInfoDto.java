@@ -19,4 +19,9 @@ public class GetVersionInfoDto extends AbstractRequest<VersionInfoDto> {
 		return false;
 	}
 
+	@Override
+	public boolean isIdempotent() {
+		return true;
+	}
+
 }
@@ -47,4 +47,9 @@ public class MakeDirectory extends VoidRequest {
 
 		return webTarget;
 	}
+
+	@Override
+	public boolean isIdempotent() {
+		return false;
+	}
 }
@@ -38,4 +38,9 @@ public class MakeSymlink extends VoidRequest {
 
 		return webTarget;
 	}
+
+	@Override
+	public boolean isIdempotent() {
+		return false;
+	}
 }
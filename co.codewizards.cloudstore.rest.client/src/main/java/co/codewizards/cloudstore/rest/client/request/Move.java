@@ -23,4 +23,9 @@ public class Move extends VoidRequest {
 				.request()).post(null);
 	}
 
+	@Override
+	public boolean isIdempotent() {
+		return false;
+	}
+
 }
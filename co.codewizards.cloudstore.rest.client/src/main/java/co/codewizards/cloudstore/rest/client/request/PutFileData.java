@@ -29,4 +29,9 @@ public class PutFileData extends VoidRequest {
 
 		return assignCredentials(webTarget.request()).put(Entity.entity(fileData, MediaType.APPLICATION_OCTET_STREAM));
 	}
+
+	@Override
+	public boolean isIdempotent() {
+		return true;
+	}
 }
@@ -0,0 +1,38 @@
+package co.codewizards.cloudstore.rest.client.request;
+
+import static java.util.Objects.*;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+
+import co.codewizards.cloudstore.core.dto.FileChunkDeltaDto;
+
+public class PutFileDelta extends AbstractRequest<Boolean> {
+	private final String repositoryName;
+	private final String path;
+	private final FileChunkDeltaDto fileChunkDeltaDto;
+
+	public PutFileDelta(final String repositoryName, final String path, final FileChunkDeltaDto fileChunkDeltaDto) {
+		this.repositoryName = requireNonNull(repositoryName, "repositoryName");
+		this.path = requireNonNull(path, "path");
+		this.fileChunkDeltaDto = requireNonNull(fileChunkDeltaDto, "fileChunkDeltaDto");
+	}
+
+	@Override
+	public Boolean execute() {
+		final WebTarget webTarget = createWebTarget("_putFileDelta", urlEncode(repositoryName), encodePath(path));
+		return assignCredentials(webTarget.request(MediaType.TEXT_PLAIN))
+				.put(Entity.entity(fileChunkDeltaDto, MediaType.APPLICATION_XML_TYPE), Boolean.class);
+	}
+
+	@Override
+	public boolean isResultNullable() {
+		return false;
+	}
+
+	@Override
+	public boolean isIdempotent() {
+		return true;
+	}
+}
@@ -25,4 +25,9 @@ public class PutParentConfigPropSetDto extends VoidRequest {
 				.put(Entity.entity(parentConfigPropSetDto, MediaType.APPLICATION_XML_TYPE));
 	}
 
+	@Override
+	public boolean isIdempotent() {
+		return true;
+	}
+
 }
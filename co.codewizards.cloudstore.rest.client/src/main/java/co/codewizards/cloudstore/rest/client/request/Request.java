@@ -68,4 +68,22 @@ public interface Request<R> {
 	 */
 	boolean isResultNullable();
 
+	/**
+	 * Indicates, if executing the request multiple times has the same effect as executing it once.
+	 * <p>
+	 * All reading requests are idempotent. Modifying requests are idempotent, if they only set a state
+	 * (e.g. writing data to a certain position), but not, if they depend on the previous state (e.g. moving a file).
+	 * By convention, idempotent requests use HTTP GET, PUT or DELETE, while non-idempotent requests use POST.
+	 * <p>
+	 * {@link CloudStoreRestClient#execute(Request)} sends an idempotency-key with every non-idempotent request,
+	 * allowing the server to detect re-tries.
+	 * <p>
+	 * The default implementation returns <code>false</code>, which is always safe - it only causes an unnecessary
+	 * idempotency-key to be sent for an idempotent request.
+	 * @return <code>true</code> if the request is idempotent; <code>false</code> otherwise.
+	 */
+	default boolean isIdempotent() {
+		return false;
+	}
+
 }
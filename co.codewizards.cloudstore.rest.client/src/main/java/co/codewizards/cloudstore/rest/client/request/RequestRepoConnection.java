@@ -27,4 +27,9 @@ public class RequestRepoConnection extends VoidRequest {
 				.request().post(Entity.entity(clientRepositoryDto, MediaType.APPLICATION_XML));
 	}
 
+	@Override
+	public boolean isIdempotent() {
+		return false;
+	}
+
 }
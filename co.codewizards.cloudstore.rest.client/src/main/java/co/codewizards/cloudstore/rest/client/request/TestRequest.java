@@ -32,4 +32,9 @@ public class TestRequest extends AbstractRequest<Void> {
 		return null;
 	}
 
+	@Override
+	public boolean isIdempotent() {
+		return true;
+	}
+
 }
@@ -1,6 +1,7 @@
 package co.codewizards.cloudstore.rest.client.ssl;
 
 import static co.codewizards.cloudstore.core.io.StreamUtil.*;
+import static co.codewizards.cloudstore.core.util.Util.*;
 import static java.util.Objects.*;
 
 import java.io.BufferedInputStream;
@@ -30,7 +31,7 @@ class DynamicX509TrustManager implements X509TrustManager {
 	private static final char[] TRUST_STORE_PASSWORD_CHAR_ARRAY = "CloudStore".toCharArray();
 	private final File trustStoreFile;
 	private final DynamicX509TrustManagerCallback callback;
-	private X509TrustManager trustManager;
+	private volatile X509TrustManager trustManager; // the SSLContext (and thus this) is shared by multiple clients
 	private final List<Certificate> tempCertList = new ArrayList<Certificate>();
 
 	public DynamicX509TrustManager(final File trustStoreFile, final DynamicX509TrustManagerCallback callback) {
@@ -53,17 +54,30 @@ class DynamicX509TrustManager implements X509TrustManager {
 		try {
 			trustManager.checkServerTrusted(chain, authType);
 		} catch (final Exception cx) {
-			final CheckServerTrustedCertificateExceptionResult result = callback.handleCheckServerTrustedCertificateException(
-					new CheckServerTrustedCertificateExceptionContext(chain, cx));
-			if (result == null)
-				throw new IllegalStateException("Implementation error: callback.handleCheckServerTrustedCertificateException(...) returned null! callback.class=" + callback.getClass().getName());
-
-			if (!result.isTrusted())
-				throw new CallbackDeniedTrustException(cx);
+			handleUntrustedServer(chain, authType, cx);
+		}
+	}
 
-			addServerCertAndReload(chain[0], result.isPermanent());
+	private synchronized void handleUntrustedServer(final X509Certificate[] chain, final String authType, final Exception cx) throws CertificateException {
+		// Another thread or process might have accepted the certificate meanwhile => reload before asking the callback.
+		reloadTrustManager();
+		try {
 			trustManager.checkServerTrusted(chain, authType);
+			return;
+		} catch (final Exception x) {
+			doNothing(); // still not trusted => ask the callback
 		}
+
+		final CheckServerTrustedCertificateExceptionResult result = callback.handleCheckServerTrustedCertificateException(
+				new CheckServerTrustedCertificateExceptionContext(chain, cx));
+		if (result == null)
+			throw new IllegalStateException("Implementation error: callback.handleCheckServerTrustedCertificateException(...) returned null! callback.class=" + callback.getClass().getName());
+
+		if (!result.isTrusted())
+			throw new CallbackDeniedTrustException(cx);
+
+		addServerCertAndReload(chain[0], result.isPermanent());
+		trustManager.checkServerTrusted(chain, authType);
 	}
 
 	@Override
@@ -58,15 +58,29 @@ public final class SSLContextBuilder {
 	}
 
 	public SSLContext build() throws GeneralSecurityException {
+		return getSSLContext(getEffectiveTrustStoreFile(), getCallback());
+	}
+
+	/**
+	 * Gets the key identifying the trust configuration: The trust-store file and the callback's class.
+	 * <p>
+	 * All {@code SSLContext}s built with the same key behave the same. Hence, one of them can be shared.
+	 * @return the key identifying the trust configuration. Never <code>null</code>.
+	 */
+	public String getTrustConfigurationKey() {
+		return getEffectiveTrustStoreFile().getAbsolutePath() + '|' + requireNonNull(getCallback(), "callback").getClass().getName();
+	}
+
+	private File getEffectiveTrustStoreFile() {
 		final File trustStoreFile = getTrustStoreFile();
 		if (trustStoreFile != null) {
 			if (getRemoteURL() != null)
 				throw new IllegalStateException("remoteURL and trustStoreFile are both set! Only one of these should be set!");
 
-			return getSSLContext(trustStoreFile, getCallback());
+			return trustStoreFile;
 		}
 		else
-			return getSSLContext(getRemoteURL(), getCallback());
+			return getTrustStoreFile(getRemoteURL());
 	}
 
 	private SSLContext getSSLContext(final File trustStoreFile, final DynamicX509TrustManagerCallback callback) throws GeneralSecurityException {
@@ -83,9 +97,8 @@ public final class SSLContextBuilder {
 		return sslContext;
 	}
 
-	private SSLContext getSSLContext(final URL remoteURL, final DynamicX509TrustManagerCallback callback) throws GeneralSecurityException {
+	private File getTrustStoreFile(final URL remoteURL) {
 		requireNonNull(remoteURL, "remoteURL");
-		requireNonNull(callback, "callback");
 
 		String trustStoreFileName = remoteURL.getHost();
 		if (remoteURL.getPort() >= 0)
@@ -101,6 +114,6 @@ public final class SSLContextBuilder {
 		if (!sslClient.isDirectory())
 			throw new IllegalStateException("Could not create directory (permissions?): " + sslClient);
 
-		return getSSLContext(createFile(sslClient, trustStoreFileName), callback);
+		return createFile(sslClient, trustStoreFileName);
 	}
 }
@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.security.GeneralSecurityException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
@@ -33,9 +34,14 @@ import co.codewizards.cloudstore.core.auth.SignedAuthTokenIO;
 import co.codewizards.cloudstore.core.concurrent.DeferredCompletionException;
 import co.codewizards.cloudstore.core.config.ConfigImpl;
 import co.codewizards.cloudstore.core.dto.ChangeSetDto;
+import co.codewizards.cloudstore.core.dto.ChangeSetDtoMerger;
 import co.codewizards.cloudstore.core.dto.ConfigPropSetDto;
 import co.codewizards.cloudstore.core.dto.DateTime;
+import co.codewizards.cloudstore.core.dto.FileChunkDeltaDto;
+import co.codewizards.cloudstore.core.dto.FileDeltaDto;
+import co.codewizards.cloudstore.core.dto.FileSignatureDto;
 import co.codewizards.cloudstore.core.dto.RepoFileDto;
+import co.codewizards.cloudstore.core.dto.RepoFileDtoListDto;
 import co.codewizards.cloudstore.core.dto.RepositoryDto;
 import co.codewizards.cloudstore.core.dto.VersionInfoDto;
 import co.codewizards.cloudstore.core.dto.jaxb.ChangeSetDtoIo;
@@ -49,6 +55,7 @@ import co.codewizards.cloudstore.core.repo.local.LocalRepoRegistryImpl;
 import co.codewizards.cloudstore.core.repo.transport.AbstractRepoTransport;
 import co.codewizards.cloudstore.rest.client.ClientBuilderDefaultValuesDecorator;
 import co.codewizards.cloudstore.rest.client.CloudStoreRestClient;
+import co.codewizards.cloudstore.rest.client.ConnectionManager;
 import co.codewizards.cloudstore.rest.client.CredentialsProvider;
 import co.codewizards.cloudstore.rest.client.request.BeginPutFile;
 import co.codewizards.cloudstore.rest.client.request.Copy;
@@ -60,13 +67,17 @@ import co.codewizards.cloudstore.rest.client.request.GetChangeSetDto;
 import co.codewizards.cloudstore.rest.client.request.GetClientRepositoryDto;
 import co.codewizards.cloudstore.rest.client.request.GetEncryptedSignedAuthToken;
 import co.codewizards.cloudstore.rest.client.request.GetFileData;
+import co.codewizards.cloudstore.rest.client.request.GetFileDeltaDto;
+import co.codewizards.cloudstore.rest.client.request.GetFileSignatureDto;
 import co.codewizards.cloudstore.rest.client.request.GetRepoFileDto;
+import co.codewizards.cloudstore.rest.client.request.GetRepoFileDtos;
 import co.codewizards.cloudstore.rest.client.request.GetRepositoryDto;
 import co.codewizards.cloudstore.rest.client.request.GetVersionInfoDto;
 import co.codewizards.cloudstore.rest.client.request.MakeDirectory;
 import co.codewizards.cloudstore.rest.client.request.MakeSymlink;
 import co.codewizards.cloudstore.rest.client.request.Move;
 import co.codewizards.cloudstore.rest.client.request.PutFileData;
+import co.codewizards.cloudstore.rest.client.request.PutFileDelta;
 import co.codewizards.cloudstore.rest.client.request.PutParentConfigPropSetDto;
 import co.codewizards.cloudstore.rest.client.request.RequestRepoConnection;
 import co.codewizards.cloudstore.rest.client.ssl.DynamicX509TrustManagerCallback;
@@ -87,15 +98,18 @@ public class RestRepoTransport extends AbstractRepoTransport implements Credenti
 	private final long fileChunkSetTimeout = ConfigImpl.getInstance().getPropertyAsPositiveOrZeroLong(
 			CONFIG_KEY_GET_REPO_FILE_DTO_WITH_FILE_CHUNK_DTOS_TIMEOUT, CONFIG_DEFAULT_GET_REPO_FILE_DTO_WITH_FILE_CHUNK_DTOS_TIMEOUT);
 
-//	public static final String CHANGE_SET_DTO_CACHE_FILE_NAME_TEMPLATE = "ChangeSetDto.${serverRepositoryId}.${lastRevisionSynced}.xml.gz";
+//	public static final String CHANGE_SET_DTO_CACHE_FILE_NAME_TEMPLATE = "ChangeSetDto.${serverRepositoryId}.${lastRevisionSynced}.${fromRevision}_${toRevision}.xml.gz";
 	public static final String CHANGE_SET_DTO_CACHE_FILE_NAME_PREFIX = "ChangeSetDto.";
+	public static final String CHANGE_SET_DTO_CACHE_FILE_NAME_REVISION_RANGE_SEPARATOR = "_";
 	public static final String CHANGE_SET_DTO_CACHE_FILE_NAME_SUFFIX = ".xml.gz";
 	public static final String TMP_FILE_NAME_SUFFIX = ".tmp";
 
-	private UUID repositoryId; // server-repository
-	private byte[] publicKey;
-	private String repositoryName; // server-repository
-	private CloudStoreRestClient client;
+	// The RepoFileDtoPrefetcher invokes getRepoFileDtos(...) concurrently to the sync's thread => the lazily
+	// initialised fields are volatile and the client as well as the auth-tokens are synchronized.
+	private volatile UUID repositoryId; // server-repository
+	private volatile byte[] publicKey;
+	private volatile String repositoryName; // server-repository
+	private volatile CloudStoreRestClient client;
 	private final Map<UUID, AuthToken> clientRepositoryId2AuthToken = new HashMap<UUID, AuthToken>(1); // should never be more ;-)
 	private LocalRepoManager localRepoManager;
 	private File localRepoTmpDir;
@@ -120,8 +134,8 @@ public class RestRepoTransport extends AbstractRepoTransport implements Credenti
 	public UUID getRepositoryId() {
 		if (repositoryId == null) {
 			final RepositoryDto repositoryDto = getRepositoryDto();
+			publicKey = repositoryDto.getPublicKey(); // before repositoryId => getPublicKey() never sees null
 			repositoryId = repositoryDto.getRepositoryId();
-			publicKey = repositoryDto.getPublicKey();
 		}
 		return repositoryId;
 	}
@@ -159,28 +173,39 @@ public class RestRepoTransport extends AbstractRepoTransport implements Credenti
 
 	@Override
 	public ChangeSetDto getChangeSetDto(final boolean localSync, final Long lastSyncToRemoteRepoLocalRepositoryRevisionSynced) {
-		File changeSetDtoCacheFile = null;
-		ChangeSetDto result = null;
-
-		try {
-			changeSetDtoCacheFile = getChangeSetDtoCacheFile(lastSyncToRemoteRepoLocalRepositoryRevisionSynced);
-			if (changeSetDtoCacheFile.isFile() && changeSetDtoCacheFile.length() > 0) {
-				ChangeSetDtoIo changeSetDtoIo = createObject(ChangeSetDtoIo.class);
-				result = changeSetDtoIo.deserializeWithGz(changeSetDtoCacheFile);
-				logger.info("getChangeSetDto: Read ChangeSetDto-cache-file: {}", changeSetDtoCacheFile.getAbsolutePath());
-				return result;
-			} else {
-				logger.info("getChangeSetDto: ChangeSetDto-cache-file NOT found: {}", changeSetDtoCacheFile.getAbsolutePath());
+		return getChangeSetDto(localSync, lastSyncToRemoteRepoLocalRepositoryRevisionSynced, null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * If {@code changedAfterRevision} is <code>null</code>, this implementation manages a local, append-only
+	 * change-set-cache: The cache consists of segments, each of them covering a revision-range. If segments
+	 * for the given {@code lastSyncToRemoteRepoLocalRepositoryRevisionSynced} exist (e.g. because a previous
+	 * sync was interrupted), only the changes after the last cached revision are requested from the server.
+	 * They are written as a new segment and merged into the cached change-set. Thus, an interrupted sync of a
+	 * huge change-set can be resumed without downloading the whole change-set again. The cache is deleted
+	 * in {@link #endSyncFromRepository()}.
+	 */
+	@Override
+	public ChangeSetDto getChangeSetDto(final boolean localSync, final Long lastSyncToRemoteRepoLocalRepositoryRevisionSynced, final Long changedAfterRevision) {
+		final boolean useCache = changedAfterRevision == null;
+		ChangeSetDto cachedChangeSetDto = null;
+		if (useCache) {
+			try {
+				cachedChangeSetDto = readChangeSetDtoCache(lastSyncToRemoteRepoLocalRepositoryRevisionSynced);
+			} catch (Exception x) {
+				cachedChangeSetDto = null;
+				logger.error("getChangeSetDto: Reading ChangeSetDto-cache failed: " + x, x);
 			}
-		} catch (Exception x) {
-			result = null;
-			logger.error("getChangeSetDto: Reading ChangeSetDto-cache-file failed: " + x, x);
 		}
 
+		final Long afterRevision = cachedChangeSetDto == null ? changedAfterRevision : cachedChangeSetDto.getRepositoryDto().getRevision();
+		ChangeSetDto result = null;
 		final long beginTimestamp = nowAsMillis();
 		while (true) {
 			try {
-				result = getClient().execute(new GetChangeSetDto(getRepositoryId().toString(), localSync, lastSyncToRemoteRepoLocalRepositoryRevisionSynced));
+				result = getClient().execute(new GetChangeSetDto(getRepositoryId().toString(), localSync, lastSyncToRemoteRepoLocalRepositoryRevisionSynced, afterRevision));
 			} catch (final DeferredCompletionException x) {
 				if (nowAsMillis() > beginTimestamp + changeSetTimeout)
 					throw new TimeoutException(String.format("Could not get change-set within %s milliseconds!", changeSetTimeout), x);
@@ -189,21 +214,85 @@ public class RestRepoTransport extends AbstractRepoTransport implements Credenti
 			}
 
 			if (result != null) {
-				if (changeSetDtoCacheFile != null) {
-					File tmpFile = changeSetDtoCacheFile.getParentFile().createFile(changeSetDtoCacheFile.getName() + TMP_FILE_NAME_SUFFIX);
-					ChangeSetDtoIo changeSetDtoIo = createObject(ChangeSetDtoIo.class);
-					changeSetDtoIo.serializeWithGz(result, tmpFile);
-					if (! tmpFile.renameTo(changeSetDtoCacheFile)) {
-						logger.error("getChangeSetDto: Could not rename temporary file to active ChangeSetDto-cache-file: {}", changeSetDtoCacheFile.getAbsolutePath());
-					} else {
-						logger.info("getChangeSetDto: Wrote ChangeSetDto-cache-file: {}", changeSetDtoCacheFile.getAbsolutePath());
+				if (! useCache)
+					return result;
+
+				if (afterRevision == null || afterRevision.longValue() != result.getRepositoryDto().getRevision()) {
+					try {
+						writeChangeSetDtoCacheSegment(lastSyncToRemoteRepoLocalRepositoryRevisionSynced, afterRevision, result);
+					} catch (Exception x) {
+						logger.error("getChangeSetDto: Writing ChangeSetDto-cache-segment failed: " + x, x);
 					}
 				}
+
+				if (cachedChangeSetDto != null) {
+					logger.info("getChangeSetDto: Merging {} ModificationDtos and {} RepoFileDtos changed after revision {} into cached ChangeSetDto.",
+							result.getModificationDtos().size(), result.getRepoFileDtos().size(), afterRevision);
+					result = ChangeSetDtoMerger.create().merge(cachedChangeSetDto, result);
+				}
 				return result;
 			}
 		}
 	}
 
+	/**
+	 * Reads all cache-segments belonging to the given {@code lastSyncToRemoteRepoLocalRepositoryRevisionSynced}
+	 * and merges them in the order of their revision-ranges.
+	 * @return the merged, cached {@code ChangeSetDto} or <code>null</code>, if there is no cache.
+	 */
+	protected ChangeSetDto readChangeSetDtoCache(final Long lastSyncToRemoteRepoLocalRepositoryRevisionSynced) {
+		final Map<String, File> fromRevision2CacheFile = new HashMap<>();
+		final String fileNamePrefix = getChangeSetDtoCacheFileNamePrefix(lastSyncToRemoteRepoLocalRepositoryRevisionSynced);
+		for (final File file : getChangeSetDtoCacheFiles(false)) {
+			final String fileName = file.getName();
+			if (! fileName.startsWith(fileNamePrefix) || file.length() == 0)
+				continue;
+
+			final String revisionRange = fileName.substring(fileNamePrefix.length(), fileName.length() - CHANGE_SET_DTO_CACHE_FILE_NAME_SUFFIX.length());
+			final int separatorIndex = revisionRange.indexOf(CHANGE_SET_DTO_CACHE_FILE_NAME_REVISION_RANGE_SEPARATOR);
+			if (separatorIndex < 0)
+				continue; // old (non-segmented) cache file => ignore
+
+			fromRevision2CacheFile.put(revisionRange.substring(0, separatorIndex), file);
+		}
+
+		ChangeSetDto result = null;
+		String fromRevision = getChangeSetDtoCacheFileNameFromRevision(null); // the base segment is not incremental
+		File cacheFile;
+		while ((cacheFile = fromRevision2CacheFile.remove(fromRevision)) != null) {
+			final ChangeSetDto segment;
+			try {
+				final ChangeSetDtoIo changeSetDtoIo = createObject(ChangeSetDtoIo.class);
+				segment = changeSetDtoIo.deserializeWithGz(cacheFile);
+			} catch (Exception x) {
+				logger.error("readChangeSetDtoCache: Reading ChangeSetDto-cache-segment failed (ignoring it and all following): " + cacheFile.getAbsolutePath(), x);
+				break;
+			}
+			logger.info("readChangeSetDtoCache: Read ChangeSetDto-cache-segment: {}", cacheFile.getAbsolutePath());
+			result = result == null ? segment : ChangeSetDtoMerger.create().merge(result, segment);
+			fromRevision = getChangeSetDtoCacheFileNameFromRevision(segment.getRepositoryDto().getRevision());
+		}
+
+		if (result == null)
+			logger.info("readChangeSetDtoCache: ChangeSetDto-cache NOT found: {}*", fileNamePrefix);
+
+		return result;
+	}
+
+	protected void writeChangeSetDtoCacheSegment(final Long lastSyncToRemoteRepoLocalRepositoryRevisionSynced, final Long fromRevision, final ChangeSetDto segment) {
+		final File changeSetDtoCacheFile = getChangeSetDtoCacheFile(lastSyncToRemoteRepoLocalRepositoryRevisionSynced,
+				fromRevision, segment.getRepositoryDto().getRevision());
+
+		final File tmpFile = changeSetDtoCacheFile.getParentFile().createFile(changeSetDtoCacheFile.getName() + TMP_FILE_NAME_SUFFIX);
+		final ChangeSetDtoIo changeSetDtoIo = createObject(ChangeSetDtoIo.class);
+		changeSetDtoIo.serializeWithGz(segment, tmpFile);
+		if (! tmpFile.renameTo(changeSetDtoCacheFile)) {
+			logger.error("writeChangeSetDtoCacheSegment: Could not rename temporary file to active ChangeSetDto-cache-file: {}", changeSetDtoCacheFile.getAbsolutePath());
+		} else {
+			logger.info("writeChangeSetDtoCacheSegment: Wrote ChangeSetDto-cache-file: {}", changeSetDtoCacheFile.getAbsolutePath());
+		}
+	}
+
 	@Override
 	public void prepareForChangeSetDto(ChangeSetDto changeSetDto) {
 		// nothing to do here.
@@ -257,6 +346,32 @@ public class RestRepoTransport extends AbstractRepoTransport implements Credenti
 		}
 	}
 
+	@Override
+	public List<RepoFileDto> getRepoFileDtos(final List<String> paths, final boolean withFileChunkDtos) {
+		requireNonNull(paths, "paths");
+		final List<String> prefixedPaths = new ArrayList<>(paths.size());
+		for (final String path : paths)
+			prefixedPaths.add(prefixPath(path));
+
+		final long beginTimestamp = nowAsMillis();
+		while (true) {
+			try {
+				final RepoFileDtoListDto repoFileDtoListDto = getClient().execute(
+						new GetRepoFileDtos(getRepositoryId().toString(), prefixedPaths, withFileChunkDtos));
+				final List<RepoFileDto> repoFileDtos = repoFileDtoListDto.getRepoFileDtos();
+				if (repoFileDtos.size() != paths.size())
+					throw new IllegalStateException(String.format("Requested %s RepoFileDtos, but got %s!", paths.size(), repoFileDtos.size()));
+
+				return repoFileDtos;
+			} catch (final DeferredCompletionException x) {
+				if (nowAsMillis() > beginTimestamp + fileChunkSetTimeout)
+					throw new TimeoutException(String.format("Could not get file-chunk-sets within %s milliseconds!", fileChunkSetTimeout), x);
+
+				logger.info("getRepoFileDtos: Got DeferredCompletionException; will retry.");
+			}
+		}
+	}
+
 	@Override
 	public byte[] getFileData(String path, final long offset, final int length) {
 		path = prefixPath(path);
@@ -275,6 +390,44 @@ public class RestRepoTransport extends AbstractRepoTransport implements Credenti
 		getClient().execute(new PutFileData(getRepositoryId().toString(), path, offset, fileData));
 	}
 
+	@Override
+	public FileSignatureDto getFileSignatureDto(String path) {
+		path = prefixPath(path);
+		final long beginTimestamp = nowAsMillis();
+		while (true) {
+			try {
+				return getClient().execute(new GetFileSignatureDto(getRepositoryId().toString(), path));
+			} catch (final DeferredCompletionException x) {
+				if (nowAsMillis() > beginTimestamp + fileChunkSetTimeout)
+					throw new TimeoutException(String.format("Could not get file-signature within %s milliseconds!", fileChunkSetTimeout), x);
+
+				logger.info("getFileSignatureDto: Got DeferredCompletionException; will retry.");
+			}
+		}
+	}
+
+	@Override
+	public FileDeltaDto getFileDeltaDto(String path, final FileSignatureDto fileSignatureDto) {
+		path = prefixPath(path);
+		final long beginTimestamp = nowAsMillis();
+		while (true) {
+			try {
+				return getClient().execute(new GetFileDeltaDto(getRepositoryId().toString(), path, fileSignatureDto));
+			} catch (final DeferredCompletionException x) {
+				if (nowAsMillis() > beginTimestamp + fileChunkSetTimeout)
+					throw new TimeoutException(String.format("Could not get file-delta within %s milliseconds!", fileChunkSetTimeout), x);
+
+				logger.info("getFileDeltaDto: Got DeferredCompletionException; will retry.");
+			}
+		}
+	}
+
+	@Override
+	public boolean putFileDelta(String path, final FileChunkDeltaDto fileChunkDeltaDto) {
+		path = prefixPath(path);
+		return getClient().execute(new PutFileDelta(getRepositoryId().toString(), path, fileChunkDeltaDto));
+	}
+
 	@Override
 	public void endPutFile(String path, final Date lastModified, final long length, final String sha1) {
 		path = prefixPath(path);
@@ -318,6 +471,12 @@ public class RestRepoTransport extends AbstractRepoTransport implements Credenti
 
 	private AuthToken getAuthToken() {
 		final UUID clientRepositoryId = getClientRepositoryIdOrFail();
+		synchronized (clientRepositoryId2AuthToken) { // only one thread gets a new AuthToken - the others wait for it
+			return getAuthToken(clientRepositoryId);
+		}
+	}
+
+	private AuthToken getAuthToken(final UUID clientRepositoryId) {
 		AuthToken authToken = clientRepositoryId2AuthToken.get(clientRepositoryId);
 		if (authToken != null && isAfterRenewalDate(authToken)) {
 			logger.debug("getAuthToken: old AuthToken passed renewal-date: clientRepositoryId={} serverRepositoryId={} renewalDateTime={} expiryDateTime={}",
@@ -371,11 +530,17 @@ public class RestRepoTransport extends AbstractRepoTransport implements Credenti
 	}
 
 	protected CloudStoreRestClient getClient() {
+		CloudStoreRestClient client = this.client;
 		if (client == null) {
-			ClientBuilder clientBuilder = createClientBuilder();
-			final CloudStoreRestClient c = new CloudStoreRestClient(getRemoteRoot(), clientBuilder);
-			c.setCredentialsProvider(this);
-			client = c;
+			synchronized (this) {
+				client = this.client;
+				if (client == null) {
+					ClientBuilder clientBuilder = createClientBuilder();
+					client = new CloudStoreRestClient(getRemoteRoot(), clientBuilder);
+					client.setCredentialsProvider(this);
+					this.client = client;
+				}
+			}
 		}
 		return client;
 	}
@@ -410,7 +575,7 @@ public class RestRepoTransport extends AbstractRepoTransport implements Credenti
 		return repositoryName;
 	}
 
-	private String pathAfterBaseURL;
+	private volatile String pathAfterBaseURL;
 
 	protected String getPathAfterBaseURL() {
 		String pathAfterBaseURL = this.pathAfterBaseURL;
@@ -435,9 +600,9 @@ public class RestRepoTransport extends AbstractRepoTransport implements Credenti
 	private ClientBuilder createClientBuilder(){
 		final ClientBuilder builder = new ClientBuilderDefaultValuesDecorator();
 		try {
-			builder.sslContext(SSLContextBuilder.create()
+			builder.sslContext(ConnectionManager.getInstance().getSharedSslContext(SSLContextBuilder.create()
 					.remoteURL(getRemoteRoot())
-					.callback(getDynamicX509TrustManagerCallback()).build());
+					.callback(getDynamicX509TrustManagerCallback())));
 		} catch (final GeneralSecurityException e) {
 			throw new RuntimeException(e);
 		}
@@ -450,10 +615,26 @@ public class RestRepoTransport extends AbstractRepoTransport implements Credenti
 		return versionInfoDto;
 	}
 
-	protected File getChangeSetDtoCacheFile(final Long lastSyncToRemoteRepoLocalRepositoryRevisionSynced) {
-		String fileName = CHANGE_SET_DTO_CACHE_FILE_NAME_PREFIX
+	protected String getChangeSetDtoCacheFileNamePrefix(final Long lastSyncToRemoteRepoLocalRepositoryRevisionSynced) {
+		return CHANGE_SET_DTO_CACHE_FILE_NAME_PREFIX
 				+ getRepositoryId() + "."
-				+ lastSyncToRemoteRepoLocalRepositoryRevisionSynced
+				+ lastSyncToRemoteRepoLocalRepositoryRevisionSynced + ".";
+	}
+
+	/**
+	 * Gets the part of a cache-segment's file name denoting the revision after which the segment's changes start.
+	 * @param fromRevision the revision after which the segment's changes start, or <code>null</code> for the
+	 * (non-incremental) base segment.
+	 * @return the file name part. Never <code>null</code>. An empty string for the base segment.
+	 */
+	protected String getChangeSetDtoCacheFileNameFromRevision(final Long fromRevision) {
+		return fromRevision == null ? "" : fromRevision.toString();
+	}
+
+	protected File getChangeSetDtoCacheFile(final Long lastSyncToRemoteRepoLocalRepositoryRevisionSynced, final Long fromRevision, final long toRevision) {
+		String fileName = getChangeSetDtoCacheFileNamePrefix(lastSyncToRemoteRepoLocalRepositoryRevisionSynced)
+				+ getChangeSetDtoCacheFileNameFromRevision(fromRevision)
+				+ CHANGE_SET_DTO_CACHE_FILE_NAME_REVISION_RANGE_SEPARATOR + toRevision
 				+ CHANGE_SET_DTO_CACHE_FILE_NAME_SUFFIX;
 		return getLocalRepoTmpDir().createFile(fileName);
 	}
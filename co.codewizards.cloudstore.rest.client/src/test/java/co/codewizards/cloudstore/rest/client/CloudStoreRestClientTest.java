@@ -3,14 +3,23 @@ package co.codewizards.cloudstore.rest.client;
 import static org.assertj.core.api.Assertions.*;
 
 import java.net.MalformedURLException;
+import java.net.SocketException;
 
+import javax.ws.rs.ProcessingException;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.core.MediaType;
 
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
 import org.junit.Test;
 
+import co.codewizards.cloudstore.core.config.Config;
+import co.codewizards.cloudstore.core.dto.Error;
+import co.codewizards.cloudstore.core.dto.RemoteException;
+import co.codewizards.cloudstore.rest.client.request.AbstractRequest;
+
 import mockit.Expectations;
 import mockit.Mocked;
 import mockit.Verifications;
@@ -26,6 +35,18 @@ public class CloudStoreRestClientTest{
 	@Mocked
 	private Client client;
 
+	@BeforeClass
+	public static void beforeClass() {
+		// 1 re-try without noteworthy delay => 2 tries in total
+		System.setProperty(Config.SYSTEM_PROPERTY_PREFIX + RetryPolicy.CONFIG_KEY_MAX_RETRIES, "1");
+		System.setProperty(Config.SYSTEM_PROPERTY_PREFIX + RetryPolicy.CONFIG_KEY_INITIAL_BACKOFF, "1");
+	}
+
+	@AfterClass
+	public static void afterClass() {
+		System.getProperties().remove(Config.SYSTEM_PROPERTY_PREFIX + RetryPolicy.CONFIG_KEY_MAX_RETRIES);
+		System.getProperties().remove(Config.SYSTEM_PROPERTY_PREFIX + RetryPolicy.CONFIG_KEY_INITIAL_BACKOFF);
+	}
 
 	@Test(expected = IllegalStateException.class)
 	public void baseUrlNotFound() throws MalformedURLException {
@@ -182,4 +203,116 @@ public class CloudStoreRestClientTest{
 		String result = cloudstoreClient.getBaseUrl();
 		assertThat(result).isEqualTo("https://cloudstore.codewizards.co/");
 	}
+
+	@Test
+	public void remoteExceptionKeepsClient() {
+		assertClientReuse(new RemoteException(new Error("Error thrown by the server")), 1);
+	}
+
+	@Test
+	public void webApplicationExceptionKeepsClient() {
+		assertClientReuse(new WebApplicationException(500), 1);
+	}
+
+	@Test
+	public void transportErrorDiscardsClient() {
+		assertClientReuse(new ProcessingException(new SocketException("Connection reset")), 2);
+	}
+
+	@Test
+	public void nestedInvocationKeepsIdempotencyKey() {
+		new Expectations() {{
+			clientBuilder.build(); result = client;
+			client.register(any); result = client;
+		}};
+		cloudstoreClient = new CloudStoreRestClient("https://localhost:8080/", clientBuilder);
+
+		// E.g. a non-idempotent request obtaining the auth-token while assigning its credentials.
+		final String[] idempotencyKeys = cloudstoreClient.execute(new NestingRequest());
+		assertThat(idempotencyKeys[0]).isNotNull();
+		assertThat(idempotencyKeys[1]).isNull();
+		assertThat(idempotencyKeys[2]).isEqualTo(idempotencyKeys[0]);
+		assertThat(cloudstoreClient.getIdempotencyKey()).isNull();
+	}
+
+	private void assertClientReuse(final RuntimeException exception, final int expectedClientCount) {
+		new Expectations() {{
+			clientBuilder.build(); result = client;
+			client.register(any); result = client;
+		}};
+		cloudstoreClient = new CloudStoreRestClient("https://localhost:8080/", clientBuilder);
+
+		try {
+			cloudstoreClient.execute(new FailingRequest(exception));
+			fail("Exception expected!");
+		} catch (final RuntimeException x) {
+			assertThat(x).isInstanceOf(exception.getClass());
+		}
+
+		final int expectedClosedClientCount = expectedClientCount == 1 ? 0 : expectedClientCount;
+		new Verifications() {{
+			clientBuilder.build(); times = expectedClientCount;
+			client.close(); times = expectedClosedClientCount;
+		}};
+	}
+
+	private static class FailingRequest extends AbstractRequest<String> {
+		private final RuntimeException exception;
+
+		public FailingRequest(final RuntimeException exception) {
+			this.exception = exception;
+		}
+
+		@Override
+		public String execute() {
+			throw exception;
+		}
+
+		@Override
+		public boolean isResultNullable() {
+			return false;
+		}
+
+		@Override
+		public boolean isIdempotent() {
+			return true;
+		}
+	}
+
+	private static class NestingRequest extends AbstractRequest<String[]> {
+		@Override
+		public String[] execute() {
+			final CloudStoreRestClient cloudStoreRestClient = getCloudStoreRestClientOrFail();
+			final String outerIdempotencyKey = cloudStoreRestClient.getIdempotencyKey();
+			final String nestedIdempotencyKey = cloudStoreRestClient.execute(new IdempotencyKeyRequest());
+			return new String[] { outerIdempotencyKey, nestedIdempotencyKey, cloudStoreRestClient.getIdempotencyKey() };
+		}
+
+		@Override
+		public boolean isResultNullable() {
+			return false;
+		}
+
+		@Override
+		public boolean isIdempotent() {
+			return false;
+		}
+	}
+
+	private static class IdempotencyKeyRequest extends AbstractRequest<String> {
+		@Override
+		public String execute() {
+			return getCloudStoreRestClientOrFail().getIdempotencyKey();
+		}
+
+		@Override
+		public boolean isResultNullable() {
+			return true;
+		}
+
+		@Override
+		public boolean isIdempotent() {
+			return true;
+		}
+	}
 }
@@ -0,0 +1,64 @@
+package co.codewizards.cloudstore.rest.client;
+
+import static co.codewizards.cloudstore.core.oio.OioFileFactory.*;
+import static org.assertj.core.api.Assertions.*;
+
+import javax.net.ssl.SSLContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import co.codewizards.cloudstore.core.oio.File;
+import co.codewizards.cloudstore.core.util.IOUtil;
+import co.codewizards.cloudstore.rest.client.ssl.CheckServerTrustedCertificateExceptionContext;
+import co.codewizards.cloudstore.rest.client.ssl.CheckServerTrustedCertificateExceptionResult;
+import co.codewizards.cloudstore.rest.client.ssl.DynamicX509TrustManagerCallback;
+import co.codewizards.cloudstore.rest.client.ssl.SSLContextBuilder;
+
+public class ConnectionManagerTest {
+
+	private File dir;
+
+	@Before
+	public void before() throws Exception {
+		dir = createTempDirectory("ConnectionManagerTest");
+	}
+
+	@After
+	public void after() throws Exception {
+		if (dir != null)
+			IOUtil.deleteDirectoryRecursively(dir);
+	}
+
+	@Test
+	public void sslContextIsSharedPerTrustConfiguration() throws Exception {
+		final ConnectionManager connectionManager = ConnectionManager.getInstance();
+		final File trustStoreFile1 = createFile(dir, "server1.truststore");
+		final File trustStoreFile2 = createFile(dir, "server2.truststore");
+
+		final SSLContext sslContext = connectionManager.getSharedSslContext(
+				SSLContextBuilder.create().trustStoreFile(trustStoreFile1).callback(new DenyingCallback()));
+		assertThat(connectionManager.getSharedSslContext(
+				SSLContextBuilder.create().trustStoreFile(trustStoreFile1).callback(new DenyingCallback()))).isSameAs(sslContext);
+
+		// Already decorated => the same SSLSocketFactory is used by all clients.
+		assertThat(connectionManager.decorateSslContext(sslContext)).isSameAs(sslContext);
+		assertThat(sslContext.getSocketFactory()).isSameAs(sslContext.getSocketFactory());
+
+		assertThat(connectionManager.getSharedSslContext(
+				SSLContextBuilder.create().trustStoreFile(trustStoreFile2).callback(new DenyingCallback()))).isNotSameAs(sslContext);
+		assertThat(connectionManager.getSharedSslContext(
+				SSLContextBuilder.create().trustStoreFile(trustStoreFile1).callback(new OtherDenyingCallback()))).isNotSameAs(sslContext);
+	}
+
+	public static class DenyingCallback implements DynamicX509TrustManagerCallback {
+		@Override
+		public CheckServerTrustedCertificateExceptionResult handleCheckServerTrustedCertificateException(final CheckServerTrustedCertificateExceptionContext context) {
+			return new CheckServerTrustedCertificateExceptionResult();
+		}
+	}
+
+	public static class OtherDenyingCallback extends DenyingCallback {
+	}
+}
@@ -1,6 +1,7 @@
 package co.codewizards.cloudstore.rest.server;
 
 import javax.ws.rs.ApplicationPath;
+import javax.ws.rs.Priorities;
 
 import org.glassfish.jersey.server.ResourceConfig;
 import org.slf4j.Logger;
@@ -13,12 +14,16 @@ import co.codewizards.cloudstore.rest.server.service.EncryptedSignedAuthTokenSer
 import co.codewizards.cloudstore.rest.server.service.EndPutFileService;
 import co.codewizards.cloudstore.rest.server.service.EndSyncFromRepositoryService;
 import co.codewizards.cloudstore.rest.server.service.EndSyncToRepositoryService;
+import co.codewizards.cloudstore.rest.server.service.FileDeltaDtoService;
+import co.codewizards.cloudstore.rest.server.service.FileSignatureDtoService;
 import co.codewizards.cloudstore.rest.server.service.GetClientRepositoryDtoService;
 import co.codewizards.cloudstore.rest.server.service.MakeDirectoryService;
 import co.codewizards.cloudstore.rest.server.service.MakeSymlinkService;
 import co.codewizards.cloudstore.rest.server.service.MoveService;
+import co.codewizards.cloudstore.rest.server.service.PutFileDeltaService;
 import co.codewizards.cloudstore.rest.server.service.PutParentConfigPropSetDtoService;
 import co.codewizards.cloudstore.rest.server.service.RepoFileDtoService;
+import co.codewizards.cloudstore.rest.server.service.RepoTransportPoolMetricsDtoService;
 import co.codewizards.cloudstore.rest.server.service.RepositoryDtoService;
 import co.codewizards.cloudstore.rest.server.service.RequestRepoConnectionService;
 import co.codewizards.cloudstore.rest.server.service.TestService;
@@ -54,11 +59,15 @@ public class CloudStoreRest extends ResourceConfig {
 				EndPutFileService.class,
 				EndSyncFromRepositoryService.class,
 				EndSyncToRepositoryService.class,
+				FileDeltaDtoService.class,
+				FileSignatureDtoService.class,
 				GetClientRepositoryDtoService.class,
 				RepoFileDtoService.class,
+				RepoTransportPoolMetricsDtoService.class,
 				MakeDirectoryService.class,
 				MakeSymlinkService.class,
 				MoveService.class,
+				PutFileDeltaService.class,
 				PutParentConfigPropSetDtoService.class,
 				RepositoryDtoService.class,
 				RequestRepoConnectionService.class,
@@ -77,6 +86,9 @@ public class CloudStoreRest extends ResourceConfig {
 				// END providers
 				);
 
+		// Its WriterInterceptor must run inside the GZIP-interceptors => explicitly lower priority (higher value).
+		register(IdempotencyFilter.class, Priorities.USER + 1000);
+
 		register(new CloudStoreBinder());
 	}
 }
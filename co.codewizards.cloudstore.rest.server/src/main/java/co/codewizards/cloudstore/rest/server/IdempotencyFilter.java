@@ -0,0 +1,305 @@
+package co.codewizards.cloudstore.rest.server;
+
+import static co.codewizards.cloudstore.core.chronos.ChronosUtil.*;
+import static java.util.Objects.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.Principal;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import co.codewizards.cloudstore.core.config.Config;
+import co.codewizards.cloudstore.core.config.ConfigImpl;
+import co.codewizards.cloudstore.core.util.HashUtil;
+import co.codewizards.cloudstore.rest.shared.IdempotencyUtil;
+
+/**
+ * Filter preventing the repeated execution of a non-idempotent request.
+ * <p>
+ * The client sends the same {@linkplain IdempotencyUtil#IDEMPOTENCY_KEY_HEADER idempotency-key} with every
+ * re-try of an invocation. If an invocation with the same key was already executed successfully, this filter
+ * replays its response (status, entity and content-type) - without executing the request again. If it is still in
+ * progress, the re-try is rejected immediately with {@link Response.Status#CONFLICT 409} - the client then re-tries
+ * again later (after its backoff). Failed invocations are forgotten, hence their re-tries are executed normally.
+ * <p>
+ * Invocations are scoped by the client's principal - or (since this filter runs before the services authenticate)
+ * by its credentials. Thus, a client can never get the response of another client's invocation replayed.
+ * <p>
+ * The response's entity is captured by the {@link WriterInterceptor} part of this filter. It must run after
+ * (i.e. inside) all other interceptors - hence it is registered with a lower priority. Thus the uncompressed
+ * entity is captured and the replayed entity is encoded in the same way as the original one.
+ */
+@Provider
+public class IdempotencyFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+	private static final Logger logger = LoggerFactory.getLogger(IdempotencyFilter.class);
+
+	/**
+	 * The {@code key} for the time in milliseconds a successful invocation is remembered used with
+	 * {@link Config#getPropertyAsLong(String, long)}.
+	 * <p>
+	 * The configuration can be overridden by a system property - see {@link Config#SYSTEM_PROPERTY_PREFIX}.
+	 */
+	public static final String CONFIG_KEY_EXPIRY_PERIOD = "idempotencyFilter.expiryPeriod"; //$NON-NLS-1$
+
+	private static final long DEFAULT_EXPIRY_PERIOD = 60L * 60L * 1000L;
+
+	/**
+	 * The {@code key} for the maximum size in bytes of a response's entity being remembered used with
+	 * {@link Config#getPropertyAsInt(String, int)}.
+	 * <p>
+	 * If the entity is larger, the invocation is forgotten and a re-try is executed normally.
+	 * <p>
+	 * The configuration can be overridden by a system property - see {@link Config#SYSTEM_PROPERTY_PREFIX}.
+	 */
+	public static final String CONFIG_KEY_MAX_ENTITY_SIZE = "idempotencyFilter.maxEntitySize"; //$NON-NLS-1$
+
+	private static final int DEFAULT_MAX_ENTITY_SIZE = 64 * 1024;
+
+	private static final String PROPERTY_INVOCATION = IdempotencyFilter.class.getName() + ".invocation";
+	private static final String PROPERTY_STATUS = IdempotencyFilter.class.getName() + ".status";
+
+	/**
+	 * The response of a successful invocation.
+	 */
+	protected static class InvocationResponse {
+		public final int status;
+		public final byte[] entity;
+		public final MediaType mediaType;
+
+		public InvocationResponse(final int status, final byte[] entity, final MediaType mediaType) {
+			this.status = status;
+			this.entity = entity;
+			this.mediaType = mediaType;
+		}
+	}
+
+	private static class Invocation {
+		public final String invocationKey;
+		public final long created = nowAsMillis();
+
+		/**
+		 * Completed with the {@link InvocationResponse}, if successful - or with <code>null</code>, if failed.
+		 */
+		public final CompletableFuture<InvocationResponse> responseFuture = new CompletableFuture<>();
+
+		public Invocation(final String invocationKey) {
+			this.invocationKey = requireNonNull(invocationKey, "invocationKey");
+		}
+	}
+
+	private final ConcurrentMap<String, Invocation> invocationKey2Invocation = new ConcurrentHashMap<>();
+	private final AtomicLong lastEvictionTimestamp = new AtomicLong(nowAsMillis());
+
+	@Override
+	public void filter(final ContainerRequestContext requestContext) throws IOException {
+		final String idempotencyKey = IdempotencyUtil.getIdempotencyKey(requestContext);
+		if (idempotencyKey == null || ! IdempotencyUtil.isIdempotencyKeyApplicable(requestContext.getMethod()))
+			return;
+
+		final long expiryPeriod = getExpiryPeriod();
+		evictExpiredInvocationsIfNeeded(expiryPeriod);
+
+		final String invocationKey = idempotencyKey + '|' + requestContext.getMethod() + '|' + requestContext.getUriInfo().getPath()
+				+ '|' + getPrincipalKey(requestContext);
+		while (true) {
+			final Invocation invocation = new Invocation(invocationKey);
+			final Invocation existingInvocation = invocationKey2Invocation.putIfAbsent(invocationKey, invocation);
+			if (existingInvocation == null) { // first invocation => execute it
+				requestContext.setProperty(PROPERTY_INVOCATION, invocation);
+				return;
+			}
+
+			if (existingInvocation.created < nowAsMillis() - expiryPeriod) { // expired, but not yet evicted
+				invocationKey2Invocation.remove(invocationKey, existingInvocation);
+				continue;
+			}
+
+			if (! existingInvocation.responseFuture.isDone()) {
+				logger.warn("filter: Invocation '{}' still in progress. Rejecting re-try.", invocationKey);
+				requestContext.abortWith(Response.status(Response.Status.CONFLICT).build());
+				return;
+			}
+
+			final InvocationResponse invocationResponse = existingInvocation.responseFuture.getNow(null);
+			if (invocationResponse != null) {
+				logger.info("filter: Invocation '{}' was already executed successfully. Replaying its response.", invocationKey);
+				requestContext.abortWith(createResponse(invocationResponse));
+				return;
+			}
+
+			// The original invocation failed => forget it and execute this re-try normally (if no other re-try
+			// was quicker - then we try again and are rejected or get the replay).
+			invocationKey2Invocation.remove(invocationKey, existingInvocation);
+		}
+	}
+
+	@Override
+	public void filter(final ContainerRequestContext requestContext, final ContainerResponseContext responseContext) throws IOException {
+		final Invocation invocation = (Invocation) requestContext.getProperty(PROPERTY_INVOCATION);
+		if (invocation == null)
+			return;
+
+		final int status = responseContext.getStatus();
+		if (status < 200 || status > 299) {
+			completeInvocation(invocation, null);
+			return;
+		}
+
+		if (! responseContext.hasEntity()) {
+			completeInvocation(invocation, new InvocationResponse(status, null, null));
+			return;
+		}
+
+		// The entity is written later => aroundWriteTo(...) completes the invocation.
+		requestContext.setProperty(PROPERTY_STATUS, status);
+	}
+
+	@Override
+	public void aroundWriteTo(final WriterInterceptorContext context) throws IOException, WebApplicationException {
+		final Invocation invocation = (Invocation) context.getProperty(PROPERTY_INVOCATION);
+		final Integer status = (Integer) context.getProperty(PROPERTY_STATUS);
+		if (invocation == null || status == null) {
+			context.proceed();
+			return;
+		}
+
+		final int maxEntitySize = ConfigImpl.getInstance().getPropertyAsPositiveOrZeroInt(CONFIG_KEY_MAX_ENTITY_SIZE, DEFAULT_MAX_ENTITY_SIZE);
+		final CapturingOutputStream capturingOutputStream = new CapturingOutputStream(context.getOutputStream(), maxEntitySize);
+		context.setOutputStream(capturingOutputStream);
+		InvocationResponse invocationResponse = null;
+		try {
+			context.proceed();
+			if (capturingOutputStream.isOverflow())
+				logger.warn("aroundWriteTo: Entity of invocation '{}' exceeds {} bytes. Not remembering invocation.", invocation.invocationKey, maxEntitySize);
+			else
+				invocationResponse = new InvocationResponse(status, capturingOutputStream.getCapturedBytes(), context.getMediaType());
+		} finally {
+			completeInvocation(invocation, invocationResponse);
+		}
+	}
+
+	/**
+	 * Gets the key identifying the client's principal.
+	 * <p>
+	 * The credentials are hashed, because they must neither be kept in memory nor be logged.
+	 * @param requestContext the request. Must not be <code>null</code>.
+	 * @return the key identifying the client's principal. Never <code>null</code>, but empty, if the request
+	 * neither has a principal nor credentials.
+	 */
+	protected String getPrincipalKey(final ContainerRequestContext requestContext) {
+		final SecurityContext securityContext = requestContext.getSecurityContext();
+		final Principal principal = securityContext == null ? null : securityContext.getUserPrincipal();
+		if (principal != null)
+			return "principal:" + principal.getName();
+
+		final String authorization = requestContext.getHeaderString(HttpHeaders.AUTHORIZATION);
+		if (authorization != null)
+			return "authorization:" + HashUtil.sha1(authorization);
+
+		return "";
+	}
+
+	private void completeInvocation(final Invocation invocation, final InvocationResponse invocationResponse) {
+		if (invocationResponse == null)
+			invocationKey2Invocation.remove(invocation.invocationKey, invocation);
+
+		invocation.responseFuture.complete(invocationResponse);
+	}
+
+	protected Response createResponse(final InvocationResponse invocationResponse) {
+		requireNonNull(invocationResponse, "invocationResponse");
+		final Response.ResponseBuilder responseBuilder = Response.status(invocationResponse.status);
+		if (invocationResponse.entity != null) {
+			responseBuilder.entity(invocationResponse.entity);
+			if (invocationResponse.mediaType != null)
+				responseBuilder.header(HttpHeaders.CONTENT_TYPE, invocationResponse.mediaType);
+		}
+		return responseBuilder.build();
+	}
+
+	private long getExpiryPeriod() {
+		return ConfigImpl.getInstance().getPropertyAsPositiveOrZeroLong(CONFIG_KEY_EXPIRY_PERIOD, DEFAULT_EXPIRY_PERIOD);
+	}
+
+	private void evictExpiredInvocationsIfNeeded(final long expiryPeriod) {
+		final long now = nowAsMillis();
+		final long lastEviction = lastEvictionTimestamp.get();
+		// Iterating all invocations is expensive => do it only once per tenth of the expiry-period (and only in one thread).
+		if (now - lastEviction < expiryPeriod / 10 || ! lastEvictionTimestamp.compareAndSet(lastEviction, now))
+			return;
+
+		final long createdBefore = now - expiryPeriod;
+		for (final Iterator<Invocation> it = invocationKey2Invocation.values().iterator(); it.hasNext(); ) {
+			final Invocation invocation = it.next();
+			if (invocation.created < createdBefore) {
+				it.remove();
+				invocation.responseFuture.complete(null); // in case it was still in progress
+			}
+		}
+	}
+
+	/**
+	 * Passes all bytes through to the underlying {@code OutputStream} and captures them up to a maximum size.
+	 */
+	private static class CapturingOutputStream extends FilterOutputStream {
+		private final int maxSize;
+		private ByteArrayOutputStream capture = new ByteArrayOutputStream();
+
+		public CapturingOutputStream(final OutputStream out, final int maxSize) {
+			super(out);
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			out.write(b);
+			capture(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) throws IOException {
+			out.write(b, off, len);
+			capture(b, off, len);
+		}
+
+		private void capture(final byte[] b, final int off, final int len) {
+			if (capture == null)
+				return;
+
+			if (capture.size() + len > maxSize)
+				capture = null; // overflow
+			else
+				capture.write(b, off, len);
+		}
+
+		public boolean isOverflow() {
+			return capture == null;
+		}
+
+		public byte[] getCapturedBytes() {
+			return capture == null ? null : capture.toByteArray();
+		}
+	}
+}
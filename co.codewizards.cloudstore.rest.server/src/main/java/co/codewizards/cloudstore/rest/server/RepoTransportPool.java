@@ -0,0 +1,376 @@
+package co.codewizards.cloudstore.rest.server;
+
+import static co.codewizards.cloudstore.core.chronos.ChronosUtil.*;
+import static java.util.Objects.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import co.codewizards.cloudstore.core.concurrent.SharedScheduler;
+import co.codewizards.cloudstore.core.config.Config;
+import co.codewizards.cloudstore.core.config.ConfigImpl;
+import co.codewizards.cloudstore.core.dto.RepoTransportPoolMetricsDto;
+import co.codewizards.cloudstore.core.repo.transport.RepoTransport;
+import co.codewizards.cloudstore.core.repo.transport.RepoTransportFactory;
+import co.codewizards.cloudstore.core.repo.transport.RepoTransportFactoryRegistry;
+
+/**
+ * Pool of ready-to-use {@link RepoTransport}s serving the server's repositories.
+ * <p>
+ * Every request of a repo-to-repo-service needs a {@code RepoTransport} for the server's repository, as seen by
+ * the client (i.e. with the client's path-prefix). Creating one for every request means looking up the factory and
+ * obtaining a {@code LocalRepoManager} over and over again - a chunk-heavy sync sends thousands of requests per
+ * minute.
+ * <p>
+ * Therefore, the transports are pooled per local-root-URL (identifying the server's repository and the path-prefix)
+ * and client-repository. {@link #borrowRepoTransport(URL, UUID)} returns a proxy whose {@link RepoTransport#close()
+ * close()} puts the transport back into the pool instead of closing it. A transport whose usage threw an exception
+ * is not re-used. A transport being returned is {@linkplain RepoTransport#clearCaches() cleared}.
+ * <p>
+ * Transports being idle for longer than {@link #CONFIG_KEY_IDLE_TIMEOUT} are closed - and with them their
+ * {@code LocalRepoManager}s, so that idle repositories are still closed eventually.
+ * <p>
+ * The pool's metrics are served as {@link RepoTransportPoolMetricsDto} by the
+ * {@link co.codewizards.cloudstore.rest.server.service.RepoTransportPoolMetricsDtoService RepoTransportPoolMetricsDtoService}.
+ */
+public class RepoTransportPool {
+	private static final Logger logger = LoggerFactory.getLogger(RepoTransportPool.class);
+
+	/**
+	 * The {@code key} for the maximum number of idle transports kept per local-root-URL and client-repository used
+	 * with {@link Config#getPropertyAsInt(String, int)}. 0 disables the pool.
+	 * <p>
+	 * The configuration can be overridden by a system property - see {@link Config#SYSTEM_PROPERTY_PREFIX}.
+	 */
+	public static final String CONFIG_KEY_MAX_IDLE_COUNT = "repoTransportPool.maxIdleCount"; //$NON-NLS-1$
+	public static final int DEFAULT_MAX_IDLE_COUNT = 8;
+
+	/**
+	 * The {@code key} for the time in milliseconds after which an idle transport is closed used with
+	 * {@link Config#getPropertyAsLong(String, long)}.
+	 * <p>
+	 * The configuration can be overridden by a system property - see {@link Config#SYSTEM_PROPERTY_PREFIX}.
+	 */
+	public static final String CONFIG_KEY_IDLE_TIMEOUT = "repoTransportPool.idleTimeout"; //$NON-NLS-1$
+	public static final long DEFAULT_IDLE_TIMEOUT = 60L * 1000L;
+
+	private static final class IdleRepoTransport {
+		public final RepoTransport repoTransport;
+		public final long idleSinceMillis = nowAsMillis();
+
+		public IdleRepoTransport(final RepoTransport repoTransport) {
+			this.repoTransport = repoTransport;
+		}
+	}
+
+	private final Map<String, Deque<IdleRepoTransport>> key2IdleRepoTransports = new ConcurrentHashMap<>();
+
+	private final int maxIdleCount;
+	private final long idleTimeout;
+
+	private final AtomicInteger idleCount = new AtomicInteger();
+	private final AtomicInteger borrowedCount = new AtomicInteger();
+	private final AtomicLong borrowCount = new AtomicLong();
+	private final AtomicLong reuseCount = new AtomicLong();
+	private final AtomicLong closeCount = new AtomicLong();
+	private volatile String lastLoggedMetrics;
+
+	private static final class Holder {
+		public static final RepoTransportPool instance = new RepoTransportPool();
+	}
+
+	public static RepoTransportPool getInstance() {
+		return Holder.instance;
+	}
+
+	protected RepoTransportPool() {
+		maxIdleCount = ConfigImpl.getInstance().getPropertyAsPositiveOrZeroInt(CONFIG_KEY_MAX_IDLE_COUNT, DEFAULT_MAX_IDLE_COUNT);
+		idleTimeout = ConfigImpl.getInstance().getPropertyAsPositiveOrZeroLong(CONFIG_KEY_IDLE_TIMEOUT, DEFAULT_IDLE_TIMEOUT);
+		if (maxIdleCount > 0) {
+			final long period = Math.max(1000L, idleTimeout / 2);
+			SharedScheduler.getInstance().schedulePeriodically(new Runnable() {
+				@Override
+				public void run() {
+					closeExpiredIdleRepoTransports();
+					logMetricsIfChanged();
+				}
+
+				@Override
+				public String toString() {
+					return "RepoTransportPool.closeExpiredIdleRepoTransports";
+				}
+			}, period, period);
+		}
+	}
+
+	/**
+	 * Gets an idle transport from the pool or creates a new one.
+	 * <p>
+	 * The caller must {@linkplain RepoTransport#close() close} the returned transport exactly like a newly created
+	 * one - this returns it to the pool.
+	 * @param localRootURL the server's repository's local root, including the path-prefix. Must not be <code>null</code>.
+	 * @param clientRepositoryId the client's repository-ID. Must not be <code>null</code>.
+	 * @return a transport. Never <code>null</code>.
+	 */
+	public RepoTransport borrowRepoTransport(final URL localRootURL, final UUID clientRepositoryId) {
+		requireNonNull(localRootURL, "localRootURL");
+		requireNonNull(clientRepositoryId, "clientRepositoryId");
+		borrowCount.incrementAndGet();
+
+		final String key = clientRepositoryId + "|" + localRootURL.toExternalForm();
+		RepoTransport repoTransport = null;
+		final Deque<IdleRepoTransport> idleRepoTransports = key2IdleRepoTransports.get(key);
+		if (idleRepoTransports != null) {
+			final IdleRepoTransport idleRepoTransport = idleRepoTransports.pollFirst(); // most recently used first
+			if (idleRepoTransport != null) {
+				idleCount.decrementAndGet();
+				reuseCount.incrementAndGet();
+				repoTransport = idleRepoTransport.repoTransport;
+			}
+		}
+
+		if (repoTransport == null)
+			repoTransport = createRepoTransport(localRootURL, clientRepositoryId);
+
+		borrowedCount.incrementAndGet();
+		return (RepoTransport) Proxy.newProxyInstance(
+				repoTransport.getClass().getClassLoader(),
+				getInterfaces(repoTransport.getClass()),
+				new PooledRepoTransportInvocationHandler(key, repoTransport));
+	}
+
+	/**
+	 * Creates a new transport, if there is no idle one.
+	 * @param localRootURL the server's repository's local root, including the path-prefix. Never <code>null</code>.
+	 * @param clientRepositoryId the client's repository-ID. Never <code>null</code>.
+	 * @return a new transport. Never <code>null</code>.
+	 */
+	protected RepoTransport createRepoTransport(final URL localRootURL, final UUID clientRepositoryId) {
+		final RepoTransportFactory repoTransportFactory = RepoTransportFactoryRegistry.getInstance().getRepoTransportFactoryOrFail(localRootURL);
+		return repoTransportFactory.createRepoTransport(localRootURL, clientRepositoryId);
+	}
+
+	private void returnRepoTransport(final String key, final RepoTransport repoTransport, final boolean failed) {
+		borrowedCount.decrementAndGet();
+		if (failed || maxIdleCount == 0) {
+			closeRepoTransport(repoTransport);
+			return;
+		}
+
+		try {
+			repoTransport.clearCaches();
+		} catch (final Exception x) {
+			logger.warn("returnRepoTransport: " + x, x);
+			closeRepoTransport(repoTransport);
+			return;
+		}
+
+		Deque<IdleRepoTransport> idleRepoTransports = key2IdleRepoTransports.get(key);
+		if (idleRepoTransports == null) {
+			idleRepoTransports = new ConcurrentLinkedDeque<>();
+			final Deque<IdleRepoTransport> old = key2IdleRepoTransports.putIfAbsent(key, idleRepoTransports);
+			if (old != null)
+				idleRepoTransports = old;
+		}
+
+		if (idleRepoTransports.size() >= maxIdleCount) {
+			closeRepoTransport(repoTransport);
+			return;
+		}
+		idleRepoTransports.addFirst(new IdleRepoTransport(repoTransport));
+		idleCount.incrementAndGet();
+	}
+
+	void closeExpiredIdleRepoTransports() {
+		final long expiredBeforeMillis = nowAsMillis() - idleTimeout;
+		// The empty deques are not removed: a transport being returned concurrently would get lost (and never be closed).
+		// There are not many of them, anyway - one per client and repository (and path-prefix).
+		for (final Deque<IdleRepoTransport> idleRepoTransports : key2IdleRepoTransports.values()) {
+			IdleRepoTransport idleRepoTransport;
+			// The least recently used ones are at the end.
+			while ((idleRepoTransport = idleRepoTransports.peekLast()) != null && idleRepoTransport.idleSinceMillis <= expiredBeforeMillis) {
+				if (idleRepoTransports.removeLastOccurrence(idleRepoTransport)) {
+					idleCount.decrementAndGet();
+					closeRepoTransport(idleRepoTransport.repoTransport);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Closes all idle transports.
+	 */
+	public void closeIdleRepoTransports() {
+		for (final Deque<IdleRepoTransport> idleRepoTransports : key2IdleRepoTransports.values()) {
+			IdleRepoTransport idleRepoTransport;
+			while ((idleRepoTransport = idleRepoTransports.pollLast()) != null) {
+				idleCount.decrementAndGet();
+				closeRepoTransport(idleRepoTransport.repoTransport);
+			}
+		}
+	}
+
+	private void closeRepoTransport(final RepoTransport repoTransport) {
+		closeCount.incrementAndGet();
+		try {
+			repoTransport.close();
+		} catch (final Exception x) {
+			logger.warn("closeRepoTransport: " + x, x);
+		}
+	}
+
+	/**
+	 * Gets the number of transports currently idle in the pool.
+	 * @return the number of idle transports.
+	 */
+	public int getIdleCount() {
+		return idleCount.get();
+	}
+
+	/**
+	 * Gets the number of transports currently in use.
+	 * @return the number of borrowed transports.
+	 */
+	public int getBorrowedCount() {
+		return borrowedCount.get();
+	}
+
+	/**
+	 * Gets the total number of {@link #borrowRepoTransport(URL, UUID)} invocations.
+	 * @return the number of transports handed out so far.
+	 */
+	public long getBorrowCount() {
+		return borrowCount.get();
+	}
+
+	/**
+	 * Gets the number of {@link #borrowRepoTransport(URL, UUID)} invocations served by an idle transport.
+	 * @return the number of transports re-used so far.
+	 */
+	public long getReuseCount() {
+		return reuseCount.get();
+	}
+
+	/**
+	 * Gets the number of transports closed by this pool - because they failed, expired or did not fit into the pool.
+	 * @return the number of transports closed so far.
+	 */
+	public long getCloseCount() {
+		return closeCount.get();
+	}
+
+	/**
+	 * Gets the ratio of re-used transports.
+	 * @return the {@linkplain #getReuseCount() reuse-count} divided by the {@linkplain #getBorrowCount() borrow-count};
+	 * 0, if nothing was borrowed, yet.
+	 */
+	public double getReuseRate() {
+		final long borrowCount = getBorrowCount();
+		return borrowCount == 0 ? 0 : (double) getReuseCount() / borrowCount;
+	}
+
+	/**
+	 * Creates a snapshot of the current metrics.
+	 * @return the current metrics. Never <code>null</code>.
+	 */
+	public RepoTransportPoolMetricsDto toRepoTransportPoolMetricsDto() {
+		final RepoTransportPoolMetricsDto result = new RepoTransportPoolMetricsDto();
+		result.setIdleCount(getIdleCount());
+		result.setBorrowedCount(getBorrowedCount());
+		result.setBorrowCount(getBorrowCount());
+		result.setReuseCount(getReuseCount());
+		result.setCloseCount(getCloseCount());
+		return result;
+	}
+
+	private void logMetricsIfChanged() {
+		if (! logger.isInfoEnabled())
+			return;
+
+		final String metrics = toString();
+		if (! metrics.equals(lastLoggedMetrics)) {
+			lastLoggedMetrics = metrics;
+			logger.info("logMetricsIfChanged: {}", metrics);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[idleCount=" + getIdleCount()
+				+ ", borrowedCount=" + getBorrowedCount()
+				+ ", borrowCount=" + getBorrowCount()
+				+ ", reuseCount=" + getReuseCount()
+				+ ", closeCount=" + getCloseCount()
+				+ ", reuseRate=" + String.format("%.3f", getReuseRate())
+				+ ']';
+	}
+
+	private static Class<?>[] getInterfaces(Class<?> clazz) {
+		final Set<Class<?>> interfaces = new LinkedHashSet<>();
+		while (clazz != null) {
+			for (final Class<?> iface : clazz.getInterfaces())
+				interfaces.add(iface);
+
+			clazz = clazz.getSuperclass();
+		}
+		return interfaces.toArray(new Class<?>[interfaces.size()]);
+	}
+
+	private class PooledRepoTransportInvocationHandler implements InvocationHandler {
+		private final String key;
+		private final RepoTransport repoTransport;
+		private final AtomicBoolean closed = new AtomicBoolean();
+		private volatile boolean failed;
+
+		public PooledRepoTransportInvocationHandler(final String key, final RepoTransport repoTransport) {
+			this.key = requireNonNull(key, "key");
+			this.repoTransport = requireNonNull(repoTransport, "repoTransport");
+		}
+
+		@Override
+		public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+			final String methodName = method.getName();
+			if (method.getParameterCount() == 0) {
+				if ("close".equals(methodName)) {
+					if (closed.compareAndSet(false, true)) // Multiple invocations of close() should have no effect.
+						returnRepoTransport(key, repoTransport, failed);
+
+					return null;
+				}
+				if ("hashCode".equals(methodName))
+					return System.identityHashCode(proxy);
+
+				if ("toString".equals(methodName))
+					return "Pooled" + repoTransport;
+			}
+			else if ("equals".equals(methodName) && method.getParameterCount() == 1)
+				return proxy == args[0];
+
+			if (closed.get())
+				throw new IllegalStateException("This RepoTransport (proxy) is already closed!");
+
+			try {
+				return method.invoke(repoTransport, args);
+			} catch (final InvocationTargetException x) {
+				failed = true;
+				throw x.getCause();
+			}
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package co.codewizards.cloudstore.rest.server.auth;
+
+import static java.util.Objects.*;
+
+import java.net.URL;
+import java.util.UUID;
+
+/**
+ * Result of a successful authentication, cached by the {@link AuthSessionCache}.
+ * <p>
+ * A session never contains the password - it is only referenced by the hash of the credentials it was
+ * created for.
+ */
+public class AuthSession {
+
+	private final String repositoryName;
+	private final UUID serverRepositoryId;
+	private final UUID clientRepositoryId;
+	private final String userName;
+	private final long expiryTimestamp;
+	private final long configVersion;
+	private volatile URL localRootURL;
+
+	/**
+	 * Creates a session.
+	 * @param repositoryName the name (alias or ID) of the server's repository. Must not be <code>null</code>.
+	 * @param serverRepositoryId the ID of the server's repository. Must not be <code>null</code>.
+	 * @param clientRepositoryId the ID of the client's repository, if the client authenticated with a
+	 * {@link TransientRepoPassword}. <code>null</code>, if the user was authenticated via LDAP.
+	 * @param userName the authenticated user's name. Must not be <code>null</code>.
+	 * @param expiryTimestamp the timestamp after which this session must not be used anymore.
+	 * @param configVersion the {@linkplain co.codewizards.cloudstore.core.config.Config#getVersion() version} of the
+	 * global config at the time of authentication.
+	 */
+	public AuthSession(final String repositoryName, final UUID serverRepositoryId, final UUID clientRepositoryId,
+			final String userName, final long expiryTimestamp, final long configVersion) {
+		this.repositoryName = requireNonNull(repositoryName, "repositoryName");
+		this.serverRepositoryId = requireNonNull(serverRepositoryId, "serverRepositoryId");
+		this.clientRepositoryId = clientRepositoryId;
+		this.userName = requireNonNull(userName, "userName");
+		this.expiryTimestamp = expiryTimestamp;
+		this.configVersion = configVersion;
+	}
+
+	public String getRepositoryName() {
+		return repositoryName;
+	}
+
+	public UUID getServerRepositoryId() {
+		return serverRepositoryId;
+	}
+
+	/**
+	 * Gets the ID of the client's repository.
+	 * @return the ID of the client's repository or <code>null</code>, if the user was authenticated via LDAP.
+	 */
+	public UUID getClientRepositoryId() {
+		return clientRepositoryId;
+	}
+
+	public String getUserName() {
+		return userName;
+	}
+
+	public long getExpiryTimestamp() {
+		return expiryTimestamp;
+	}
+
+	public long getConfigVersion() {
+		return configVersion;
+	}
+
+	/**
+	 * Gets the URL of the client's view on the server's repository, i.e. the local root with the client's
+	 * path-prefix appended.
+	 * @return the URL or <code>null</code>, if not yet resolved.
+	 */
+	public URL getLocalRootURL() {
+		return localRootURL;
+	}
+
+	public void setLocalRootURL(final URL localRootURL) {
+		this.localRootURL = localRootURL;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[repositoryName=" + repositoryName
+				+ ", serverRepositoryId=" + serverRepositoryId
+				+ ", clientRepositoryId=" + clientRepositoryId
+				+ ", userName=" + userName
+				+ ']';
+	}
+}
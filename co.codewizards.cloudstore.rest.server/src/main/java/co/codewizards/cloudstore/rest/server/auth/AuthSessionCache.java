@@ -0,0 +1,221 @@
+package co.codewizards.cloudstore.rest.server.auth;
+
+import static co.codewizards.cloudstore.core.chronos.ChronosUtil.*;
+import static co.codewizards.cloudstore.core.util.HashUtil.*;
+import static java.util.Objects.*;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import co.codewizards.cloudstore.core.config.ConfigImpl;
+
+/**
+ * Short-living, bounded cache of {@link AuthSession}s.
+ * <p>
+ * Authenticating a request is expensive: the repository must be looked up, the {@link TransientRepoPassword}s must
+ * be checked and LDAP-users even require a bind against the LDAP server. Since a client sends many requests in a
+ * short time with the same credentials, the result of a successful authentication is cached for
+ * {@link #CONFIG_KEY_TIME_TO_LIVE} milliseconds.
+ * <p>
+ * The cache's key is a salted hash of the repository-name, the user-name and the password - the password itself is
+ * never kept. Failed authentications are never cached.
+ * <p>
+ * A session is discarded before its time-to-live elapsed, if
+ * <ul>
+ * <li>the {@link TransientRepoPassword} it was authenticated with expires,
+ * <li>a new {@code TransientRepoPassword} is issued for the same client (the password rotates),
+ * <li>the global configuration (containing e.g. the LDAP settings) changes or
+ * <li>the cache exceeds {@link #CONFIG_KEY_MAX_SIZE} entries (the least recently used ones are discarded).
+ * </ul>
+ */
+public class AuthSessionCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(AuthSessionCache.class);
+
+	/**
+	 * Configuration property key controlling how long (in milliseconds) a successful authentication is cached.
+	 * 0 disables the cache.
+	 * <p>
+	 * The configuration can be overridden by a system property - see {@link co.codewizards.cloudstore.core.config.Config#SYSTEM_PROPERTY_PREFIX}.
+	 */
+	public static final String CONFIG_KEY_TIME_TO_LIVE = "authSessionCache.timeToLive";
+	public static final long DEFAULT_TIME_TO_LIVE = 60L * 1000L;
+
+	/**
+	 * Configuration property key controlling the maximum number of sessions held in the cache.
+	 * <p>
+	 * The configuration can be overridden by a system property - see {@link co.codewizards.cloudstore.core.config.Config#SYSTEM_PROPERTY_PREFIX}.
+	 */
+	public static final String CONFIG_KEY_MAX_SIZE = "authSessionCache.maxSize";
+	public static final int DEFAULT_MAX_SIZE = 10000;
+
+	private static final String HASH_ALGORITHM = "SHA-256";
+
+	private final byte[] salt = new byte[16];
+
+	private long timeToLive = Long.MIN_VALUE;
+	private int maxSize = Integer.MIN_VALUE;
+
+	private final Map<String, AuthSession> key2AuthSession = new LinkedHashMap<String, AuthSession>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<String, AuthSession> eldest) {
+			return size() > getMaxSize();
+		}
+	};
+
+	private static class AuthSessionCacheHolder {
+		public static final AuthSessionCache instance = new AuthSessionCache();
+	}
+
+	protected AuthSessionCache() {
+		new SecureRandom().nextBytes(salt);
+	}
+
+	public static AuthSessionCache getInstance() {
+		return AuthSessionCacheHolder.instance;
+	}
+
+	/**
+	 * Gets the key identifying the given credentials.
+	 * @param repositoryName the name (alias or ID) of the server's repository. Must not be <code>null</code>.
+	 * @param auth the client's credentials. Must not be <code>null</code>.
+	 * @return the key. Never <code>null</code>.
+	 */
+	public String getKey(final String repositoryName, final Auth auth) {
+		requireNonNull(repositoryName, "repositoryName");
+		requireNonNull(auth, "auth");
+		final MessageDigest md;
+		try {
+			md = MessageDigest.getInstance(HASH_ALGORITHM);
+		} catch (final NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+		md.update(salt);
+		md.update(repositoryName.getBytes(StandardCharsets.UTF_8));
+		md.update((byte) 0);
+		md.update(String.valueOf(auth.getUserName()).getBytes(StandardCharsets.UTF_8));
+		md.update((byte) 0);
+		if (auth.getPassword() != null) {
+			final ByteBuffer passwordBuffer = StandardCharsets.UTF_8.encode(CharBuffer.wrap(auth.getPassword()));
+			final byte[] passwordBytes = new byte[passwordBuffer.remaining()];
+			passwordBuffer.get(passwordBytes);
+			md.update(passwordBytes);
+			Arrays.fill(passwordBytes, (byte) 0);
+			if (passwordBuffer.hasArray())
+				Arrays.fill(passwordBuffer.array(), (byte) 0);
+		}
+		return encodeHexStr(md.digest());
+	}
+
+	/**
+	 * Gets the session cached for the given key.
+	 * @param key the key obtained from {@link #getKey(String, Auth)}. Must not be <code>null</code>.
+	 * @return the session or <code>null</code>, if there is none (or it is not valid anymore).
+	 */
+	public AuthSession get(final String key) {
+		requireNonNull(key, "key");
+		final long configVersion = ConfigImpl.getInstance().getVersion();
+		synchronized (key2AuthSession) {
+			final AuthSession authSession = key2AuthSession.get(key);
+			if (authSession == null)
+				return null;
+
+			if (nowAsMillis() > authSession.getExpiryTimestamp() || authSession.getConfigVersion() != configVersion) {
+				logger.debug("get: Discarding {}.", authSession);
+				key2AuthSession.remove(key);
+				return null;
+			}
+			return authSession;
+		}
+	}
+
+	/**
+	 * Puts the given session into the cache - if the cache is enabled.
+	 * @param key the key obtained from {@link #getKey(String, Auth)}. Must not be <code>null</code>.
+	 * @param authSession the session. Must not be <code>null</code>.
+	 */
+	public void put(final String key, final AuthSession authSession) {
+		requireNonNull(key, "key");
+		requireNonNull(authSession, "authSession");
+		if (getTimeToLive() <= 0)
+			return;
+
+		synchronized (key2AuthSession) {
+			key2AuthSession.put(key, authSession);
+		}
+	}
+
+	/**
+	 * Gets the expiry-timestamp for a new session.
+	 * @param maxExpiryTimestamp the timestamp after which the session must not be used, because the credentials it
+	 * is based on expire. {@link Long#MAX_VALUE}, if they do not expire.
+	 * @return the expiry-timestamp for a new session, i.e. {@code maxExpiryTimestamp} or the current time plus
+	 * {@link #CONFIG_KEY_TIME_TO_LIVE} - whichever comes first.
+	 */
+	public long getExpiryTimestamp(final long maxExpiryTimestamp) {
+		return Math.min(maxExpiryTimestamp, nowAsMillis() + getTimeToLive());
+	}
+
+	/**
+	 * Removes all sessions of the given client from the cache.
+	 * @param serverRepositoryId the ID of the server's repository. Must not be <code>null</code>.
+	 * @param clientRepositoryId the ID of the client's repository. Must not be <code>null</code>.
+	 */
+	public void invalidate(final UUID serverRepositoryId, final UUID clientRepositoryId) {
+		requireNonNull(serverRepositoryId, "serverRepositoryId");
+		requireNonNull(clientRepositoryId, "clientRepositoryId");
+		synchronized (key2AuthSession) {
+			for (final Iterator<AuthSession> it = key2AuthSession.values().iterator(); it.hasNext(); ) {
+				final AuthSession authSession = it.next();
+				if (serverRepositoryId.equals(authSession.getServerRepositoryId())
+						&& clientRepositoryId.equals(authSession.getClientRepositoryId()))
+					it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Removes all sessions from the cache.
+	 */
+	public void invalidateAll() {
+		synchronized (key2AuthSession) {
+			key2AuthSession.clear();
+		}
+	}
+
+	public int size() {
+		synchronized (key2AuthSession) {
+			return key2AuthSession.size();
+		}
+	}
+
+	protected long getTimeToLive() {
+		if (timeToLive == Long.MIN_VALUE) {
+			timeToLive = ConfigImpl.getInstance().getPropertyAsPositiveOrZeroLong(
+					CONFIG_KEY_TIME_TO_LIVE, DEFAULT_TIME_TO_LIVE);
+		}
+		return timeToLive;
+	}
+
+	protected int getMaxSize() {
+		if (maxSize == Integer.MIN_VALUE) {
+			maxSize = ConfigImpl.getInstance().getPropertyAsPositiveOrZeroInt(
+					CONFIG_KEY_MAX_SIZE, DEFAULT_MAX_SIZE);
+		}
+		return maxSize;
+	}
+}
@@ -84,30 +84,44 @@ public class TransientRepoPasswordManager {
 			transientRepoPassword = new TransientRepoPassword(serverRepositoryId, clientRepositoryId, createAuthToken());
 			authRepoPasswordSet.add(transientRepoPassword);
 			transientRepoPasswords.add(transientRepoPassword);
+
+			// The password rotated => the client must authenticate again with the full check.
+			AuthSessionCache.getInstance().invalidate(serverRepositoryId, clientRepositoryId);
 		}
 		return transientRepoPassword;
 	}
 
-	public synchronized boolean isPasswordValid(final UUID serverRepositoryId, final UUID clientRepositoryId, final char[] password) {
+	public boolean isPasswordValid(final UUID serverRepositoryId, final UUID clientRepositoryId, final char[] password) {
+		return getValidTransientRepoPassword(serverRepositoryId, clientRepositoryId, password) != null;
+	}
+
+	/**
+	 * Gets the {@link TransientRepoPassword} matching the given {@code password}, if it is not yet expired.
+	 * @param serverRepositoryId the ID of the server's repository. Must not be <code>null</code>.
+	 * @param clientRepositoryId the ID of the client's repository. Must not be <code>null</code>.
+	 * @param password the password sent by the client. Must not be <code>null</code>.
+	 * @return the matching {@code TransientRepoPassword} or <code>null</code>, if the password is not valid.
+	 */
+	public synchronized TransientRepoPassword getValidTransientRepoPassword(final UUID serverRepositoryId, final UUID clientRepositoryId, final char[] password) {
 		requireNonNull(serverRepositoryId, "serverRepositoryId");
 		requireNonNull(clientRepositoryId, "clientRepositoryId");
 		requireNonNull(password, "password");
 		final Map<UUID, SortedSet<TransientRepoPassword>> clientRepositoryId2AuthRepoPasswordSet = serverRepositoryId2ClientRepositoryId2AuthRepoPasswordSet.get(serverRepositoryId);
 		if (clientRepositoryId2AuthRepoPasswordSet == null)
-			return false;
+			return null;
 
 		final SortedSet<TransientRepoPassword> authRepoPasswordSet = clientRepositoryId2AuthRepoPasswordSet.get(clientRepositoryId);
 		if (authRepoPasswordSet == null)
-			return false;
+			return null;
 
 		for (final TransientRepoPassword transientRepoPassword : authRepoPasswordSet) {
 			if (isExpired(transientRepoPassword)) // newest first => first expired means all following expired, too!
-				return false;
+				return null;
 
 			if (Arrays.equals(password, transientRepoPassword.getPassword()))
-				return true;
+				return transientRepoPassword;
 		}
-		return false;
+		return null;
 	}
 
 	private synchronized void removeExpiredAuthRepoPasswords() {
@@ -12,10 +12,13 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Arrays;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.TimeoutHandler;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -26,6 +29,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import co.codewizards.cloudstore.core.auth.AuthConstants;
+import co.codewizards.cloudstore.core.concurrent.CallableProvider;
+import co.codewizards.cloudstore.core.concurrent.DeferrableExecutor;
+import co.codewizards.cloudstore.core.concurrent.DeferredCallback;
+import co.codewizards.cloudstore.core.concurrent.DeferredCompletionException;
+import co.codewizards.cloudstore.core.config.ConfigImpl;
 import co.codewizards.cloudstore.core.dto.Error;
 import co.codewizards.cloudstore.core.io.ByteArrayInputStream;
 import co.codewizards.cloudstore.core.oio.File;
@@ -37,8 +45,12 @@ import co.codewizards.cloudstore.core.repo.transport.RepoTransportFactory;
 import co.codewizards.cloudstore.core.repo.transport.RepoTransportFactoryRegistry;
 import co.codewizards.cloudstore.core.util.IOUtil;
 import co.codewizards.cloudstore.core.util.UrlUtil;
+import co.codewizards.cloudstore.rest.server.RepoTransportPool;
 import co.codewizards.cloudstore.rest.server.auth.Auth;
+import co.codewizards.cloudstore.rest.server.auth.AuthSession;
+import co.codewizards.cloudstore.rest.server.auth.AuthSessionCache;
 import co.codewizards.cloudstore.rest.server.auth.NotAuthorizedException;
+import co.codewizards.cloudstore.rest.server.auth.TransientRepoPassword;
 import co.codewizards.cloudstore.rest.server.auth.TransientRepoPasswordManager;
 import co.codewizards.cloudstore.rest.server.ldap.LdapClientProvider;
 
@@ -52,6 +64,8 @@ public abstract class AbstractServiceWithRepoToRepoAuth {
 
 	private Auth auth;
 
+	private AuthSession authSession;
+
 	/**
 	 * Get the authentication information. This method does <b>not</b> verify, if the given authentication information
 	 * is correct! It merely checks, if the client sent a 'Basic' authentication header. If it did not,
@@ -178,6 +192,38 @@ public abstract class AbstractServiceWithRepoToRepoAuth {
 	protected String authenticateAndReturnUserName()
 	throws WebApplicationException
 	{
+		return authenticateAndGetAuthSession().getUserName();
+	}
+
+	/**
+	 * Verifies the {@link Auth} information obtained via {@link #getAuth()} and returns the resulting session.
+	 * <p>
+	 * The session is looked up in the {@link AuthSessionCache} first. Only if there is none (or it is not valid
+	 * anymore), the full authentication is performed and its result put into the cache.
+	 * @return the {@link AuthSession}; never <code>null</code>.
+	 * @throws WebApplicationException see {@link #authenticateAndReturnUserName()}.
+	 */
+	protected AuthSession authenticateAndGetAuthSession()
+	throws WebApplicationException
+	{
+		if (authSession == null) {
+			requireNonNull(repositoryName, "repositoryName");
+			// We don't clear this auth anymore, because we might need to invoke this authenticateAndReturnUserName() in service-sub-classes
+			// again, before delegating to the super-service-method.
+			final Auth auth = getAuth();
+			final AuthSessionCache authSessionCache = AuthSessionCache.getInstance();
+			final String authSessionKey = authSessionCache.getKey(repositoryName, auth);
+			AuthSession authSession = authSessionCache.get(authSessionKey);
+			if (authSession == null) {
+				authSession = authenticate(auth);
+				authSessionCache.put(authSessionKey, authSession);
+			}
+			this.authSession = authSession;
+		}
+		return authSession;
+	}
+
+	private AuthSession authenticate(final Auth auth) {
 		final UUID serverRepositoryId = LocalRepoRegistryImpl.getInstance().getRepositoryId(repositoryName);
 		if (serverRepositoryId == null) {
 			throw new WebApplicationException(Response.status(Status.NOT_FOUND)
@@ -185,17 +231,21 @@ public abstract class AbstractServiceWithRepoToRepoAuth {
 					.entity(new Error(String.format("HTTP 404: repositoryName='%s' is neither an alias nor an ID of a known repository!", repositoryName))).build());
 		}
 
-		// We don't clear this auth anymore, because we might need to invoke this authenticateAndReturnUserName() in service-sub-classes
-		// again, before delegating to the super-service-method.
-		final Auth auth = getAuth();
+		final long configVersion = ConfigImpl.getInstance().getVersion(); // before authenticating => a concurrent change discards the session
 		final UUID clientRepositoryId = getClientRepositoryIdFromUserName(auth.getUserName());
 		if (clientRepositoryId != null) {
-			if (TransientRepoPasswordManager.getInstance().isPasswordValid(serverRepositoryId, clientRepositoryId, auth.getPassword()))
-				return auth.getUserName();
-			else
+			final TransientRepoPassword transientRepoPassword = TransientRepoPasswordManager.getInstance().getValidTransientRepoPassword(
+					serverRepositoryId, clientRepositoryId, auth.getPassword());
+			if (transientRepoPassword == null)
 				throw newUnauthorizedException();
+
+			final long expiryTimestamp = AuthSessionCache.getInstance().getExpiryTimestamp(
+					transientRepoPassword.getAuthToken().getExpiryDateTime().getMillis());
+			return new AuthSession(repositoryName, serverRepositoryId, clientRepositoryId, auth.getUserName(), expiryTimestamp, configVersion);
 		} else{
-			return LdapClientProvider.getInstance().getClient().authenticate(auth);
+			final String userName = LdapClientProvider.getInstance().getClient().authenticate(auth);
+			final long expiryTimestamp = AuthSessionCache.getInstance().getExpiryTimestamp(Long.MAX_VALUE);
+			return new AuthSession(repositoryName, serverRepositoryId, null, userName, expiryTimestamp, configVersion);
 		}
 	}
 
@@ -225,9 +275,7 @@ public abstract class AbstractServiceWithRepoToRepoAuth {
 		final String userName = authenticateAndReturnUserName();
 		final UUID clientRepositoryId = getClientRepositoryIdFromUserNameOrFail(userName);
 		final URL localRootURL = getLocalRootURL(clientRepositoryId);
-		final RepoTransportFactory repoTransportFactory = RepoTransportFactoryRegistry.getInstance().getRepoTransportFactoryOrFail(localRootURL);
-		final RepoTransport repoTransport = repoTransportFactory.createRepoTransport(localRootURL, clientRepositoryId);
-		return repoTransport;
+		return RepoTransportPool.getInstance().borrowRepoTransport(localRootURL, clientRepositoryId);
 	}
 
 	protected RepoTransport authenticateWithLdap(){
@@ -251,6 +299,20 @@ public abstract class AbstractServiceWithRepoToRepoAuth {
 	}
 
 	protected URL getLocalRootURL(final UUID clientRepositoryId) {
+		requireNonNull(clientRepositoryId, "clientRepositoryId");
+		final AuthSession authSession = this.authSession;
+		if (authSession == null || ! clientRepositoryId.equals(authSession.getClientRepositoryId()))
+			return createLocalRootURL(clientRepositoryId);
+
+		URL localRootURL = authSession.getLocalRootURL();
+		if (localRootURL == null) {
+			localRootURL = createLocalRootURL(clientRepositoryId);
+			authSession.setLocalRootURL(localRootURL);
+		}
+		return localRootURL;
+	}
+
+	private URL createLocalRootURL(final UUID clientRepositoryId) {
 		requireNonNull(repositoryName, "repositoryName");
 		final File localRoot = LocalRepoRegistryImpl.getInstance().getLocalRootForRepositoryNameOrFail(repositoryName);
 		final LocalRepoManager localRepoManager = LocalRepoManagerFactory.Helper.getInstance().createLocalRepoManagerForExistingRepository(localRoot);
@@ -271,6 +333,42 @@ public abstract class AbstractServiceWithRepoToRepoAuth {
 		}
 	}
 
+	/**
+	 * Executes the {@code Callable} provided by the given {@code callableProvider} via the {@link DeferrableExecutor}
+	 * without occupying the container's thread, and resumes the given {@code asyncResponse} with its result.
+	 * <p>
+	 * If the {@code Callable} does not complete within {@link DeferrableExecutor#getAsyncTimeout()}, the
+	 * {@code asyncResponse} is resumed with a {@link DeferredCompletionException} causing the client to ask again
+	 * (the execution continues in the background and its result is delivered to the next request).
+	 */
+	protected <V> void callDeferrableAsync(final AsyncResponse asyncResponse, final String callIdentifier, final int priority, final CallableProvider<V> callableProvider) {
+		requireNonNull(asyncResponse, "asyncResponse");
+		requireNonNull(callIdentifier, "callIdentifier");
+		requireNonNull(callableProvider, "callableProvider");
+
+		final DeferrableExecutor deferrableExecutor = DeferrableExecutor.getInstance();
+		asyncResponse.setTimeoutHandler(new TimeoutHandler() {
+			@Override
+			public void handleTimeout(final AsyncResponse ar) {
+				logger.debug("callDeferrableAsync.handleTimeout: callIdentifier={}", callIdentifier);
+				ar.resume(new DeferredCompletionException("Call did not complete within asyncTimeout: " + callIdentifier));
+			}
+		});
+		asyncResponse.setTimeout(deferrableExecutor.getAsyncTimeout(), TimeUnit.MILLISECONDS);
+
+		deferrableExecutor.callAsync(callIdentifier, priority, callableProvider, new DeferredCallback<V>() {
+			@Override
+			public boolean completed(final V result) {
+				return asyncResponse.resume(result);
+			}
+
+			@Override
+			public boolean failed(final Throwable throwable) {
+				return asyncResponse.resume(throwable);
+			}
+		});
+	}
+
 	private URL appendEmptyPathPrefix(URL localRoot){
 		return UrlUtil. appendNonEncodedPath(localRoot, "");
 	}
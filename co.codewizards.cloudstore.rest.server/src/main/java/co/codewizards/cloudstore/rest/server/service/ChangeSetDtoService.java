@@ -7,6 +7,8 @@ import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 
 import org.slf4j.Logger;
@@ -30,13 +32,15 @@ public class ChangeSetDtoService extends AbstractServiceWithRepoToRepoAuth
 	}
 
 	@GET
-	public ChangeSetDto getChangeSetDto(@QueryParam("localSync") final boolean localSync,
-			@QueryParam("lastSyncToRemoteRepoLocalRepositoryRevisionSynced") final Long lastSyncToRemoteRepoLocalRepositoryRevisionSynced) {
+	public void getChangeSetDto(@Suspended final AsyncResponse asyncResponse,
+			@QueryParam("localSync") final boolean localSync,
+			@QueryParam("lastSyncToRemoteRepoLocalRepositoryRevisionSynced") final Long lastSyncToRemoteRepoLocalRepositoryRevisionSynced,
+			@QueryParam("changedAfterRevision") final Long changedAfterRevision) {
 		final RepoTransport[] repoTransport = new RepoTransport[] { authenticateAndCreateLocalRepoTransport() };
 		try {
-			final String callIdentifier = ChangeSetDtoService.class.getName() + ".getChangeSetDto|" + repositoryName + '|' + getAuth().getUserName() + '|' + localSync + '|' + lastSyncToRemoteRepoLocalRepositoryRevisionSynced;
-			return DeferrableExecutor.getInstance().call(
-					callIdentifier,
+			final String callIdentifier = ChangeSetDtoService.class.getName() + ".getChangeSetDto|" + repositoryName + '|' + getAuth().getUserName() + '|' + localSync + '|' + lastSyncToRemoteRepoLocalRepositoryRevisionSynced + '|' + changedAfterRevision;
+			callDeferrableAsync(asyncResponse,
+					callIdentifier, DeferrableExecutor.PRIORITY_LOW,
 					new CallableProvider<ChangeSetDto>() {
 						@Override
 						public Callable<ChangeSetDto> getCallable() { // called synchronously during DeferrableExecutor.call(...) - if called at all
@@ -46,7 +50,7 @@ public class ChangeSetDtoService extends AbstractServiceWithRepoToRepoAuth
 								@Override
 								public ChangeSetDto call() throws Exception { // called *A*synchronously
 									try {
-										final ChangeSetDto changeSetDto = getChangeSetDto(rt, localSync, lastSyncToRemoteRepoLocalRepositoryRevisionSynced);
+										final ChangeSetDto changeSetDto = getChangeSetDto(rt, localSync, lastSyncToRemoteRepoLocalRepositoryRevisionSynced, changedAfterRevision);
 										return changeSetDto;
 									} finally {
 										rt.close();
@@ -61,7 +65,7 @@ public class ChangeSetDtoService extends AbstractServiceWithRepoToRepoAuth
 		}
 	}
 
-	protected ChangeSetDto getChangeSetDto(final RepoTransport repoTransport, final boolean localSync, final Long lastSyncToRemoteRepoLocalRepositoryRevisionSynced) {
-		return repoTransport.getChangeSetDto(localSync, lastSyncToRemoteRepoLocalRepositoryRevisionSynced);
+	protected ChangeSetDto getChangeSetDto(final RepoTransport repoTransport, final boolean localSync, final Long lastSyncToRemoteRepoLocalRepositoryRevisionSynced, final Long changedAfterRevision) {
+		return repoTransport.getChangeSetDto(localSync, lastSyncToRemoteRepoLocalRepositoryRevisionSynced, changedAfterRevision);
 	}
 }
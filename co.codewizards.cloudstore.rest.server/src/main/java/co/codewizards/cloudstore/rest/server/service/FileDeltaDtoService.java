@@ -0,0 +1,75 @@
+package co.codewizards.cloudstore.rest.server.service;
+
+import static co.codewizards.cloudstore.core.util.HashUtil.*;
+import static java.util.Objects.*;
+
+import java.util.concurrent.Callable;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.MediaType;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import co.codewizards.cloudstore.core.concurrent.CallableProvider;
+import co.codewizards.cloudstore.core.concurrent.DeferrableExecutor;
+import co.codewizards.cloudstore.core.dto.FileDeltaDto;
+import co.codewizards.cloudstore.core.dto.FileSignatureDto;
+import co.codewizards.cloudstore.core.repo.transport.RepoTransport;
+
+@Path("_FileDeltaDto/{repositoryName}")
+@Consumes(MediaType.APPLICATION_XML)
+@Produces(MediaType.APPLICATION_XML)
+public class FileDeltaDtoService extends AbstractServiceWithRepoToRepoAuth
+{
+	private static final Logger logger = LoggerFactory.getLogger(FileDeltaDtoService.class);
+
+	{
+		logger.debug("<init>: created new instance");
+	}
+
+	@POST
+	@Path("{path:.*}")
+	public void getFileDeltaDto(@Suspended final AsyncResponse asyncResponse, final @PathParam("path") String path,
+			final FileSignatureDto fileSignatureDto)
+	{
+		requireNonNull(path, "path");
+		requireNonNull(fileSignatureDto, "fileSignatureDto");
+		final RepoTransport[] repoTransport = new RepoTransport[] { authenticateAndCreateLocalRepoTransport() };
+		try {
+			// The signature is hashed to keep the identifier short - it only needs to recognize the retry of the same call.
+			final String callIdentifier = FileDeltaDtoService.class.getName() + ".getFileDeltaDto|" + repositoryName + '|' + getAuth().getUserName() + '|' + path
+					+ '|' + fileSignatureDto.getLength() + '|' + fileSignatureDto.getBlockSize()
+					+ '|' + (fileSignatureDto.getBlockChecksums() == null ? null : sha1(fileSignatureDto.getBlockChecksums()));
+			callDeferrableAsync(asyncResponse,
+					callIdentifier, DeferrableExecutor.PRIORITY_HIGH,
+					new CallableProvider<FileDeltaDto>() {
+						@Override
+						public Callable<FileDeltaDto> getCallable() { // called synchronously during DeferrableExecutor.call(...) - if called at all
+							final RepoTransport rt = repoTransport[0];
+							repoTransport[0] = null;
+							final String unprefixedPath = rt.unprefixPath(path);
+							return new Callable<FileDeltaDto>() {
+								@Override
+								public FileDeltaDto call() throws Exception { // called *A*synchronously
+									try {
+										return rt.getFileDeltaDto(unprefixedPath, fileSignatureDto);
+									} finally {
+										rt.close();
+									}
+								}
+							};
+						}
+					});
+		} finally {
+			if (repoTransport[0] != null)
+				repoTransport[0].close();
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package co.codewizards.cloudstore.rest.server.service;
+
+import static java.util.Objects.*;
+
+import java.util.concurrent.Callable;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.MediaType;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import co.codewizards.cloudstore.core.concurrent.CallableProvider;
+import co.codewizards.cloudstore.core.concurrent.DeferrableExecutor;
+import co.codewizards.cloudstore.core.dto.FileSignatureDto;
+import co.codewizards.cloudstore.core.repo.transport.RepoTransport;
+
+@Path("_FileSignatureDto/{repositoryName}")
+@Consumes(MediaType.APPLICATION_XML)
+@Produces(MediaType.APPLICATION_XML)
+public class FileSignatureDtoService extends AbstractServiceWithRepoToRepoAuth
+{
+	private static final Logger logger = LoggerFactory.getLogger(FileSignatureDtoService.class);
+
+	{
+		logger.debug("<init>: created new instance");
+	}
+
+	@GET
+	@Path("{path:.*}")
+	public void getFileSignatureDto(@Suspended final AsyncResponse asyncResponse, final @PathParam("path") String path)
+	{
+		requireNonNull(path, "path");
+		final RepoTransport[] repoTransport = new RepoTransport[] { authenticateAndCreateLocalRepoTransport() };
+		try {
+			final String callIdentifier = FileSignatureDtoService.class.getName() + ".getFileSignatureDto|" + repositoryName + '|' + getAuth().getUserName() + '|' + path;
+			callDeferrableAsync(asyncResponse,
+					callIdentifier, DeferrableExecutor.PRIORITY_HIGH,
+					new CallableProvider<FileSignatureDto>() {
+						@Override
+						public Callable<FileSignatureDto> getCallable() { // called synchronously during DeferrableExecutor.call(...) - if called at all
+							final RepoTransport rt = repoTransport[0];
+							repoTransport[0] = null;
+							final String unprefixedPath = rt.unprefixPath(path);
+							return new Callable<FileSignatureDto>() {
+								@Override
+								public FileSignatureDto call() throws Exception { // called *A*synchronously
+									try {
+										return rt.getFileSignatureDto(unprefixedPath);
+									} finally {
+										rt.close();
+									}
+								}
+							};
+						}
+					});
+		} finally {
+			if (repoTransport[0] != null)
+				repoTransport[0].close();
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package co.codewizards.cloudstore.rest.server.service;
+
+import static java.util.Objects.*;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import co.codewizards.cloudstore.core.dto.FileChunkDeltaDto;
+import co.codewizards.cloudstore.core.repo.transport.RepoTransport;
+
+@Path("_putFileDelta/{repositoryName}")
+@Consumes(MediaType.APPLICATION_XML)
+@Produces(MediaType.TEXT_PLAIN)
+public class PutFileDeltaService extends AbstractServiceWithRepoToRepoAuth
+{
+	private static final Logger logger = LoggerFactory.getLogger(PutFileDeltaService.class);
+
+	{
+		logger.debug("<init>: created new instance");
+	}
+
+	@PUT
+	@Path("{path:.*}")
+	public Boolean putFileDelta(@PathParam("path") String path, final FileChunkDeltaDto fileChunkDeltaDto)
+	{
+		requireNonNull(path, "path");
+		requireNonNull(fileChunkDeltaDto, "fileChunkDeltaDto");
+		final RepoTransport repoTransport = authenticateAndCreateLocalRepoTransport();
+		try {
+			path = repoTransport.unprefixPath(path);
+			return repoTransport.putFileDelta(path, fileChunkDeltaDto);
+		} finally {
+			repoTransport.close();
+		}
+	}
+}
@@ -1,14 +1,21 @@
 package co.codewizards.cloudstore.rest.server.service;
 
+import static co.codewizards.cloudstore.core.util.HashUtil.*;
 import static java.util.Objects.*;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 
 import org.slf4j.Logger;
@@ -16,7 +23,9 @@ import org.slf4j.LoggerFactory;
 
 import co.codewizards.cloudstore.core.concurrent.CallableProvider;
 import co.codewizards.cloudstore.core.concurrent.DeferrableExecutor;
+import co.codewizards.cloudstore.core.dto.PathListDto;
 import co.codewizards.cloudstore.core.dto.RepoFileDto;
+import co.codewizards.cloudstore.core.dto.RepoFileDtoListDto;
 //import co.codewizards.cloudstore.core.repo.local.LocalRepoRegistry;
 import co.codewizards.cloudstore.core.repo.transport.RepoTransport;
 
@@ -32,21 +41,21 @@ public class RepoFileDtoService extends AbstractServiceWithRepoToRepoAuth
 	}
 
 	@GET
-	public RepoFileDto getRepoFileDto()
+	public void getRepoFileDto(@Suspended final AsyncResponse asyncResponse)
 	{
-		return getRepoFileDto("");
+		getRepoFileDto(asyncResponse, "");
 	}
 
 	@GET
 	@Path("{path:.*}")
-	public RepoFileDto getRepoFileDto(final @PathParam("path") String path)
+	public void getRepoFileDto(@Suspended final AsyncResponse asyncResponse, final @PathParam("path") String path)
 	{
 		requireNonNull(path, "path");
 		final RepoTransport[] repoTransport = new RepoTransport[] { authenticateAndCreateLocalRepoTransport() };
 		try {
 			final String callIdentifier = RepoFileDtoService.class.getName() + ".getRepoFileDto|" + repositoryName + '|' + getAuth().getUserName() + '|' + path;
-			return DeferrableExecutor.getInstance().call(
-					callIdentifier,
+			callDeferrableAsync(asyncResponse,
+					callIdentifier, DeferrableExecutor.PRIORITY_HIGH,
 					new CallableProvider<RepoFileDto>() {
 						@Override
 						public Callable<RepoFileDto> getCallable() { // called synchronously during DeferrableExecutor.call(...) - if called at all
@@ -71,4 +80,46 @@ public class RepoFileDtoService extends AbstractServiceWithRepoToRepoAuth
 				repoTransport[0].close();
 		}
 	}
+
+	@POST
+	public void getRepoFileDtos(@Suspended final AsyncResponse asyncResponse,
+			@QueryParam("withFileChunkDtos") final boolean withFileChunkDtos,
+			final PathListDto pathListDto)
+	{
+		requireNonNull(pathListDto, "pathListDto");
+		final RepoTransport[] repoTransport = new RepoTransport[] { authenticateAndCreateLocalRepoTransport() };
+		try {
+			// The paths are hashed to keep the identifier short - it only needs to recognize the retry of the same call.
+			final String callIdentifier = RepoFileDtoService.class.getName() + ".getRepoFileDtos|" + repositoryName + '|' + getAuth().getUserName()
+					+ '|' + withFileChunkDtos + '|' + sha1(String.join("\n", pathListDto.getPaths()));
+			callDeferrableAsync(asyncResponse,
+					callIdentifier, DeferrableExecutor.PRIORITY_HIGH,
+					new CallableProvider<RepoFileDtoListDto>() {
+						@Override
+						public Callable<RepoFileDtoListDto> getCallable() { // called synchronously during DeferrableExecutor.call(...) - if called at all
+							final RepoTransport rt = repoTransport[0];
+							repoTransport[0] = null;
+							final List<String> unprefixedPaths = new ArrayList<>(pathListDto.getPaths().size());
+							for (final String path : pathListDto.getPaths())
+								unprefixedPaths.add(rt.unprefixPath(path));
+
+							return new Callable<RepoFileDtoListDto>() {
+								@Override
+								public RepoFileDtoListDto call() throws Exception { // called *A*synchronously
+									try {
+										final RepoFileDtoListDto repoFileDtoListDto = new RepoFileDtoListDto();
+										repoFileDtoListDto.setRepoFileDtos(rt.getRepoFileDtos(unprefixedPaths, withFileChunkDtos));
+										return repoFileDtoListDto;
+									} finally {
+										rt.close();
+									}
+								}
+							};
+						}
+					});
+		} finally {
+			if (repoTransport[0] != null)
+				repoTransport[0].close();
+		}
+	}
 }
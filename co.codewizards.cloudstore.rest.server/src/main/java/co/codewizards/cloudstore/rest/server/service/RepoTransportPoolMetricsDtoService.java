@@ -0,0 +1,31 @@
+package co.codewizards.cloudstore.rest.server.service;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import co.codewizards.cloudstore.core.dto.RepoTransportPoolMetricsDto;
+import co.codewizards.cloudstore.rest.server.RepoTransportPool;
+
+@Path("_RepoTransportPoolMetricsDto")
+@Consumes(MediaType.APPLICATION_XML)
+@Produces(MediaType.APPLICATION_XML)
+public class RepoTransportPoolMetricsDtoService
+{
+	private static final Logger logger = LoggerFactory.getLogger(RepoTransportPoolMetricsDtoService.class);
+
+	{
+		logger.debug("<init>: created new instance");
+	}
+
+	@GET
+	public RepoTransportPoolMetricsDto getRepoTransportPoolMetricsDto()
+	{
+		return RepoTransportPool.getInstance().toRepoTransportPoolMetricsDto();
+	}
+}
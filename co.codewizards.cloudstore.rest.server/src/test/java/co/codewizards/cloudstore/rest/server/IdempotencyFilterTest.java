@@ -0,0 +1,242 @@
+package co.codewizards.cloudstore.rest.server;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import co.codewizards.cloudstore.core.config.Config;
+import co.codewizards.cloudstore.rest.shared.IdempotencyUtil;
+
+public class IdempotencyFilterTest {
+
+	private static final String PATH = "repo/_copy/a";
+	private static final String AUTHORIZATION_1 = "Basic dXNlcjE6cGFzc3dvcmQx";
+	private static final String AUTHORIZATION_2 = "Basic dXNlcjI6cGFzc3dvcmQy";
+
+	private IdempotencyFilter idempotencyFilter;
+
+	@Before
+	public void before() {
+		idempotencyFilter = new IdempotencyFilter();
+	}
+
+	@After
+	public void after() {
+		System.getProperties().remove(Config.SYSTEM_PROPERTY_PREFIX + IdempotencyFilter.CONFIG_KEY_EXPIRY_PERIOD);
+	}
+
+	@Test
+	public void duplicateIsRejectedWhileInProgressAndReplayedAfterSuccess() throws Exception {
+		final FakeRequest original = new FakeRequest(HttpMethod.POST, "k1");
+		idempotencyFilter.filter(original.context);
+		assertThat(original.abortResponse).isNull(); // executed normally
+
+		final FakeRequest duplicateInProgress = new FakeRequest(HttpMethod.POST, "k1");
+		idempotencyFilter.filter(duplicateInProgress.context);
+		assertThat(duplicateInProgress.abortResponse).isNotNull();
+		assertThat(duplicateInProgress.abortResponse.getStatus()).isEqualTo(Response.Status.CONFLICT.getStatusCode());
+
+		final byte[] entity = "result".getBytes(StandardCharsets.UTF_8);
+		original.respond(200, entity, MediaType.TEXT_PLAIN_TYPE);
+
+		final FakeRequest duplicate = new FakeRequest(HttpMethod.POST, "k1");
+		idempotencyFilter.filter(duplicate.context);
+		assertThat(duplicate.abortResponse).isNotNull();
+		assertThat(duplicate.abortResponse.getStatus()).isEqualTo(200);
+		assertThat(duplicate.abortResponse.getEntity()).isEqualTo(entity);
+		assertThat(duplicate.abortResponse.getMediaType()).isEqualTo(MediaType.TEXT_PLAIN_TYPE);
+
+		final FakeRequest otherKey = new FakeRequest(HttpMethod.POST, "k2");
+		idempotencyFilter.filter(otherKey.context);
+		assertThat(otherKey.abortResponse).isNull();
+	}
+
+	@Test
+	public void duplicateOfFailedInvocationIsExecuted() throws Exception {
+		final FakeRequest original = new FakeRequest(HttpMethod.POST, "k1");
+		idempotencyFilter.filter(original.context);
+		original.respond(500, null, null);
+
+		final FakeRequest duplicate = new FakeRequest(HttpMethod.POST, "k1");
+		idempotencyFilter.filter(duplicate.context);
+		assertThat(duplicate.abortResponse).isNull();
+	}
+
+	@Test
+	public void expiredInvocationIsForgotten() throws Exception {
+		System.setProperty(Config.SYSTEM_PROPERTY_PREFIX + IdempotencyFilter.CONFIG_KEY_EXPIRY_PERIOD, "100");
+		final FakeRequest original = new FakeRequest(HttpMethod.POST, "k1");
+		idempotencyFilter.filter(original.context);
+		original.respond(204, null, null);
+
+		final FakeRequest duplicate = new FakeRequest(HttpMethod.POST, "k1");
+		idempotencyFilter.filter(duplicate.context);
+		assertThat(duplicate.abortResponse).isNotNull();
+		assertThat(duplicate.abortResponse.getStatus()).isEqualTo(204);
+
+		Thread.sleep(200);
+
+		final FakeRequest expiredDuplicate = new FakeRequest(HttpMethod.POST, "k1");
+		idempotencyFilter.filter(expiredDuplicate.context);
+		assertThat(expiredDuplicate.abortResponse).isNull();
+	}
+
+	@Test
+	public void invocationOfOtherClientIsNotReplayed() throws Exception {
+		final FakeRequest original = new FakeRequest(HttpMethod.POST, "k1", AUTHORIZATION_1);
+		idempotencyFilter.filter(original.context);
+		original.respond(200, "secret".getBytes(StandardCharsets.UTF_8), MediaType.TEXT_PLAIN_TYPE);
+
+		final FakeRequest otherClient = new FakeRequest(HttpMethod.POST, "k1", AUTHORIZATION_2);
+		idempotencyFilter.filter(otherClient.context);
+		assertThat(otherClient.abortResponse).isNull();
+
+		final FakeRequest anonymous = new FakeRequest(HttpMethod.POST, "k1", null);
+		idempotencyFilter.filter(anonymous.context);
+		assertThat(anonymous.abortResponse).isNull();
+
+		final FakeRequest duplicate = new FakeRequest(HttpMethod.POST, "k1", AUTHORIZATION_1);
+		idempotencyFilter.filter(duplicate.context);
+		assertThat(duplicate.abortResponse).isNotNull();
+		assertThat(duplicate.abortResponse.getStatus()).isEqualTo(200);
+	}
+
+	@Test
+	public void readingRequestIsIgnored() throws Exception {
+		for (int i = 0; i < 2; ++i) {
+			final FakeRequest request = new FakeRequest(HttpMethod.GET, "k1");
+			idempotencyFilter.filter(request.context);
+			assertThat(request.abortResponse).isNull();
+		}
+	}
+
+	/**
+	 * Simulates one request passing through the filter - just like Jersey does it.
+	 */
+	private class FakeRequest {
+		private final String method;
+		private final String idempotencyKey;
+		private final String authorization;
+		private final Map<String, Object> properties = new HashMap<>();
+		public final ContainerRequestContext context;
+		public Response abortResponse;
+
+		public FakeRequest(final String method, final String idempotencyKey) {
+			this(method, idempotencyKey, AUTHORIZATION_1);
+		}
+
+		public FakeRequest(final String method, final String idempotencyKey, final String authorization) {
+			this.method = method;
+			this.idempotencyKey = idempotencyKey;
+			this.authorization = authorization;
+			this.context = createProxy(ContainerRequestContext.class, new InvocationHandler() {
+				@Override
+				public Object invoke(final Object proxy, final Method m, final Object[] args) throws Throwable {
+					switch (m.getName()) {
+						case "getMethod":
+							return FakeRequest.this.method;
+						case "getHeaderString":
+							if (HttpHeaders.AUTHORIZATION.equals(args[0]))
+								return FakeRequest.this.authorization;
+
+							return IdempotencyUtil.IDEMPOTENCY_KEY_HEADER.equals(args[0]) ? FakeRequest.this.idempotencyKey : null;
+						case "getSecurityContext":
+							return null; // authentication is done by the services
+						case "getUriInfo":
+							return createUriInfo();
+						case "getProperty":
+							return properties.get(args[0]);
+						case "setProperty":
+							return properties.put((String) args[0], args[1]);
+						case "abortWith":
+							abortResponse = (Response) args[0];
+							return null;
+						default:
+							throw new UnsupportedOperationException(m.toString());
+					}
+				}
+			});
+		}
+
+		public void respond(final int status, final byte[] entity, final MediaType mediaType) throws Exception {
+			idempotencyFilter.filter(context, createProxy(ContainerResponseContext.class, new InvocationHandler() {
+				@Override
+				public Object invoke(final Object proxy, final Method m, final Object[] args) throws Throwable {
+					switch (m.getName()) {
+						case "getStatus":
+							return status;
+						case "hasEntity":
+							return entity != null;
+						default:
+							throw new UnsupportedOperationException(m.toString());
+					}
+				}
+			}));
+
+			if (entity == null)
+				return;
+
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			final OutputStream[] currentOut = new OutputStream[] { out };
+			idempotencyFilter.aroundWriteTo(createProxy(WriterInterceptorContext.class, new InvocationHandler() {
+				@Override
+				public Object invoke(final Object proxy, final Method m, final Object[] args) throws Throwable {
+					switch (m.getName()) {
+						case "getProperty":
+							return properties.get(args[0]);
+						case "getOutputStream":
+							return currentOut[0];
+						case "setOutputStream":
+							currentOut[0] = (OutputStream) args[0];
+							return null;
+						case "getMediaType":
+							return mediaType;
+						case "proceed": // the MessageBodyWriter
+							currentOut[0].write(entity);
+							currentOut[0].flush();
+							return null;
+						default:
+							throw new UnsupportedOperationException(m.toString());
+					}
+				}
+			}));
+			assertThat(out.toByteArray()).isEqualTo(entity);
+		}
+	}
+
+	private UriInfo createUriInfo() {
+		return createProxy(UriInfo.class, new InvocationHandler() {
+			@Override
+			public Object invoke(final Object proxy, final Method m, final Object[] args) throws Throwable {
+				if ("getPath".equals(m.getName()) && (args == null || args.length == 0))
+					return PATH;
+
+				throw new UnsupportedOperationException(m.toString());
+			}
+		});
+	}
+
+	private static <T> T createProxy(final Class<T> iface, final InvocationHandler invocationHandler) {
+		return iface.cast(Proxy.newProxyInstance(IdempotencyFilterTest.class.getClassLoader(), new Class<?>[] { iface }, invocationHandler));
+	}
+}
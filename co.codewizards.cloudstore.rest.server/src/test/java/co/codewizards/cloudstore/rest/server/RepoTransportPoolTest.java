@@ -0,0 +1,184 @@
+package co.codewizards.cloudstore.rest.server;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import co.codewizards.cloudstore.core.config.Config;
+import co.codewizards.cloudstore.core.repo.transport.RepoTransport;
+
+public class RepoTransportPoolTest {
+	private static final int MAX_IDLE_COUNT = 2;
+	private static final long IDLE_TIMEOUT = 500;
+
+	private final List<FakeRepoTransport> createdRepoTransports = Collections.synchronizedList(new ArrayList<FakeRepoTransport>());
+
+	private RepoTransportPool repoTransportPool;
+	private URL localRootURL;
+	private UUID clientRepositoryId;
+
+	@BeforeClass
+	public static void beforeClass() {
+		System.setProperty(Config.SYSTEM_PROPERTY_PREFIX + RepoTransportPool.CONFIG_KEY_MAX_IDLE_COUNT, Integer.toString(MAX_IDLE_COUNT));
+		System.setProperty(Config.SYSTEM_PROPERTY_PREFIX + RepoTransportPool.CONFIG_KEY_IDLE_TIMEOUT, Long.toString(IDLE_TIMEOUT));
+	}
+
+	@AfterClass
+	public static void afterClass() {
+		System.getProperties().remove(Config.SYSTEM_PROPERTY_PREFIX + RepoTransportPool.CONFIG_KEY_MAX_IDLE_COUNT);
+		System.getProperties().remove(Config.SYSTEM_PROPERTY_PREFIX + RepoTransportPool.CONFIG_KEY_IDLE_TIMEOUT);
+	}
+
+	@Before
+	public void before() throws Exception {
+		repoTransportPool = new RepoTransportPool() {
+			@Override
+			protected RepoTransport createRepoTransport(final URL localRootURL, final UUID clientRepositoryId) {
+				final FakeRepoTransport fakeRepoTransport = new FakeRepoTransport();
+				createdRepoTransports.add(fakeRepoTransport);
+				return fakeRepoTransport.proxy;
+			}
+		};
+		localRootURL = new URL("file:/repo/prefix");
+		clientRepositoryId = UUID.randomUUID();
+	}
+
+	@Test
+	public void returnedTransportIsClearedAndReused() {
+		final RepoTransport repoTransport1 = repoTransportPool.borrowRepoTransport(localRootURL, clientRepositoryId);
+		assertThat(repoTransport1.getRepositoryId()).isNotNull();
+		assertThat(repoTransportPool.getBorrowedCount()).isEqualTo(1);
+		repoTransport1.close();
+		repoTransport1.close(); // no effect
+
+		assertThat(createdRepoTransports.size()).isEqualTo(1);
+		final FakeRepoTransport fakeRepoTransport = createdRepoTransports.get(0);
+		assertThat(fakeRepoTransport.clearCachesCount).isEqualTo(1);
+		assertThat(fakeRepoTransport.closeCount).isEqualTo(0);
+		assertThat(repoTransportPool.getIdleCount()).isEqualTo(1);
+		assertThat(repoTransportPool.getBorrowedCount()).isEqualTo(0);
+
+		try {
+			repoTransport1.getRepositoryId();
+			fail("IllegalStateException expected!");
+		} catch (final IllegalStateException x) {
+			// expected
+		}
+
+		final RepoTransport repoTransport2 = repoTransportPool.borrowRepoTransport(localRootURL, clientRepositoryId);
+		assertThat(repoTransport2).isNotSameAs(repoTransport1);
+		assertThat(repoTransport2.getRepositoryId()).isEqualTo(fakeRepoTransport.repositoryId);
+		assertThat(createdRepoTransports.size()).isEqualTo(1);
+		assertThat(repoTransportPool.getReuseCount()).isEqualTo(1);
+
+		// Another client (or path-prefix) must not get the same transport.
+		final RepoTransport repoTransport3 = repoTransportPool.borrowRepoTransport(localRootURL, UUID.randomUUID());
+		assertThat(createdRepoTransports.size()).isEqualTo(2);
+		assertThat(repoTransport3.getRepositoryId()).isEqualTo(createdRepoTransports.get(1).repositoryId);
+
+		repoTransport2.close();
+		repoTransport3.close();
+		assertThat(repoTransportPool.getBorrowCount()).isEqualTo(3);
+		assertThat(repoTransportPool.toRepoTransportPoolMetricsDto().getIdleCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void failedTransportIsClosed() {
+		final RepoTransport repoTransport = repoTransportPool.borrowRepoTransport(localRootURL, clientRepositoryId);
+		try {
+			repoTransport.delete("/a");
+			fail("UnsupportedOperationException expected!");
+		} catch (final UnsupportedOperationException x) {
+			// expected
+		}
+		repoTransport.close();
+
+		assertThat(createdRepoTransports.get(0).closeCount).isEqualTo(1);
+		assertThat(repoTransportPool.getIdleCount()).isEqualTo(0);
+		assertThat(repoTransportPool.getCloseCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void transportsExceedingMaxIdleCountAreClosed() {
+		final List<RepoTransport> repoTransports = new ArrayList<>();
+		for (int i = 0; i < MAX_IDLE_COUNT + 1; ++i)
+			repoTransports.add(repoTransportPool.borrowRepoTransport(localRootURL, clientRepositoryId));
+
+		for (final RepoTransport repoTransport : repoTransports)
+			repoTransport.close();
+
+		assertThat(repoTransportPool.getIdleCount()).isEqualTo(MAX_IDLE_COUNT);
+		assertThat(getCloseCount()).isEqualTo(1);
+		assertThat(createdRepoTransports.get(MAX_IDLE_COUNT).closeCount).isEqualTo(1); // the last one returned
+
+		repoTransportPool.closeIdleRepoTransports();
+		assertThat(repoTransportPool.getIdleCount()).isEqualTo(0);
+		assertThat(getCloseCount()).isEqualTo(MAX_IDLE_COUNT + 1);
+	}
+
+	@Test
+	public void expiredIdleTransportIsClosed() throws Exception {
+		repoTransportPool.borrowRepoTransport(localRootURL, clientRepositoryId).close();
+		repoTransportPool.closeExpiredIdleRepoTransports();
+		assertThat(repoTransportPool.getIdleCount()).isEqualTo(1);
+		assertThat(getCloseCount()).isEqualTo(0);
+
+		Thread.sleep(IDLE_TIMEOUT + 100);
+		repoTransportPool.closeExpiredIdleRepoTransports();
+		assertThat(repoTransportPool.getIdleCount()).isEqualTo(0);
+		assertThat(getCloseCount()).isEqualTo(1);
+
+		// An evicted transport is never handed out again.
+		final RepoTransport repoTransport = repoTransportPool.borrowRepoTransport(localRootURL, clientRepositoryId);
+		assertThat(createdRepoTransports.size()).isEqualTo(2);
+		assertThat(repoTransport.getRepositoryId()).isEqualTo(createdRepoTransports.get(1).repositoryId);
+		repoTransport.close();
+	}
+
+	private int getCloseCount() {
+		int result = 0;
+		synchronized (createdRepoTransports) {
+			for (final FakeRepoTransport fakeRepoTransport : createdRepoTransports)
+				result += fakeRepoTransport.closeCount;
+		}
+		return result;
+	}
+
+	private static class FakeRepoTransport implements InvocationHandler {
+		public final UUID repositoryId = UUID.randomUUID();
+		public final RepoTransport proxy = (RepoTransport) Proxy.newProxyInstance(
+				getClass().getClassLoader(), new Class<?>[] { RepoTransport.class }, this);
+		public volatile int closeCount;
+		public volatile int clearCachesCount;
+
+		@Override
+		public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "getRepositoryId":
+					return repositoryId;
+				case "clearCaches":
+					++clearCachesCount;
+					return null;
+				case "close":
+					++closeCount;
+					return null;
+				case "toString":
+					return "FakeRepoTransport[" + repositoryId + ']';
+				default:
+					throw new UnsupportedOperationException(method.toString());
+			}
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package co.codewizards.cloudstore.rest.server.auth;
+
+import static co.codewizards.cloudstore.core.chronos.ChronosUtil.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.UUID;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import co.codewizards.cloudstore.core.config.Config;
+import co.codewizards.cloudstore.core.config.ConfigImpl;
+
+public class AuthSessionCacheTest {
+	private static final int MAX_SIZE = 2;
+
+	private AuthSessionCache authSessionCache;
+
+	@BeforeClass
+	public static void beforeClass() {
+		System.setProperty(Config.SYSTEM_PROPERTY_PREFIX + AuthSessionCache.CONFIG_KEY_MAX_SIZE, Integer.toString(MAX_SIZE));
+	}
+
+	@AfterClass
+	public static void afterClass() {
+		System.getProperties().remove(Config.SYSTEM_PROPERTY_PREFIX + AuthSessionCache.CONFIG_KEY_MAX_SIZE);
+	}
+
+	@Before
+	public void before() {
+		authSessionCache = new AuthSessionCache();
+	}
+
+	@Test
+	public void keyDependsOnAllCredentials() {
+		final String key = authSessionCache.getKey("repo", new Auth("user", "secret".toCharArray()));
+		assertThat(authSessionCache.getKey("repo", new Auth("user", "secret".toCharArray()))).isEqualTo(key);
+		assertThat(authSessionCache.getKey("repo", new Auth("user", "Secret".toCharArray()))).isNotEqualTo(key);
+		assertThat(authSessionCache.getKey("repo", new Auth("user2", "secret".toCharArray()))).isNotEqualTo(key);
+		assertThat(authSessionCache.getKey("repo2", new Auth("user", "secret".toCharArray()))).isNotEqualTo(key);
+		assertThat(new AuthSessionCache().getKey("repo", new Auth("user", "secret".toCharArray()))).isNotEqualTo(key); // salted
+	}
+
+	@Test
+	public void getReturnsValidSession() {
+		final AuthSession authSession = newAuthSession(UUID.randomUUID(), authSessionCache.getExpiryTimestamp(Long.MAX_VALUE));
+		authSessionCache.put("k1", authSession);
+		assertThat(authSessionCache.get("k1")).isSameAs(authSession);
+		assertThat(authSessionCache.get("k2")).isNull();
+	}
+
+	@Test
+	public void expiredSessionIsDiscarded() {
+		final AuthSession authSession = newAuthSession(UUID.randomUUID(), authSessionCache.getExpiryTimestamp(nowAsMillis() - 1));
+		authSessionCache.put("k1", authSession);
+		assertThat(authSessionCache.get("k1")).isNull();
+		assertThat(authSessionCache.size()).isEqualTo(0);
+	}
+
+	@Test
+	public void invalidateRemovesSessionsOfClient() {
+		final UUID clientRepositoryId1 = UUID.randomUUID();
+		final AuthSession authSession1 = newAuthSession(clientRepositoryId1, authSessionCache.getExpiryTimestamp(Long.MAX_VALUE));
+		final AuthSession authSession2 = newAuthSession(UUID.randomUUID(), authSessionCache.getExpiryTimestamp(Long.MAX_VALUE));
+		authSessionCache.put("k1", authSession1);
+		authSessionCache.put("k2", authSession2);
+
+		authSessionCache.invalidate(authSession1.getServerRepositoryId(), clientRepositoryId1);
+		assertThat(authSessionCache.get("k1")).isNull();
+		assertThat(authSessionCache.get("k2")).isSameAs(authSession2);
+	}
+
+	@Test
+	public void leastRecentlyUsedSessionIsDiscarded() {
+		final long expiryTimestamp = authSessionCache.getExpiryTimestamp(Long.MAX_VALUE);
+		authSessionCache.put("k1", newAuthSession(UUID.randomUUID(), expiryTimestamp));
+		authSessionCache.put("k2", newAuthSession(UUID.randomUUID(), expiryTimestamp));
+		assertThat(authSessionCache.get("k1")).isNotNull();
+
+		authSessionCache.put("k3", newAuthSession(UUID.randomUUID(), expiryTimestamp));
+		assertThat(authSessionCache.size()).isEqualTo(MAX_SIZE);
+		assertThat(authSessionCache.get("k1")).isNotNull();
+		assertThat(authSessionCache.get("k2")).isNull();
+		assertThat(authSessionCache.get("k3")).isNotNull();
+	}
+
+	private static AuthSession newAuthSession(final UUID clientRepositoryId, final long expiryTimestamp) {
+		return new AuthSession("repo", UUID.randomUUID(), clientRepositoryId, "user", expiryTimestamp,
+				ConfigImpl.getInstance().getVersion());
+	}
+}
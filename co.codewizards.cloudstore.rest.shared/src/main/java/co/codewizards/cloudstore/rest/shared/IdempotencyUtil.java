@@ -0,0 +1,34 @@
+package co.codewizards.cloudstore.rest.shared;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerRequestContext;
+
+/**
+ * Helper for the idempotency-keys sent with non-idempotent requests.
+ * <p>
+ * The client sends the same key with every re-try of one single invocation. This allows the server to detect
+ * a re-try of an invocation which was already executed successfully (e.g. when the connection broke while
+ * sending the response) and to not execute it again.
+ */
+public class IdempotencyUtil {
+	public static final String IDEMPOTENCY_KEY_HEADER = "Cloudstore-Idempotency-Key";
+
+	/**
+	 * Determines whether the given HTTP method requires an idempotency-key.
+	 * <p>
+	 * Reading methods never modify anything on the server, hence they never need a key.
+	 * @param method the HTTP method. May be <code>null</code>.
+	 * @return <code>true</code>, if the method might modify data; <code>false</code> otherwise.
+	 */
+	public static boolean isIdempotencyKeyApplicable(final String method) {
+		return ! (HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method) || HttpMethod.OPTIONS.equals(method));
+	}
+
+	public static String getIdempotencyKey(final ContainerRequestContext requestContext) {
+		final String idempotencyKey = requestContext.getHeaderString(IDEMPOTENCY_KEY_HEADER);
+		if (idempotencyKey == null || idempotencyKey.isEmpty())
+			return null;
+
+		return idempotencyKey;
+	}
+}
@@ -42,6 +42,7 @@ import org.eclipse.jetty.servlet.ServletHolder;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
+import org.eclipse.jetty.util.thread.ThreadPool;
 import org.glassfish.jersey.server.ResourceConfig;
 import org.glassfish.jersey.servlet.ServletContainer;
 import org.slf4j.Logger;
@@ -54,6 +55,9 @@ import ch.qos.logback.core.util.StatusPrinter;
 import co.codewizards.cloudstore.core.Uid;
 import co.codewizards.cloudstore.core.appid.AppIdRegistry;
 import co.codewizards.cloudstore.core.auth.BouncyCastleRegistrationUtil;
+import co.codewizards.cloudstore.core.concurrent.ThreadMode;
+import co.codewizards.cloudstore.core.concurrent.VirtualThreadUtil;
+import co.codewizards.cloudstore.core.config.Config;
 import co.codewizards.cloudstore.core.config.ConfigDir;
 import co.codewizards.cloudstore.core.config.ConfigImpl;
 import co.codewizards.cloudstore.core.oio.File;
@@ -67,12 +71,36 @@ import co.codewizards.cloudstore.rest.server.CloudStoreRest;
 public class CloudStoreServer implements Runnable {
 	public static final String CONFIG_KEY_SECURE_PORT = "server.securePort";
 
+	/**
+	 * The {@code key} for the maximum number of platform threads handling requests.
+	 * <p>
+	 * This is ignored, if {@link ThreadMode#VIRTUAL} is configured via {@link ThreadMode#CONFIG_KEY} (and supported),
+	 * because every request then runs on its own virtual thread.
+	 * <p>
+	 * The configuration can be overridden by a system property - see {@link Config#SYSTEM_PROPERTY_PREFIX}.
+	 */
+	public static final String CONFIG_KEY_MAX_THREADS = "server.maxThreads";
+
+	/**
+	 * The {@code key} for the maximum number of virtual threads handling requests concurrently.
+	 * <p>
+	 * This is only used, if {@link ThreadMode#VIRTUAL} is configured via {@link ThreadMode#CONFIG_KEY} (and supported).
+	 * Additional requests are queued by the {@link VirtualThreadPool}.
+	 * <p>
+	 * The configuration can be overridden by a system property - see {@link Config#SYSTEM_PROPERTY_PREFIX}.
+	 */
+	public static final String CONFIG_KEY_MAX_VIRTUAL_THREADS = "server.maxVirtualThreads";
+
 	private static final Logger logger = LoggerFactory.getLogger(CloudStoreServer.class);
 
 	private static Class<? extends CloudStoreServer> cloudStoreServerClass = CloudStoreServer.class;
 
 	private static final int DEFAULT_SECURE_PORT = 8443;
 
+	private static final int DEFAULT_MAX_THREADS = 500;
+
+	private static final int DEFAULT_MAX_VIRTUAL_THREADS = 2000;
+
 	private static final String CERTIFICATE_ALIAS = "CloudStoreServer";
 	private static final String CERTIFICATE_COMMON_NAME = CERTIFICATE_ALIAS;
 
@@ -315,10 +343,7 @@ public class CloudStoreServer implements Runnable {
 
 	protected Server createServer() {
 		logger.debug("[{}].createServer: securePort={}", instanceId, getSecurePort());
-		final QueuedThreadPool threadPool = new QueuedThreadPool();
-		threadPool.setMaxThreads(500);
-
-		final Server server = new Server(threadPool);
+		final Server server = new Server(createThreadPool());
 		server.addBean(new ScheduledExecutorScheduler());
 
 		final HttpConfiguration http_config = createHttpConfigurationForHTTP();
@@ -361,7 +386,9 @@ public class CloudStoreServer implements Runnable {
 		final ServletContextHandler context = new ServletContextHandler(ServletContextHandler.SESSIONS);
 		context.setContextPath("/");
 		final ServletContainer servletContainer = new ServletContainer(requireNonNull(createResourceConfig(), "createResourceConfig()"));
-		context.addServlet(new ServletHolder(servletContainer), "/*");
+		final ServletHolder servletHolder = new ServletHolder(servletContainer);
+		servletHolder.setAsyncSupported(true); // required by services using AsyncResponse (e.g. ChangeSetDtoService)
+		context.addServlet(servletHolder, "/*");
 //		context.addFilter(GzipFilter.class, "/*", EnumSet.allOf(DispatcherType.class)); // Does not work :-( Using GZip...Interceptor instead ;-)
 		return context;
 	}
@@ -374,6 +401,39 @@ public class CloudStoreServer implements Runnable {
 		return new CloudStoreRest();
 	}
 
+	/**
+	 * Creates the {@link ThreadPool} handling the requests.
+	 * <p>
+	 * Depending on the configured {@link ThreadMode}, this is either a {@link VirtualThreadPool} limited to
+	 * {@link #CONFIG_KEY_MAX_VIRTUAL_THREADS} concurrent tasks or a {@link QueuedThreadPool} limited to
+	 * {@link #CONFIG_KEY_MAX_THREADS} platform threads.
+	 * @return the new {@code ThreadPool}. Never <code>null</code>.
+	 */
+	protected ThreadPool createThreadPool() {
+		final ThreadMode threadMode = VirtualThreadUtil.getThreadMode();
+		logger.info("[{}].createThreadPool: threadMode={}", instanceId, threadMode);
+		if (threadMode == ThreadMode.VIRTUAL) {
+			int maxVirtualThreads = ConfigImpl.getInstance().getPropertyAsInt(CONFIG_KEY_MAX_VIRTUAL_THREADS, DEFAULT_MAX_VIRTUAL_THREADS);
+			if (maxVirtualThreads < 10) {
+				logger.warn("Config key '{}' is set to the value '{}' which is out of range. Falling back to default value {}.",
+						CONFIG_KEY_MAX_VIRTUAL_THREADS, maxVirtualThreads, DEFAULT_MAX_VIRTUAL_THREADS);
+				maxVirtualThreads = DEFAULT_MAX_VIRTUAL_THREADS;
+			}
+			return new VirtualThreadPool("CloudStoreServer.request_", maxVirtualThreads);
+		}
+
+		int maxThreads = ConfigImpl.getInstance().getPropertyAsInt(CONFIG_KEY_MAX_THREADS, DEFAULT_MAX_THREADS);
+		if (maxThreads < 10) {
+			// Jetty needs a few threads for its acceptors and selectors => less than 10 makes no sense.
+			logger.warn("Config key '{}' is set to the value '{}' which is out of range. Falling back to default value {}.",
+					CONFIG_KEY_MAX_THREADS, maxThreads, DEFAULT_MAX_THREADS);
+			maxThreads = DEFAULT_MAX_THREADS;
+		}
+		final QueuedThreadPool threadPool = new QueuedThreadPool();
+		threadPool.setMaxThreads(maxThreads);
+		return threadPool;
+	}
+
 	private ServerConnector createServerConnectorForHTTPS(final Server server, final HttpConfiguration httpConfigurationForHTTPS) {
 		final SslContextFactory sslContextFactory = new SslContextFactory();
 		sslContextFactory.setKeyStorePath(getKeyStoreFile().getPath());
@@ -0,0 +1,161 @@
+package co.codewizards.cloudstore.server;
+
+import static java.util.Objects.*;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import co.codewizards.cloudstore.core.concurrent.ThreadMode;
+import co.codewizards.cloudstore.core.concurrent.VirtualThreadUtil;
+
+/**
+ * Jetty {@link ThreadPool} running every task on a new virtual thread.
+ * <p>
+ * Jetty 9.4 does not support virtual threads itself. This pool is used by the {@link CloudStoreServer}, if
+ * {@link ThreadMode#VIRTUAL} is configured and supported by the JRE. A request waiting for a DB-lock or for
+ * disk-I/O does not occupy an OS thread anymore.
+ * <p>
+ * The number of tasks running concurrently is still limited to {@code maxThreads}, because every request
+ * occupies memory and usually a DB-connection or file-handles. Additional tasks are queued (without blocking the
+ * caller - usually one of Jetty's selectors) and started as soon as a running task completes. While tasks are
+ * queued, the pool is {@linkplain #isLowOnThreads() low on threads}.
+ */
+public class VirtualThreadPool extends AbstractLifeCycle implements ThreadPool {
+	private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPool.class);
+
+	private final String namePrefix;
+	private final int maxThreads;
+	private final Semaphore permits;
+	private final Queue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger threads = new AtomicInteger();
+	private volatile ExecutorService executorService;
+
+	public VirtualThreadPool(final String namePrefix, final int maxThreads) {
+		this.namePrefix = requireNonNull(namePrefix, "namePrefix");
+		if (maxThreads < 1)
+			throw new IllegalArgumentException("maxThreads < 1");
+
+		if (! VirtualThreadUtil.isVirtualThreadSupported())
+			throw new IllegalStateException("Virtual threads are not supported by this JRE!");
+
+		this.maxThreads = maxThreads;
+		this.permits = new Semaphore(maxThreads);
+	}
+
+	public int getMaxThreads() {
+		return maxThreads;
+	}
+
+	/**
+	 * Gets the number of tasks waiting for one of the {@link #getMaxThreads() maxThreads} to become available.
+	 * @return the number of queued tasks.
+	 */
+	public int getQueueSize() {
+		return pendingTasks.size();
+	}
+
+	@Override
+	protected void doStart() throws Exception {
+		executorService = VirtualThreadUtil.createUnboundedExecutorService(null, namePrefix, true);
+		super.doStart();
+	}
+
+	@Override
+	protected void doStop() throws Exception {
+		super.doStop();
+		final ExecutorService es = executorService;
+		if (es != null) {
+			es.shutdown();
+			if (! es.awaitTermination(30, TimeUnit.SECONDS)) {
+				logger.warn("doStop: Tasks still running after 30 seconds! Interrupting them.");
+				es.shutdownNow();
+			}
+		}
+	}
+
+	@Override
+	public void execute(final Runnable task) {
+		requireNonNull(task, "task");
+		if (executorService == null)
+			throw new RejectedExecutionException("Not started!");
+
+		pendingTasks.add(task);
+		startPendingTasks();
+	}
+
+	/**
+	 * Starts queued tasks as long as there are free permits.
+	 * <p>
+	 * This is invoked whenever a task is enqueued and whenever a running task completes (after releasing its
+	 * permit). Thus, a queued task is never left behind: Either a permit is available and it is started, or
+	 * a running task holds the permit and invokes this method again when done.
+	 */
+	private void startPendingTasks() {
+		while (! pendingTasks.isEmpty()) {
+			if (! permits.tryAcquire())
+				return;
+
+			final Runnable task = pendingTasks.poll();
+			if (task == null) {
+				permits.release();
+				continue;
+			}
+
+			final ExecutorService es = executorService;
+			try {
+				if (es == null)
+					throw new RejectedExecutionException("Not started!");
+
+				es.execute(new Runnable() {
+					@Override
+					public void run() {
+						threads.incrementAndGet();
+						try {
+							task.run();
+						} finally {
+							threads.decrementAndGet();
+							permits.release();
+							startPendingTasks();
+						}
+					}
+				});
+			} catch (final RejectedExecutionException x) {
+				permits.release();
+				logger.warn("startPendingTasks: Task rejected: " + x);
+				throw x;
+			}
+		}
+	}
+
+	@Override
+	public void join() throws InterruptedException {
+		final ExecutorService es = executorService;
+		if (es != null)
+			es.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public int getThreads() {
+		return threads.get();
+	}
+
+	@Override
+	public int getIdleThreads() {
+		return 0; // there are no idle virtual threads: every task gets a new one.
+	}
+
+	@Override
+	public boolean isLowOnThreads() {
+		return ! pendingTasks.isEmpty();
+	}
+}
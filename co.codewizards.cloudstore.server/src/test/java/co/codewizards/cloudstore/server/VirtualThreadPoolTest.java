@@ -0,0 +1,82 @@
+package co.codewizards.cloudstore.server;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.Assume.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import co.codewizards.cloudstore.core.concurrent.VirtualThreadUtil;
+
+public class VirtualThreadPoolTest {
+
+	private static final int MAX_THREADS = 3;
+	private static final int TASK_COUNT = 20;
+
+	private VirtualThreadPool threadPool;
+
+	@Before
+	public void before() throws Exception {
+		assumeTrue(VirtualThreadUtil.isVirtualThreadSupported());
+		threadPool = new VirtualThreadPool("VirtualThreadPoolTest_", MAX_THREADS);
+		threadPool.start();
+	}
+
+	@After
+	public void after() throws Exception {
+		if (threadPool != null)
+			threadPool.stop();
+	}
+
+	@Test
+	public void concurrencyIsLimited() throws Exception {
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		final CountDownLatch proceed = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(TASK_COUNT);
+
+		for (int i = 0; i < TASK_COUNT; ++i) {
+			threadPool.execute(new Runnable() {
+				@Override
+				public void run() {
+					final int r = running.incrementAndGet();
+					synchronized (maxRunning) {
+						maxRunning.set(Math.max(maxRunning.get(), r));
+					}
+					try {
+						proceed.await();
+					} catch (final InterruptedException x) {
+						throw new RuntimeException(x);
+					} finally {
+						running.decrementAndGet();
+						done.countDown();
+					}
+				}
+			});
+		}
+
+		// execute(...) did not block, even though only MAX_THREADS tasks can run.
+		for (int i = 0; i < 300 && running.get() < MAX_THREADS; ++i)
+			Thread.sleep(100);
+
+		assertThat(running.get()).isEqualTo(MAX_THREADS);
+		assertThat(threadPool.getQueueSize()).isEqualTo(TASK_COUNT - MAX_THREADS);
+		assertThat(threadPool.isLowOnThreads()).isTrue();
+
+		proceed.countDown();
+		assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+		assertThat(maxRunning.get()).isEqualTo(MAX_THREADS);
+		assertThat(threadPool.getQueueSize()).isEqualTo(0);
+		assertThat(threadPool.isLowOnThreads()).isFalse();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void maxThreadsMustBePositive() {
+		new VirtualThreadPool("VirtualThreadPoolTest_", 0);
+	}
+}
@@ -10,10 +10,13 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Properties;
 
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import co.codewizards.cloudstore.core.config.ConfigImpl;
 import co.codewizards.cloudstore.core.oio.File;
 import co.codewizards.cloudstore.core.progress.LoggerProgressMonitor;
 import co.codewizards.cloudstore.core.progress.NullProgressMonitor;
@@ -27,6 +30,17 @@ public class IgnoreRulesRepoToRepoSyncIT extends AbstractRepoAwareIT
 {
 	private static final Logger logger = LoggerFactory.getLogger(IgnoreRulesRepoToRepoSyncIT.class);
 
+	@BeforeClass
+	public static void ignoreRulesRepoToRepoSyncIT_beforeClass() {
+		// This test modifies properties files behind the back of ConfigImpl and expects this to be noticed immediately.
+		System.setProperty(ConfigImpl.SYSTEM_PROPERTY_REVALIDATION_PERIOD_MILLIS, "0");
+	}
+
+	@AfterClass
+	public static void ignoreRulesRepoToRepoSyncIT_afterClass() {
+		System.clearProperty(ConfigImpl.SYSTEM_PROPERTY_REVALIDATION_PERIOD_MILLIS);
+	}
+
 	@Test
 	public void ignoreRulesExistBeforeAffectedFiles() throws Exception {
 		createLocalAndRemoteRepo();
@@ -5,6 +5,8 @@ import static org.assertj.core.api.Assertions.*;
 
 import java.util.Properties;
 
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,6 +22,17 @@ public class PathPrefixedConfigInheritanceRepoToRepoSyncIT extends AbstractRepoT
 {
 	private static final Logger logger = LoggerFactory.getLogger(PathPrefixedConfigInheritanceRepoToRepoSyncIT.class);
 
+	@BeforeClass
+	public static void pathPrefixedConfigInheritanceRepoToRepoSyncIT_beforeClass() {
+		// This test modifies properties files behind the back of ConfigImpl and expects this to be noticed immediately.
+		System.setProperty(ConfigImpl.SYSTEM_PROPERTY_REVALIDATION_PERIOD_MILLIS, "0");
+	}
+
+	@AfterClass
+	public static void pathPrefixedConfigInheritanceRepoToRepoSyncIT_afterClass() {
+		System.clearProperty(ConfigImpl.SYSTEM_PROPERTY_REVALIDATION_PERIOD_MILLIS);
+	}
+
 	@Test
 	public void parentConfigWithRemotePathPrefix() throws Exception {
 		remotePathPrefix = "/2/1 {11 11ä11#+} 1";